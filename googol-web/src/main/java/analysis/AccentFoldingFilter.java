@@ -0,0 +1,38 @@
+package analysis;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Remove acentos e outros diacríticos (ex: "ação" -> "acao", "Coimbrã" -> "coimbra").
+ * <p>
+ * O token é decomposto (NFD) e as marcas combinantes são apagadas. Tokens só com ASCII
+ * são devolvidos sem alterações, sem passar pelo {@link Normalizer}.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class AccentFoldingFilter implements TokenFilter {
+
+    /**
+     * Marcas combinantes (acentos, til, cedilha...) resultantes da decomposição.
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    @Override
+    public String filter(String token) {
+        if (isAscii(token)) return token;
+        return MARKS.matcher(Normalizer.normalize(token, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Verifica se todos os caracteres são ASCII.
+     */
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F) return false;
+        }
+        return true;
+    }
+}
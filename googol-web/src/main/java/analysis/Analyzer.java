@@ -0,0 +1,122 @@
+package analysis;
+
+import adaptivestopwords.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cadeia de análise de texto partilhada pela indexação e pelas pesquisas.
+ * <p>
+ * O texto é dividido em palavras pelo {@link Tokenizer} e cada palavra passa pelas etapas
+ * configuradas ({@link TokenFilter}), por ordem. A cadeia por omissão ({@link #standard()}) faz:
+ * minúsculas, remoção de acentos e redução de plurais, para que "Coimbra,", "coimbra" e "Coimbrã"
+ * ou "ações" e "ação" deem o mesmo termo.
+ * </p>
+ * <p>
+ * O Downloader, o Barrel e o serviço web usam todos a mesma cadeia; o stemmer é escolhido pela
+ * propriedade {@code googol.analysis.stemmer} ({@code pt}, {@code en} ou {@code none}), que tem de
+ * ter o mesmo valor em todos os processos. Alterá-la obriga a reindexar.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class Analyzer {
+
+    /**
+     * Stemmer da cadeia por omissão ({@code -Dgoogol.analysis.stemmer}).
+     */
+    private static final String STEMMER = System.getProperty("googol.analysis.stemmer", "pt");
+
+    /**
+     * Cadeia por omissão, partilhada (as etapas não têm estado).
+     */
+    private static final Analyzer STANDARD = new Analyzer(defaultFilters());
+
+    /**
+     * Divide o texto em palavras.
+     */
+    private final Tokenizer tokenizer = new Tokenizer();
+
+    /**
+     * Etapas aplicadas a cada palavra, por ordem.
+     */
+    private final List<TokenFilter> filters;
+
+    /**
+     * Cria uma cadeia com as etapas indicadas.
+     *
+     * @param filters Etapas, pela ordem em que são aplicadas.
+     */
+    public Analyzer(List<TokenFilter> filters) {
+        this.filters = List.copyOf(filters);
+    }
+
+    /**
+     * Obtém a cadeia por omissão (minúsculas, acentos e stemmer configurado).
+     *
+     * @return O Analyzer partilhado.
+     */
+    public static Analyzer standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Cria uma cadeia igual a esta que também descarta as stop words indicadas.
+     *
+     * @param stopWords Stop words (termos já analisados).
+     * @return Nova cadeia.
+     */
+    public Analyzer withStopWords(Set<String> stopWords) {
+        List<TokenFilter> chain = new ArrayList<>(filters);
+        chain.add(new StopFilter(stopWords));
+        return new Analyzer(chain);
+    }
+
+    /**
+     * Divide um texto em termos analisados.
+     *
+     * @param text Texto original (página ou termo de pesquisa).
+     * @return Termos, pela ordem do texto (com repetições). Vazia se não sobrar nenhum.
+     */
+    public List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenizer.tokenize(text)) {
+            String term = term(token);
+            if (term != null) terms.add(term);
+        }
+        return terms;
+    }
+
+    /**
+     * Aplica as etapas da cadeia a uma única palavra, já separada pelo {@link Tokenizer}.
+     *
+     * @param token Palavra.
+     * @return O termo analisado, ou null se alguma etapa o descartar.
+     */
+    public String term(String token) {
+        String t = token;
+        for (TokenFilter f : filters) {
+            if (t == null || t.isEmpty()) return null;
+            t = f.filter(t);
+        }
+        return t == null || t.isEmpty() ? null : t;
+    }
+
+    /**
+     * Constrói as etapas da cadeia por omissão.
+     */
+    private static List<TokenFilter> defaultFilters() {
+        List<TokenFilter> chain = new ArrayList<>();
+        chain.add(new LowerCaseFilter());
+        chain.add(new AccentFoldingFilter());
+        switch (STEMMER.toLowerCase()) {
+            case "en" -> chain.add(new EnglishLightStemmer());
+            case "none" -> { }
+            default -> chain.add(new PortugueseLightStemmer());
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,41 @@
+package analysis;
+
+/**
+ * Stemmer leve para inglês: reduz plurais ao singular ("S-stemmer" de Harman).
+ * <ul>
+ * <li>"-ies" -> "-y", exceto "-eies" e "-aies" (queries -> query)</li>
+ * <li>"-es" -> "-e", exceto "-aes", "-ees" e "-oes" (pages -> page)</li>
+ * <li>"-s" -> sem "-s", exceto "-us" e "-ss" (links -> link)</li>
+ * </ul>
+ * <p>
+ * Só a primeira regra cuja terminação coincide é considerada. Palavras com menos de
+ * {@value #MIN_LENGTH} letras não são alteradas.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class EnglishLightStemmer implements TokenFilter {
+
+    /**
+     * Tamanho mínimo de uma palavra para ser reduzida.
+     */
+    private static final int MIN_LENGTH = 4;
+
+    @Override
+    public String filter(String token) {
+        int len = token.length();
+        if (len < MIN_LENGTH || token.charAt(len - 1) != 's') return token;
+
+        if (token.endsWith("ies")) {
+            if (token.endsWith("eies") || token.endsWith("aies")) return token;
+            return token.substring(0, len - 3) + "y";
+        }
+        if (token.endsWith("es")) {
+            if (token.endsWith("aes") || token.endsWith("ees") || token.endsWith("oes")) return token;
+            return token.substring(0, len - 1);
+        }
+        if (token.endsWith("us") || token.endsWith("ss")) return token;
+        return token.substring(0, len - 1);
+    }
+}
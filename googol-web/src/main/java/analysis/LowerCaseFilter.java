@@ -0,0 +1,17 @@
+package analysis;
+
+import java.util.Locale;
+
+/**
+ * Normalização: converte o token para minúsculas (independente da língua do sistema).
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class LowerCaseFilter implements TokenFilter {
+
+    @Override
+    public String filter(String token) {
+        return token.toLowerCase(Locale.ROOT);
+    }
+}
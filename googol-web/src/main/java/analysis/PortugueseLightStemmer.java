@@ -0,0 +1,68 @@
+package analysis;
+
+import java.util.Set;
+
+/**
+ * Stemmer leve para português: reduz plurais ao singular.
+ * <p>
+ * Ao contrário de um stemmer completo (ex: RSLP), só trata as terminações de plural, o que junta
+ * as formas mais frequentes com poucas colisões entre palavras de significado diferente. Deve ser
+ * aplicado depois do {@link AccentFoldingFilter}, pelo que as regras usam as terminações sem acentos.
+ * Palavras terminadas em "s" que não são plurais (lista de exceções do passo de plural do RSLP, ex:
+ * mais, depois, lápis) e os singulares em "-ês" (português, inglês) não são alteradas; os plurais
+ * em "-eses" perdem apenas o "-es" (portugueses -> portugues), juntando-se ao singular:
+ * </p>
+ * <ul>
+ * <li>"-oes", "-aes" -> "-ao" (ações -> acao, pães -> pao)</li>
+ * <li>"-ais", "-eis", "-ois" -> "-al", "-el", "-ol" (jornais -> jornal, papéis -> papel)</li>
+ * <li>"-ns" -> "-m" (homens -> homem)</li>
+ * <li>"-res", "-les", "-zes", "-ses" -> sem "-es" (flores -> flor, luzes -> luz)</li>
+ * <li>"-s" -> sem "-s", exceto "-ss" e "-us" (cidades -> cidade)</li>
+ * </ul>
+ * <p>
+ * Palavras com menos de {@value #MIN_LENGTH} letras não são alteradas.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class PortugueseLightStemmer implements TokenFilter {
+
+    /**
+     * Tamanho mínimo de uma palavra para ser reduzida.
+     */
+    private static final int MIN_LENGTH = 4;
+
+    /**
+     * Palavras terminadas em "s" que não são plurais (sem acentos): exceções do passo de plural do
+     * RSLP e singulares em "-ês" frequentes.
+     */
+    private static final Set<String> EXCEPTIONS = Set.of(
+            // Exceções do RSLP
+            "alias", "pires", "lapis", "cais", "mais", "menos", "ferias", "fezes", "pesames", "crucis",
+            "atras", "moises", "atraves", "conves", "pais", "apos", "ambas", "ambos", "messias", "depois",
+            "dois", "pois", "seis", "tres", "jamais", "demais", "simples", "oasis", "tenis", "biquinis",
+            // Singulares em "-ês" (o plural "-eses" é reduzido a estas formas)
+            "portugues", "ingles", "frances", "japones", "chines", "holandes", "escoces", "irlandes",
+            "dinamarques", "finlandes", "polones", "libanes", "genoves", "milanes", "campones", "fregues",
+            "burgues", "marques", "inves");
+
+    @Override
+    public String filter(String token) {
+        int len = token.length();
+        if (len < MIN_LENGTH || token.charAt(len - 1) != 's') return token;
+        if (EXCEPTIONS.contains(token)) return token;
+
+        if (token.endsWith("oes") || token.endsWith("aes")) return token.substring(0, len - 3) + "ao";
+        if (token.endsWith("ais")) return token.substring(0, len - 2) + "l";
+        if (token.endsWith("eis") && len > MIN_LENGTH) return token.substring(0, len - 2) + "l";
+        if (token.endsWith("ois")) return token.substring(0, len - 2) + "l";
+        if (token.endsWith("ns")) return token.substring(0, len - 2) + "m";
+        if (token.endsWith("es") && len > MIN_LENGTH) {
+            char c = token.charAt(len - 3);
+            if (c == 'r' || c == 'l' || c == 'z' || c == 's') return token.substring(0, len - 2);
+        }
+        if (token.endsWith("ss") || token.endsWith("us")) return token;
+        return token.substring(0, len - 1);
+    }
+}
@@ -0,0 +1,35 @@
+package analysis;
+
+import java.util.Set;
+
+/**
+ * Descarta os tokens que são stop words.
+ * <p>
+ * As stop words aprendidas pelo serviço {@code AdaptiveStopWords} já são termos analisados,
+ * por isso este filtro deve ser o último da cadeia.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class StopFilter implements TokenFilter {
+
+    /**
+     * Stop words (termos analisados).
+     */
+    private final Set<String> stopWords;
+
+    /**
+     * Construtor do filtro.
+     *
+     * @param stopWords Conjunto de stop words.
+     */
+    public StopFilter(Set<String> stopWords) {
+        this.stopWords = stopWords;
+    }
+
+    @Override
+    public String filter(String token) {
+        return stopWords.contains(token) ? null : token;
+    }
+}
@@ -0,0 +1,22 @@
+package analysis;
+
+/**
+ * Etapa de uma cadeia de análise: transforma (ou descarta) um token.
+ * <p>
+ * As etapas são aplicadas por ordem pelo {@link Analyzer}, tanto na indexação como nas pesquisas,
+ * para que as duas produzam exatamente os mesmos termos.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public interface TokenFilter {
+
+    /**
+     * Processa um token.
+     *
+     * @param token Token produzido pela etapa anterior (nunca vazio).
+     * @return O token transformado, ou null para o descartar.
+     */
+    String filter(String token);
+}
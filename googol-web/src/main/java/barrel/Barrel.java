@@ -1,27 +1,52 @@
 package barrel;
 
+import analysis.Analyzer;
+import common.BacklinkPage;
+import common.BarrelMetrics;
+import common.ContentHash;
+import common.LatencyHistogram;
+import common.MemoryUsage;
 import common.PageData;
+import common.SimHash;
+import common.SlowQuery;
 import common.UrlMetadata;
 import downloader.IDownloader;
 import gateway.IGateway;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.net.InetAddress;
+import java.net.URI;
+
+import static barrel.MemoryAccountant.Component.*;
 
 /**
  * Implementação do nó de armazenamento (Barrel) do motor de busca.
  * <p>
  * Esta classe gere três estruturas de dados principais:
  * <ul>
+ * <li><b>Dicionário de URLs:</b> Atribui a cada URL um docID compacto, usado por todas as outras estruturas.</li>
  * <li><b>Índice Invertido:</b> Mapeia palavras para URLs.</li>
  * <li><b>Links de Entrada:</b> Mapeia URLs para quem aponta para eles (para ranking).</li>
  * <li><b>Metadados:</b> Guarda títulos e citações para exibição rápida.</li>
+ * <li><b>Índice Direto:</b> Mapeia cada URL para os seus termos e links, para remover entradas obsoletas em re-crawls.</li>
+ * <li><b>Documentos:</b> Tokens de cada página, comprimidos em disco, para gerar excertos da pesquisa.</li>
  * </ul>
  * <p>
+ * Se existir um snapshot do índice ({@link IndexSnapshot}), as estruturas acima guardam apenas as
+ * alterações posteriores: o snapshot é mapeado em modo de leitura e partilhado, através da page cache
+ * do sistema operativo, por todos os Barrels do mesmo host. As páginas do snapshot que voltam a ser
+ * armazenadas ficam "sombreadas" e passam a ser servidas pelas estruturas em memória.
+ * </p>
+ * <p>
  * O Barrel possui também lógica de sincronização automática ao iniciar (copia dados de pares existentes)
  * e reporta o seu estado e carga ao Gateway.
  * </p>
@@ -33,19 +58,215 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
 
     // Estruturas de Dados
     /**
-     * Estrutura principal de pesquisa: Termo -> Conjunto de URLs que o contêm.
+     * Dicionário de URLs (ordenado e com front coding): URL <-> docID.
+     * Todas as estruturas abaixo referem-se aos URLs pelo seu docID.
+     */
+    private final UrlDictionary urls;
+
+    /**
+     * Snapshot do índice mapeado em memória (só de leitura), ou null se não existir.
+     * Os docIDs {@code 0 .. snapshot.docCount()-1} são os do snapshot.
+     */
+    private final IndexSnapshot snapshot;
+
+    /**
+     * docIDs do snapshot cuja versão foi substituída por uma versão em memória
+     * (página armazenada de novo ou sincronizada com conteúdo diferente).
+     */
+    private final BitSet shadowed = new BitSet();
+
+    /**
+     * Links de entrada do snapshot que deixaram de contar, por destino: origens sombreadas
+     * cujas ligações antigas já não existem (as novas estão em {@link #incomingLinks}).
+     */
+    private final Map<Integer, Integer> lostInDegree = new HashMap<>();
+
+    /**
+     * Número de termos do índice em memória que não existem no snapshot.
+     */
+    private int heapOnlyTerms = 0;
+
+    /**
+     * Estrutura principal de pesquisa: Termo -> docIDs (ordenados) das páginas que o contêm.
+     */
+    private final Map<String, PostingList> invertedIndex = new HashMap<>();
+
+    /**
+     * Índice de domínios: host (e cada sufixo com pelo menos um ponto, ex: "www.uc.pt" e "uc.pt")
+     * -> docIDs (ordenados) das páginas desse domínio. Usado pelo operador {@code site:}.
+     */
+    private final Map<String, PostingList> hostIndex = new HashMap<>();
+
+    /**
+     * Grafo de ligações comprimido: docID Destino -> docIDs Origem. Usado para ranking.
+     */
+    private final LinkGraph incomingLinks = new LinkGraph();
+
+    /**
+     * Armazenamento de informação de exibição: docID -> (Título, Citação).
+     * Mantido em ordem de acesso para que as entradas mais frias sejam as primeiras a ir para disco.
+     */
+    private final Map<Integer, UrlMetadata> pageMetadata = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Índice direto: docID -> termos com que a página foi indexada pela última vez.
+     * Permite calcular a diferença quando a página é armazenada de novo.
+     */
+    private final Map<Integer, String[]> forwardTerms = new HashMap<>();
+
+    /**
+     * Índice direto de ligações: docID Origem -> docIDs Destino na última versão da página.
+     */
+    private final Map<Integer, int[]> forwardLinks = new HashMap<>();
+
+    /**
+     * Impressões SimHash das páginas indexadas, para detetar quase-duplicados.
+     */
+    private final NearDuplicateIndex nearDuplicates = new NearDuplicateIndex(SimHash.MAX_DISTANCE);
+
+    /**
+     * Páginas quase-duplicadas (não indexadas): docID duplicado -> docID canónico.
+     */
+    private final Map<Integer, Integer> duplicateOf = new HashMap<>();
+
+    /**
+     * Impressão do conteúdo e último momento em que cada página foi recebida.
+     * Permite ignorar páginas que voltam a ser descarregadas sem alterações.
+     */
+    private final PageVersions versions = new PageVersions();
+
+    /**
+     * Capacidade da cache de resultados (configurável via {@code -Dgoogol.cache.size}).
+     */
+    private static final int CACHE_CAPACITY = Integer.getInteger("googol.cache.size", 1000);
+
+    /**
+     * Número máximo de escritas que um resultado em cache pode sobreviver no modo PER_TERM.
+     */
+    private static final long CACHE_MAX_STALE_GENERATIONS = 500;
+
+    /**
+     * Cache de resultados de pesquisa, invalidada pela geração do índice.
+     * O modo de invalidação é configurável via {@code -Dgoogol.cache.mode} (GLOBAL ou PER_TERM).
+     */
+    private final QueryCache queryCache = new QueryCache(
+            CACHE_CAPACITY,
+            QueryCache.InvalidationMode.valueOf(System.getProperty("googol.cache.mode", "PER_TERM").toUpperCase()),
+            CACHE_MAX_STALE_GENERATIONS);
+
+    /**
+     * Diretório base para ficheiros de dados (configurável via {@code -Dgoogol.data.dir}).
+     */
+    private static final String DATA_DIR = System.getProperty("googol.data.dir", "data");
+
+    /**
+     * Ficheiro do snapshot partilhado do índice (configurável via {@code -Dgoogol.snapshot.file}).
+     * É aberto no arranque se existir, e escrito com o comando de consola "snapshot".
+     */
+    private static final Path SNAPSHOT_FILE = Path.of(System.getProperty("googol.snapshot.file",
+            Path.of(DATA_DIR, "index.snapshot").toString()));
+
+    /**
+     * Número de palavras dos excertos gerados para os resultados.
+     */
+    private static final int SNIPPET_WORDS = 20;
+
+    /**
+     * Prefixo do operador de pesquisa restrita a um domínio (ex: "site:uc.pt").
      */
-    private final Map<String, Set<String>> invertedIndex = new HashMap<>();
+    private static final String SITE_PREFIX = "site:";
 
     /**
-     * Grafo de ligações: URL Destino -> Conjunto de URLs Origem. Usado para ranking.
+     * Tokens de cada página, comprimidos em disco. Usado para gerar excertos dependentes da pesquisa.
+     * Pode ser null se o ficheiro de dados não puder ser criado (usa-se então a citação fixa).
      */
-    private final Map<String, Set<String>> incomingLinks = new HashMap<>();
+    private DocumentStore documentStore;
 
     /**
-     * Armazenamento de informação de exibição: URL -> (Título, Citação).
+     * Motor que escolhe a melhor janela de texto em torno dos termos pesquisados.
      */
-    private final Map<String, UrlMetadata> pageMetadata = new HashMap<>();
+    private final SnippetEngine snippetEngine = new SnippetEngine(SNIPPET_WORDS, Analyzer.standard());
+
+    /**
+     * Cadeia de análise partilhada com o Downloader e o serviço web: define os termos indexados
+     * e os termos pesquisados.
+     */
+    private final Analyzer analyzer = Analyzer.standard();
+
+    /**
+     * Número de docIDs (somando as listas de todos os termos) a partir do qual uma pesquisa é dividida
+     * por vários cores. Configurável com {@code -Dgoogol.search.parallel.threshold}.
+     */
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("googol.search.parallel.threshold", 65536);
+
+    /**
+     * Execução das pesquisas (top-k por intervalos de docIDs, em paralelo para pesquisas grandes).
+     */
+    private final ParallelSearch parallelSearch = new ParallelSearch(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+
+    /**
+     * Tempo (ms) a partir do qual uma pesquisa é registada como lenta ({@code -Dgoogol.slowquery.ms}).
+     */
+    private static final long SLOW_QUERY_MS = Long.getLong("googol.slowquery.ms", 100);
+
+    /**
+     * Número de pesquisas lentas guardadas.
+     */
+    private static final int SLOW_QUERY_CAPACITY = 64;
+
+    // Métricas de latência (µs), medidas dentro do Barrel
+    /**
+     * Latência das pesquisas (incluindo as servidas pela cache).
+     */
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    /**
+     * Latência do armazenamento de páginas (sem o envio de estatísticas ao Gateway).
+     */
+    private final LatencyHistogram storeLatency = new LatencyHistogram();
+
+    /**
+     * Latência das sincronizações com outros Barrels.
+     */
+    private final LatencyHistogram syncLatency = new LatencyHistogram();
+
+    /**
+     * Últimas pesquisas lentas, com o tempo de cada fase.
+     */
+    private final SlowQueryLog slowQueries = new SlowQueryLog(SLOW_QUERY_CAPACITY, SLOW_QUERY_MS * 1000);
+
+    /**
+     * Orçamento de memória para as estruturas do Barrel, em MB (configurável via {@code -Dgoogol.heap.budget.mb}).
+     * Por omissão, 70% do heap máximo da JVM.
+     */
+    private static final long HEAP_BUDGET_MB = Long.getLong("googol.heap.budget.mb",
+            (long) (Runtime.getRuntime().maxMemory() * 0.7) / (1024 * 1024));
+
+    /**
+     * Fração do orçamento até à qual se movem metadados para disco quando o orçamento é excedido.
+     */
+    private static final double SPILL_TARGET = 0.9;
+
+    /**
+     * Fração do orçamento abaixo da qual o Barrel deixa de se considerar saturado.
+     */
+    private static final double SATURATION_RELEASE = 0.8;
+
+    /**
+     * Estimativa incremental da memória ocupada pelas estruturas de dados.
+     */
+    private final MemoryAccountant memory = new MemoryAccountant(HEAP_BUDGET_MB * 1024 * 1024);
+
+    /**
+     * Metadados movidos para disco quando o orçamento de memória é excedido.
+     * Pode ser null se o ficheiro não puder ser criado (o Barrel fica então sem proteção).
+     */
+    private MetadataSpillStore metadataSpill;
+
+    /**
+     * Indica se o Barrel excedeu o orçamento de memória (reportado ao Gateway).
+     */
+    private boolean saturated = false;
 
     /**
      * Referência para o Gateway central.
@@ -70,8 +291,33 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
      * @throws RemoteException Se ocorrer erro na exportação RMI.
      */
     public Barrel(String name) throws RemoteException {
+        this(name, SNAPSHOT_FILE, Path.of(DATA_DIR, name));
+    }
+
+    /**
+     * Construtor com os ficheiros indicados explicitamente, em vez das propriedades do sistema.
+     *
+     * @param name O nome identificador do Barrel.
+     * @param snapshotFile Ficheiro do snapshot partilhado (aberto se existir).
+     * @param dataDir Diretório dos ficheiros de dados deste Barrel.
+     * @throws RemoteException Se ocorrer erro na exportação RMI.
+     */
+    Barrel(String name, Path snapshotFile, Path dataDir) throws RemoteException {
         super();
         this.name = name;
+        this.snapshot = openSnapshot(snapshotFile);
+        this.urls = new UrlDictionary(snapshot);
+        try {
+            this.documentStore = new DocumentStore(dataDir.resolve("documents.dat"));
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Armazenamento de documentos indisponível: " + e.getMessage());
+        }
+        try {
+            this.metadataSpill = new MetadataSpillStore(dataDir.resolve("metadata-spill.dat"));
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Armazenamento de metadados em disco indisponível: " + e.getMessage());
+        }
+        System.out.println("[" + name + "] Kernel de postings: " + PostingKernels.get().name());
     }
 
     // =========================================================================
@@ -82,34 +328,88 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
      * Armazena uma página recebida de um Downloader.
      * <p>
      * Se o Barrel não estiver ativo (ainda em sincronização), o pedido é ignorado.
-     * Caso contrário, atualiza todas as estruturas de dados e notifica o Gateway com novas estatísticas.
+     * Se a impressão do conteúdo for igual à guardada, só é atualizado o momento da visita. Um
+     * resumo só é aceite se for dessa mesma versão ou, trazendo a impressão SimHash, quase-duplicado
+     * de uma página indexada aqui; senão é recusado, para o Downloader enviar a página completa. Caso contrário, atualiza todas as estruturas de dados e notifica o Gateway com novas
+     * estatísticas.
      * </p>
      *
      * @param page Dados da página a armazenar.
+     * @return false se for um resumo e o Barrel precisar da página completa.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
-    public synchronized void storePage(PageData page) throws RemoteException {
+    public synchronized boolean storePage(PageData page) throws RemoteException {
         if (!isActive) {
             System.out.println("[" + name + "] Em modo Synching/ReadOnly. Ignorando storePage().");
-            return;
+            return true;
+        }
+
+        long startNanos = System.nanoTime();
+
+        // Conteúdo igual ao já indexado neste Barrel: só se atualiza o momento em que a página foi vista
+        int known = urls.lookup(page.getUrl());
+        if (page.getContentHash() != ContentHash.UNKNOWN && contentHash(known) == page.getContentHash()) {
+            touchPage(known, page);
+            storeLatency.record((System.nanoTime() - startNanos) / 1000);
+            return true;
         }
+        // Um resumo só serve se for quase-duplicado (pela impressão SimHash) de uma página indexada aqui
+        int stubCanonical = page.hasFingerprint() ? nearDuplicates.findNear(page.getFingerprint(), known) : -1;
+        if (page.isStub() && stubCanonical < 0) {
+            System.out.println("[" + name + "] Versão desconhecida, a pedir a página completa: " + page.getUrl());
+            return false;
+        }
+
+        int docId = urls.getOrAdd(page.getUrl());
+        // Nova versão de uma página do snapshot: passa a ser servida pelas estruturas em memória
+        boolean wasInSnapshot = inSnapshot(docId);
+        if (wasInSnapshot) shadow(docId);
+        Set<String> terms = extractTerms(page);
+        long dedupBytes = nearDuplicates.estimatedBytes() + versions.estimatedBytes();
+
+        // Quase-duplicados de páginas indexadas neste Barrel não são indexados
+        boolean comparable = !page.isStub() && SimHash.applies(terms.size());
+        long fingerprint = comparable ? SimHash.of(terms) : 0L;
+        int canonical = page.isStub() ? stubCanonical : comparable ? nearDuplicates.findNear(fingerprint, docId) : -1;
+
+        Set<String> changedTerms;
+        if (canonical >= 0 && canonical != docId) {
+            changedTerms = storeDuplicate(docId, canonical, page);
+        } else {
+            if (duplicateOf.remove(docId) != null) memory.add(FORWARD_INDEX, -DUPLICATE_BYTES);
+            if (comparable) nearDuplicates.put(docId, fingerprint);
+            else nearDuplicates.remove(docId);
+            saveMetadata(docId, page);
+            saveDocument(docId, page);
+            changedTerms = updateInvertedIndex(docId, terms);
+            changedTerms.addAll(updateHostIndex(docId, page.getUrl()));
+            updateIncomingLinks(docId, page);
+            System.out.println("[" + name + "] Página armazenada: " + page.getUrl());
+        }
+        versions.set(docId, page.getContentHash(), System.currentTimeMillis());
+        memory.add(FORWARD_INDEX, nearDuplicates.estimatedBytes() + versions.estimatedBytes() - dedupBytes);
+        memory.set(URL_DICTIONARY, urls.estimatedBytes());
 
-        saveMetadata(page);
-        updateInvertedIndex(page);
-        updateIncomingLinks(page);
+        // Avança a geração do índice e invalida os resultados em cache afetados
+        // (termos novos e termos que deixaram de existir na página).
+        // Os termos antigos de uma página do snapshot não são conhecidos: limpa-se a cache.
+        if (wasInSnapshot) queryCache.clear();
+        else queryCache.onPageStored(changedTerms);
 
-        System.out.println("[" + name + "] Página armazenada: " + page.getUrl());
+        enforceMemoryBudget();
+        storeLatency.record((System.nanoTime() - startNanos) / 1000);
 
         // Atualiza estatísticas reais pois está ativo
         sendStatsToGateway("ACTIVE");
+        return true;
     }
 
     /**
      * Executa a lógica de pesquisa completa.
      * <p>
-     * 1. Faz parse dos termos e deteta tags de paginação [PAGE:X].<br>
-     * 2. Recupera URLs do índice invertido.<br>
+     * 1. Faz parse dos termos e deteta tags de paginação [PAGE:X] e operadores {@code site:}.<br>
+     * 2. Recupera URLs do índice invertido (restritos aos domínios pedidos, se existirem).<br>
      * 3. Ordena os resultados com base no número de incoming links (relevância).<br>
      * 4. Aplica a paginação (ex: retorna apenas resultados 11-20).<br>
      * 5. Inclui um metadado especial "##META_STATS##" com o total real de resultados.
@@ -122,6 +422,7 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     @Override
     public synchronized Map<String, UrlMetadata> search(List<String> terms) throws RemoteException {
         if (!isActive) return new HashMap<>();
+        long startNanos = System.nanoTime();
 
         // 1. Lógica de Paginação (Parse do [PAGE:X])
         int page = 1;
@@ -144,40 +445,86 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
             }
         }
 
-        // 2. Coletar TODOS os resultados (Sem duplicados)
-        Set<String> uniqueUrls = new HashSet<>();
-        for (String term : realTerms) {
-            Set<String> urls = invertedIndex.get(term.toLowerCase());
-            if (urls != null) {
-                uniqueUrls.addAll(urls);
+        // Termos analisados como na indexação ("Coimbra," -> "coimbra"); domínios normalizados,
+        // para coincidirem com as chaves invalidadas em storePage
+        List<String> queryTerms = new ArrayList<>();
+        for (String t : realTerms) {
+            if (t.toLowerCase().startsWith(SITE_PREFIX)) {
+                queryTerms.add(SITE_PREFIX + normalizeHost(t.substring(SITE_PREFIX.length())));
+            } else {
+                queryTerms.addAll(analyzer.analyze(t));
             }
         }
 
-        // 3. Converter para Lista para poder ORDENAR
-        List<String> sortedUrls = new ArrayList<>(uniqueUrls);
+        // 1.1 Consultar a cache de resultados
+        List<String> cacheKey = QueryCache.normalize(queryTerms);
+        Map<String, UrlMetadata> cached = queryCache.get(cacheKey, page);
+        if (cached != null) {
+            System.out.println("[" + name + "] Pesquisa por " + realTerms + " (Pag " + page + ") servida pela cache.");
+            searchLatency.record((System.nanoTime() - startNanos) / 1000);
+            return cached;
+        }
+        long parsedNanos = System.nanoTime();
 
-        // AQUI ESTÁ A ORDENAÇÃO: Quem tem mais incomingLinks fica em primeiro
-        sortedUrls.sort((url1, url2) -> {
-            int count1 = incomingLinks.getOrDefault(url1, Collections.emptySet()).size();
-            int count2 = incomingLinks.getOrDefault(url2, Collections.emptySet()).size();
-            return Integer.compare(count2, count1); // Ordem Decrescente
-        });
+        // 2. Coletar TODOS os resultados (Sem duplicados)
+        // Os termos "site:dominio" não são palavras: restringem o resultado às páginas do domínio.
+        // As listas são lidas através de vistas (sem cópia); as páginas sombreadas do snapshot são
+        // saltadas durante a leitura.
+        List<PostingView> postings = new ArrayList<>();
+        List<PostingView> sites = new ArrayList<>();
+        boolean siteRequested = false;
+        for (String term : cacheKey) {
+            if (term.startsWith(SITE_PREFIX)) {
+                siteRequested = true;
+                String host = term.substring(SITE_PREFIX.length());
+                PostingList ids = hostIndex.get(host);
+                if (ids != null) sites.add(ids.view());
+                if (snapshot != null) {
+                    PostingView mapped = snapshotView(snapshot.hostPostings(host));
+                    if (mapped != null) sites.add(mapped);
+                }
+                continue;
+            }
+            PostingList ids = invertedIndex.get(term);
+            if (ids != null) postings.add(ids.view());
+            if (snapshot != null) {
+                PostingView mapped = snapshotView(snapshot.termPostings(term));
+                if (mapped != null) postings.add(mapped);
+            }
+        }
+        PostingView siteFilter = siteRequested ? union(sites) : null;
+        if (siteFilter != null && cacheKey.stream().allMatch(t -> t.startsWith(SITE_PREFIX))) {
+            // Só "site:": todas as páginas do domínio
+            postings.add(siteFilter);
+            siteFilter = null;
+        }
+        long postingsNanos = System.nanoTime();
+        // 3. ORDENAÇÃO: Quem tem mais incomingLinks fica em primeiro (empate: docID mais antigo)
+        // Só são mantidos os resultados até ao fim da página pedida; pesquisas grandes usam vários cores.
+        int start = (page - 1) * pageSize;
+        ParallelSearch.Result result = parallelSearch.search(postings, siteFilter, this::rankKey, Math.max(0, start + pageSize));
+        int[] sortedIds = result.getTopIds();
+        long scoredNanos = System.nanoTime();
 
         // 4. Calcular Paginação e TOTAL REAL
-        int totalReal = sortedUrls.size(); // <--- Guardamos o total aqui!
-        int start = (page - 1) * pageSize;
-        int end = Math.min(start + pageSize, totalReal);
+        int totalReal = result.getTotal(); // <--- Guardamos o total aqui!
+        int end = Math.min(start + pageSize, sortedIds.length);
 
         Map<String, UrlMetadata> pageResults = new LinkedHashMap<>();
 
         // 5. Construir o Mapa apenas com os 10 itens vencedores
-        // Só entramos no loop se a página pedida for válida
-        if (start < totalReal && start >= 0) {
+        // Só entramos no loop se a página pedida for válida.
+        // Os excertos dependentes da pesquisa são calculados apenas para estes resultados.
+        if (start < sortedIds.length && start >= 0) {
+            Set<String> snippetTerms = new HashSet<>(cacheKey);
+            snippetTerms.removeIf(t -> t.startsWith(SITE_PREFIX));
             for (int i = start; i < end; i++) {
-                String url = sortedUrls.get(i);
-                UrlMetadata meta = pageMetadata.get(url);
+                int docId = sortedIds[i];
+                UrlMetadata meta = lookupMetadata(docId);
                 if (meta == null) meta = new UrlMetadata("Sem Título", "Sem descrição.");
-                pageResults.put(url, meta);
+                String snippet = buildSnippet(docId, snippetTerms);
+                if (snippet != null) meta = new UrlMetadata(meta.getTitle(), snippet);
+                pageResults.put(urls.get(docId), meta);
             }
         }
 
@@ -185,6 +532,19 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
         // O Controller vai ler isto, guardar o número e remover a entrada.
         pageResults.put("##META_STATS##", new UrlMetadata("Stats", String.valueOf(totalReal)));
 
+        queryCache.put(cacheKey, page, pageResults);
+
+        long endNanos = System.nanoTime();
+        long totalMicros = (endNanos - startNanos) / 1000;
+        searchLatency.record(totalMicros);
+        if (slowQueries.isSlow(totalMicros)) {
+            SlowQuery slow = new SlowQuery(System.currentTimeMillis(), realTerms, page, totalReal, totalMicros,
+                    (parsedNanos - startNanos) / 1000, (postingsNanos - parsedNanos) / 1000,
+                    (scoredNanos - postingsNanos) / 1000, (endNanos - scoredNanos) / 1000);
+            slowQueries.add(slow);
+            System.out.println("[" + name + "] Pesquisa lenta: " + slow);
+        }
+
         System.out.println("[" + name + "] Pesquisa por " + realTerms + " (Pag " + page + ") enviando " + (pageResults.size() - 1) + " de " + totalReal + " resultados.");
 
         return pageResults;
@@ -193,33 +553,99 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     // Getters padrão da interface...
 
     /**
-     * Retorna uma cópia profunda (Deep Copy) do índice invertido.
+     * Retorna uma cópia profunda (Deep Copy) do índice invertido, com os URLs por extenso.
      * @return Mapa duplicado do índice.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
     public synchronized Map<String, Set<String>> getInvertedIndex() throws RemoteException {
-        return deepCopyMap(invertedIndex);
+        Map<String, Set<String>> copy = new HashMap<>();
+        for (var entry : invertedIndex.entrySet()) {
+            copy.put(entry.getKey(), toUrlSet(entry.getValue()));
+        }
+        if (snapshot != null) {
+            for (String term : snapshot.terms()) {
+                PostingView mapped = snapshotView(snapshot.termPostings(term));
+                if (mapped != null) copy.computeIfAbsent(term, k -> new HashSet<>()).addAll(toUrlSet(mapped.toArray()));
+            }
+        }
+        return copy;
     }
 
     /**
-     * Retorna uma cópia profunda (Deep Copy) do mapa de incoming links.
+     * Retorna uma cópia profunda (Deep Copy) do mapa de incoming links, com os URLs por extenso.
      * @return Mapa duplicado dos links.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
     public synchronized Map<String, Set<String>> getIncomingLinksMap() throws RemoteException {
-        return deepCopyMap(incomingLinks);
+        Map<String, Set<String>> copy = new HashMap<>();
+        int bound = Math.max(incomingLinks.nodeBound(), snapshotDocs());
+        for (int target = 0; target < bound; target++) {
+            int[] sources = incomingSources(target);
+            if (sources.length > 0) copy.put(urls.get(target), toUrlSet(sources));
+        }
+        return copy;
     }
 
     /**
-     * Retorna uma cópia dos metadados.
+     * Retorna uma cópia dos metadados (incluindo os que foram movidos para disco).
      * @return Mapa de metadados.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
     public synchronized Map<String, UrlMetadata> getPageMetadata() throws RemoteException {
-        return new HashMap<>(pageMetadata);
+        Map<String, UrlMetadata> copy = new HashMap<>();
+        for (var entry : pageMetadata.entrySet()) {
+            copy.put(urls.get(entry.getKey()), entry.getValue());
+        }
+        if (metadataSpill != null) {
+            for (int docId : metadataSpill.ids()) {
+                UrlMetadata meta = lookupMetadata(docId);
+                if (meta != null) copy.put(urls.get(docId), meta);
+            }
+        }
+        for (int docId = 0; docId < snapshotDocs(); docId++) {
+            if (!inSnapshot(docId)) continue;
+            UrlMetadata meta = snapshot.metadata(docId);
+            if (meta != null) copy.put(urls.get(docId), meta);
+        }
+        return copy;
+    }
+
+    /**
+     * Retorna a impressão do conteúdo de todas as páginas conhecidas, com os URLs por extenso.
+     * @return Mapa URL -> impressão.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public synchronized Map<String, Long> getContentHashes() throws RemoteException {
+        Map<String, Long> copy = new HashMap<>();
+        int bound = Math.min(urls.size(), Math.max(versions.capacity(), snapshotDocs()));
+        for (int docId = 0; docId < bound; docId++) {
+            long hash = contentHash(docId);
+            if (hash != ContentHash.UNKNOWN) copy.put(urls.get(docId), hash);
+        }
+        return copy;
+    }
+
+    /**
+     * Retorna as páginas registadas como quase-duplicadas, com os URLs por extenso.
+     * @return Mapa URL duplicado -> URL canónico.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public synchronized Map<String, String> getDuplicates() throws RemoteException {
+        Map<String, String> copy = new HashMap<>();
+        for (var entry : duplicateOf.entrySet()) {
+            copy.put(urls.get(entry.getKey()), urls.get(entry.getValue()));
+        }
+        for (int docId = 0; docId < snapshotDocs(); docId++) {
+            if (inSnapshot(docId) && snapshot.canonical(docId) >= 0) {
+                copy.put(urls.get(docId), urls.get(snapshot.canonical(docId)));
+            }
+        }
+        return copy;
     }
 
     /**
@@ -230,17 +656,67 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
      */
     @Override
     public synchronized Set<String> getIncomingLinks(String url) throws RemoteException {
-        return incomingLinks.getOrDefault(url, Collections.emptySet());
+        int docId = urls.lookup(url);
+        return docId < 0 ? new HashSet<>() : toUrlSet(incomingSources(docId));
+    }
+
+    /**
+     * Retorna as métricas de latência medidas dentro deste Barrel.
+     * Não é sincronizado no Barrel, para poder ser consultado durante operações longas.
+     *
+     * @return Cópias dos histogramas e as pesquisas lentas recentes.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public BarrelMetrics getMetrics() throws RemoteException {
+        return new BarrelMetrics(name, searchLatency.snapshot(), storeLatency.snapshot(),
+                syncLatency.snapshot(), slowQueries.recent());
     }
 
     /**
-     * Obtém o número total de termos indexados.
+     * Retorna uma página dos links que apontam para um URL, ordenados pela relevância da origem
+     * (número de links que a própria origem recebe; em empate, a origem indexada primeiro).
+     * <p>
+     * O cursor é a chave de ordenação da última origem devolvida, pelo que a página seguinte
+     * continua a partir dela mesmo que entretanto tenham chegado novas ligações.
+     * </p>
+     *
+     * @param url URL alvo.
+     * @param cursor {@code BacklinkPage.FIRST} ou o {@code nextCursor} da página anterior.
+     * @param limit Número máximo de links a devolver.
+     * @return Página com a contagem total, as origens e o cursor seguinte.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public synchronized BacklinkPage getBacklinks(String url, long cursor, int limit) throws RemoteException {
+        int docId = urls.lookup(url);
+        if (docId < 0 || inDegree(docId) == 0) return BacklinkPage.empty(url);
+        limit = Math.max(1, Math.min(limit, BacklinkPage.MAX_LIMIT));
+
+        int[] sources = incomingSources(docId);
+        long[] keys = new long[sources.length];
+        for (int i = 0; i < sources.length; i++) keys[i] = rankKey(sources[i]);
+        Arrays.sort(keys);
+
+        // Primeira chave estritamente maior que o cursor
+        int start = Arrays.binarySearch(keys, cursor);
+        start = start >= 0 ? start + 1 : -start - 1;
+        int end = Math.min(start + limit, keys.length);
+
+        List<String> links = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) links.add(urls.get((int) keys[i]));
+        long next = end < keys.length ? keys[end - 1] : BacklinkPage.END;
+        return new BacklinkPage(url, keys.length, links, next);
+    }
+
+    /**
+     * Obtém o número total de termos indexados (em memória e no snapshot).
      * @return Tamanho do índice.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
     public int getIndexSize() throws RemoteException {
-        return invertedIndex.size();
+        return indexSize();
     }
 
     /**
@@ -272,14 +748,20 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     }
 
     /**
-     * Verifica se um URL é conhecido (está presente em algum valor do mapa de incoming links).
+     * Verifica se um URL é conhecido (é origem de algum link no mapa de incoming links).
+     * Consulta o índice direto de ligações em vez de percorrer todo o grafo.
      * @param url URL a verificar.
      * @return true se encontrado.
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
     public synchronized boolean isUrlInBarrel(String url) throws RemoteException {
-        return incomingLinks.values().stream().anyMatch(set -> set.contains(url));
+        int docId = urls.lookup(url);
+        if (docId < 0) return false;
+        if (duplicateOf.containsKey(docId)) return true;
+        if (inSnapshot(docId)) return snapshot.outDegree(docId) > 0 || snapshot.canonical(docId) >= 0;
+        int[] targets = forwardLinks.get(docId);
+        return targets != null && targets.length > 0;
     }
 
     // =========================================================================
@@ -290,13 +772,92 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
      * Extrai e salva os metadados (Título e Citação) de uma página.
      * A citação é gerada a partir das primeiras 20 palavras.
      *
+     * @param docId docID da página.
      * @param page Dados da página.
      */
-    private void saveMetadata(PageData page) {
+    private void saveMetadata(int docId, PageData page) {
         String title = page.getTitle();
         List<String> words = page.getWords();
         String citation = generateCitation(words);
-        pageMetadata.put(page.getUrl(), new UrlMetadata(title, citation));
+        UrlMetadata meta = new UrlMetadata(title, citation);
+
+        UrlMetadata previous = pageMetadata.put(docId, meta);
+        if (previous != null) {
+            memory.add(METADATA, metadataBytes(meta) - metadataBytes(previous));
+        } else {
+            memory.add(METADATA, ID_KEY_BYTES + metadataBytes(meta));
+            // Se a versão anterior estava em disco, a nova (em memória) substitui-a
+            if (metadataSpill != null && metadataSpill.contains(docId)) {
+                metadataSpill.remove(docId);
+                memory.add(METADATA, -SPILL_INDEX_BYTES);
+            }
+        }
+    }
+
+    /**
+     * Obtém os metadados de uma página, em memória ou, se foram movidos, em disco.
+     *
+     * @param docId docID da página.
+     * @return Metadados ou null se desconhecidos.
+     */
+    private UrlMetadata lookupMetadata(int docId) {
+        UrlMetadata meta = pageMetadata.get(docId);
+        if (meta != null) return meta;
+        if (inSnapshot(docId)) return snapshot.metadata(docId);
+        if (metadataSpill == null) return null;
+        try {
+            return metadataSpill.get(docId);
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Erro ao ler metadados em disco de " + urls.get(docId) + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda os tokens da página no armazenamento comprimido, para geração de excertos.
+     * Falhas de I/O não impedem a indexação: a pesquisa usa então a citação fixa.
+     *
+     * @param docId docID da página.
+     * @param page Dados da página.
+     */
+    private void saveDocument(int docId, PageData page) {
+        if (documentStore == null || page.getWords() == null) return;
+        try {
+            documentStore.put(docId, page.getWords());
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Erro ao guardar documento " + page.getUrl() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apaga os tokens armazenados de uma página que deixou de ser indexada.
+     *
+     * @param docId docID da página.
+     */
+    private void removeDocument(int docId) {
+        if (documentStore == null) return;
+        try {
+            documentStore.remove(docId);
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Erro ao apagar documento " + urls.get(docId) + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gera o excerto de um resultado em torno dos termos pesquisados.
+     *
+     * @param docId docID do resultado.
+     * @param terms Termos da pesquisa (em minúsculas).
+     * @return O excerto, ou null se não houver documento armazenado ou nenhum termo ocorrer nele.
+     */
+    private String buildSnippet(int docId, Set<String> terms) {
+        if (documentStore == null) return null;
+        try {
+            return snippetEngine.bestSnippet(documentStore.get(docId), terms);
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Erro ao ler documento " + urls.get(docId) + ": " + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -314,43 +875,711 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     }
 
     /**
-     * Atualiza o índice invertido mapeando cada palavra da página ao seu URL.
+     * Atualiza o índice invertido mapeando cada palavra da página ao seu docID.
+     * <p>
+     * Se a página já tinha sido indexada, usa o índice direto para remover o docID dos termos
+     * que desapareceram da página, e apaga os termos que ficam sem nenhum docID.
+     * </p>
+     *
+     * @param docId docID da página.
+     * @param terms Termos analisados da página (ver {@link #extractTerms}).
+     * @return Termos afetados: os atuais da página e os que foram removidos.
+     */
+    private Set<String> updateInvertedIndex(int docId, Set<String> terms) {
+        Set<String> affected = new HashSet<>(terms);
+
+        String[] current = terms.toArray(new String[0]);
+        String[] previous = forwardTerms.put(docId, current);
+        memory.add(FORWARD_INDEX, forwardTermsBytes(current) - forwardTermsBytes(previous));
+        if (previous != null) {
+            for (String old : previous) {
+                if (terms.contains(old)) continue;
+                removePosting(invertedIndex, old, docId, termKeyBytes(old), TERM_DICTIONARY, POSTINGS);
+                if (!invertedIndex.containsKey(old) && !inSnapshotTerms(old)) heapOnlyTerms--;
+                affected.add(old);
+            }
+        }
+
+        for (String term : terms) {
+            if (!invertedIndex.containsKey(term) && !inSnapshotTerms(term)) heapOnlyTerms++;
+            addPosting(invertedIndex, term, docId, termKeyBytes(term), TERM_DICTIONARY, POSTINGS);
+        }
+        return affected;
+    }
+
+    /**
+     * Regista uma página como quase-duplicada de outra, em vez de a indexar.
+     * <p>
+     * Se uma versão anterior da página estava indexada, os seus termos, domínios, links e metadados
+     * são removidos; os links de um duplicado não contam para o ranking.
+     * </p>
+     *
+     * @param docId docID da página duplicada.
+     * @param canonical docID da página indexada equivalente.
+     * @param page Dados recebidos.
+     * @return Chaves de cache afetadas pela remoção da versão anterior.
+     */
+    private Set<String> storeDuplicate(int docId, int canonical, PageData page) {
+        Set<String> affected = updateInvertedIndex(docId, Set.of());
+        for (String host : hostKeys(page.getUrl())) {
+            PostingList ids = hostIndex.get(host);
+            if (ids == null || !ids.contains(docId)) continue;
+            removePosting(hostIndex, host, docId, termKeyBytes(host), TERM_DICTIONARY, POSTINGS);
+            affected.add(SITE_PREFIX + host);
+        }
+        updateIncomingLinks(docId, new PageData(page.getUrl(), page.getTitle(), List.of(), List.of()));
+        nearDuplicates.remove(docId);
+        removeMetadata(docId);
+        removeDocument(docId);
+        if (duplicateOf.put(docId, canonical) == null) memory.add(FORWARD_INDEX, DUPLICATE_BYTES);
+
+        System.out.println("[" + name + "] Quase-duplicado de " + urls.get(canonical) + " (não indexado): " + page.getUrl());
+        return affected;
+    }
+
+    /**
+     * Atualiza apenas o momento em que uma página inalterada foi vista.
+     *
+     * @param docId docID da página, com a mesma impressão já registada.
+     * @param page Dados recebidos.
+     */
+    private void touchPage(int docId, PageData page) {
+        long memBefore = versions.estimatedBytes();
+        versions.set(docId, page.getContentHash(), System.currentTimeMillis());
+        memory.add(FORWARD_INDEX, versions.estimatedBytes() - memBefore);
+        System.out.println("[" + name + "] Página inalterada: " + page.getUrl());
+    }
+
+    /**
+     * Apaga os metadados de uma página, em memória e em disco.
+     *
+     * @param docId docID da página.
+     */
+    private void removeMetadata(int docId) {
+        UrlMetadata previous = pageMetadata.remove(docId);
+        if (previous != null) memory.add(METADATA, -(ID_KEY_BYTES + metadataBytes(previous)));
+        if (metadataSpill != null && metadataSpill.contains(docId)) {
+            metadataSpill.remove(docId);
+            memory.add(METADATA, -SPILL_INDEX_BYTES);
+        }
+    }
+
+    /**
+     * Regista a página no índice de domínios (host e respetivos sufixos).
+     * O host de um URL não muda, pelo que só é preciso adicionar.
+     *
+     * @param docId docID da página.
+     * @param url URL da página.
+     * @return Chaves de cache ("site:dominio") dos domínios que ganharam esta página.
+     */
+    private Set<String> updateHostIndex(int docId, String url) {
+        Set<String> affected = new HashSet<>();
+        for (String host : hostKeys(url)) {
+            PostingList ids = hostIndex.get(host);
+            if (ids != null && ids.contains(docId)) continue;
+            addPosting(hostIndex, host, docId, termKeyBytes(host), TERM_DICTIONARY, POSTINGS);
+            affected.add(SITE_PREFIX + host);
+        }
+        return affected;
+    }
+
+    /**
+     * Reconstrói o índice de domínios a partir das páginas conhecidas (após a sincronização).
+     */
+    private void rebuildHostIndex() {
+        hostIndex.clear();
+        Set<Integer> docIds = new HashSet<>(forwardTerms.keySet());
+        docIds.addAll(pageMetadata.keySet());
+        if (metadataSpill != null) docIds.addAll(metadataSpill.ids());
+        docIds.removeAll(duplicateOf.keySet());
+        for (int docId : docIds) {
+            String url = urls.get(docId);
+            if (url == null) continue;
+            for (String host : hostKeys(url)) {
+                hostIndex.computeIfAbsent(host, k -> new PostingList()).add(docId);
+            }
+        }
+    }
+
+    /**
+     * Reconstrói as impressões SimHash a partir do índice direto (após a sincronização).
+     * A impressão só depende do conjunto de termos, pelo que coincide com a do Barrel de origem.
+     */
+    private void rebuildNearDuplicates() {
+        nearDuplicates.clear();
+        for (var entry : forwardTerms.entrySet()) {
+            String[] terms = entry.getValue();
+            if (SimHash.applies(terms.length)) nearDuplicates.put(entry.getKey(), SimHash.of(Arrays.asList(terms)));
+        }
+    }
+
+    /**
+     * Calcula as chaves de domínio de um URL: o host completo (mesmo sem ponto, ex: "localhost") e
+     * cada sufixo com pelo menos um ponto, para nunca indexar um TLD isolado
+     * (ex: "www.dei.uc.pt" -> "www.dei.uc.pt", "dei.uc.pt", "uc.pt"). Endereços IP não têm sufixos.
+     *
+     * @param url URL da página.
+     * @return Chaves em minúsculas (vazia se o URL não tiver host).
+     */
+    private static List<String> hostKeys(String url) {
+        List<String> keys = new ArrayList<>();
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return keys;
+        }
+        if (host == null) return keys;
+        host = normalizeHost(host);
+        if (host.isEmpty()) return keys;
+        keys.add(host);
+        if (isIpAddress(host)) return keys;
+        for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+            String suffix = host.substring(dot + 1);
+            if (suffix.indexOf('.') > 0) keys.add(suffix);
+        }
+        return keys;
+    }
+
+    /**
+     * Verifica se um host é um endereço IP (IPv4 ou IPv6 entre parênteses retos).
+     */
+    private static boolean isIpAddress(String host) {
+        return host.startsWith("[") || host.chars().allMatch(c -> c == '.' || (c >= '0' && c <= '9'));
+    }
+
+    /**
+     * Normaliza um domínio: minúsculas, sem esquema, porta, caminho ou ponto final.
+     *
+     * @param host Domínio tal como escrito (ex: "UC.pt", "https://uc.pt/").
+     * @return Domínio normalizado.
+     */
+    private static String normalizeHost(String host) {
+        String h = host.toLowerCase();
+        int scheme = h.indexOf("://");
+        if (scheme >= 0) h = h.substring(scheme + 3);
+        int slash = h.indexOf('/');
+        if (slash >= 0) h = h.substring(0, slash);
+        // Porta (ex: "localhost:8080"); num IPv6 os ':' dentro de "[...]" fazem parte do endereço
+        int port = h.lastIndexOf(':');
+        if (port >= 0 && port > h.lastIndexOf(']')) h = h.substring(0, port);
+        while (h.endsWith(".")) h = h.substring(0, h.length() - 1);
+        return h;
+    }
+
+    /**
+     * Une várias listas ordenadas de docIDs numa só (sem duplicados nem docIDs excluídos).
+     *
+     * @param lists Listas a unir.
+     * @return A própria lista, se for só uma, ou uma vista sobre a união.
+     */
+    private static PostingView union(List<PostingView> lists) {
+        if (lists.size() == 1) return lists.get(0);
+        int total = 0;
+        for (PostingView list : lists) total += list.length();
+        int[] ids = new int[total];
+        int n = 0;
+        for (PostingView list : lists) n = list.copyRange(0, list.length(), ids, n);
+        Arrays.sort(ids, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) ids[unique++] = ids[i];
+        }
+        return new PostingView(IntBuffer.wrap(ids, 0, unique), null);
+    }
+
+    /**
+     * Adiciona um docID à lista associada a uma chave, criando-a se necessário,
+     * e contabiliza a memória ocupada.
+     *
+     * @param map Mapa de listas (índice invertido ou links de entrada).
+     * @param key Chave (termo ou docID destino).
+     * @param docId docID a adicionar.
+     * @param keyBytes Bytes ocupados pela chave.
+     * @param keyComponent Componente onde se contabilizam as chaves.
+     * @param valueComponent Componente onde se contabilizam as listas.
+     */
+    private <K> void addPosting(Map<K, PostingList> map, K key, int docId, long keyBytes,
+                                MemoryAccountant.Component keyComponent, MemoryAccountant.Component valueComponent) {
+        PostingList ids = map.get(key);
+        if (ids == null) {
+            ids = new PostingList();
+            map.put(key, ids);
+            memory.add(keyComponent, keyBytes);
+            memory.add(valueComponent, ids.estimatedBytes());
+        }
+        long before = ids.estimatedBytes();
+        if (ids.add(docId)) memory.add(valueComponent, ids.estimatedBytes() - before);
+    }
+
+    /**
+     * Remove um docID da lista associada a uma chave, apagando a chave se a lista ficar vazia.
+     *
+     * @param map Mapa de listas (índice invertido ou links de entrada).
+     * @param key Chave (termo ou docID destino).
+     * @param docId docID a remover.
+     * @param keyBytes Bytes ocupados pela chave.
+     * @param keyComponent Componente onde se contabilizam as chaves.
+     * @param valueComponent Componente onde se contabilizam as listas.
+     */
+    private <K> void removePosting(Map<K, PostingList> map, K key, int docId, long keyBytes,
+                                   MemoryAccountant.Component keyComponent, MemoryAccountant.Component valueComponent) {
+        PostingList ids = map.get(key);
+        if (ids == null) return;
+        long before = ids.estimatedBytes();
+        if (ids.remove(docId)) memory.add(valueComponent, ids.estimatedBytes() - before);
+        if (ids.isEmpty()) {
+            map.remove(key);
+            memory.add(keyComponent, -keyBytes);
+            memory.add(valueComponent, -ids.estimatedBytes());
+        }
+    }
+
+    /**
+     * Obtém o conjunto de termos de uma página, tal como são indexados (ver {@link Analyzer}).
      *
      * @param page Dados da página.
+     * @return Conjunto de termos distintos.
      */
-    private void updateInvertedIndex(PageData page) {
-        if (page.getWords() == null) return;
+    private Set<String> extractTerms(PageData page) {
+        Set<String> terms = new HashSet<>();
+        if (page.getWords() == null) return terms;
         for (String word : page.getWords()) {
-            invertedIndex.computeIfAbsent(word.toLowerCase(), k -> new HashSet<>()).add(page.getUrl());
+            String term = analyzer.term(word);
+            if (term != null) terms.add(term);
         }
+        return terms;
     }
 
     /**
      * Atualiza o mapa de Incoming Links com base nos links de saída da página.
      * Se a página P aponta para L, então L recebe P na sua lista de entrada.
      *
+     * @param docId docID da página.
      * @param page Dados da página.
      */
-    private void updateIncomingLinks(PageData page) {
-        if (page.getOutgoingLinks() == null) return;
-        for (String link : page.getOutgoingLinks()) {
-            incomingLinks.computeIfAbsent(link, k -> new HashSet<>()).add(page.getUrl());
+    private void updateIncomingLinks(int docId, PageData page) {
+        Set<Integer> links = new HashSet<>();
+        if (page.getOutgoingLinks() != null) {
+            for (String link : page.getOutgoingLinks()) links.add(urls.getOrAdd(link));
         }
+
+        // Links que desapareceram desde a última versão da página deixam de contar
+        int[] current = links.stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] previous = forwardLinks.put(docId, current);
+        long graphBytes = incomingLinks.estimatedBytes();
+        memory.add(LINK_GRAPH, forwardLinksBytes(current) - forwardLinksBytes(previous));
+        if (previous != null) {
+            for (int old : previous) {
+                if (!links.contains(old)) incomingLinks.remove(old, docId);
+            }
+        }
+
+        for (int link : current) {
+            incomingLinks.add(link, docId);
+        }
+        memory.add(LINK_GRAPH, incomingLinks.estimatedBytes() - graphBytes);
     }
 
     /**
-     * Cria uma cópia profunda de um mapa do tipo {@code Map<String, Set<String>>}.
-     * Necessário para garantir thread-safety e evitar ConcurrentModificationException durante a sincronização.
+     * Chave de ordenação por relevância: links de entrada (decrescente) nos 32 bits altos e docID
+     * nos baixos. Ordenar as chaves por ordem crescente dá a ordem do ranking.
      *
-     * @param original O mapa original.
-     * @return Uma cópia independente.
+     * @param docId docID da página.
+     * @return Chave empacotada (sempre positiva).
      */
-    private Map<String, Set<String>> deepCopyMap(Map<String, Set<String>> original) {
-        Map<String, Set<String>> copy = new HashMap<>();
-        for (var entry : original.entrySet()) {
-            copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    private long rankKey(int docId) {
+        long inDegree = inDegree(docId);
+        return ((Integer.MAX_VALUE - inDegree) << 32) | docId;
+    }
+
+    /**
+     * Converte uma lista de docIDs no conjunto dos URLs correspondentes.
+     *
+     * @param ids Lista de docIDs.
+     * @return Conjunto de URLs.
+     */
+    private Set<String> toUrlSet(PostingList ids) {
+        return toUrlSet(ids.toArray());
+    }
+
+    /**
+     * Converte um array de docIDs no conjunto dos URLs correspondentes.
+     *
+     * @param ids docIDs.
+     * @return Conjunto de URLs.
+     */
+    private Set<String> toUrlSet(int[] ids) {
+        Set<String> result = new HashSet<>();
+        for (int id : ids) result.add(urls.get(id));
+        return result;
+    }
+
+    // =========================================================================
+    // SNAPSHOT PARTILHADO
+    // =========================================================================
+
+    /**
+     * Abre o snapshot do índice, se o ficheiro existir.
+     *
+     * @param file Ficheiro do snapshot.
+     * @return O snapshot mapeado, ou null (o Barrel funciona então apenas com as estruturas em memória).
+     */
+    private IndexSnapshot openSnapshot(Path file) {
+        if (!Files.exists(file)) return null;
+        try {
+            IndexSnapshot opened = IndexSnapshot.open(file);
+            System.out.println("[" + name + "] Snapshot " + file + " mapeado: " + opened.docCount() + " URLs, "
+                    + opened.termCount() + " termos, " + opened.sizeBytes() / (1024 * 1024) + " MB fora do heap.");
+            return opened;
+        } catch (IOException e) {
+            System.err.println("[" + name + "] Snapshot indisponível (" + file + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Obtém o número de docIDs do snapshot.
+     *
+     * @return docIDs do snapshot, ou 0 se não houver snapshot.
+     */
+    private int snapshotDocs() {
+        return snapshot == null ? 0 : snapshot.docCount();
+    }
+
+    /**
+     * Indica se a versão válida de uma página é a do snapshot.
+     *
+     * @param docId docID da página.
+     * @return true se o docID pertence ao snapshot e não foi sombreado.
+     */
+    private boolean inSnapshot(int docId) {
+        return docId >= 0 && docId < snapshotDocs() && !shadowed.get(docId);
+    }
+
+    /**
+     * Indica se um termo existe no snapshot (procura só nas chaves, sem ler a lista).
+     *
+     * @param term Termo analisado.
+     * @return true se o snapshot tem uma lista para o termo.
+     */
+    private boolean inSnapshotTerms(String term) {
+        return snapshot != null && snapshot.containsTerm(term);
+    }
+
+    /**
+     * Sombreia uma página do snapshot: a versão mapeada deixa de contar (termos, domínios, links,
+     * metadados) e a página passa a ser tratada como nova pelas estruturas em memória.
+     *
+     * @param docId docID de uma página do snapshot.
+     */
+    private void shadow(int docId) {
+        shadowed.set(docId);
+        for (int target : snapshot.outgoing(docId)) lostInDegree.merge(target, 1, Integer::sum);
+    }
+
+    /**
+     * Cria uma vista sobre uma lista do snapshot que salta os docIDs sombreados.
+     *
+     * @param ids docIDs ordenados do snapshot (ou null).
+     * @return Vista, ou null se a lista não existir.
+     */
+    private PostingView snapshotView(IntBuffer ids) {
+        return ids == null ? null : new PostingView(ids, shadowed);
+    }
+
+    /**
+     * Obtém o número de links de entrada de uma página (memória + snapshot).
+     *
+     * @param docId docID da página.
+     * @return Grau de entrada.
+     */
+    private int inDegree(int docId) {
+        int degree = incomingLinks.inDegree(docId);
+        if (docId < snapshotDocs()) {
+            degree += snapshot.inDegree(docId) - lostInDegree.getOrDefault(docId, 0);
+        }
+        return degree;
+    }
+
+    /**
+     * Obtém as origens dos links que apontam para uma página (memória + snapshot).
+     *
+     * @param docId docID da página.
+     * @return docIDs ordenados.
+     */
+    private int[] incomingSources(int docId) {
+        int[] heap = incomingLinks.sources(docId);
+        if (docId >= snapshotDocs()) return heap;
+        int[] mapped = snapshot.incoming(docId);
+        int[] merged = Arrays.copyOf(heap, heap.length + mapped.length);
+        int n = heap.length;
+        for (int source : mapped) {
+            if (!shadowed.get(source)) merged[n++] = source;
+        }
+        Arrays.sort(merged, 0, n);
+        return Arrays.copyOf(merged, n);
+    }
+
+    /**
+     * Obtém a impressão do conteúdo de uma página (memória ou snapshot).
+     *
+     * @param docId docID da página (ou -1).
+     * @return Impressão, ou {@link ContentHash#UNKNOWN}.
+     */
+    private long contentHash(int docId) {
+        long hash = versions.hash(docId);
+        if (hash == ContentHash.UNKNOWN && inSnapshot(docId)) hash = snapshot.contentHash(docId);
+        return hash;
+    }
+
+    /**
+     * Obtém o número de termos distintos (memória + snapshot).
+     *
+     * @return Tamanho do índice.
+     */
+    private int indexSize() {
+        return snapshot == null ? invertedIndex.size() : snapshot.termCount() + heapOnlyTerms;
+    }
+
+    /**
+     * Grava o estado completo do Barrel (snapshot atual + alterações em memória) num novo snapshot.
+     * <p>
+     * O ficheiro é substituído atomicamente; os Barrels que já o tinham mapeado continuam a ler a
+     * versão anterior, e todos os Barrels do host usam a nova a partir do próximo arranque.
+     * </p>
+     *
+     * @param file Ficheiro de destino.
+     * @throws IOException Se a escrita falhar.
+     */
+    public synchronized void writeSnapshot(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        // Cópia dos metadados em memória: consultar o LinkedHashMap alteraria a ordem de acesso
+        Map<Integer, UrlMetadata> heapMetadata = new HashMap<>(pageMetadata);
+        Set<String> terms = new LinkedHashSet<>(invertedIndex.keySet());
+        Set<String> hosts = new LinkedHashSet<>(hostIndex.keySet());
+        if (snapshot != null) {
+            terms.addAll(snapshot.terms());
+            hosts.addAll(snapshot.hosts());
+        }
+
+        IndexSnapshot.write(file, new IndexSnapshot.Source() {
+            @Override public int docCount() { return urls.size(); }
+            @Override public String url(int docId) { return urls.get(docId); }
+            @Override public long contentHash(int docId) { return Barrel.this.contentHash(docId); }
+
+            @Override
+            public int canonical(int docId) {
+                Integer canonical = duplicateOf.get(docId);
+                if (canonical != null) return canonical;
+                return inSnapshot(docId) ? snapshot.canonical(docId) : -1;
+            }
+
+            @Override
+            public UrlMetadata metadata(int docId) {
+                UrlMetadata meta = heapMetadata.get(docId);
+                return meta != null ? meta : lookupMetadata(docId);
+            }
+
+            @Override public int[] incoming(int docId) { return incomingSources(docId); }
+
+            @Override
+            public int[] outgoing(int docId) {
+                int[] targets = forwardLinks.get(docId);
+                if (targets != null) return targets;
+                return inSnapshot(docId) ? snapshot.outgoing(docId) : new int[0];
+            }
+
+            @Override public List<String> terms() { return new ArrayList<>(terms); }
+            @Override public int[] termPostings(String term) { return merged(invertedIndex.get(term), snapshot == null ? null : snapshot.termPostings(term)); }
+            @Override public List<String> hosts() { return new ArrayList<>(hosts); }
+            @Override public int[] hostPostings(String host) { return merged(hostIndex.get(host), snapshot == null ? null : snapshot.hostPostings(host)); }
+        });
+        System.out.println("[" + name + "] Snapshot gravado em " + file + " (" + urls.size() + " URLs, "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms).");
+    }
+
+    /**
+     * Junta a lista em memória de uma chave com a do snapshot (sem os docIDs sombreados).
+     *
+     * @param heap Lista em memória (ou null).
+     * @param mapped Lista do snapshot (ou null).
+     * @return docIDs ordenados.
+     */
+    private int[] merged(PostingList heap, IntBuffer mapped) {
+        List<PostingView> lists = new ArrayList<>(2);
+        if (heap != null) lists.add(heap.view());
+        PostingView kept = snapshotView(mapped);
+        if (kept != null) lists.add(kept);
+        return lists.isEmpty() ? new int[0] : union(lists).toArray();
+    }
+
+    // =========================================================================
+    // CONTABILIDADE DE MEMÓRIA
+    // =========================================================================
+
+    /**
+     * Bytes de uma chave inteira (docID) num mapa: entrada + Integer.
+     */
+    private static final long ID_KEY_BYTES = MemoryAccountant.ENTRY_BYTES + 16;
+
+    /**
+     * Bytes que uma entrada de metadados em disco continua a ocupar em memória (índice de posições).
+     */
+    private static final long SPILL_INDEX_BYTES = ID_KEY_BYTES + 16;
+
+    /**
+     * Bytes de cada registo de quase-duplicado (entrada com chave e valor Integer).
+     */
+    private static final long DUPLICATE_BYTES = ID_KEY_BYTES + 16;
+
+    /**
+     * Bytes de uma chave do índice invertido (entrada + string do termo).
+     */
+    private static long termKeyBytes(String term) {
+        return MemoryAccountant.ENTRY_BYTES + MemoryAccountant.stringBytes(term);
+    }
+
+    /**
+     * Bytes de uma entrada do índice direto de termos (as strings de cada página são objetos próprios).
+     */
+    private static long forwardTermsBytes(String[] values) {
+        if (values == null) return 0;
+        long total = ID_KEY_BYTES + MemoryAccountant.arrayBytes(values.length);
+        for (String v : values) total += MemoryAccountant.stringBytes(v);
+        return total;
+    }
+
+    /**
+     * Bytes de uma entrada do índice direto de ligações.
+     */
+    private static long forwardLinksBytes(int[] values) {
+        return values == null ? 0 : ID_KEY_BYTES + MemoryAccountant.arrayBytes(values.length);
+    }
+
+    /**
+     * Bytes de um objeto de metadados (sem a chave).
+     */
+    private static long metadataBytes(UrlMetadata meta) {
+        return MemoryAccountant.SMALL_OBJECT_BYTES
+                + MemoryAccountant.stringBytes(meta.getTitle())
+                + MemoryAccountant.stringBytes(meta.getCitation());
+    }
+
+    /**
+     * Recalcula de raiz a estimativa de memória de todas as estruturas.
+     * Usado após a sincronização, que substitui as estruturas em bloco.
+     */
+    private void recountMemory() {
+        memory.reset();
+        memory.set(URL_DICTIONARY, urls.estimatedBytes());
+        for (var entry : invertedIndex.entrySet()) {
+            memory.add(TERM_DICTIONARY, termKeyBytes(entry.getKey()));
+            memory.add(POSTINGS, entry.getValue().estimatedBytes());
+        }
+        for (var entry : hostIndex.entrySet()) {
+            memory.add(TERM_DICTIONARY, termKeyBytes(entry.getKey()));
+            memory.add(POSTINGS, entry.getValue().estimatedBytes());
+        }
+        memory.add(LINK_GRAPH, incomingLinks.estimatedBytes());
+        for (int[] targets : forwardLinks.values()) {
+            memory.add(LINK_GRAPH, forwardLinksBytes(targets));
+        }
+        for (String[] terms : forwardTerms.values()) {
+            memory.add(FORWARD_INDEX, forwardTermsBytes(terms));
+        }
+        memory.add(FORWARD_INDEX, nearDuplicates.estimatedBytes() + duplicateOf.size() * DUPLICATE_BYTES
+                + versions.estimatedBytes());
+        for (UrlMetadata meta : pageMetadata.values()) {
+            memory.add(METADATA, ID_KEY_BYTES + metadataBytes(meta));
+        }
+        if (metadataSpill != null) {
+            memory.add(METADATA, metadataSpill.size() * SPILL_INDEX_BYTES);
+        }
+    }
+
+    /**
+     * Garante que a memória estimada fica dentro do orçamento.
+     * <p>
+     * Se o orçamento for excedido, os metadados acedidos há mais tempo são movidos para disco até
+     * a estimativa descer abaixo de {@code SPILL_TARGET} do orçamento, e o Barrel passa a reportar-se
+     * como saturado ao Gateway. Deixa de estar saturado quando desce abaixo de {@code SATURATION_RELEASE}.
+     * </p>
+     */
+    private void enforceMemoryBudget() {
+        if (!memory.exceeds(1.0)) {
+            if (saturated && !memory.exceeds(SATURATION_RELEASE)) {
+                saturated = false;
+                System.out.println("[" + name + "] Memória abaixo do limite. Barrel deixou de estar saturado.");
+            }
+            return;
+        }
+
+        if (!saturated) {
+            saturated = true;
+            System.err.println("[" + name + "] Orçamento de memória excedido (" + memoryUsage() + ").");
+        }
+        if (metadataSpill == null) return;
+
+        int spilled = 0;
+        Iterator<Map.Entry<Integer, UrlMetadata>> it = pageMetadata.entrySet().iterator();
+        while (memory.exceeds(SPILL_TARGET) && it.hasNext()) {
+            Map.Entry<Integer, UrlMetadata> entry = it.next();
+            try {
+                metadataSpill.put(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                System.err.println("[" + name + "] Erro ao mover metadados para disco: " + e.getMessage());
+                break;
+            }
+            memory.add(METADATA, SPILL_INDEX_BYTES - ID_KEY_BYTES - metadataBytes(entry.getValue()));
+            it.remove();
+            spilled++;
+        }
+        if (spilled > 0) {
+            System.out.println("[" + name + "] " + spilled + " entradas de metadados movidas para disco.");
+        }
+    }
+
+    /**
+     * Constrói o relatório de memória atual.
+     *
+     * @return Objeto {@code MemoryUsage} com a estimativa por componente.
+     */
+    private MemoryUsage memoryUsage() {
+        return new MemoryUsage(memory.get(URL_DICTIONARY), memory.get(TERM_DICTIONARY), memory.get(POSTINGS),
+                memory.get(LINK_GRAPH), memory.get(METADATA), memory.get(FORWARD_INDEX), memory.getBudgetBytes(),
+                metadataSpill == null ? 0 : metadataSpill.size(), saturated);
+    }
+
+    /**
+     * Reconstrói os índices diretos a partir do índice invertido e dos links de entrada.
+     * Necessário após copiar dados de outro Barrel, que só transfere as estruturas invertidas.
+     */
+    private void rebuildForwardIndexes() {
+        forwardTerms.clear();
+        forwardLinks.clear();
+
+        Map<Integer, List<String>> terms = new HashMap<>();
+        for (var entry : invertedIndex.entrySet()) {
+            PostingList ids = entry.getValue();
+            for (int i = 0; i < ids.size(); i++) {
+                terms.computeIfAbsent(ids.get(i), k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        for (var entry : terms.entrySet()) {
+            forwardTerms.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+
+        Map<Integer, PostingList> targets = new HashMap<>();
+        for (int target = 0; target < incomingLinks.nodeBound(); target++) {
+            if (incomingLinks.inDegree(target) == 0) continue;
+            for (int source : incomingLinks.sources(target)) {
+                targets.computeIfAbsent(source, k -> new PostingList()).add(target);
+            }
+        }
+        for (var entry : targets.entrySet()) {
+            forwardLinks.put(entry.getKey(), entry.getValue().toArray());
         }
-        return copy;
     }
 
     // =========================================================================
@@ -374,10 +1603,14 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
 
                 // Apenas calculamos o tamanho real se estivermos no estado ACTIVE
                 if ("ACTIVE".equalsIgnoreCase(status)) {
-                    invSize = invertedIndex.size();
-                    incSize = incomingLinks.size();
+                    invSize = indexSize();
+                    incSize = incomingLinks.targetCount();
                 }
 
+                // Contadores da cache e memória (não disparam atualização do dashboard por si só)
+                gateway.updateBarrelCacheStats(this, queryCache.getHits(), queryCache.getMisses(), queryCache.getEvictions());
+                gateway.updateBarrelMemory(this, memoryUsage());
+
                 // Envia para a gateway.
                 // Nota: Mesmo que a Gateway não receba a string 'status',
                 // ao receber (0,0) ela sabe que este barrel não deve receber carga.
@@ -431,7 +1664,9 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
             if (!other.isActive()) return false;
 
             System.out.println("[" + name + "] A sincronizar com: " + barrelName + "...");
+            long startNanos = System.nanoTime();
             copyIndexFrom(other);
+            syncLatency.record((System.nanoTime() - startNanos) / 1000);
             activateBarrel(registry, false);
             return true;
         } catch (Exception e) {
@@ -440,6 +1675,14 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
         }
     }
 
+    /**
+     * Marca o Barrel como ativo sem sincronizar nem notificar os outros componentes
+     * (um Barrel isolado, fora de uma rede RMI).
+     */
+    synchronized void activateStandalone() {
+        this.isActive = true;
+    }
+
     /**
      * Marca o Barrel como ativo e notifica componentes externos (Downloaders e Gateway).
      *
@@ -454,12 +1697,18 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
 
         // 2. FINAL DA SINCRONIZAÇÃO: Avisar Gateway que estou pronto (Carga Real)
         sendStatsToGateway("ACTIVE");
+        try {
+            if (gateway != null) gateway.barrelActivated(this);
+        } catch (RemoteException e) {
+            System.err.println("[" + name + "] Erro ao notificar a Gateway da ativação: " + e.getMessage());
+        }
 
         System.out.println("[" + name + "] Barrel operacional.");
     }
 
     /**
      * Copia todos os dados (índice, links, metadados) de outro Barrel.
+     * Os URLs recebidos por extenso são convertidos em docIDs deste Barrel.
      *
      * @param barrel A referência remota do Barrel fonte.
      * @throws RemoteException Se ocorrer erro na transferência.
@@ -469,30 +1718,61 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
             Map<String, Set<String>> otherIndex = barrel.getInvertedIndex();
             Map<String, Set<String>> otherIncoming = barrel.getIncomingLinksMap();
             Map<String, UrlMetadata> otherMetadata = barrel.getPageMetadata();
+            Map<String, String> otherDuplicates = barrel.getDuplicates();
+            Map<String, Long> otherHashes = barrel.getContentHashes();
+
+            // Com snapshot, só se copiam as páginas que não estão nele ou cujo conteúdo mudou
+            if (snapshot != null) {
+                for (var entry : otherHashes.entrySet()) {
+                    int docId = urls.lookup(entry.getKey());
+                    if (inSnapshot(docId) && snapshot.contentHash(docId) != entry.getValue()) shadow(docId);
+                }
+            }
 
-            mergeMap(invertedIndex, otherIndex);
-            mergeMap(incomingLinks, otherIncoming);
-            pageMetadata.putAll(otherMetadata);
+            for (var entry : otherIndex.entrySet()) {
+                for (String url : entry.getValue()) {
+                    int docId = urls.getOrAdd(url);
+                    if (!inSnapshot(docId)) invertedIndex.computeIfAbsent(entry.getKey(), k -> new PostingList()).add(docId);
+                }
+            }
+            for (var entry : otherIncoming.entrySet()) {
+                int target = urls.getOrAdd(entry.getKey());
+                for (String url : entry.getValue()) {
+                    int source = urls.getOrAdd(url);
+                    if (!inSnapshot(source)) incomingLinks.add(target, source);
+                }
+            }
+            incomingLinks.compact();
+            for (var entry : otherMetadata.entrySet()) {
+                int docId = urls.getOrAdd(entry.getKey());
+                if (!inSnapshot(docId)) pageMetadata.put(docId, entry.getValue());
+            }
+            for (var entry : otherDuplicates.entrySet()) {
+                int docId = urls.getOrAdd(entry.getKey());
+                if (!inSnapshot(docId)) duplicateOf.put(docId, urls.getOrAdd(entry.getValue()));
+            }
+            long syncTime = System.currentTimeMillis();
+            for (var entry : otherHashes.entrySet()) {
+                int docId = urls.getOrAdd(entry.getKey());
+                if (!inSnapshot(docId)) versions.set(docId, entry.getValue(), syncTime);
+            }
+            urls.merge();
+            heapOnlyTerms = 0;
+            for (String term : invertedIndex.keySet()) {
+                if (!inSnapshotTerms(term)) heapOnlyTerms++;
+            }
+
+            rebuildForwardIndexes();
+            rebuildHostIndex();
+            rebuildNearDuplicates();
+            queryCache.clear();
+            recountMemory();
+            enforceMemoryBudget();
         } catch (RemoteException e) {
             throw e;
         }
     }
 
-    /**
-     * Método auxiliar para fundir dois mapas de conjuntos.
-     *
-     * @param target Mapa de destino.
-     * @param source Mapa de origem.
-     */
-    private void mergeMap(Map<String, Set<String>> target, Map<String, Set<String>> source) {
-        for (var entry : source.entrySet()) {
-            target.merge(entry.getKey(), entry.getValue(), (a, b) -> {
-                a.addAll(b);
-                return a;
-            });
-        }
-    }
-
     /**
      * Procura por Downloaders na rede e regista-se neles para começar a receber URLs.
      *
@@ -517,8 +1797,21 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     public synchronized void printStoredLinks() {
         System.out.println("\n===== [" + name + "] ESTADO =====");
         System.out.println("Status: " + (isActive ? "ACTIVE" : "SYNCHING"));
+        System.out.println("URLs: " + urls.size());
         System.out.println("Palavras: " + invertedIndex.size());
-        System.out.println("Links: " + incomingLinks.size());
+        System.out.println("Domínios: " + hostIndex.size());
+        System.out.println("Quase-duplicados: " + duplicateOf.size());
+        if (snapshot != null) {
+            System.out.println("Snapshot: " + snapshot.docCount() + " URLs (" + shadowed.cardinality() + " sombreados), "
+                    + snapshot.sizeBytes() / (1024 * 1024) + " MB mapeados");
+        }
+        System.out.println("Links: " + incomingLinks.targetCount() + " destinos, " + incomingLinks.edgeCount() + " ligações");
+        System.out.println("Memória: " + memoryUsage());
+        System.out.println("Latência pesquisa: " + searchLatency);
+        System.out.println("Latência store: " + storeLatency);
+        System.out.println("Cache: " + queryCache.size() + " entradas (hits=" + queryCache.getHits()
+                + ", misses=" + queryCache.getMisses() + ", evictions=" + queryCache.getEvictions()
+                + ", geração=" + queryCache.getGeneration() + ")");
         System.out.println("==============================\n");
     }
 
@@ -594,7 +1887,7 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
     }
 
     /**
-     * Inicia uma thread para processar comandos de consola (ex: "show", "exit").
+     * Inicia uma thread para processar comandos de consola (ex: "show", "slow", "snapshot", "exit").
      *
      * @param registry Referência para o Registry.
      * @param barrel A instância local do Barrel.
@@ -609,6 +1902,14 @@ public class Barrel extends UnicastRemoteObject implements IBarrel {
                 if (sc.hasNextLine()) {
                     String cmd = sc.nextLine().trim();
                     if (cmd.equalsIgnoreCase("show")) barrel.printStoredLinks();
+                    else if (cmd.equalsIgnoreCase("slow")) barrel.slowQueries.recent().forEach(q -> System.out.println(q));
+                    else if (cmd.equalsIgnoreCase("snapshot")) {
+                        try {
+                            barrel.writeSnapshot(SNAPSHOT_FILE);
+                        } catch (IOException e) {
+                            System.err.println("[" + name + "] Erro ao gravar snapshot: " + e.getMessage());
+                        }
+                    }
                     else if (cmd.equalsIgnoreCase("exit")) System.exit(0);
                 }
             }
@@ -0,0 +1,302 @@
+package barrel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Armazenamento comprimido e em disco dos tokens de cada documento (forward store).
+ * <p>
+ * Cada documento é gravado no fim de um ficheiro de dados como um registo composto por blocos
+ * de {@value #BLOCK_TOKENS} tokens comprimidos com Deflate. Em memória fica apenas o índice
+ * docID -> posição do registo; o texto é lido através de um mapeamento (mmap) só de leitura do
+ * ficheiro, de forma que o conteúdo das páginas não ocupa heap.
+ * </p>
+ * <p>
+ * Formato de um registo: {@code [int nTokens][int nBlocos]} seguido, por cada bloco, de
+ * {@code [int tamanhoComprimido][bytes]}. Os tokens de um bloco são separados por espaço.
+ * Quando um documento é armazenado de novo, o registo antigo fica órfão no ficheiro; quando os bytes
+ * órfãos passam de {@value #COMPACT_GARBAGE_RATIO} do ficheiro, os registos vivos são copiados para o
+ * início e o ficheiro é encurtado (compactação).
+ * </p>
+ * <p>
+ * Se o ficheiro exceder o tamanho mapeável (2 GB), os registos para além dele são lidos diretamente
+ * do canal, sem mmap.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class DocumentStore {
+
+    /**
+     * Número de tokens por bloco comprimido.
+     */
+    public static final int BLOCK_TOKENS = 256;
+
+    /**
+     * Fração de bytes órfãos a partir da qual o ficheiro é compactado.
+     */
+    public static final double COMPACT_GARBAGE_RATIO = 0.5;
+
+    /**
+     * Tamanho mínimo do ficheiro (bytes) para compactar.
+     */
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+
+    /**
+     * Canal do ficheiro de dados (leitura e escrita).
+     */
+    private final FileChannel channel;
+
+    /**
+     * Índice em memória: docID -> posição do registo no ficheiro.
+     */
+    private final Map<Integer, Long> offsets = new HashMap<>();
+
+    /**
+     * Tamanho (bytes) do registo atual de cada docID.
+     */
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+
+    /**
+     * Bytes ocupados por registos órfãos (substituídos).
+     */
+    private long orphanedBytes = 0;
+
+    /**
+     * Mapeamento só de leitura do ficheiro, refeito quando o ficheiro cresce para além dele.
+     */
+    private MappedByteBuffer mapped;
+
+    /**
+     * Posição onde será escrito o próximo registo.
+     */
+    private long writePosition = 0;
+
+    /**
+     * Abre (e trunca) o ficheiro de dados indicado.
+     * O ficheiro é apagado quando a JVM termina, já que o índice vive apenas em memória.
+     *
+     * @param file Caminho do ficheiro de dados.
+     * @throws IOException Se não for possível criar o ficheiro.
+     */
+    public DocumentStore(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        file.toFile().deleteOnExit();
+    }
+
+    /**
+     * Grava (ou substitui) os tokens de um documento.
+     * Se a substituição deixar demasiados bytes órfãos, o ficheiro é compactado.
+     *
+     * @param docId docID do documento.
+     * @param tokens Tokens pela ordem em que aparecem na página.
+     * @throws IOException Se ocorrer erro de escrita.
+     */
+    public synchronized void put(int docId, List<String> tokens) throws IOException {
+        int blockCount = (tokens.size() + BLOCK_TOKENS - 1) / BLOCK_TOKENS;
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.writeBytes(ByteBuffer.allocate(8).putInt(tokens.size()).putInt(blockCount).array());
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (int b = 0; b < blockCount; b++) {
+                List<String> block = tokens.subList(b * BLOCK_TOKENS, Math.min(tokens.size(), (b + 1) * BLOCK_TOKENS));
+                byte[] compressed = compress(deflater, String.join(" ", block).getBytes(StandardCharsets.UTF_8));
+                record.writeBytes(ByteBuffer.allocate(4).putInt(compressed.length).array());
+                record.writeBytes(compressed);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        long position = writePosition;
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+        offsets.put(docId, position);
+        Integer previous = lengths.put(docId, record.size());
+        if (previous != null) orphanedBytes += previous;
+        compactIfNeeded();
+    }
+
+    /**
+     * Apaga o registo de um documento (ex: quando passa a ser um quase-duplicado).
+     * Os bytes do registo ficam órfãos até à próxima compactação.
+     *
+     * @param docId docID do documento.
+     * @throws IOException Se a compactação falhar.
+     */
+    public synchronized void remove(int docId) throws IOException {
+        if (offsets.remove(docId) == null) return;
+        orphanedBytes += lengths.remove(docId);
+        compactIfNeeded();
+    }
+
+    /**
+     * Compacta o ficheiro se os bytes órfãos ultrapassarem a fração {@link #COMPACT_GARBAGE_RATIO}.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (writePosition >= COMPACT_MIN_BYTES && orphanedBytes > writePosition * COMPACT_GARBAGE_RATIO) {
+            compact();
+        }
+    }
+
+    /**
+     * Copia os registos vivos, por ordem de posição, para o início do ficheiro e encurta-o.
+     * Cada registo é lido por inteiro antes de ser escrito, pelo que a cópia no próprio ficheiro é
+     * segura (o destino nunca fica à frente da origem).
+     *
+     * @throws IOException Se ocorrer erro de leitura ou escrita.
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<Integer, Long>> live = new ArrayList<>(offsets.entrySet());
+        live.sort(Map.Entry.comparingByValue());
+
+        mapped = null;
+        long target = 0;
+        for (Map.Entry<Integer, Long> entry : live) {
+            ByteBuffer record = readRecord(entry.getValue(), lengths.get(entry.getKey()));
+            long position = target;
+            while (record.hasRemaining()) {
+                target += channel.write(record, target);
+            }
+            entry.setValue(position);
+        }
+
+        long before = writePosition;
+        writePosition = target;
+        orphanedBytes = 0;
+        try {
+            channel.truncate(writePosition);
+        } catch (IOException e) {
+            // Alguns sistemas não encurtam ficheiros ainda mapeados: o espaço é reutilizado pelas escritas seguintes
+        }
+        System.out.println("[DocumentStore] Compactado: " + before + " -> " + writePosition + " bytes.");
+    }
+
+    /**
+     * Lê os tokens de um documento.
+     *
+     * @param docId docID do documento.
+     * @return Lista de tokens, ou null se o documento não estiver armazenado.
+     * @throws IOException Se ocorrer erro de leitura ou o registo estiver corrompido.
+     */
+    public synchronized List<String> get(int docId) throws IOException {
+        Long position = offsets.get(docId);
+        if (position == null) return null;
+
+        ByteBuffer view = viewAt(position, lengths.get(docId));
+        int tokenCount = view.getInt();
+        int blockCount = view.getInt();
+        List<String> tokens = new ArrayList<>(tokenCount);
+
+        Inflater inflater = new Inflater();
+        try {
+            for (int b = 0; b < blockCount; b++) {
+                byte[] compressed = new byte[view.getInt()];
+                view.get(compressed);
+                String block = new String(decompress(inflater, compressed), StandardCharsets.UTF_8);
+                if (!block.isEmpty()) tokens.addAll(Arrays.asList(block.split(" ")));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Registo corrompido para o docID " + docId, e);
+        } finally {
+            inflater.end();
+        }
+        return tokens;
+    }
+
+    /**
+     * Verifica se um documento está armazenado.
+     *
+     * @param docId docID do documento.
+     * @return true se existir um registo para o docID.
+     */
+    public synchronized boolean contains(int docId) {
+        return offsets.containsKey(docId);
+    }
+
+    /**
+     * Obtém o tamanho atual do ficheiro de dados.
+     *
+     * @return Número de bytes escritos.
+     */
+    public synchronized long sizeOnDisk() {
+        return writePosition;
+    }
+
+    /**
+     * Devolve uma vista do ficheiro mapeado posicionada no registo pedido.
+     * Se o registo estiver para além da zona mapeada, o ficheiro é mapeado de novo; se estiver para
+     * além do tamanho mapeável, é lido do canal.
+     */
+    private ByteBuffer viewAt(long position, int length) throws IOException {
+        if (position + length > Integer.MAX_VALUE) return readRecord(position, length);
+
+        if (mapped == null || mapped.capacity() < position + length) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(writePosition, Integer.MAX_VALUE));
+        }
+        ByteBuffer view = mapped.duplicate();
+        view.position((int) position);
+        return view;
+    }
+
+    /**
+     * Lê um registo do canal para um buffer em heap.
+     */
+    private ByteBuffer readRecord(long position, int length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length);
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new IOException("Fim inesperado do ficheiro de documentos.");
+            }
+        }
+        return record.flip();
+    }
+
+    /**
+     * Comprime um bloco de bytes com o Deflater fornecido.
+     */
+    private static byte[] compress(Deflater deflater, byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Descomprime um bloco de bytes com o Inflater fornecido.
+     */
+    private static byte[] decompress(Inflater inflater, byte[] input) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 3);
+        byte[] chunk = new byte[4096];
+        while (!inflater.finished()) {
+            int n = inflater.inflate(chunk);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
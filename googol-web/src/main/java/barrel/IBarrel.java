@@ -1,5 +1,7 @@
 package barrel;
 
+import common.BacklinkPage;
+import common.BarrelMetrics;
 import common.PageData;
 import common.UrlMetadata;
 
@@ -28,13 +30,22 @@ public interface IBarrel extends Remote {
      * Armazena os dados processados de uma página no Barrel.
      * <p>
      * Atualiza o índice invertido (termos), a lista de links de entrada e
-     * os metadados da página.
+     * os metadados da página. Se a impressão do conteúdo for igual à já guardada para o URL,
+     * só é atualizado o momento da visita.
+     * </p>
+     * <p>
+     * Um resumo ({@link PageData#isStub()}) só é aceite se o Barrel tiver essa mesma impressão ou,
+     * se trouxer a impressão {@link common.SimHash}, se for quase-duplicado de uma página indexada
+     * neste Barrel (fica registado como duplicado). Caso contrário nada é alterado e o Downloader
+     * deve reenviar a página completa a este Barrel.
      * </p>
      *
      * @param page O objeto {@code PageData} contendo a informação extraída pelo Downloader.
+     * @return {@code false} se o Barrel precisar da página completa (resumo que não consegue
+     *         aplicar); {@code true} caso contrário.
      * @throws RemoteException Se ocorrer um erro na comunicação RMI.
      */
-    void storePage(PageData page) throws RemoteException;
+    boolean storePage(PageData page) throws RemoteException;
 
     /**
      * Realiza uma pesquisa no índice invertido.
@@ -60,6 +71,22 @@ public interface IBarrel extends Remote {
      */
     boolean isUrlInBarrel(String url) throws RemoteException;
 
+    /**
+     * Obtém as páginas registadas como quase-duplicadas (não indexadas).
+     *
+     * @return Mapa URL duplicado -> URL canónico.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    Map<String, String> getDuplicates() throws RemoteException;
+
+    /**
+     * Obtém a impressão do conteúdo de todas as páginas conhecidas (usado na sincronização).
+     *
+     * @return Mapa URL -> impressão {@link common.ContentHash}.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    Map<String, Long> getContentHashes() throws RemoteException;
+
     /**
      * Obtém o conjunto de URLs que apontam para um determinado URL (Incoming Links).
      *
@@ -69,6 +96,30 @@ public interface IBarrel extends Remote {
      */
     Set<String> getIncomingLinks(String url) throws RemoteException;
 
+    /**
+     * Obtém uma página dos URLs que apontam para um determinado URL, com a contagem total.
+     * <p>
+     * As origens são ordenadas pela sua relevância (links de entrada). Deve ser preferido a
+     * {@link #getIncomingLinks(String)} para páginas populares, pois só transfere uma página.
+     * </p>
+     *
+     * @param url O URL de destino.
+     * @param cursor {@code BacklinkPage.FIRST} para a primeira página, ou o cursor devolvido pela anterior.
+     * @param limit Número máximo de URLs a devolver.
+     * @return A página de links de entrada.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    BacklinkPage getBacklinks(String url, long cursor, int limit) throws RemoteException;
+
+    /**
+     * Obtém as métricas de latência medidas dentro do Barrel (pesquisa, armazenamento e sincronização)
+     * e as pesquisas lentas mais recentes, com o tempo de cada fase.
+     *
+     * @return As métricas do Barrel.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    BarrelMetrics getMetrics() throws RemoteException;
+
     // Sincronização de Dados
 
     /**
@@ -0,0 +1,631 @@
+package barrel;
+
+import common.UrlMetadata;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Snapshot imutável do índice de um Barrel, num ficheiro mapeado em memória.
+ * <p>
+ * Vários Barrels na mesma máquina podem abrir o mesmo ficheiro: as páginas são partilhadas
+ * através da cache de páginas do sistema operativo e não ocupam heap em cada JVM. Cada Barrel
+ * mantém em heap apenas as escritas posteriores ao snapshot (ver {@link Barrel}).
+ * </p>
+ * <p>
+ * O ficheiro guarda, por docID: o URL, a impressão do conteúdo, o URL canónico (se for um
+ * quase-duplicado), os metadados e as listas de ligações de entrada e de saída; e dois dicionários
+ * ordenados (termos e domínios) com as respetivas listas de docIDs. Todos os inteiros são
+ * big-endian; cada secção de tamanho variável tem um array de posições com uma entrada a mais.
+ * O ficheiro está limitado a 2 GB (um único {@link MappedByteBuffer}).
+ * </p>
+ * <p>
+ * As leituras usam apenas acessos absolutos ao buffer, pelo que podem ser feitas por várias threads.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class IndexSnapshot {
+
+    /**
+     * Dados do índice a gravar num snapshot (o estado completo do Barrel).
+     */
+    public interface Source {
+
+        /**
+         * Obtém o número de docIDs ({@code 0 .. docCount-1}).
+         *
+         * @return Número de docIDs.
+         */
+        int docCount();
+
+        /**
+         * Obtém o URL de um docID.
+         *
+         * @param docId docID.
+         * @return URL.
+         */
+        String url(int docId);
+
+        /**
+         * Obtém a impressão do conteúdo de um docID.
+         *
+         * @param docId docID.
+         * @return Impressão, ou 0 se desconhecida.
+         */
+        long contentHash(int docId);
+
+        /**
+         * Obtém o docID canónico de um quase-duplicado.
+         *
+         * @param docId docID.
+         * @return docID canónico, ou -1 se não for duplicado.
+         */
+        int canonical(int docId);
+
+        /**
+         * Obtém os metadados de um docID.
+         *
+         * @param docId docID.
+         * @return Metadados, ou null se a página não foi indexada.
+         */
+        UrlMetadata metadata(int docId);
+
+        /**
+         * Obtém as origens dos links que apontam para um docID.
+         *
+         * @param docId docID.
+         * @return docIDs ordenados.
+         */
+        int[] incoming(int docId);
+
+        /**
+         * Obtém os destinos dos links de um docID.
+         *
+         * @param docId docID.
+         * @return docIDs ordenados.
+         */
+        int[] outgoing(int docId);
+
+        /**
+         * Obtém todos os termos indexados.
+         *
+         * @return Termos (sem duplicados, por qualquer ordem).
+         */
+        List<String> terms();
+
+        /**
+         * Obtém a lista de docIDs de um termo.
+         *
+         * @param term Termo.
+         * @return docIDs ordenados.
+         */
+        int[] termPostings(String term);
+
+        /**
+         * Obtém todos os domínios indexados.
+         *
+         * @return Domínios (sem duplicados, por qualquer ordem).
+         */
+        List<String> hosts();
+
+        /**
+         * Obtém a lista de docIDs de um domínio.
+         *
+         * @param host Domínio.
+         * @return docIDs ordenados.
+         */
+        int[] hostPostings(String host);
+    }
+
+    /**
+     * Identificador do formato ("GSNP").
+     */
+    private static final int MAGIC = 0x47534E50;
+
+    /**
+     * Versão do formato.
+     */
+    private static final int VERSION = 1;
+
+    // Secções (índices no array de posições do cabeçalho)
+    private static final int URL_DATA = 0, URL_OFFSETS = 1, URL_SORTED = 2, HASHES = 3, CANONICAL = 4,
+            META_DATA = 5, META_OFFSETS = 6, IN_DATA = 7, IN_OFFSETS = 8, OUT_DATA = 9, OUT_OFFSETS = 10,
+            TERM_KEYS = 11, TERM_KEY_OFFSETS = 12, TERM_POSTINGS = 13, TERM_POSTING_OFFSETS = 14,
+            HOST_KEYS = 15, HOST_KEY_OFFSETS = 16, HOST_POSTINGS = 17, HOST_POSTING_OFFSETS = 18;
+
+    /**
+     * Número de secções.
+     */
+    private static final int SECTION_COUNT = 19;
+
+    /**
+     * Tamanho do cabeçalho: magic, versão, três contagens e a posição de cada secção.
+     */
+    private static final int HEADER_BYTES = 4 * (5 + SECTION_COUNT);
+
+    /**
+     * Conteúdo do ficheiro, mapeado só para leitura.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Posição de cada secção no ficheiro.
+     */
+    private final int[] sections = new int[SECTION_COUNT];
+
+    private final int docCount;
+    private final int termCount;
+    private final int hostCount;
+
+    /**
+     * Mapeia um ficheiro de snapshot.
+     *
+     * @param buffer Conteúdo mapeado.
+     * @throws IOException Se o ficheiro não for um snapshot válido.
+     */
+    private IndexSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Ficheiro de snapshot inválido ou de outra versão");
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.hostCount = buffer.getInt(16);
+        for (int i = 0; i < SECTION_COUNT; i++) sections[i] = buffer.getInt(20 + 4 * i);
+    }
+
+    /**
+     * Abre (mapeia) um snapshot existente.
+     *
+     * @param file Caminho do ficheiro.
+     * @return O snapshot.
+     * @throws IOException Se o ficheiro não existir, for inválido ou maior que 2 GB.
+     */
+    public static IndexSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Snapshot maior que 2 GB: " + file);
+            return new IndexSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Grava um snapshot completo.
+     * <p>
+     * O ficheiro é escrito ao lado do destino e depois movido atomicamente, pelo que os Barrels que
+     * já o tinham mapeado continuam a ler a versão anterior até voltarem a abri-lo.
+     * </p>
+     *
+     * @param file Caminho do ficheiro.
+     * @param source Dados a gravar.
+     * @throws IOException Se ocorrer erro de escrita ou o snapshot exceder 2 GB.
+     */
+    public static void write(Path file, Source source) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int n = source.docCount();
+        int[] sections = new int[SECTION_COUNT];
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_BYTES]);
+
+            // URLs e ordem alfabética (para a procura por URL)
+            byte[][] urls = new byte[n][];
+            for (int id = 0; id < n; id++) urls[id] = source.url(id).getBytes(StandardCharsets.UTF_8);
+            writeByteRecords(out, sections, URL_DATA, URL_OFFSETS, urls);
+            Integer[] order = new Integer[n];
+            for (int id = 0; id < n; id++) order[id] = id;
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(urls[a], urls[b]));
+            sections[URL_SORTED] = position(out);
+            for (int id : order) out.writeInt(id);
+
+            sections[HASHES] = position(out);
+            for (int id = 0; id < n; id++) out.writeLong(source.contentHash(id));
+            sections[CANONICAL] = position(out);
+            for (int id = 0; id < n; id++) out.writeInt(source.canonical(id));
+
+            byte[][] meta = new byte[n][];
+            for (int id = 0; id < n; id++) meta[id] = encodeMetadata(source.metadata(id));
+            writeByteRecords(out, sections, META_DATA, META_OFFSETS, meta);
+
+            int[][] lists = new int[n][];
+            for (int id = 0; id < n; id++) lists[id] = source.incoming(id);
+            writeIntRecords(out, sections, IN_DATA, IN_OFFSETS, lists);
+            for (int id = 0; id < n; id++) lists[id] = source.outgoing(id);
+            writeIntRecords(out, sections, OUT_DATA, OUT_OFFSETS, lists);
+
+            List<String> terms = source.terms();
+            writeDictionary(out, sections, TERM_KEYS, terms, source::termPostings);
+            List<String> hosts = source.hosts();
+            writeDictionary(out, sections, HOST_KEYS, hosts, source::hostPostings);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(terms.size()).putInt(hosts.size());
+            for (int pos : sections) header.putInt(pos);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // =========================================================================
+    // LEITURA
+    // =========================================================================
+
+    /**
+     * Obtém o número de docIDs do snapshot.
+     *
+     * @return Número de docIDs ({@code 0 .. docCount-1}).
+     */
+    public int docCount() {
+        return docCount;
+    }
+
+    /**
+     * Obtém o número de termos do snapshot.
+     *
+     * @return Número de termos.
+     */
+    public int termCount() {
+        return termCount;
+    }
+
+    /**
+     * Obtém o tamanho do ficheiro mapeado.
+     *
+     * @return Bytes.
+     */
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Obtém o URL de um docID.
+     *
+     * @param docId docID (menor que {@link #docCount()}).
+     * @return URL.
+     */
+    public String url(int docId) {
+        int from = intAt(URL_OFFSETS, docId), to = intAt(URL_OFFSETS, docId + 1);
+        return new String(bytes(URL_DATA, from, to), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Procura o docID de um URL (pesquisa binária pela ordem alfabética).
+     *
+     * @param url URL.
+     * @return docID, ou -1 se não existir no snapshot.
+     */
+    public int lookup(String url) {
+        byte[] target = url.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = docCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = intAt(URL_SORTED, mid);
+            int cmp = compare(URL_DATA, intAt(URL_OFFSETS, id), intAt(URL_OFFSETS, id + 1), target);
+            if (cmp == 0) return id;
+            if (cmp < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Obtém a impressão do conteúdo de um docID.
+     *
+     * @param docId docID.
+     * @return Impressão, ou 0 se desconhecida.
+     */
+    public long contentHash(int docId) {
+        return buffer.getLong(sections[HASHES] + 8 * docId);
+    }
+
+    /**
+     * Obtém o docID canónico de um quase-duplicado.
+     *
+     * @param docId docID.
+     * @return docID canónico, ou -1.
+     */
+    public int canonical(int docId) {
+        return intAt(CANONICAL, docId);
+    }
+
+    /**
+     * Obtém os metadados de um docID.
+     *
+     * @param docId docID.
+     * @return Metadados, ou null se a página não foi indexada.
+     */
+    public UrlMetadata metadata(int docId) {
+        int from = intAt(META_OFFSETS, docId), to = intAt(META_OFFSETS, docId + 1);
+        if (from == to) return null;
+        ByteBuffer record = ByteBuffer.wrap(bytes(META_DATA, from, to));
+        String title = readString(record);
+        String citation = readString(record);
+        return new UrlMetadata(title, citation);
+    }
+
+    /**
+     * Obtém o número de links que apontavam para um docID no momento do snapshot.
+     *
+     * @param docId docID.
+     * @return Grau de entrada.
+     */
+    public int inDegree(int docId) {
+        return intAt(IN_OFFSETS, docId + 1) - intAt(IN_OFFSETS, docId);
+    }
+
+    /**
+     * Obtém as origens dos links que apontam para um docID.
+     *
+     * @param docId docID.
+     * @return docIDs ordenados.
+     */
+    public int[] incoming(int docId) {
+        return ints(IN_DATA, intAt(IN_OFFSETS, docId), intAt(IN_OFFSETS, docId + 1));
+    }
+
+    /**
+     * Obtém o número de links de saída de um docID.
+     *
+     * @param docId docID.
+     * @return Grau de saída.
+     */
+    public int outDegree(int docId) {
+        return intAt(OUT_OFFSETS, docId + 1) - intAt(OUT_OFFSETS, docId);
+    }
+
+    /**
+     * Obtém os destinos dos links de um docID.
+     *
+     * @param docId docID.
+     * @return docIDs ordenados.
+     */
+    public int[] outgoing(int docId) {
+        return ints(OUT_DATA, intAt(OUT_OFFSETS, docId), intAt(OUT_OFFSETS, docId + 1));
+    }
+
+    /**
+     * Obtém a lista de docIDs de um termo, como vista sobre o ficheiro mapeado (sem cópia).
+     *
+     * @param term Termo analisado.
+     * @return Vista só de leitura dos docIDs ordenados, ou null se o termo não existir.
+     */
+    public IntBuffer termPostings(String term) {
+        return postings(TERM_KEYS, termCount, term);
+    }
+
+    /**
+     * Verifica se um termo existe, procurando apenas nas chaves (sem ler a lista).
+     *
+     * @param term Termo analisado.
+     * @return true se o snapshot tem uma lista para o termo.
+     */
+    public boolean containsTerm(String term) {
+        return find(TERM_KEYS, termCount, term) >= 0;
+    }
+
+    /**
+     * Obtém a lista de docIDs de um domínio, como vista sobre o ficheiro mapeado (sem cópia).
+     *
+     * @param host Domínio normalizado.
+     * @return Vista só de leitura dos docIDs ordenados, ou null se o domínio não existir.
+     */
+    public IntBuffer hostPostings(String host) {
+        return postings(HOST_KEYS, hostCount, host);
+    }
+
+    /**
+     * Obtém todos os termos (usado na exportação e na escrita de um novo snapshot).
+     *
+     * @return Termos, pela ordem do ficheiro.
+     */
+    public List<String> terms() {
+        return keys(TERM_KEYS, termCount);
+    }
+
+    /**
+     * Obtém todos os domínios.
+     *
+     * @return Domínios, pela ordem do ficheiro.
+     */
+    public List<String> hosts() {
+        return keys(HOST_KEYS, hostCount);
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    /**
+     * Procura uma chave num dicionário (secções {@code keys .. keys+3}) e devolve a sua lista.
+     */
+    private IntBuffer postings(int keys, int count, String key) {
+        int i = find(keys, count, key);
+        return i < 0 ? null : intView(keys + 2, intAt(keys + 3, i), intAt(keys + 3, i + 1));
+    }
+
+    /**
+     * Pesquisa binária de uma chave num dicionário.
+     *
+     * @return Índice da chave, ou -1 se não existir.
+     */
+    private int find(int keys, int count, String key) {
+        byte[] target = key.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(keys, intAt(keys + 1, mid), intAt(keys + 1, mid + 1), target);
+            if (cmp == 0) return mid;
+            if (cmp < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Descodifica todas as chaves de um dicionário.
+     */
+    private List<String> keys(int keys, int count) {
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new String(bytes(keys, intAt(keys + 1, i), intAt(keys + 1, i + 1)), StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    /**
+     * Lê o i-ésimo inteiro de uma secção.
+     */
+    private int intAt(int section, int i) {
+        return buffer.getInt(sections[section] + 4 * i);
+    }
+
+    /**
+     * Copia os inteiros {@code [from, to)} de uma secção.
+     */
+    private int[] ints(int section, int from, int to) {
+        int[] values = new int[to - from];
+        buffer.slice(sections[section] + 4 * from, 4 * values.length).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Vista (sem cópia) dos inteiros {@code [from, to)} de uma secção.
+     */
+    private IntBuffer intView(int section, int from, int to) {
+        return buffer.slice(sections[section] + 4 * from, 4 * (to - from)).asIntBuffer();
+    }
+
+    /**
+     * Copia os bytes {@code [from, to)} de uma secção.
+     */
+    private byte[] bytes(int section, int from, int to) {
+        byte[] values = new byte[to - from];
+        buffer.get(sections[section] + from, values);
+        return values;
+    }
+
+    /**
+     * Compara (sem sinal) os bytes {@code [from, to)} de uma secção com uma chave.
+     */
+    private int compare(int section, int from, int to, byte[] target) {
+        int base = sections[section];
+        int len = to - from, n = Math.min(len, target.length);
+        for (int i = 0; i < n; i++) {
+            int c = Integer.compare(buffer.get(base + from + i) & 0xFF, target[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return Integer.compare(len, target.length);
+    }
+
+    /**
+     * Lê uma string (tamanho + UTF-8; tamanho -1 = null).
+     */
+    private static String readString(ByteBuffer record) {
+        int len = record.getInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        record.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Codifica os metadados de uma página (registo vazio se não existirem).
+     */
+    private static byte[] encodeMetadata(UrlMetadata meta) {
+        if (meta == null) return new byte[0];
+        byte[] title = meta.getTitle() == null ? null : meta.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] citation = meta.getCitation() == null ? null : meta.getCitation().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer b = ByteBuffer.allocate(8 + (title == null ? 0 : title.length) + (citation == null ? 0 : citation.length));
+        b.putInt(title == null ? -1 : title.length);
+        if (title != null) b.put(title);
+        b.putInt(citation == null ? -1 : citation.length);
+        if (citation != null) b.put(citation);
+        return b.array();
+    }
+
+    /**
+     * Escreve registos de bytes seguidos do array de posições (em bytes).
+     */
+    private static void writeByteRecords(DataOutputStream out, int[] sections, int data, int offsets,
+                                         byte[][] records) throws IOException {
+        sections[data] = position(out);
+        int[] pos = new int[records.length + 1];
+        for (int i = 0; i < records.length; i++) {
+            out.write(records[i]);
+            pos[i + 1] = pos[i] + records[i].length;
+        }
+        sections[offsets] = position(out);
+        for (int p : pos) out.writeInt(p);
+    }
+
+    /**
+     * Escreve listas de inteiros seguidas do array de posições (em inteiros).
+     */
+    private static void writeIntRecords(DataOutputStream out, int[] sections, int data, int offsets,
+                                        int[][] records) throws IOException {
+        sections[data] = position(out);
+        int[] pos = new int[records.length + 1];
+        for (int i = 0; i < records.length; i++) {
+            for (int v : records[i]) out.writeInt(v);
+            pos[i + 1] = pos[i] + records[i].length;
+        }
+        sections[offsets] = position(out);
+        for (int p : pos) out.writeInt(p);
+    }
+
+    /**
+     * Escreve um dicionário ordenado pelos bytes UTF-8 das chaves (a ordem usada na procura):
+     * chaves, posições das chaves, listas e posições das listas.
+     */
+    private static void writeDictionary(DataOutputStream out, int[] sections, int keys, List<String> keyList,
+                                        Function<String, int[]> postings) throws IOException {
+        byte[][] unsorted = new byte[keyList.size()][];
+        for (int i = 0; i < unsorted.length; i++) unsorted[i] = keyList.get(i).getBytes(StandardCharsets.UTF_8);
+        Integer[] order = new Integer[unsorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(unsorted[a], unsorted[b]));
+        byte[][] keyBytes = new byte[order.length][];
+        for (int i = 0; i < order.length; i++) keyBytes[i] = unsorted[order[i]];
+        writeByteRecords(out, sections, keys, keys + 1, keyBytes);
+
+        sections[keys + 2] = position(out);
+        int[] pos = new int[keyBytes.length + 1];
+        for (int i = 0; i < keyBytes.length; i++) {
+            int[] ids = postings.apply(keyList.get(order[i]));
+            for (int v : ids) out.writeInt(v);
+            pos[i + 1] = pos[i] + ids.length;
+        }
+        sections[keys + 3] = position(out);
+        for (int p : pos) out.writeInt(p);
+    }
+
+    /**
+     * Posição atual do ficheiro, falhando se ultrapassar o limite de 2 GB.
+     */
+    private static int position(DataOutputStream out) throws IOException {
+        if (out.size() == Integer.MAX_VALUE) throw new IOException("Snapshot maior que 2 GB");
+        return out.size();
+    }
+}
@@ -0,0 +1,426 @@
+package barrel;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grafo de ligações comprimido de um Barrel: para cada página (docID destino) guarda a lista
+ * ordenada das páginas que apontam para ela (docIDs origem).
+ * <p>
+ * As listas são guardadas num único array de bytes, ao estilo do WebGraph:
+ * <ul>
+ * <li><b>Compressão por referência:</b> uma lista pode indicar outra lista recente (até
+ * {@value #WINDOW} nós atrás) e copiar parte dela, descrita por blocos alternados de
+ * "copiar"/"saltar". Páginas do mesmo site costumam ter origens quase iguais.</li>
+ * <li><b>Resíduos em gaps:</b> os docIDs que não vieram da referência são guardados como diferenças
+ * sucessivas em varint; o primeiro é relativo ao próprio nó.</li>
+ * </ul>
+ * Nós sem ligações de entrada (a maioria dos destinos nunca visitados) ocupam apenas a sua posição
+ * nos arrays de índices.
+ * </p>
+ * <p>
+ * As alterações vão para uma zona de escrita com as listas completas dos nós modificados, que é
+ * recomprimida quando cresce demasiado. O número de ligações de entrada de cada nó é mantido num
+ * array à parte, para que o ranking não precise de descomprimir nada.
+ * Esta classe não é thread-safe; o Barrel acede-lhe dentro dos seus métodos sincronizados.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class LinkGraph {
+
+    /**
+     * Número de listas anteriores consideradas como referência.
+     */
+    public static final int WINDOW = 7;
+
+    /**
+     * Comprimento máximo de uma cadeia de referências (limita o custo de descompressão).
+     */
+    private static final int MAX_REF_CHAIN = 3;
+
+    /**
+     * Número mínimo de nós modificados antes de recomprimir.
+     */
+    private static final int MIN_DIRTY_COMPACT = 4096;
+
+    // Zona comprimida
+    /**
+     * Listas comprimidas, umas a seguir às outras.
+     */
+    private byte[] data = new byte[0];
+
+    /**
+     * Posição de início da lista de cada nó em {@code data} (o nó {@code n} ocupa
+     * {@code offsets[n] .. offsets[n+1]}; listas vazias não ocupam bytes).
+     */
+    private int[] offsets = new int[1];
+
+    /**
+     * Número de nós na zona comprimida.
+     */
+    private int frozenNodes = 0;
+
+    // Zona de escrita
+    /**
+     * Listas completas (já atualizadas) dos nós modificados desde a última compressão.
+     */
+    private final Map<Integer, PostingList> dirty = new HashMap<>();
+
+    /**
+     * Bytes estimados da zona de escrita.
+     */
+    private long dirtyBytes = 0;
+
+    /**
+     * Número de ligações de entrada de cada nó.
+     */
+    private int[] inDegree = new int[0];
+
+    /**
+     * Número total de ligações.
+     */
+    private long edges = 0;
+
+    /**
+     * Número de nós com pelo menos uma ligação de entrada.
+     */
+    private int targets = 0;
+
+    /**
+     * Adiciona a ligação {@code source -> target}.
+     *
+     * @param target docID destino.
+     * @param source docID origem.
+     * @return true se a ligação não existia.
+     */
+    public boolean add(int target, int source) {
+        PostingList list = editable(target);
+        long before = list.estimatedBytes();
+        if (!list.add(source)) return false;
+        dirtyBytes += list.estimatedBytes() - before;
+        ensureNode(target);
+        if (inDegree[target]++ == 0) targets++;
+        edges++;
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Remove a ligação {@code source -> target}.
+     *
+     * @param target docID destino.
+     * @param source docID origem.
+     * @return true se a ligação existia.
+     */
+    public boolean remove(int target, int source) {
+        if (inDegree(target) == 0) return false;
+        PostingList list = editable(target);
+        long before = list.estimatedBytes();
+        if (!list.remove(source)) return false;
+        dirtyBytes += list.estimatedBytes() - before;
+        if (--inDegree[target] == 0) targets--;
+        edges--;
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Obtém o número de ligações de entrada de um nó, sem descomprimir a lista.
+     *
+     * @param node docID.
+     * @return Número de origens.
+     */
+    public int inDegree(int node) {
+        return node >= 0 && node < inDegree.length ? inDegree[node] : 0;
+    }
+
+    /**
+     * Obtém as origens das ligações que apontam para um nó.
+     *
+     * @param node docID destino.
+     * @return docIDs origem, por ordem crescente.
+     */
+    public int[] sources(int node) {
+        PostingList list = dirty.get(node);
+        if (list != null) return list.toArray();
+        if (inDegree(node) == 0 || node >= frozenNodes) return new int[0];
+        return decode(node, data, offsets);
+    }
+
+    /**
+     * Obtém o limite superior (exclusivo) dos docIDs com nó no grafo.
+     *
+     * @return Número de posições do array de graus.
+     */
+    public int nodeBound() {
+        return inDegree.length;
+    }
+
+    /**
+     * Obtém o número de nós com pelo menos uma ligação de entrada.
+     *
+     * @return Número de destinos.
+     */
+    public int targetCount() {
+        return targets;
+    }
+
+    /**
+     * Obtém o número total de ligações.
+     *
+     * @return Número de arestas.
+     */
+    public long edgeCount() {
+        return edges;
+    }
+
+    /**
+     * Estima os bytes de heap ocupados pelo grafo.
+     *
+     * @return Bytes estimados.
+     */
+    public long estimatedBytes() {
+        return 64 + data.length + 4L * offsets.length + 4L * inDegree.length + dirtyBytes;
+    }
+
+    /**
+     * Recomprime todas as listas (zona comprimida + zona de escrita) num novo array de bytes.
+     */
+    public void compact() {
+        if (dirty.isEmpty()) return;
+
+        int nodes = inDegree.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, data.length));
+        int[] newOffsets = new int[nodes + 1];
+
+        // Janela circular com as últimas listas escritas e o comprimento da sua cadeia de referências
+        int[][] window = new int[WINDOW][];
+        int[] chain = new int[WINDOW];
+
+        for (int n = 0; n < nodes; n++) {
+            newOffsets[n] = out.size();
+            int[] list = currentList(n);
+            int slot = n % WINDOW;
+            if (list.length == 0) {
+                window[slot] = null;
+                continue;
+            }
+
+            // Escolhe a referência com mais elementos em comum
+            int bestRef = 0, bestCommon = 1;
+            for (int r = 1; r <= WINDOW && r <= n; r++) {
+                int[] candidate = window[(n - r) % WINDOW];
+                if (candidate == null || chain[(n - r) % WINDOW] >= MAX_REF_CHAIN) continue;
+                int common = intersectionSize(list, candidate);
+                if (common > bestCommon) {
+                    bestCommon = common;
+                    bestRef = r;
+                }
+            }
+
+            int[] reference = bestRef == 0 ? null : window[(n - bestRef) % WINDOW];
+            encode(out, n, list, bestRef, reference);
+            chain[slot] = bestRef == 0 ? 0 : chain[(n - bestRef) % WINDOW] + 1;
+            window[slot] = list;
+        }
+        newOffsets[nodes] = out.size();
+
+        this.data = out.toByteArray();
+        this.offsets = newOffsets;
+        this.frozenNodes = nodes;
+        dirty.clear();
+        dirtyBytes = 0;
+    }
+
+    /**
+     * Remove todas as ligações.
+     */
+    public void clear() {
+        data = new byte[0];
+        offsets = new int[1];
+        frozenNodes = 0;
+        dirty.clear();
+        dirtyBytes = 0;
+        inDegree = new int[0];
+        edges = 0;
+        targets = 0;
+    }
+
+    // =========================================================================
+    // AUXILIARES
+    // =========================================================================
+
+    /**
+     * Obtém a lista de um nó na zona de escrita, copiando-a da zona comprimida se necessário.
+     */
+    private PostingList editable(int node) {
+        PostingList list = dirty.get(node);
+        if (list == null) {
+            int[] current = node < frozenNodes && inDegree(node) > 0 ? decode(node, data, offsets) : new int[0];
+            list = new PostingList(Arrays.copyOf(current, Math.max(current.length, 1)), current.length);
+            dirty.put(node, list);
+            dirtyBytes += MemoryAccountant.ENTRY_BYTES + 16 + list.estimatedBytes();
+        }
+        return list;
+    }
+
+    /**
+     * Obtém a lista atual de um nó, seja da zona de escrita ou da comprimida.
+     */
+    private int[] currentList(int node) {
+        PostingList list = dirty.get(node);
+        if (list != null) return list.toArray();
+        return node < frozenNodes ? decode(node, data, offsets) : new int[0];
+    }
+
+    /**
+     * Garante que o array de graus tem posição para o nó.
+     */
+    private void ensureNode(int node) {
+        if (node < inDegree.length) return;
+        inDegree = Arrays.copyOf(inDegree, Math.max(node + 1, inDegree.length + (inDegree.length >> 1)));
+    }
+
+    /**
+     * Recomprime quando a zona de escrita ultrapassa o limite.
+     */
+    private void compactIfNeeded() {
+        if (dirty.size() >= Math.max(MIN_DIRTY_COMPACT, frozenNodes / 16)) compact();
+    }
+
+    /**
+     * Conta os elementos comuns a duas listas ordenadas.
+     */
+    private static int intersectionSize(int[] a, int[] b) {
+        return PostingKernels.get().intersectCount(a, a.length, b, b.length);
+    }
+
+    /**
+     * Codifica a lista de um nó.
+     * <p>
+     * Formato: {@code [varint ref]}, seguido (se {@code ref > 0}) de {@code [varint nBlocos][varint bloco]*}
+     * com os comprimentos alternados copiar/saltar sobre a lista de referência, e por fim
+     * {@code [varint nResíduos][zigzag primeiro-nó][varint gap-1]*}.
+     * </p>
+     */
+    private static void encode(ByteArrayOutputStream out, int node, int[] list, int ref, int[] reference) {
+        writeVarInt(out, ref);
+
+        int[] residuals = list;
+        if (reference != null) {
+            // Blocos copiar/saltar sobre a lista de referência (o último bloco de "saltar" é implícito)
+            int[] blocks = new int[reference.length + 1];
+            int nBlocks = 0, run = 0, i = 0;
+            boolean copying = true;
+            residuals = new int[list.length];
+            int nResiduals = 0;
+            for (int value : reference) {
+                while (i < list.length && list[i] < value) residuals[nResiduals++] = list[i++];
+                boolean inList = i < list.length && list[i] == value;
+                if (inList) i++;
+                if (inList != copying) {
+                    blocks[nBlocks++] = run;
+                    run = 0;
+                    copying = !copying;
+                }
+                run++;
+            }
+            while (i < list.length) residuals[nResiduals++] = list[i++];
+            if (copying) blocks[nBlocks++] = run;
+
+            writeVarInt(out, nBlocks);
+            for (int b = 0; b < nBlocks; b++) writeVarInt(out, blocks[b]);
+            residuals = Arrays.copyOf(residuals, nResiduals);
+        }
+
+        writeVarInt(out, residuals.length);
+        for (int r = 0; r < residuals.length; r++) {
+            if (r == 0) writeVarInt(out, zigzag(residuals[0] - node));
+            else writeVarInt(out, residuals[r] - residuals[r - 1] - 1);
+        }
+    }
+
+    /**
+     * Descodifica a lista de um nó da zona comprimida.
+     */
+    private static int[] decode(int node, byte[] data, int[] offsets) {
+        int[] pos = {offsets[node]};
+        if (pos[0] == offsets[node + 1]) return new int[0];
+
+        int ref = readVarInt(data, pos);
+        int[] copied = new int[0];
+        int nCopied = 0;
+        if (ref > 0) {
+            int[] reference = decode(node - ref, data, offsets);
+            copied = new int[reference.length];
+            int nBlocks = readVarInt(data, pos);
+            int idx = 0;
+            for (int b = 0; b < nBlocks; b++) {
+                int len = readVarInt(data, pos);
+                if (b % 2 == 0) {
+                    System.arraycopy(reference, idx, copied, nCopied, len);
+                    nCopied += len;
+                }
+                idx += len;
+            }
+        }
+
+        int nResiduals = readVarInt(data, pos);
+        int[] residuals = new int[nResiduals];
+        for (int r = 0; r < nResiduals; r++) {
+            residuals[r] = r == 0 ? node + unzigzag(readVarInt(data, pos)) : residuals[r - 1] + readVarInt(data, pos) + 1;
+        }
+
+        // Junta as duas listas ordenadas
+        int[] result = new int[nCopied + nResiduals];
+        int i = 0, j = 0, k = 0;
+        while (i < nCopied || j < nResiduals) {
+            if (j >= nResiduals || (i < nCopied && copied[i] < residuals[j])) result[k++] = copied[i++];
+            else result[k++] = residuals[j++];
+        }
+        return result;
+    }
+
+    /**
+     * Converte um inteiro com sinal num inteiro sem sinal (zigzag).
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Inverso de {@link #zigzag(int)}.
+     */
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Lê um inteiro em formato varint.
+     */
+    private static int readVarInt(byte[] data, int[] pos) {
+        int value = 0, shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Escreve um inteiro em formato varint (7 bits por byte).
+     */
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,146 @@
+package barrel;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contabilidade aproximada da memória heap ocupada pelas estruturas de um Barrel.
+ * <p>
+ * As estimativas são feitas de forma incremental, sempre que uma estrutura é alterada, com base no
+ * tamanho típico dos objetos numa JVM de 64 bits com referências comprimidas. Não pretendem ser
+ * exatas: servem para detetar a aproximação ao orçamento de memória antes de ocorrer um
+ * {@code OutOfMemoryError}.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class MemoryAccountant {
+
+    /**
+     * Componentes contabilizados separadamente.
+     */
+    public enum Component { URL_DICTIONARY, TERM_DICTIONARY, POSTINGS, LINK_GRAPH, METADATA, FORWARD_INDEX }
+
+    /**
+     * Custo de uma entrada num HashMap/HashSet (nó + posição na tabela).
+     */
+    public static final long ENTRY_BYTES = 48;
+
+    /**
+     * Custo base de um HashSet vazio (HashSet + HashMap interno + tabela inicial).
+     */
+    public static final long SET_BYTES = 80;
+
+    /**
+     * Custo de um objeto pequeno com duas referências (ex: {@code UrlMetadata}).
+     */
+    public static final long SMALL_OBJECT_BYTES = 24;
+
+    /**
+     * Bytes estimados por componente.
+     */
+    private final Map<Component, Long> bytes = new EnumMap<>(Component.class);
+
+    /**
+     * Orçamento de memória configurado, em bytes.
+     */
+    private final long budgetBytes;
+
+    /**
+     * Construtor da contabilidade.
+     *
+     * @param budgetBytes Orçamento de memória em bytes.
+     */
+    public MemoryAccountant(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        reset();
+    }
+
+    /**
+     * Estima o tamanho de uma String (objeto + array de bytes, codificação compacta).
+     *
+     * @param s A string (pode ser null).
+     * @return Bytes estimados.
+     */
+    public static long stringBytes(String s) {
+        return s == null ? 0 : 40 + s.length();
+    }
+
+    /**
+     * Estima o tamanho de um array de referências.
+     *
+     * @param length Número de elementos.
+     * @return Bytes estimados.
+     */
+    public static long arrayBytes(int length) {
+        return 16 + 4L * length;
+    }
+
+    /**
+     * Soma (ou subtrai, se negativo) bytes a um componente.
+     *
+     * @param component Componente afetado.
+     * @param delta Variação em bytes.
+     */
+    public void add(Component component, long delta) {
+        bytes.merge(component, delta, Long::sum);
+    }
+
+    /**
+     * Define diretamente os bytes de um componente (para estruturas que estimam o seu próprio tamanho).
+     *
+     * @param component Componente afetado.
+     * @param value Bytes estimados.
+     */
+    public void set(Component component, long value) {
+        bytes.put(component, value);
+    }
+
+    /**
+     * Coloca todos os componentes a zero (antes de uma recontagem completa).
+     */
+    public void reset() {
+        for (Component c : Component.values()) bytes.put(c, 0L);
+    }
+
+    /**
+     * Obtém os bytes estimados de um componente.
+     *
+     * @param component Componente.
+     * @return Bytes estimados.
+     */
+    public long get(Component component) {
+        return bytes.get(component);
+    }
+
+    /**
+     * Obtém o total estimado de todos os componentes.
+     *
+     * @return Bytes estimados.
+     */
+    public long total() {
+        long sum = 0;
+        for (long b : bytes.values()) sum += b;
+        return sum;
+    }
+
+    /**
+     * Obtém o orçamento configurado.
+     *
+     * @return Orçamento em bytes.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Verifica se o total estimado excede uma fração do orçamento.
+     *
+     * @param fraction Fração do orçamento (ex: 1.0 para o orçamento completo).
+     * @return true se o total for superior.
+     */
+    public boolean exceeds(double fraction) {
+        return total() > budgetBytes * fraction;
+    }
+}
@@ -0,0 +1,227 @@
+package barrel;
+
+import common.UrlMetadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Armazenamento em disco dos metadados "frios" de um Barrel.
+ * <p>
+ * Quando o orçamento de memória é excedido, o Barrel move para aqui os metadados (título e
+ * citação) acedidos há mais tempo. Os registos são acrescentados ao fim de um ficheiro e em
+ * memória fica apenas o índice docID -> posição. Os metadados só são lidos para os resultados
+ * finais de cada pesquisa, por isso o custo de ir ao disco é pequeno.
+ * </p>
+ * <p>
+ * Formato de um registo: {@code [int tamTítulo][bytes][int tamCitação][bytes]} em UTF-8.
+ * </p>
+ * <p>
+ * Um registo substituído ou esquecido fica órfão no ficheiro. Antes de cada escrita, se os bytes
+ * órfãos excederem os vivos (e pelo menos {@code COMPACT_MIN_BYTES}), os registos vivos são copiados
+ * para o início do ficheiro e o resto é cortado, pelo que o ficheiro nunca passa de cerca do dobro
+ * dos metadados em disco.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class MetadataSpillStore {
+
+    /**
+     * Canal do ficheiro de dados.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Índice em memória: docID -> posição do registo.
+     */
+    private final Map<Integer, Long> offsets = new HashMap<>();
+
+    /**
+     * Índice em memória: docID -> tamanho do registo (bytes).
+     */
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+
+    /**
+     * Posição onde será escrito o próximo registo.
+     */
+    private long writePosition = 0;
+
+    /**
+     * Bytes de registos que já não são referenciados.
+     */
+    private long orphanedBytes = 0;
+
+    /**
+     * Bytes órfãos abaixo dos quais não se compacta (evita reescritas de ficheiros pequenos).
+     */
+    private static final long COMPACT_MIN_BYTES = 64 * 1024;
+
+    /**
+     * Abre (e trunca) o ficheiro de dados indicado. O ficheiro é apagado quando a JVM termina.
+     *
+     * @param file Caminho do ficheiro.
+     * @throws IOException Se não for possível criar o ficheiro.
+     */
+    public MetadataSpillStore(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        file.toFile().deleteOnExit();
+    }
+
+    /**
+     * Grava os metadados de uma página no disco.
+     *
+     * @param docId docID da página.
+     * @param meta Metadados a gravar.
+     * @throws IOException Se ocorrer erro de escrita.
+     */
+    public synchronized void put(int docId, UrlMetadata meta) throws IOException {
+        byte[] title = meta.getTitle() == null ? new byte[0] : meta.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] citation = meta.getCitation() == null ? new byte[0] : meta.getCitation().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + title.length + citation.length);
+        buffer.putInt(title.length).put(title).putInt(citation.length).put(citation).flip();
+
+        forget(docId);
+        if (orphanedBytes >= COMPACT_MIN_BYTES && orphanedBytes > writePosition - orphanedBytes) compact();
+
+        long position = writePosition;
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+        offsets.put(docId, position);
+        lengths.put(docId, buffer.limit());
+    }
+
+    /**
+     * Copia os registos vivos para o início do ficheiro, pela ordem em que estão, e corta o resto.
+     * Cada registo é lido por inteiro antes de ser escrito numa posição anterior ou igual à sua.
+     *
+     * @throws IOException Se ocorrer erro de leitura ou escrita.
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<Integer, Long>> live = new ArrayList<>(offsets.entrySet());
+        live.sort(Map.Entry.comparingByValue());
+
+        long target = 0;
+        for (Map.Entry<Integer, Long> entry : live) {
+            ByteBuffer record = ByteBuffer.allocate(lengths.get(entry.getKey()));
+            readFully(record, entry.getValue());
+            record.flip();
+            long position = target;
+            while (record.hasRemaining()) {
+                target += channel.write(record, target);
+            }
+            entry.setValue(position);
+        }
+
+        long before = writePosition;
+        writePosition = target;
+        orphanedBytes = 0;
+        channel.truncate(writePosition);
+        System.out.println("[MetadataSpillStore] Compactado: " + before + " -> " + writePosition + " bytes.");
+    }
+
+    /**
+     * Esquece o registo de uma página, contando os seus bytes como órfãos.
+     *
+     * @param docId docID da página.
+     */
+    private void forget(int docId) {
+        offsets.remove(docId);
+        Integer length = lengths.remove(docId);
+        if (length != null) orphanedBytes += length;
+    }
+
+    /**
+     * Lê os metadados de uma página.
+     *
+     * @param docId docID da página.
+     * @return Os metadados, ou null se a página não estiver no disco.
+     * @throws IOException Se ocorrer erro de leitura.
+     */
+    public synchronized UrlMetadata get(int docId) throws IOException {
+        Long position = offsets.get(docId);
+        if (position == null) return null;
+
+        byte[] title = readBytes(position);
+        byte[] citation = readBytes(position + 4 + title.length);
+        return new UrlMetadata(new String(title, StandardCharsets.UTF_8), new String(citation, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifica se uma página tem metadados no disco.
+     *
+     * @param docId docID da página.
+     * @return true se existir registo.
+     */
+    public synchronized boolean contains(int docId) {
+        return offsets.containsKey(docId);
+    }
+
+    /**
+     * Esquece o registo de uma página (ex: quando a página volta a ser armazenada em memória).
+     *
+     * @param docId docID da página.
+     */
+    public synchronized void remove(int docId) {
+        forget(docId);
+    }
+
+    /**
+     * Obtém os docIDs com metadados no disco.
+     *
+     * @return Cópia do conjunto de docIDs.
+     */
+    public synchronized Set<Integer> ids() {
+        return new HashSet<>(offsets.keySet());
+    }
+
+    /**
+     * Obtém o número de registos no disco.
+     *
+     * @return Número de páginas.
+     */
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Obtém o tamanho do ficheiro de dados (registos vivos e órfãos).
+     *
+     * @return Bytes escritos no ficheiro.
+     */
+    public synchronized long sizeOnDisk() {
+        return writePosition;
+    }
+
+    /**
+     * Lê um bloco de bytes prefixado pelo seu tamanho na posição indicada.
+     */
+    private byte[] readBytes(long position) throws IOException {
+        ByteBuffer len = ByteBuffer.allocate(4);
+        readFully(len, position);
+        ByteBuffer data = ByteBuffer.allocate(len.flip().getInt());
+        readFully(data, position + 4);
+        return data.array();
+    }
+
+    /**
+     * Lê do canal até preencher o buffer.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Fim de ficheiro inesperado.");
+        }
+    }
+}
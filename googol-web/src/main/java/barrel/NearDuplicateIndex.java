@@ -0,0 +1,182 @@
+package barrel;
+
+import common.SimHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice LSH (locality-sensitive hashing) das impressões SimHash das páginas indexadas.
+ * <p>
+ * A impressão de 64 bits é dividida em {@code maxDistance + 1} bandas. Se duas impressões diferem
+ * em no máximo {@code maxDistance} bits, pelo princípio da gaiola dos pombos pelo menos uma banda é
+ * idêntica; basta por isso comparar a página com os documentos que partilham alguma banda,
+ * em vez de com todo o índice.
+ * </p>
+ * <p>
+ * Não é thread-safe: é usado sob o lock do Barrel.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class NearDuplicateIndex {
+
+    /**
+     * Custo de cada impressão: entrada no mapa, Integer e Long.
+     */
+    private static final long FINGERPRINT_BYTES = MemoryAccountant.ENTRY_BYTES + 32;
+
+    /**
+     * Custo de cada balde de uma banda (sem a lista): entrada no mapa e chave Long.
+     */
+    private static final long BUCKET_BYTES = MemoryAccountant.ENTRY_BYTES + 24;
+
+    /**
+     * Distância máxima (bits) entre quase-duplicados.
+     */
+    private final int maxDistance;
+
+    /**
+     * Largura (bits) de cada banda; a última fica com os bits que sobram.
+     */
+    private final int bandBits;
+
+    /**
+     * Por banda: valor da banda -> docIDs com esse valor.
+     */
+    private final List<Map<Long, PostingList>> bands;
+
+    /**
+     * docID -> impressão.
+     */
+    private final Map<Integer, Long> fingerprints = new HashMap<>();
+
+    /**
+     * Bytes estimados das listas das bandas (mantido a cada alteração).
+     */
+    private long bandBytes = 0;
+
+    /**
+     * Cria um índice vazio.
+     *
+     * @param maxDistance Distância máxima (0 a 63) entre quase-duplicados.
+     */
+    public NearDuplicateIndex(int maxDistance) {
+        this.maxDistance = Math.max(0, Math.min(63, maxDistance));
+        int count = this.maxDistance + 1;
+        this.bandBits = 64 / count;
+        this.bands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) bands.add(new HashMap<>());
+    }
+
+    /**
+     * Procura uma página indexada cuja impressão esteja a no máximo {@code maxDistance} bits.
+     *
+     * @param fingerprint Impressão da página.
+     * @param exclude docID a ignorar (a própria página), ou -1.
+     * @return docID do quase-duplicado mais próximo (empate: o mais antigo), ou -1 se não existir.
+     */
+    public int findNear(long fingerprint, int exclude) {
+        int best = -1, bestDistance = maxDistance + 1;
+        for (int b = 0; b < bands.size(); b++) {
+            PostingList candidates = bands.get(b).get(band(fingerprint, b));
+            if (candidates == null) continue;
+            for (int i = 0; i < candidates.size(); i++) {
+                int docId = candidates.get(i);
+                if (docId == exclude) continue;
+                int d = SimHash.distance(fingerprint, fingerprints.get(docId));
+                if (d < bestDistance || (d == bestDistance && docId < best)) {
+                    best = docId;
+                    bestDistance = d;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Regista (ou atualiza) a impressão de uma página.
+     *
+     * @param docId docID da página.
+     * @param fingerprint Impressão.
+     */
+    public void put(int docId, long fingerprint) {
+        Long old = fingerprints.get(docId);
+        if (old != null && old == fingerprint) return;
+        remove(docId);
+        fingerprints.put(docId, fingerprint);
+        for (int b = 0; b < bands.size(); b++) {
+            PostingList ids = bands.get(b).get(band(fingerprint, b));
+            if (ids == null) {
+                ids = new PostingList();
+                bands.get(b).put(band(fingerprint, b), ids);
+                bandBytes += BUCKET_BYTES + ids.estimatedBytes();
+            }
+            long before = ids.estimatedBytes();
+            ids.add(docId);
+            bandBytes += ids.estimatedBytes() - before;
+        }
+    }
+
+    /**
+     * Remove a impressão de uma página (ex: quando passa a ser um duplicado).
+     *
+     * @param docId docID da página.
+     */
+    public void remove(int docId) {
+        Long old = fingerprints.remove(docId);
+        if (old == null) return;
+        for (int b = 0; b < bands.size(); b++) {
+            Long key = band(old, b);
+            PostingList ids = bands.get(b).get(key);
+            if (ids == null) continue;
+            long before = ids.estimatedBytes();
+            ids.remove(docId);
+            bandBytes += ids.estimatedBytes() - before;
+            if (ids.isEmpty()) {
+                bands.get(b).remove(key);
+                bandBytes -= BUCKET_BYTES + ids.estimatedBytes();
+            }
+        }
+    }
+
+    /**
+     * Obtém o número de páginas registadas.
+     *
+     * @return Número de impressões.
+     */
+    public int size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * Apaga todas as impressões.
+     */
+    public void clear() {
+        fingerprints.clear();
+        for (Map<Long, PostingList> band : bands) band.clear();
+        bandBytes = 0;
+    }
+
+    /**
+     * Estima a memória ocupada (impressões e listas das bandas).
+     *
+     * @return Bytes estimados.
+     */
+    public long estimatedBytes() {
+        return fingerprints.size() * FINGERPRINT_BYTES + bandBytes;
+    }
+
+    /**
+     * Extrai o valor da banda {@code b} de uma impressão.
+     */
+    private Long band(long fingerprint, int b) {
+        int shift = b * bandBits;
+        int width = b == bands.size() - 1 ? 64 - shift : bandBits;
+        long mask = width == 64 ? -1L : (1L << width) - 1;
+        return (fingerprint >>> shift) & mask;
+    }
+}
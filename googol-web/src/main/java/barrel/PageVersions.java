@@ -0,0 +1,115 @@
+package barrel;
+
+import java.util.Arrays;
+
+/**
+ * Versão conhecida de cada página: impressão do conteúdo ({@link common.ContentHash}) e momento
+ * em que foi vista pela última vez.
+ * <p>
+ * Como os docIDs são densos, os valores são guardados em arrays de {@code long} indexados pelo
+ * docID (16 bytes por página), em vez de mapas com objetos por entrada.
+ * </p>
+ * <p>
+ * Não é thread-safe: é usado sob o lock do Barrel.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class PageVersions {
+
+    /**
+     * Capacidade inicial dos arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * docID -> impressão do conteúdo (0 = desconhecida).
+     */
+    private long[] hashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * docID -> último momento em que a página foi recebida (ms desde a época; 0 = nunca).
+     */
+    private long[] lastSeen = new long[INITIAL_CAPACITY];
+
+    /**
+     * Obtém a impressão guardada de uma página.
+     *
+     * @param docId docID da página.
+     * @return Impressão, ou {@link common.ContentHash#UNKNOWN} se nunca foi guardada.
+     */
+    public long hash(int docId) {
+        return docId >= 0 && docId < hashes.length ? hashes[docId] : 0L;
+    }
+
+    /**
+     * Obtém o momento em que a página foi vista pela última vez.
+     *
+     * @param docId docID da página.
+     * @return Milissegundos desde a época, ou 0 se nunca foi vista.
+     */
+    public long lastSeen(int docId) {
+        return docId >= 0 && docId < lastSeen.length ? lastSeen[docId] : 0L;
+    }
+
+    /**
+     * Regista uma nova versão da página.
+     *
+     * @param docId docID da página.
+     * @param hash Impressão do conteúdo.
+     * @param time Momento da receção (ms).
+     */
+    public void set(int docId, long hash, long time) {
+        ensureCapacity(docId);
+        hashes[docId] = hash;
+        lastSeen[docId] = time;
+    }
+
+    /**
+     * Atualiza apenas o momento em que a página foi vista (conteúdo inalterado).
+     *
+     * @param docId docID da página.
+     * @param time Momento da receção (ms).
+     */
+    public void touch(int docId, long time) {
+        ensureCapacity(docId);
+        lastSeen[docId] = time;
+    }
+
+    /**
+     * Apaga todas as versões.
+     */
+    public void clear() {
+        hashes = new long[INITIAL_CAPACITY];
+        lastSeen = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Obtém o número de posições alocadas (limite superior dos docIDs com versão).
+     *
+     * @return Capacidade atual.
+     */
+    public int capacity() {
+        return hashes.length;
+    }
+
+    /**
+     * Estima a memória ocupada pelos dois arrays.
+     *
+     * @return Bytes estimados.
+     */
+    public long estimatedBytes() {
+        return 2L * (16 + 8L * hashes.length);
+    }
+
+    /**
+     * Garante que os arrays têm uma posição para o docID, duplicando-os se necessário.
+     */
+    private void ensureCapacity(int docId) {
+        if (docId < hashes.length) return;
+        int capacity = Math.max(docId + 1, hashes.length * 2);
+        hashes = Arrays.copyOf(hashes, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+    }
+}
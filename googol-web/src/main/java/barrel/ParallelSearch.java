@@ -0,0 +1,273 @@
+package barrel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Execução de uma pesquisa sobre as listas de docIDs dos termos, com paralelismo intra-pesquisa.
+ * <p>
+ * O espaço de docIDs é dividido em intervalos; cada intervalo junta as porções das listas que lhe
+ * pertencem (união, sem duplicados), calcula a chave de ranking de cada página e guarda apenas os
+ * {@code k} melhores num heap local. Os resultados parciais são depois fundidos, obtendo-se os
+ * {@code k} melhores globais e o número total de páginas distintas, sem ordenar o resultado completo.
+ * </p>
+ * <p>
+ * Opcionalmente, o resultado é restringido a um filtro (ex: as páginas de um domínio, no operador
+ * {@code site:}), intersetado em cada intervalo com o {@link PostingKernel} ativo.
+ * </p>
+ * <p>
+ * Pesquisas pequenas (menos de {@code threshold} docIDs no total) correm na thread que chamou;
+ * as restantes são divididas recursivamente num {@link ForkJoinPool} até cada intervalo ter
+ * menos de {@code threshold} docIDs. As listas e a função de ranking só são lidas, e o Barrel
+ * mantém o seu lock durante toda a pesquisa, pelo que os workers não precisam de sincronização.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class ParallelSearch {
+
+    /**
+     * Resultado de uma pesquisa: os melhores docIDs (por ordem de ranking) e o total de páginas distintas.
+     */
+    public static final class Result {
+
+        /**
+         * Os {@code k} melhores docIDs, do mais relevante para o menos relevante.
+         */
+        private final int[] topIds;
+
+        /**
+         * Número total de páginas distintas encontradas.
+         */
+        private final int total;
+
+        /**
+         * Construtor do resultado.
+         *
+         * @param topIds Melhores docIDs ordenados.
+         * @param total Total de páginas distintas.
+         */
+        Result(int[] topIds, int total) {
+            this.topIds = topIds;
+            this.total = total;
+        }
+
+        /**
+         * Obtém os melhores docIDs, por ordem de ranking.
+         *
+         * @return Array com no máximo {@code k} docIDs.
+         */
+        public int[] getTopIds() { return topIds; }
+
+        /**
+         * Obtém o número total de páginas distintas.
+         *
+         * @return Total de resultados.
+         */
+        public int getTotal() { return total; }
+    }
+
+    /**
+     * Pool onde são executados os intervalos das pesquisas grandes.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Número de docIDs (somando todas as listas) a partir do qual a pesquisa é dividida.
+     */
+    private final int threshold;
+
+    /**
+     * Construtor.
+     *
+     * @param pool Pool de execução.
+     * @param threshold Número mínimo de docIDs para usar paralelismo.
+     */
+    public ParallelSearch(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Calcula os {@code k} melhores resultados da união das listas.
+     *
+     * @param postings Vistas das listas ordenadas de docIDs de cada termo.
+     * @param filter Vista dos docIDs permitidos (ordenados), ou null para não filtrar.
+     * @param rankKey Chave de ranking de cada docID (menor = mais relevante; chaves distintas por docID,
+     *                com o docID nos 32 bits baixos).
+     * @param k Número de resultados a devolver.
+     * @return Os melhores docIDs e o total de páginas distintas.
+     */
+    public Result search(List<PostingView> postings, PostingView filter, IntToLongFunction rankKey, int k) {
+        if (postings.isEmpty() || k <= 0) return new Result(new int[0], 0);
+        if (filter != null && filter.length() == 0) return new Result(new int[0], 0);
+
+        PostingView[] lists = postings.toArray(new PostingView[0]);
+        long work = 0;
+        int minId = Integer.MAX_VALUE, maxId = Integer.MIN_VALUE;
+        for (PostingView list : lists) {
+            work += list.length();
+            if (list.length() > 0) {
+                minId = Math.min(minId, list.get(0));
+                maxId = Math.max(maxId, list.get(list.length() - 1));
+            }
+        }
+        if (filter != null) {
+            minId = Math.max(minId, filter.get(0));
+            maxId = Math.min(maxId, filter.get(filter.length() - 1));
+        }
+        if (work == 0 || minId > maxId) return new Result(new int[0], 0);
+
+        RangeTask task = new RangeTask(lists, filter, rankKey, k, minId, maxId + 1L);
+        Partial partial = work < threshold || pool.getParallelism() <= 1 ? task.compute() : pool.invoke(task);
+
+        int[] ids = new int[partial.keys.length];
+        for (int i = 0; i < ids.length; i++) ids[i] = (int) partial.keys[i];
+        return new Result(ids, partial.distinct);
+    }
+
+    /**
+     * Resultado parcial de um intervalo: as melhores chaves (ordenadas) e o número de docIDs distintos.
+     */
+    private static final class Partial {
+        final long[] keys;
+        final int distinct;
+
+        Partial(long[] keys, int distinct) {
+            this.keys = keys;
+            this.distinct = distinct;
+        }
+    }
+
+    /**
+     * Tarefa que processa o intervalo de docIDs {@code [lo, hi)}, dividindo-o enquanto for grande.
+     */
+    private final class RangeTask extends RecursiveTask<Partial> {
+        private final PostingView[] lists;
+        private final PostingView allowed;
+        private final IntToLongFunction rankKey;
+        private final int k;
+        private final long lo, hi;
+
+        RangeTask(PostingView[] lists, PostingView allowed, IntToLongFunction rankKey, int k, long lo, long hi) {
+            this.lists = lists;
+            this.allowed = allowed;
+            this.rankKey = rankKey;
+            this.k = k;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Partial compute() {
+            int[] from = new int[lists.length], to = new int[lists.length];
+            long work = 0;
+            for (int i = 0; i < lists.length; i++) {
+                from[i] = lists[i].lowerBound(lo);
+                to[i] = lists[i].lowerBound(hi);
+                work += to[i] - from[i];
+            }
+
+            if (work >= threshold && hi - lo > 1 && inForkJoinPool()) {
+                long mid = (lo + hi) >>> 1;
+                RangeTask left = new RangeTask(lists, allowed, rankKey, k, lo, mid);
+                RangeTask right = new RangeTask(lists, allowed, rankKey, k, mid, hi);
+                left.fork();
+                Partial r = right.compute();
+                return merge(left.join(), r, k);
+            }
+            return scan(from, to, (int) work);
+        }
+
+        /**
+         * Junta as porções das listas neste intervalo e guarda as {@code k} melhores chaves.
+         */
+        private Partial scan(int[] from, int[] to, int work) {
+            // Cópia só das porções deste intervalo, já sem os docIDs excluídos
+            int[] ids = new int[work];
+            int n = 0;
+            for (int i = 0; i < lists.length; i++) n = lists[i].copyRange(from[i], to[i], ids, n);
+            if (lists.length > 1) Arrays.sort(ids, 0, n);
+
+            int unique = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) ids[unique++] = ids[i];
+            }
+
+            if (allowed != null) {
+                int sliceFrom = allowed.lowerBound(lo), sliceTo = allowed.lowerBound(hi);
+                int[] slice = new int[sliceTo - sliceFrom];
+                int sliceLen = allowed.copyRange(sliceFrom, sliceTo, slice, 0);
+                int[] kept = new int[Math.min(unique, sliceLen)];
+                unique = PostingKernels.get().intersect(ids, unique, slice, sliceLen, kept);
+                ids = kept;
+            }
+
+            TopK top = new TopK(Math.min(k, unique));
+            for (int i = 0; i < unique; i++) top.offer(rankKey.applyAsLong(ids[i]));
+            return new Partial(top.sorted(), unique);
+        }
+    }
+
+    /**
+     * Funde dois resultados parciais, mantendo as {@code k} melhores chaves.
+     */
+    private static Partial merge(Partial a, Partial b, int k) {
+        long[] keys = new long[Math.min(k, a.keys.length + b.keys.length)];
+        int i = 0, j = 0;
+        for (int n = 0; n < keys.length; n++) {
+            keys[n] = j >= b.keys.length || (i < a.keys.length && a.keys[i] < b.keys[j]) ? a.keys[i++] : b.keys[j++];
+        }
+        return new Partial(keys, a.distinct + b.distinct);
+    }
+
+    /**
+     * Heap de máximo limitado que guarda as {@code k} menores chaves vistas.
+     */
+    private static final class TopK {
+        private final long[] heap;
+        private int size = 0;
+
+        TopK(int k) {
+            this.heap = new long[k];
+        }
+
+        void offer(long key) {
+            if (size < heap.length) {
+                int i = size++;
+                heap[i] = key;
+                while (i > 0 && heap[(i - 1) >>> 1] < heap[i]) {
+                    swap(i, (i - 1) >>> 1);
+                    i = (i - 1) >>> 1;
+                }
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                int i = 0;
+                while (true) {
+                    int l = 2 * i + 1, r = l + 1, largest = i;
+                    if (l < size && heap[l] > heap[largest]) largest = l;
+                    if (r < size && heap[r] > heap[largest]) largest = r;
+                    if (largest == i) break;
+                    swap(i, largest);
+                    i = largest;
+                }
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void swap(int a, int b) {
+            long t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package barrel;
+
+/**
+ * Operações de baixo nível sobre listas ordenadas de docIDs.
+ * <p>
+ * Existem duas implementações: uma escalar ({@link ScalarPostingKernel}), sempre disponível, e uma
+ * vetorial ({@code VectorPostingKernel}, só no perfil Maven {@code vector}) que usa a JDK Vector API
+ * quando o módulo {@code jdk.incubator.vector} está carregado. A escolha é feita por
+ * {@link PostingKernels#get()}.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public interface PostingKernel {
+
+    /**
+     * Calcula a interseção de duas listas ordenadas e sem duplicados.
+     *
+     * @param a Primeira lista.
+     * @param aLen Número de posições válidas de {@code a}.
+     * @param b Segunda lista.
+     * @param bLen Número de posições válidas de {@code b}.
+     * @param out Destino (com pelo menos {@code min(aLen, bLen)} posições).
+     * @return Número de elementos escritos em {@code out}.
+     */
+    int intersect(int[] a, int aLen, int[] b, int bLen, int[] out);
+
+    /**
+     * Conta os elementos comuns a duas listas ordenadas e sem duplicados.
+     *
+     * @param a Primeira lista.
+     * @param aLen Número de posições válidas de {@code a}.
+     * @param b Segunda lista.
+     * @param bLen Número de posições válidas de {@code b}.
+     * @return Tamanho da interseção.
+     */
+    int intersectCount(int[] a, int aLen, int[] b, int bLen);
+
+    /**
+     * Obtém o nome da implementação (para logs).
+     *
+     * @return Nome curto.
+     */
+    String name();
+}
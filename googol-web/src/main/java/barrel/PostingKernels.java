@@ -0,0 +1,71 @@
+package barrel;
+
+/**
+ * Escolha da implementação de {@link PostingKernel}.
+ * <p>
+ * A versão vetorial é usada se tiver sido compilada (perfil Maven {@code vector}), o módulo
+ * {@code jdk.incubator.vector} estiver carregado e a propriedade {@code -Dgoogol.simd=false} não
+ * estiver definida. A classe vetorial é carregada por reflexão para que a JVM nunca tente ligar as
+ * classes da Vector API quando o módulo (ou a própria classe) não existe.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public final class PostingKernels {
+
+    /**
+     * Implementação escolhida no arranque.
+     */
+    private static final PostingKernel KERNEL = select();
+
+    private PostingKernels() {}
+
+    /**
+     * Obtém a implementação em uso.
+     *
+     * @return O kernel vetorial, se disponível, ou o escalar.
+     */
+    public static PostingKernel get() {
+        return KERNEL;
+    }
+
+    /**
+     * Verifica se a Vector API está disponível nesta JVM.
+     *
+     * @return true se o módulo {@code jdk.incubator.vector} estiver carregado.
+     */
+    public static boolean vectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * Cria o kernel vetorial por reflexão.
+     *
+     * @return O kernel vetorial, ou null se não for possível.
+     */
+    static PostingKernel vectorKernel() {
+        if (!vectorApiAvailable()) {
+            System.err.println("[PostingKernels] Módulo jdk.incubator.vector não carregado "
+                    + "(arrancar a JVM com --add-modules jdk.incubator.vector): a usar o kernel escalar.");
+            return null;
+        }
+        try {
+            return (PostingKernel) Class.forName("barrel.VectorPostingKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("[PostingKernels] Vector API indisponível: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Escolhe a implementação no arranque.
+     */
+    private static PostingKernel select() {
+        if (Boolean.parseBoolean(System.getProperty("googol.simd", "true"))) {
+            PostingKernel vector = vectorKernel();
+            if (vector != null) return vector;
+        }
+        return new ScalarPostingKernel();
+    }
+}
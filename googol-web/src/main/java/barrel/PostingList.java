@@ -0,0 +1,228 @@
+package barrel;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Lista de docIDs ordenada e sem duplicados, guardada num array de inteiros.
+ * <p>
+ * Substitui os {@code HashSet<String>} do índice invertido e do grafo de ligações: cada entrada
+ * ocupa 4 bytes em vez de um nó de HashMap. Como os docIDs são atribuídos por ordem de chegada,
+ * a maior parte das inserções acontece no fim da lista e tem custo constante.
+ * </p>
+ * <p>
+ * As remoções são diferidas: o docID fica marcado (tombstone) e o array só é compactado, numa única
+ * passagem para todas as marcas acumuladas, quando as marcas passam de {@code 1/PURGE_DIVISOR} da
+ * lista, antes de uma inserção no meio ou antes de a lista ser lida por posição. Assim, reindexar uma
+ * página que perdeu um termo frequente não custa uma cópia da lista inteira por remoção.
+ * Esta classe não é thread-safe (nem para leituras, que podem compactar a lista).
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class PostingList {
+
+    /**
+     * Capacidade inicial do array.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * docIDs ordenados (apenas as primeiras {@code size} posições são válidas).
+     */
+    private int[] ids;
+
+    /**
+     * Número de docIDs na lista.
+     */
+    private int size = 0;
+
+    /**
+     * Fração máxima ({@code 1/PURGE_DIVISOR}) de posições marcadas como removidas antes de compactar.
+     */
+    private static final int PURGE_DIVISOR = 4;
+
+    /**
+     * Posições de {@code ids} cujos docIDs foram removidos mas ainda não apagados (null se não houver).
+     */
+    private BitSet removed;
+
+    /**
+     * Número de posições marcadas em {@code removed}.
+     */
+    private int removedCount = 0;
+
+    /**
+     * Cria uma lista vazia.
+     */
+    public PostingList() {
+        this.ids = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Cria uma lista a partir de docIDs já ordenados e sem duplicados.
+     *
+     * @param sorted docIDs ordenados (o array passa a pertencer à lista).
+     * @param size Número de posições válidas.
+     */
+    public PostingList(int[] sorted, int size) {
+        this.ids = sorted;
+        this.size = size;
+    }
+
+    /**
+     * Adiciona um docID, mantendo a ordem.
+     *
+     * @param id O docID.
+     * @return true se foi adicionado, false se já existia.
+     */
+    public boolean add(int id) {
+        int insertAt;
+        if (size == 0 || id > ids[size - 1]) {
+            insertAt = size;
+        } else {
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx >= 0) {
+                if (!isRemoved(idx)) return false;
+                // Removido e de novo adicionado antes da compactação: basta apagar a marca
+                removed.clear(idx);
+                removedCount--;
+                return true;
+            }
+            if (removedCount > 0) {
+                // A inserção desloca as posições seguintes: as marcas são aplicadas antes
+                purge();
+                return add(id);
+            }
+            insertAt = -idx - 1;
+        }
+
+        if (size == ids.length) ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove um docID. O último docID é removido de imediato; os restantes ficam marcados até à
+     * próxima compactação.
+     *
+     * @param id O docID.
+     * @return true se foi removido, false se não existia.
+     */
+    public boolean remove(int id) {
+        int idx = Arrays.binarySearch(ids, 0, size, id);
+        if (idx < 0 || isRemoved(idx)) return false;
+        if (idx == size - 1) {
+            size--;
+            return true;
+        }
+        if (removed == null) removed = new BitSet();
+        removed.set(idx);
+        removedCount++;
+        if ((long) removedCount * PURGE_DIVISOR > size) purge();
+        return true;
+    }
+
+    /**
+     * Apaga do array, numa única passagem, todos os docIDs marcados como removidos.
+     */
+    public void purge() {
+        if (removedCount == 0) return;
+        int n = removed.nextSetBit(0);
+        for (int from = n; from < size; ) {
+            int start = removed.nextClearBit(from);
+            if (start >= size) break;
+            int end = removed.nextSetBit(start);
+            if (end < 0 || end > size) end = size;
+            System.arraycopy(ids, start, ids, n, end - start);
+            n += end - start;
+            from = end;
+        }
+        size = n;
+        removed = null;
+        removedCount = 0;
+    }
+
+    /**
+     * Indica se a posição está marcada como removida.
+     *
+     * @param index Posição no array.
+     * @return true se o docID nessa posição já foi removido.
+     */
+    private boolean isRemoved(int index) {
+        return removed != null && removed.get(index);
+    }
+
+    /**
+     * Verifica se um docID está na lista.
+     *
+     * @param id O docID.
+     * @return true se existir.
+     */
+    public boolean contains(int id) {
+        int idx = Arrays.binarySearch(ids, 0, size, id);
+        return idx >= 0 && !isRemoved(idx);
+    }
+
+    /**
+     * Obtém o docID numa posição.
+     *
+     * @param index Posição (0 a size-1).
+     * @return O docID.
+     */
+    public int get(int index) {
+        purge();
+        return ids[index];
+    }
+
+    /**
+     * Obtém o número de docIDs.
+     *
+     * @return Tamanho da lista.
+     */
+    public int size() {
+        return size - removedCount;
+    }
+
+    /**
+     * Verifica se a lista está vazia.
+     *
+     * @return true se vazia.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Obtém uma cópia ordenada dos docIDs.
+     *
+     * @return Array com {@code size} posições.
+     */
+    public int[] toArray() {
+        purge();
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Obtém uma vista só de leitura dos docIDs, sem cópia. Fica inválida se a lista for alterada.
+     *
+     * @return Vista sobre o array da lista.
+     */
+    PostingView view() {
+        purge();
+        return new PostingView(IntBuffer.wrap(ids, 0, size), null);
+    }
+
+    /**
+     * Estima os bytes de heap ocupados pela lista (objeto + array).
+     *
+     * @return Bytes estimados.
+     */
+    public long estimatedBytes() {
+        return 16 + 16 + 4L * ids.length + (removed == null ? 0 : 32 + removed.size() / 8);
+    }
+}
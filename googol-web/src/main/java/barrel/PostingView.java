@@ -0,0 +1,126 @@
+package barrel;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Vista só de leitura sobre uma lista ordenada de docIDs, sem cópia.
+ * <p>
+ * Os docIDs vêm de um {@link IntBuffer}: o array de uma {@link PostingList} ou uma fatia do
+ * ficheiro mapeado de um {@link IndexSnapshot}. Os docIDs marcados em {@code excluded} (as páginas
+ * do snapshot que foram sombreadas) são saltados à medida que a lista é lida, em vez de se filtrar
+ * uma cópia da lista inteira antes da pesquisa.
+ * </p>
+ * <p>
+ * As posições ({@link #length()}, {@link #lowerBound(long)}) contam os docIDs excluídos; só as
+ * cópias ({@link #copyRange(int, int, int[], int)}, {@link #toArray()}) os removem. A vista não
+ * pode ser usada depois de a lista ou o conjunto de excluídos serem alterados.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+final class PostingView {
+
+    /**
+     * docIDs ordenados, nas posições {@code 0 .. limit-1}.
+     */
+    private final IntBuffer ids;
+
+    /**
+     * docIDs a saltar, ou null se não houver.
+     */
+    private final BitSet excluded;
+
+    /**
+     * Cria uma vista.
+     *
+     * @param ids docIDs ordenados (lidos por posição absoluta, de 0 ao limite).
+     * @param excluded docIDs a saltar, ou null.
+     */
+    PostingView(IntBuffer ids, BitSet excluded) {
+        this.ids = ids;
+        this.excluded = excluded == null || excluded.isEmpty() ? null : excluded;
+    }
+
+    /**
+     * Obtém o número de posições (incluindo docIDs excluídos).
+     *
+     * @return Tamanho da vista.
+     */
+    int length() {
+        return ids.limit();
+    }
+
+    /**
+     * Obtém o docID de uma posição (mesmo que esteja excluído).
+     *
+     * @param i Posição.
+     * @return docID.
+     */
+    int get(int i) {
+        return ids.get(i);
+    }
+
+    /**
+     * Primeira posição com docID {@code >= value}.
+     *
+     * @param value Valor procurado.
+     * @return Posição (ou {@link #length()} se todos forem menores).
+     */
+    int lowerBound(long value) {
+        int lo = 0, hi = ids.limit();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ids.get(mid) < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Copia as posições {@code [from, to)}, sem os docIDs excluídos.
+     *
+     * @param from Primeira posição.
+     * @param to Posição final (exclusiva).
+     * @param dest Destino.
+     * @param n Posição de escrita em {@code dest}.
+     * @return Nova posição de escrita.
+     */
+    int copyRange(int from, int to, int[] dest, int n) {
+        if (excluded == null) {
+            ids.get(from, dest, n, to - from);
+            return n + to - from;
+        }
+        for (int i = from; i < to; i++) {
+            int id = ids.get(i);
+            if (!excluded.get(id)) dest[n++] = id;
+        }
+        return n;
+    }
+
+    /**
+     * Copia os docIDs não excluídos.
+     *
+     * @return Array ordenado.
+     */
+    int[] toArray() {
+        int[] values = new int[length()];
+        int n = copyRange(0, values.length, values, 0);
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Verifica se a vista não tem nenhum docID não excluído.
+     *
+     * @return true se vazia.
+     */
+    boolean isEmpty() {
+        if (excluded == null) return ids.limit() == 0;
+        for (int i = 0; i < ids.limit(); i++) {
+            if (!excluded.get(ids.get(i))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package barrel;
+
+import common.UrlMetadata;
+
+import java.util.*;
+
+/**
+ * Cache limitada de resultados de pesquisa de um Barrel.
+ * <p>
+ * Cada entrada é identificada pela lista normalizada de termos (minúsculas, sem duplicados,
+ * ordenada) e pela página pedida, e é marcada com a geração do índice em que foi calculada.
+ * A geração avança sempre que o Barrel armazena uma página.
+ * </p>
+ * <p>
+ * Suporta dois modos de invalidação:
+ * <ul>
+ * <li><b>GLOBAL:</b> qualquer escrita invalida todas as entradas (resultados sempre exatos).</li>
+ * <li><b>PER_TERM:</b> uma escrita só invalida as entradas que contêm termos da página armazenada.
+ * Como a ordenação depende dos links de entrada, que mudam com qualquer escrita, as entradas
+ * expiram também ao fim de {@code maxStaleGenerations} gerações.</li>
+ * </ul>
+ * Esta classe não é thread-safe; o Barrel acede-lhe sempre dentro dos seus métodos sincronizados.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class QueryCache {
+
+    /**
+     * Estratégia de invalidação aplicada quando o índice é alterado.
+     */
+    public enum InvalidationMode { GLOBAL, PER_TERM }
+
+    /**
+     * Entrada da cache: resultado da pesquisa, geração em que foi calculado e termos envolvidos.
+     */
+    private static class Entry {
+        final Map<String, UrlMetadata> result;
+        final long generation;
+        final List<String> terms;
+
+        Entry(Map<String, UrlMetadata> result, long generation, List<String> terms) {
+            this.result = result;
+            this.generation = generation;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Número máximo de entradas guardadas.
+     */
+    private final int capacity;
+
+    /**
+     * Modo de invalidação em uso.
+     */
+    private final InvalidationMode mode;
+
+    /**
+     * Número máximo de gerações que uma entrada pode sobreviver no modo PER_TERM.
+     */
+    private final long maxStaleGenerations;
+
+    /**
+     * Entradas em ordem de acesso (LRU). A entrada mais antiga é removida quando a capacidade é excedida.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Índice reverso Termo -> Chaves em cache que o contêm. Usado apenas no modo PER_TERM.
+     */
+    private final Map<String, Set<String>> keysByTerm = new HashMap<>();
+
+    /**
+     * Geração atual do índice.
+     */
+    private long generation = 0;
+
+    // Contadores
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Construtor da cache.
+     *
+     * @param capacity Número máximo de entradas.
+     * @param mode Modo de invalidação.
+     * @param maxStaleGenerations Gerações máximas de vida de uma entrada no modo PER_TERM.
+     */
+    public QueryCache(int capacity, InvalidationMode mode, long maxStaleGenerations) {
+        this.capacity = capacity;
+        this.mode = mode;
+        this.maxStaleGenerations = maxStaleGenerations;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    evictions++;
+                    unlinkTerms(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Normaliza uma lista de termos: minúsculas, sem vazios nem duplicados, ordenada.
+     * A pesquisa é uma união de termos, por isso a ordem não altera o resultado.
+     *
+     * @param terms Termos originais.
+     * @return Lista normalizada.
+     */
+    public static List<String> normalize(List<String> terms) {
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String t : terms) {
+            String n = t.trim().toLowerCase();
+            if (!n.isEmpty()) normalized.add(n);
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Procura um resultado em cache.
+     *
+     * @param terms Termos normalizados (ver {@link #normalize(List)}).
+     * @param page Página pedida.
+     * @return Cópia do resultado em cache, ou null se não existir ou estiver desatualizado.
+     */
+    public Map<String, UrlMetadata> get(List<String> terms, int page) {
+        String key = buildKey(terms, page);
+        Entry entry = entries.get(key);
+
+        if (entry != null && !isFresh(entry)) {
+            entries.remove(key);
+            unlinkTerms(key, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new LinkedHashMap<>(entry.result);
+    }
+
+    /**
+     * Guarda um resultado calculado na geração atual.
+     *
+     * @param terms Termos normalizados.
+     * @param page Página pedida.
+     * @param result Resultado da pesquisa.
+     */
+    public void put(List<String> terms, int page, Map<String, UrlMetadata> result) {
+        String key = buildKey(terms, page);
+        Entry old = entries.remove(key);
+        if (old != null) unlinkTerms(key, old);
+
+        entries.put(key, new Entry(new LinkedHashMap<>(result), generation, terms));
+        if (mode == InvalidationMode.PER_TERM) {
+            for (String t : terms) {
+                keysByTerm.computeIfAbsent(t, k -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    /**
+     * Regista uma escrita no índice: avança a geração e invalida as entradas afetadas.
+     *
+     * @param pageTerms Termos (já em minúsculas) da página armazenada.
+     */
+    public void onPageStored(Collection<String> pageTerms) {
+        generation++;
+
+        if (mode == InvalidationMode.GLOBAL) {
+            // As entradas antigas ficam com geração desatualizada; limpamos já para libertar memória.
+            entries.clear();
+            return;
+        }
+
+        for (String term : new HashSet<>(pageTerms)) {
+            Set<String> keys = keysByTerm.remove(term);
+            if (keys == null) continue;
+            for (String key : keys) {
+                Entry e = entries.remove(key);
+                if (e != null) unlinkTerms(key, e);
+            }
+        }
+    }
+
+    /**
+     * Remove todas as entradas (ex: após sincronização com outro Barrel).
+     */
+    public void clear() {
+        generation++;
+        entries.clear();
+        keysByTerm.clear();
+    }
+
+    /**
+     * Verifica se uma entrada continua válida na geração atual.
+     */
+    private boolean isFresh(Entry entry) {
+        if (mode == InvalidationMode.GLOBAL) return entry.generation == generation;
+        return generation - entry.generation <= maxStaleGenerations;
+    }
+
+    /**
+     * Remove uma chave do índice reverso de termos.
+     */
+    private void unlinkTerms(String key, Entry entry) {
+        if (mode != InvalidationMode.PER_TERM) return;
+        for (String t : entry.terms) {
+            Set<String> keys = keysByTerm.get(t);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) keysByTerm.remove(t);
+            }
+        }
+    }
+
+    /**
+     * Constrói a chave da cache a partir dos termos e do cursor de paginação.
+     */
+    private static String buildKey(List<String> terms, int page) {
+        return String.join(" ", terms) + "|" + page;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Obtém a geração atual do índice.
+     *
+     * @return Número da geração.
+     */
+    public long getGeneration() { return generation; }
+
+    /**
+     * Obtém o número de pesquisas servidas pela cache.
+     *
+     * @return Contador de hits.
+     */
+    public long getHits() { return hits; }
+
+    /**
+     * Obtém o número de pesquisas que tiveram de ser calculadas.
+     *
+     * @return Contador de misses.
+     */
+    public long getMisses() { return misses; }
+
+    /**
+     * Obtém o número de entradas removidas por falta de capacidade.
+     *
+     * @return Contador de evictions.
+     */
+    public long getEvictions() { return evictions; }
+
+    /**
+     * Obtém o número de entradas atualmente em cache.
+     *
+     * @return Tamanho da cache.
+     */
+    public int size() { return entries.size(); }
+}
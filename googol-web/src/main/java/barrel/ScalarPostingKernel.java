@@ -0,0 +1,47 @@
+package barrel;
+
+/**
+ * Implementação escalar das operações sobre listas de docIDs. Usada quando a Vector API não está
+ * disponível e para o fim dos blocos que não enchem um vetor.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class ScalarPostingKernel implements PostingKernel {
+
+    @Override
+    public int intersect(int[] a, int aLen, int[] b, int bLen, int[] out) {
+        return intersectFrom(a, 0, aLen, b, 0, bLen, out, 0);
+    }
+
+    @Override
+    public int intersectCount(int[] a, int aLen, int[] b, int bLen) {
+        return intersectFrom(a, 0, aLen, b, 0, bLen, null, 0);
+    }
+
+    @Override
+    public String name() {
+        return "escalar";
+    }
+
+    /**
+     * Interseção por fusão a partir das posições indicadas (partilhada com o kernel vetorial).
+     *
+     * @param out Destino, ou null para apenas contar.
+     * @param n Elementos já escritos em {@code out}.
+     * @return Total de elementos na interseção ({@code n} incluído).
+     */
+    static int intersectFrom(int[] a, int i, int aLen, int[] b, int j, int bLen, int[] out, int n) {
+        while (i < aLen && j < bLen) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                if (out != null) out[n] = a[i];
+                n++;
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+}
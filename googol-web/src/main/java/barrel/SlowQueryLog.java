@@ -0,0 +1,83 @@
+package barrel;
+
+import common.SlowQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registo limitado das pesquisas lentas de um Barrel (buffer circular).
+ * <p>
+ * Guarda as últimas {@code capacity} pesquisas cujo tempo total excedeu o limite configurado;
+ * as mais antigas são substituídas. A memória ocupada é constante.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class SlowQueryLog {
+
+    /**
+     * Entradas do buffer circular.
+     */
+    private final SlowQuery[] entries;
+
+    /**
+     * Tempo (µs) a partir do qual uma pesquisa é considerada lenta.
+     */
+    private final long thresholdMicros;
+
+    /**
+     * Posição onde será escrita a próxima entrada.
+     */
+    private int next = 0;
+
+    /**
+     * Número de entradas válidas.
+     */
+    private int size = 0;
+
+    /**
+     * Construtor do registo.
+     *
+     * @param capacity Número máximo de entradas guardadas.
+     * @param thresholdMicros Limite (µs) a partir do qual uma pesquisa é registada.
+     */
+    public SlowQueryLog(int capacity, long thresholdMicros) {
+        this.entries = new SlowQuery[Math.max(1, capacity)];
+        this.thresholdMicros = thresholdMicros;
+    }
+
+    /**
+     * Verifica se uma pesquisa com o tempo indicado deve ser registada.
+     *
+     * @param totalMicros Tempo total da pesquisa (µs).
+     * @return true se for lenta.
+     */
+    public boolean isSlow(long totalMicros) {
+        return totalMicros >= thresholdMicros;
+    }
+
+    /**
+     * Regista uma pesquisa lenta, substituindo a mais antiga se o buffer estiver cheio.
+     *
+     * @param query A pesquisa.
+     */
+    public synchronized void add(SlowQuery query) {
+        entries[next] = query;
+        next = (next + 1) % entries.length;
+        if (size < entries.length) size++;
+    }
+
+    /**
+     * Obtém as pesquisas registadas, da mais antiga para a mais recente.
+     *
+     * @return Cópia das entradas.
+     */
+    public synchronized List<SlowQuery> recent() {
+        List<SlowQuery> result = new ArrayList<>(size);
+        int start = (next - size + entries.length) % entries.length;
+        for (int i = 0; i < size; i++) result.add(entries[(start + i) % entries.length]);
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package barrel;
+
+import analysis.Analyzer;
+
+import java.util.*;
+
+/**
+ * Gerador de excertos (snippets) dependentes da pesquisa.
+ * <p>
+ * Percorre os tokens de um documento com uma janela deslizante de tamanho fixo e escolhe a
+ * janela com melhor pontuação, onde cada termo distinto da pesquisa vale mais do que
+ * repetições do mesmo termo. Em caso de empate fica a janela mais próxima do início.
+ * </p>
+ * <p>
+ * Os tokens são comparados com os termos da pesquisa depois de passarem pelo mesmo
+ * {@link Analyzer} da indexação, mas o excerto mostra as palavras originais.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class SnippetEngine {
+
+    /**
+     * Peso de cada termo distinto presente na janela.
+     */
+    private static final int DISTINCT_WEIGHT = 10;
+
+    /**
+     * Número de tokens de cada excerto.
+     */
+    private final int windowSize;
+
+    /**
+     * Cadeia de análise usada para comparar os tokens com os termos.
+     */
+    private final Analyzer analyzer;
+
+    /**
+     * Construtor do motor de excertos.
+     *
+     * @param windowSize Número de tokens por excerto.
+     * @param analyzer Cadeia de análise da indexação.
+     */
+    public SnippetEngine(int windowSize, Analyzer analyzer) {
+        this.windowSize = windowSize;
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Calcula o melhor excerto de um documento para os termos pesquisados.
+     *
+     * @param tokens Tokens do documento.
+     * @param queryTerms Termos da pesquisa (já analisados).
+     * @return O excerto, com reticências quando não começa/acaba nos limites do texto,
+     *         ou null se nenhum termo da pesquisa ocorrer no documento.
+     */
+    public String bestSnippet(List<String> tokens, Set<String> queryTerms) {
+        if (tokens == null || tokens.isEmpty() || queryTerms.isEmpty()) return null;
+
+        int window = Math.min(windowSize, tokens.size());
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (String token : tokens) terms.add(analyzer.term(token));
+        Map<String, Integer> counts = new HashMap<>();
+        int matches = 0;
+
+        // Janela inicial [0, window)
+        for (int i = 0; i < window; i++) {
+            String t = terms.get(i);
+            if (queryTerms.contains(t)) {
+                counts.merge(t, 1, Integer::sum);
+                matches++;
+            }
+        }
+
+        int bestStart = 0;
+        int bestScore = score(counts, matches);
+
+        // Desliza a janela um token de cada vez
+        for (int start = 1; start + window <= tokens.size(); start++) {
+            String out = terms.get(start - 1);
+            if (queryTerms.contains(out)) {
+                matches--;
+                if (counts.merge(out, -1, Integer::sum) == 0) counts.remove(out);
+            }
+            String in = terms.get(start + window - 1);
+            if (queryTerms.contains(in)) {
+                counts.merge(in, 1, Integer::sum);
+                matches++;
+            }
+
+            int s = score(counts, matches);
+            if (s > bestScore) {
+                bestScore = s;
+                bestStart = start;
+            }
+        }
+
+        if (bestScore == 0) return null;
+
+        int end = bestStart + window;
+        String snippet = String.join(" ", tokens.subList(bestStart, end));
+        if (bestStart > 0) snippet = "..." + snippet;
+        if (end < tokens.size()) snippet += "...";
+        return snippet;
+    }
+
+    /**
+     * Pontuação de uma janela: termos distintos pesam mais do que ocorrências repetidas.
+     */
+    private static int score(Map<String, Integer> counts, int matches) {
+        return counts.size() * DISTINCT_WEIGHT + matches;
+    }
+}
@@ -0,0 +1,370 @@
+package barrel;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Dicionário de URLs partilhado por todas as estruturas de um Barrel.
+ * <p>
+ * Cada URL recebe um identificador inteiro compacto (docID), atribuído por ordem de chegada e estável
+ * durante toda a vida do Barrel. As restantes estruturas (índice invertido, grafo de ligações,
+ * metadados) guardam apenas estes identificadores.
+ * </p>
+ * <p>
+ * O texto dos URLs é guardado ordenado e com <i>front coding</i> em blocos de {@value #BLOCK_SIZE}:
+ * o primeiro URL de cada bloco é guardado por inteiro e os seguintes apenas como
+ * {@code [varint prefixoPartilhado][varint tamanhoSufixo][sufixo]} em relação ao anterior. Prefixos
+ * comuns como {@code https://www.dominio.pt/} ficam assim guardados uma vez por bloco.
+ * A procura faz pesquisa binária sobre o primeiro URL de cada bloco e descodifica um único bloco.
+ * </p>
+ * <p>
+ * Os URLs novos vão para uma zona de escrita (HashMap) que é fundida na zona comprimida quando
+ * cresce demasiado.
+ * </p>
+ * <p>
+ * Opcionalmente, o dicionário estende um {@link IndexSnapshot}: os docIDs {@code 0 .. base-1} são os
+ * do snapshot (consultados no ficheiro mapeado) e os URLs novos recebem docIDs a partir de {@code base}. Esta classe não é thread-safe; o Barrel acede-lhe dentro dos seus métodos sincronizados.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class UrlDictionary {
+
+    /**
+     * Número de URLs por bloco comprimido.
+     */
+    public static final int BLOCK_SIZE = 16;
+
+    /**
+     * Tamanho mínimo da zona de escrita antes de a fundir na zona comprimida.
+     */
+    private static final int MIN_TAIL_MERGE = 1024;
+
+    // Zona comprimida (ordenada)
+    /**
+     * Bytes dos blocos com front coding.
+     */
+    private byte[] data = new byte[0];
+
+    /**
+     * Posição de início de cada bloco em {@code data}.
+     */
+    private int[] blockOffsets = new int[0];
+
+    /**
+     * Posição ordenada -> docID.
+     */
+    private int[] sortedIds = new int[0];
+
+    /**
+     * docID -> posição ordenada (apenas para os docIDs da zona comprimida).
+     */
+    private int[] positionOfId = new int[0];
+
+    /**
+     * Número de URLs na zona comprimida (os seus docIDs são {@code 0 .. frozenCount-1}).
+     */
+    private int frozenCount = 0;
+
+    // Zona de escrita
+    /**
+     * URL -> docID dos URLs ainda não comprimidos.
+     */
+    private final Map<String, Integer> tailIds = new HashMap<>();
+
+    /**
+     * URLs ainda não comprimidos, indexados por {@code docID - frozenCount}.
+     */
+    private final List<String> tailUrls = new ArrayList<>();
+
+    /**
+     * Bytes estimados da zona de escrita, atualizados a cada inserção.
+     */
+    private long tailBytes = 0;
+
+    /**
+     * Snapshot cujos docIDs este dicionário estende (ou null).
+     */
+    private final IndexSnapshot base;
+
+    /**
+     * Número de docIDs do snapshot; os docIDs locais começam aqui.
+     */
+    private final int baseCount;
+
+    /**
+     * Cria um dicionário vazio.
+     */
+    public UrlDictionary() {
+        this(null);
+    }
+
+    /**
+     * Cria um dicionário que estende os docIDs de um snapshot.
+     *
+     * @param base Snapshot (ou null para um dicionário independente).
+     */
+    public UrlDictionary(IndexSnapshot base) {
+        this.base = base;
+        this.baseCount = base == null ? 0 : base.docCount();
+    }
+
+    /**
+     * Obtém o docID de um URL.
+     *
+     * @param url O URL.
+     * @return O docID, ou -1 se o URL não estiver no dicionário.
+     */
+    public int lookup(String url) {
+        if (base != null) {
+            int id = base.lookup(url);
+            if (id >= 0) return id;
+        }
+        int local = localLookup(url);
+        return local < 0 ? -1 : baseCount + local;
+    }
+
+    /**
+     * Procura um URL na parte local do dicionário.
+     *
+     * @param url O URL.
+     * @return O docID local (sem o deslocamento do snapshot), ou -1.
+     */
+    private int localLookup(String url) {
+        Integer id = tailIds.get(url);
+        if (id != null) return id;
+        if (frozenCount == 0) return -1;
+
+        byte[] target = url.getBytes(StandardCharsets.UTF_8);
+
+        // Pesquisa binária pelo último bloco cujo primeiro URL é <= target
+        int lo = 0, hi = blockOffsets.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (Arrays.compareUnsigned(firstOfBlock(mid), target) <= 0) lo = mid;
+            else hi = mid - 1;
+        }
+
+        // Descodifica o bloco até encontrar (ou ultrapassar) o URL
+        int[] pos = {blockOffsets[lo]};
+        byte[] current = new byte[0];
+        int count = Math.min(BLOCK_SIZE, frozenCount - lo * BLOCK_SIZE);
+        for (int i = 0; i < count; i++) {
+            current = decodeNext(current, pos);
+            int cmp = Arrays.compareUnsigned(current, target);
+            if (cmp == 0) return sortedIds[lo * BLOCK_SIZE + i];
+            if (cmp > 0) break;
+        }
+        return -1;
+    }
+
+    /**
+     * Obtém o docID de um URL, adicionando-o ao dicionário se ainda não existir.
+     *
+     * @param url O URL.
+     * @return O docID.
+     */
+    public int getOrAdd(String url) {
+        int id = lookup(url);
+        if (id >= 0) return id;
+
+        id = frozenCount + tailUrls.size();
+        tailIds.put(url, id);
+        tailUrls.add(url);
+        tailBytes += MemoryAccountant.ENTRY_BYTES + 16 + 4 + MemoryAccountant.stringBytes(url);
+
+        if (tailUrls.size() >= Math.max(MIN_TAIL_MERGE, frozenCount / 8)) {
+            merge();
+        }
+        return baseCount + id;
+    }
+
+    /**
+     * Obtém o URL correspondente a um docID.
+     *
+     * @param id O docID.
+     * @return O URL.
+     * @throws IndexOutOfBoundsException Se o docID não existir.
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size()) throw new IndexOutOfBoundsException("docID inválido: " + id);
+        if (id < baseCount) return base.url(id);
+        id -= baseCount;
+        if (id >= frozenCount) return tailUrls.get(id - frozenCount);
+
+        int position = positionOfId[id];
+        int block = position / BLOCK_SIZE;
+        int[] pos = {blockOffsets[block]};
+        byte[] current = new byte[0];
+        for (int i = 0; i <= position % BLOCK_SIZE; i++) {
+            current = decodeNext(current, pos);
+        }
+        return new String(current, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtém o número total de URLs no dicionário.
+     *
+     * @return Número de docIDs atribuídos (incluindo os do snapshot).
+     */
+    public int size() {
+        return baseCount + localSize();
+    }
+
+    /**
+     * Obtém o número de URLs guardados localmente (fora do snapshot).
+     */
+    private int localSize() {
+        return frozenCount + tailUrls.size();
+    }
+
+    /**
+     * Estima os bytes de heap ocupados pelo dicionário (o snapshot não conta: está fora do heap).
+     *
+     * @return Bytes estimados.
+     */
+    public long estimatedBytes() {
+        return 16 + data.length + 4L * (blockOffsets.length + sortedIds.length + positionOfId.length) + tailBytes;
+    }
+
+    /**
+     * Funde a zona de escrita na zona comprimida, reconstruindo os blocos ordenados.
+     */
+    public void merge() {
+        if (tailUrls.isEmpty()) return;
+
+        int total = localSize();
+        byte[][] urls = new byte[total][];
+        int[] ids = new int[total];
+
+        // Zona comprimida já está ordenada: descodifica-a sequencialmente
+        int n = 0;
+        for (int b = 0; b < blockOffsets.length; b++) {
+            int[] pos = {blockOffsets[b]};
+            byte[] current = new byte[0];
+            int count = Math.min(BLOCK_SIZE, frozenCount - b * BLOCK_SIZE);
+            for (int i = 0; i < count; i++) {
+                current = decodeNext(current, pos);
+                urls[n] = current;
+                ids[n] = sortedIds[n];
+                n++;
+            }
+        }
+
+        // Ordena a zona de escrita e funde as duas listas ordenadas
+        Integer[] tailOrder = new Integer[tailUrls.size()];
+        byte[][] tailSorted = new byte[tailUrls.size()][];
+        for (int i = 0; i < tailOrder.length; i++) {
+            tailOrder[i] = i;
+            tailSorted[i] = tailUrls.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(tailOrder, (a, b) -> Arrays.compareUnsigned(tailSorted[a], tailSorted[b]));
+
+        byte[][] mergedUrls = new byte[total][];
+        int[] mergedIds = new int[total];
+        int i = 0, j = 0, k = 0;
+        while (i < n || j < tailOrder.length) {
+            boolean takeFrozen = j >= tailOrder.length
+                    || (i < n && Arrays.compareUnsigned(urls[i], tailSorted[tailOrder[j]]) <= 0);
+            if (takeFrozen) {
+                mergedUrls[k] = urls[i];
+                mergedIds[k++] = ids[i++];
+            } else {
+                mergedUrls[k] = tailSorted[tailOrder[j]];
+                mergedIds[k++] = frozenCount + tailOrder[j++];
+            }
+        }
+
+        rebuild(mergedUrls, mergedIds);
+        tailIds.clear();
+        tailUrls.clear();
+        tailBytes = 0;
+    }
+
+    /**
+     * Reconstrói a zona comprimida a partir de URLs já ordenados.
+     *
+     * @param sortedUrls URLs ordenados (bytes UTF-8).
+     * @param ids docID de cada URL, pela mesma ordem.
+     */
+    private void rebuild(byte[][] sortedUrls, int[] ids) {
+        int total = sortedUrls.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] offsets = new int[(total + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        int[] positions = new int[total];
+
+        byte[] previous = new byte[0];
+        for (int p = 0; p < total; p++) {
+            byte[] url = sortedUrls[p];
+            int shared = 0;
+            if (p % BLOCK_SIZE == 0) {
+                offsets[p / BLOCK_SIZE] = out.size();
+            } else {
+                int max = Math.min(previous.length, url.length);
+                while (shared < max && previous[shared] == url[shared]) shared++;
+            }
+            writeVarInt(out, shared);
+            writeVarInt(out, url.length - shared);
+            out.write(url, shared, url.length - shared);
+            positions[ids[p]] = p;
+            previous = url;
+        }
+
+        this.data = out.toByteArray();
+        this.blockOffsets = offsets;
+        this.sortedIds = ids;
+        this.positionOfId = positions;
+        this.frozenCount = total;
+    }
+
+    /**
+     * Obtém os bytes do primeiro URL de um bloco (guardado sem prefixo partilhado).
+     */
+    private byte[] firstOfBlock(int block) {
+        return decodeNext(new byte[0], new int[]{blockOffsets[block]});
+    }
+
+    /**
+     * Descodifica a entrada seguinte de um bloco.
+     *
+     * @param previous URL anterior do bloco (bytes).
+     * @param pos Posição atual em {@code data}; é avançada para a entrada seguinte.
+     * @return Bytes do URL descodificado.
+     */
+    private byte[] decodeNext(byte[] previous, int[] pos) {
+        int shared = readVarInt(pos);
+        int suffix = readVarInt(pos);
+        byte[] url = new byte[shared + suffix];
+        System.arraycopy(previous, 0, url, 0, shared);
+        System.arraycopy(data, pos[0], url, shared, suffix);
+        pos[0] += suffix;
+        return url;
+    }
+
+    /**
+     * Lê um inteiro em formato varint de {@code data}.
+     */
+    private int readVarInt(int[] pos) {
+        int value = 0, shift = 0;
+        byte b;
+        do {
+            b = data[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Escreve um inteiro em formato varint (7 bits por byte).
+     */
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
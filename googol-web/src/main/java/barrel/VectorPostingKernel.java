@@ -0,0 +1,92 @@
+package barrel;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementação vetorial (SIMD) das operações sobre listas de docIDs, com a JDK Vector API.
+ * <p>
+ * Na interseção, as duas listas são percorridas em blocos de {@code LANES} valores. Cada bloco de
+ * {@code a} é comparado com todas as rotações do bloco corrente de {@code b} (todos os pares em
+ * {@code LANES} comparações); os valores comuns são compactados com {@code compress} e escritos de
+ * uma vez. Avança o bloco com o menor último valor (ou ambos, se forem iguais).
+ * </p>
+ * Não faz parte da compilação predefinida: só é compilada com o perfil Maven {@code vector} e só é
+ * carregada por {@link PostingKernels} quando o módulo {@code jdk.incubator.vector} está presente
+ * (JVM arrancada com {@code --add-modules jdk.incubator.vector}). O fim de cada operação que não
+ * enche um vetor é tratado pelo código escalar.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class VectorPostingKernel implements PostingKernel {
+
+    /**
+     * Forma de vetor preferida pelo CPU (ex: 8 ints com AVX2, 16 com AVX-512).
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Número de lanes por vetor.
+     */
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * Rotação de um bloco em uma lane; aplicada {@code LANES - 1} vezes percorre todos os pares.
+     */
+    private static final VectorShuffle<Integer> ROTATE = VectorShuffle.iota(SPECIES, 1, 1, true);
+
+    @Override
+    public int intersect(int[] a, int aLen, int[] b, int bLen, int[] out) {
+        return intersect(a, aLen, b, bLen, out, true);
+    }
+
+    @Override
+    public int intersectCount(int[] a, int aLen, int[] b, int bLen) {
+        return intersect(a, aLen, b, bLen, null, false);
+    }
+
+    /**
+     * Interseção bloco a bloco: comparação de todos os pares e compactação dos valores comuns.
+     */
+    private int intersect(int[] a, int aLen, int[] b, int bLen, int[] out, boolean write) {
+        int i = 0, j = 0, n = 0;
+        while (i + LANES <= aLen && j + LANES <= bLen) {
+            int aLast = a[i + LANES - 1];
+            int bLast = b[j + LANES - 1];
+            // Blocos sem sobreposição de valores não precisam de comparação
+            if (aLast < b[j]) {
+                i += LANES;
+                continue;
+            }
+            if (bLast < a[i]) {
+                j += LANES;
+                continue;
+            }
+            IntVector va = IntVector.fromArray(SPECIES, a, i);
+            IntVector vb = IntVector.fromArray(SPECIES, b, j);
+            VectorMask<Integer> common = va.compare(VectorOperators.EQ, vb);
+            for (int r = 1; r < LANES; r++) {
+                vb = vb.rearrange(ROTATE);
+                common = common.or(va.compare(VectorOperators.EQ, vb));
+            }
+            int found = common.trueCount();
+            if (found > 0) {
+                // Só as primeiras 'found' lanes: 'out' pode não ter espaço para um vetor inteiro
+                if (write) va.compress(common).intoArray(out, n, SPECIES.indexInRange(0, found));
+                n += found;
+            }
+            if (aLast <= bLast) i += LANES;
+            if (bLast <= aLast) j += LANES;
+        }
+        return ScalarPostingKernel.intersectFrom(a, i, aLen, b, j, bLen, write ? out : null, n);
+    }
+
+    @Override
+    public String name() {
+        return "vetorial (" + LANES + " lanes)";
+    }
+}
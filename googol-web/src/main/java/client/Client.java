@@ -1,10 +1,13 @@
 package client;
 
+import analysis.Analyzer;
 import common.IClientCallback;
 import common.RetryLogic;
 import common.UrlMetadata;
 import common.SystemStatistics; // [NOVO] Importar a classe de dados
 import common.BarrelStats;      // [NOVO] Importar a classe de dados
+import common.StatisticsDelta;  // Classe de dados
+import common.StatisticsState;
 import gateway.IGateway;
 
 import java.rmi.NotBoundException;
@@ -85,6 +88,11 @@ public class Client {
      */
     private static class ClientCallbackImpl extends UnicastRemoteObject implements IClientCallback {
 
+        /**
+         * Estado das estatísticas reconstruído a partir das atualizações versionadas do Gateway.
+         */
+        private final StatisticsState state = new StatisticsState();
+
         /**
          * Construtor do callback.
          *
@@ -94,6 +102,21 @@ public class Client {
             super();
         }
 
+        /**
+         * Método invocado remotamente pelo Gateway com uma atualização (completa ou incremental).
+         * Aplica-a ao estado local e mostra o dashboard atualizado.
+         *
+         * @param delta A atualização recebida.
+         * @return A versão que o cliente passou a ter.
+         * @throws RemoteException Se ocorrer erro na comunicação.
+         */
+        @Override
+        public long onStatisticsDelta(StatisticsDelta delta) throws RemoteException {
+            SystemStatistics stats = state.apply(delta);
+            if (stats != null) onStatisticsUpdated(stats);
+            return state.getVersion();
+        }
+
         /**
          * Método invocado remotamente pelo Gateway quando há novas estatísticas.
          * <p>
@@ -139,11 +162,29 @@ public class Client {
                             b.getIncomingLinksCount(),   // Era getLinkCount()
                             b.getAvgResponseTime(),
                             b.getRequestCount());
+                    System.out.printf("   Cache: %.1f%% hits | Evictions: %d%n",
+                            b.getCacheHitRatio() * 100,
+                            b.getCacheEvictions());
+                    if (b.getMemory() != null) {
+                        System.out.println("   Memória: " + b.getMemory());
+                    }
 
                     System.out.println("   -----------------------");
                 }
             }
 
+            // 4. Mostrar Cache de Resultados do Gateway
+            if (stats.getGatewayCache() != null) {
+                System.out.println("\n--- CACHE DO GATEWAY ---");
+                System.out.println(" " + stats.getGatewayCache());
+            }
+
+            // 5. Mostrar Controlo de Admissão do Gateway
+            if (stats.getAdmission() != null) {
+                System.out.println("\n--- ADMISSÃO DO GATEWAY ---");
+                System.out.println(" " + stats.getAdmission());
+            }
+
             System.out.println("================================================");
             System.out.println("Digite 'sair' para voltar ao menu.");
             System.out.print("> ");
@@ -319,7 +360,9 @@ public class Client {
 
                     System.out.println(stopWords);
 
-                    terms.removeIf(term -> stopWords.contains(term.toLowerCase()));
+                    // As stop words são termos analisados: compara-se a forma analisada de cada termo
+                    Analyzer stopAnalyzer = Analyzer.standard().withStopWords(stopWords);
+                    terms.removeIf(term -> !term.toLowerCase().startsWith("site:") && stopAnalyzer.analyze(term).isEmpty());
 
                     if (terms.isEmpty()) {
                         System.out.println("Nenhum resultado encontrado. (É Stop Word)");
@@ -3,15 +3,23 @@ package com.googol.web.controller;
 import com.googol.web.service.GoogolService;
 import com.googol.web.service.OpenAIService;
 import com.googol.web.service.HackerNewsService;
+import common.BacklinkPage;
+import common.ServiceOverloadedException;
 import common.UrlMetadata;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +44,11 @@ public class SearchController {
     private final OpenAIService openAIService;
     private final HackerNewsService hackerNewsService;
 
+    /**
+     * Número de links de entrada mostrados por página.
+     */
+    private static final int LINKS_PAGE_SIZE = 50;
+
     /**
      * Construtor do controlador com injeção de dependências.
      *
@@ -61,23 +74,38 @@ public class SearchController {
      * 3. Se for a primeira página, solicita um resumo gerado por IA (OpenAI).
      * 4. Preenche o {@code Model} com os dados necessários para a template Thymeleaf.
      * </p>
+     * <p>
+     * Se o Gateway recusar a pesquisa por excesso de carga, a resposta é 503 com {@code Retry-After}
+     * e uma mensagem a pedir que se tente de novo, em vez de uma lista de resultados vazia.
+     * </p>
      *
      * @param query A string de pesquisa (opcional).
      * @param page O número da página atual (predefinição: 1).
      * @param model O modelo para passar dados para a vista.
+     * @param response A resposta HTTP (para o estado 503).
      * @return O nome da vista a ser renderizada ("index").
      */
     @GetMapping("/")
     public String index(
             @RequestParam(name = "q", required = false) String query,
             @RequestParam(name = "page", defaultValue = "1") int page,
-            Model model
+            Model model,
+            HttpServletResponse response
     ) {
         if (query != null && !query.trim().isEmpty()) {
             if (page < 1) page = 1;
 
             // 1. Obter resultados brutos
-            Map<String, UrlMetadata> resultsMap = googolService.search(query, page);
+            Map<String, UrlMetadata> resultsMap;
+            try {
+                resultsMap = googolService.search(query, page);
+            } catch (ServiceOverloadedException e) {
+                rejectBusy(response, e);
+                model.addAttribute("message", busyMessage(e));
+                model.addAttribute("msgType", "error");
+                model.addAttribute("query", query);
+                return "index";
+            }
 
             // 2. O TRUQUE: Procurar o total escondido
             int totalResults = 0;
@@ -139,13 +167,18 @@ public class SearchController {
             attrs.addFlashAttribute("msgType", "error");
         } else {
             int count = 0;
-            for (String url : urls) {
-                if (googolService.indexURL(url)) {
-                    count++;
+            try {
+                for (String url : urls) {
+                    if (googolService.indexURL(url)) {
+                        count++;
+                    }
                 }
+                attrs.addFlashAttribute("message", "Hacker News: " + count + " URLs enviados para indexação sobre '" + query + "'.");
+                attrs.addFlashAttribute("msgType", "success");
+            } catch (ServiceOverloadedException e) {
+                attrs.addFlashAttribute("message", "Hacker News: " + count + " de " + urls.size() + " URLs enviados. " + busyMessage(e));
+                attrs.addFlashAttribute("msgType", "error");
             }
-            attrs.addFlashAttribute("message", "Hacker News: " + count + " URLs enviados para indexação sobre '" + query + "'.");
-            attrs.addFlashAttribute("msgType", "success");
         }
         attrs.addAttribute("q", query);
         return "redirect:/";
@@ -162,7 +195,14 @@ public class SearchController {
      */
     @PostMapping("/index")
     public String indexUrl(@RequestParam("url") String url, RedirectAttributes attrs) {
-        boolean success = googolService.indexURL(url);
+        boolean success;
+        try {
+            success = googolService.indexURL(url);
+        } catch (ServiceOverloadedException e) {
+            attrs.addFlashAttribute("message", busyMessage(e));
+            attrs.addFlashAttribute("msgType", "error");
+            return "redirect:/";
+        }
         if (success) {
             attrs.addFlashAttribute("message", "URL enviado: " + url);
             attrs.addFlashAttribute("msgType", "success");
@@ -173,20 +213,103 @@ public class SearchController {
         return "redirect:/";
     }
 
-    // --- 4. LINKS DE ENTRADA (MANTÉM-SE IGUAL) ---
+    // --- 4. LINKS DE ENTRADA (PAGINADOS) ---
 
     /**
      * Trata o pedido GET para visualizar os links que apontam para um determinado URL (Backlinks).
+     * <p>
+     * Apenas a primeira página (ou a página indicada pelo cursor) é pedida ao Gateway; as seguintes
+     * são carregadas pelo browser através de {@code /links/page}.
+     * </p>
      *
      * @param url O URL alvo para o qual se pretendem ver os links de entrada.
-     * @param model O modelo para passar a lista de links para a vista.
+     * @param cursor Cursor da página (opcional; predefinição: primeira página).
+     * @param model O modelo para passar a página de links para a vista.
+     * @param response A resposta HTTP (para o estado 503).
      * @return O nome da vista a ser renderizada ("links").
      */
     @GetMapping("/links")
-    public String incomingLinks(@RequestParam("url") String url, Model model) {
-        List<String> links = googolService.getIncomingLinks(url);
+    public String incomingLinks(@RequestParam("url") String url,
+                                @RequestParam(name = "cursor", defaultValue = "" + BacklinkPage.FIRST) long cursor,
+                                Model model,
+                                HttpServletResponse response) {
         model.addAttribute("targetUrl", url);
-        model.addAttribute("incomingLinks", links);
+        BacklinkPage page;
+        try {
+            page = googolService.getBacklinks(url, cursor, LINKS_PAGE_SIZE);
+        } catch (ServiceOverloadedException e) {
+            rejectBusy(response, e);
+            model.addAttribute("message", busyMessage(e));
+            return "links";
+        }
+        model.addAttribute("totalCount", page.getTotalCount());
+        model.addAttribute("incomingLinks", page.getLinks());
+        model.addAttribute("nextCursor", page.isHasMore() ? page.getNextCursor() : null);
         return "links";
     }
+
+    /**
+     * Devolve em JSON uma página de links de entrada, usada para carregar mais resultados sem recarregar a página.
+     * O cursor é enviado como texto, pois excede a precisão dos números em JavaScript.
+     *
+     * @param url O URL alvo.
+     * @param cursor Cursor da página seguinte.
+     * @return Mapa com {@code totalCount}, {@code links}, {@code hasMore} e {@code nextCursor}; ou, se o
+     *         Gateway recusar o pedido por excesso de carga, 503 com {@code Retry-After}, {@code error} e
+     *         {@code retryAfterMillis}.
+     */
+    @GetMapping("/links/page")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> incomingLinksPage(@RequestParam("url") String url,
+                                                                 @RequestParam(name = "cursor", defaultValue = "" + BacklinkPage.FIRST) long cursor) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        BacklinkPage page;
+        try {
+            page = googolService.getBacklinks(url, cursor, LINKS_PAGE_SIZE);
+        } catch (ServiceOverloadedException e) {
+            json.put("error", busyMessage(e));
+            json.put("retryAfterMillis", e.getRetryAfterMillis());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(e)))
+                    .body(json);
+        }
+        json.put("totalCount", page.getTotalCount());
+        json.put("links", page.getLinks());
+        json.put("hasMore", page.isHasMore());
+        json.put("nextCursor", String.valueOf(page.getNextCursor()));
+        return ResponseEntity.ok(json);
+    }
+
+    // --- 5. PEDIDOS RECUSADOS POR EXCESSO DE CARGA ---
+
+    /**
+     * Marca a resposta como 503 (serviço indisponível), com o cabeçalho {@code Retry-After}.
+     *
+     * @param response A resposta HTTP.
+     * @param e A rejeição do Gateway.
+     */
+    private static void rejectBusy(HttpServletResponse response, ServiceOverloadedException e) {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(e)));
+    }
+
+    /**
+     * Mensagem mostrada ao utilizador quando o Gateway recusa um pedido.
+     *
+     * @param e A rejeição do Gateway.
+     * @return Mensagem com a espera sugerida.
+     */
+    private static String busyMessage(ServiceOverloadedException e) {
+        return "O Googol está ocupado. Tente de novo dentro de " + e.getRetryAfterMillis() + " ms.";
+    }
+
+    /**
+     * Converte a espera sugerida pelo Gateway em segundos inteiros (o {@code Retry-After} não aceita frações).
+     *
+     * @param e A rejeição do Gateway.
+     * @return Espera em segundos (pelo menos 1).
+     */
+    private static long retryAfterSeconds(ServiceOverloadedException e) {
+        return Math.max(1, (e.getRetryAfterMillis() + 999) / 1000);
+    }
 }
\ No newline at end of file
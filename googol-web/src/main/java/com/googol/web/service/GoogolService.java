@@ -1,6 +1,9 @@
 package com.googol.web.service;
 
+import analysis.Analyzer;
 import gateway.IGateway;
+import common.BacklinkPage;
+import common.ServiceOverloadedException;
 import common.UrlMetadata;
 import common.IClientCallback; // <--- Importante: usar a interface do common
 import org.springframework.stereotype.Service;
@@ -97,8 +100,9 @@ public class GoogolService {
      * @param query A string contendo os termos a pesquisar.
      * @param page O número da página de resultados pretendida (>= 1).
      * @return Um mapa contendo os URLs encontrados e os seus metadados. Retorna vazio em caso de erro.
+     * @throws ServiceOverloadedException Se o Gateway rejeitar o pedido por excesso de carga.
      */
-    public Map<String, UrlMetadata> search(String query, int page) { // <--- 1. ADICIONAR int page
+    public Map<String, UrlMetadata> search(String query, int page) throws ServiceOverloadedException { // <--- 1. ADICIONAR int page
         try {
             if (gateway == null) connectToGateway();
             if (gateway == null) return new HashMap<>();
@@ -111,8 +115,10 @@ public class GoogolService {
                 try {
                     Set<String> stopWords = new HashSet<>(stopWordsService.getStopWords());
 
-                    // Remove stop words (ex: "o", "a", "de")
-                    terms.removeIf(term -> stopWords.contains(term.toLowerCase()));
+                    // Remove stop words (ex: "o", "a", "de"), comparando a forma analisada de cada termo
+                    // (a mesma do índice). Os operadores "site:" nunca são removidos.
+                    Analyzer stopAnalyzer = Analyzer.standard().withStopWords(stopWords);
+                    terms.removeIf(term -> !term.toLowerCase().startsWith("site:") && stopAnalyzer.analyze(term).isEmpty());
 
                     if (terms.isEmpty()) {
                         return new HashMap<>();
@@ -134,8 +140,7 @@ public class GoogolService {
             return gateway.search(terms);
 
         } catch (Exception e) {
-            e.printStackTrace();
-            gateway = null;
+            handleFailure(e);
             return new HashMap<>();
         }
     }
@@ -145,8 +150,9 @@ public class GoogolService {
      *
      * @param url O URL a ser indexado.
      * @return {@code true} se a operação for bem sucedida, {@code false} caso contrário.
+     * @throws ServiceOverloadedException Se o Gateway rejeitar o pedido por excesso de carga.
      */
-    public boolean indexURL(String url) {
+    public boolean indexURL(String url) throws ServiceOverloadedException {
         try {
             if (gateway == null) connectToGateway();
             if (gateway == null) return false;
@@ -154,8 +160,7 @@ public class GoogolService {
             gateway.indexURL(url);
             return true;
         } catch (Exception e) {
-            e.printStackTrace();
-            gateway = null;
+            handleFailure(e);
             return false;
         }
     }
@@ -165,17 +170,61 @@ public class GoogolService {
      *
      * @param url O URL alvo.
      * @return Uma lista de strings com os URLs de origem.
+     * @throws ServiceOverloadedException Se o Gateway rejeitar o pedido por excesso de carga.
      */
-    public List<String> getIncomingLinks(String url) {
+    public List<String> getIncomingLinks(String url) throws ServiceOverloadedException {
         try {
             if (gateway == null) connectToGateway();
             if (gateway == null) return new ArrayList<>();
 
             return gateway.getIncomingLinks(url);
         } catch (Exception e) {
-            e.printStackTrace();
-            gateway = null;
+            handleFailure(e);
             return new ArrayList<>();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtém uma página dos URLs que apontam para um determinado URL, com a contagem total.
+     *
+     * @param url O URL alvo.
+     * @param cursor Cursor da página ({@code BacklinkPage.FIRST} para a primeira).
+     * @param limit Número máximo de links.
+     * @return A página de links (vazia em caso de erro).
+     * @throws ServiceOverloadedException Se o Gateway rejeitar o pedido por excesso de carga.
+     */
+    public BacklinkPage getBacklinks(String url, long cursor, int limit) throws ServiceOverloadedException {
+        try {
+            if (gateway == null) connectToGateway();
+            if (gateway == null) return BacklinkPage.empty(url);
+
+            return gateway.getBacklinks(url, cursor, limit);
+        } catch (Exception e) {
+            handleFailure(e);
+            return BacklinkPage.empty(url);
+        }
+    }
+
+    /**
+     * Trata uma falha numa chamada ao Gateway.
+     * <p>
+     * Se o Gateway rejeitou o pedido por excesso de carga, a ligação é mantida (o Gateway está
+     * disponível, apenas recusou este pedido) e a rejeição é relançada, para que o controlador
+     * indique ao utilizador que tente de novo em vez de mostrar um resultado vazio. Caso contrário,
+     * a ligação é descartada para ser refeita no próximo pedido.
+     * </p>
+     *
+     * @param e A exceção recebida.
+     * @throws ServiceOverloadedException Se o pedido foi rejeitado por excesso de carga.
+     */
+    private void handleFailure(Exception e) throws ServiceOverloadedException {
+        ServiceOverloadedException overloaded = ServiceOverloadedException.from(e);
+        if (overloaded != null) {
+            System.err.println("Gateway sobrecarregado, pedido rejeitado (tentar de novo dentro de "
+                    + overloaded.getRetryAfterMillis() + " ms): " + overloaded.getMessage());
+            throw overloaded;
+        }
+        e.printStackTrace();
+        gateway = null;
+    }
+}
@@ -3,14 +3,16 @@ package com.googol.web.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import common.IClientCallback;
 import common.SystemStatistics; // Importar a sua classe
+import common.StatisticsDelta;
+import common.StatisticsState;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 
 /**
  * Implementação do callback RMI para receber estatísticas do Gateway.
  * <p>
- * Esta classe age como um "ouvinte" que recebe objetos {@code SystemStatistics} do RMI,
- * converte-os para JSON e reencaminha-os para os clientes Web via WebSocket.
+ * Esta classe age como um "ouvinte" que recebe as atualizações de estatísticas do RMI,
+ * converte-as para JSON e reencaminha-as para os clientes Web via WebSocket.
  * </p>
  *
  * @author Ivan, Rodrigo e Samuel
@@ -23,6 +25,18 @@ public class RmiClientListener extends UnicastRemoteObject implements IClientCal
      */
     private final ObjectMapper objectMapper;
 
+    /**
+     * Estado das estatísticas reconstruído a partir das atualizações versionadas do Gateway.
+     */
+    private final StatisticsState state = new StatisticsState();
+
+    /**
+     * JSON da última atualização completa enviada aos browsers, e a versão a que corresponde
+     * (protegidos pelo lock de {@code state}).
+     */
+    private String fullJson;
+    private long fullJsonVersion = -1;
+
     /**
      * Construtor da classe listener.
      *
@@ -31,15 +45,14 @@ public class RmiClientListener extends UnicastRemoteObject implements IClientCal
     public RmiClientListener() throws RemoteException {
         super();
         this.objectMapper = new ObjectMapper();
+        StatsWebSocket.setSnapshotSource(this::snapshotJson);
     }
 
     /**
-     * Método invocado remotamente pelo Gateway quando as estatísticas são atualizadas.
+     * Método invocado remotamente com um estado completo (sem versão).
      * <p>
-     * O método realiza:
-     * 1. Receção do objeto {@code SystemStatistics}.
-     * 2. Conversão para String JSON.
-     * 3. Difusão (broadcast) para todos os clientes WebSocket conectados.
+     * Tratado como uma atualização completa com a versão seguinte à atual, para que os browsers
+     * recebam sempre o mesmo formato de mensagem ({@code StatisticsDelta}).
      * </p>
      *
      * @param stats O objeto com as estatísticas atualizadas.
@@ -47,19 +60,66 @@ public class RmiClientListener extends UnicastRemoteObject implements IClientCal
      */
     @Override
     public void onStatisticsUpdated(SystemStatistics stats) throws RemoteException {
-        try {
-            // 1. Recebemos o objeto Java 'stats' já populado pelo RMI.
-            // 2. Convertemos diretamente para JSON String.
-            String jsonOutput = objectMapper.writeValueAsString(stats);
+        synchronized (state) {
+            onStatisticsDelta(StatisticsDelta.full(stats, state.getVersion() + 1));
+        }
+    }
 
-            // Debug opcional
-            // System.out.println("JSON gerado: " + jsonOutput);
+    /**
+     * Método invocado remotamente pelo Gateway com uma atualização versionada das estatísticas.
+     * <p>
+     * Aplica a atualização ao estado local e reencaminha-a, em JSON, para os browsers: as atualizações
+     * incrementais seguem tal como chegaram (só o que mudou), pelo que o custo de serialização e a
+     * largura de banda dependem do número de alterações e não do tamanho do estado.
+     * </p>
+     *
+     * @param delta A atualização recebida.
+     * @return A versão que este servidor passou a ter.
+     * @throws RemoteException Se ocorrer erro na comunicação RMI.
+     */
+    @Override
+    public long onStatisticsDelta(StatisticsDelta delta) throws RemoteException {
+        synchronized (state) {
+            if (state.apply(delta) == null) return state.getVersion(); // Fora de sequência: o Gateway reenvia completo
+            try {
+                String json = objectMapper.writeValueAsString(delta);
+                if (delta.isFull()) rememberFull(json, delta.getVersion());
+                StatsWebSocket.broadcast(json);
+            } catch (Exception e) {
+                System.err.println("Erro ao converter StatisticsDelta para JSON: " + e.getMessage());
+            }
+            return state.getVersion();
+        }
+    }
 
-            // 3. Enviamos para o HTML
-            StatsWebSocket.broadcast(jsonOutput);
+    /**
+     * Guarda o JSON de uma atualização completa para enviar a browsers que se liguem ou peçam resincronização.
+     * Chamado com o lock de {@code state}.
+     */
+    private void rememberFull(String json, long version) {
+        fullJson = json;
+        fullJsonVersion = version;
+    }
 
-        } catch (Exception e) {
-            System.err.println("Erro ao converter SystemStatistics para JSON: " + e.getMessage());
+    /**
+     * Obtém o estado atual em JSON, como atualização completa (serializado apenas quando a versão muda).
+     *
+     * @return JSON da atualização completa, ou null se ainda não houver estado.
+     */
+    private String snapshotJson() {
+        synchronized (state) {
+            SystemStatistics current = state.getCurrent();
+            if (current == null) return null;
+            if (fullJsonVersion != state.getVersion()) {
+                try {
+                    rememberFull(objectMapper.writeValueAsString(StatisticsDelta.full(current, state.getVersion())),
+                            state.getVersion());
+                } catch (Exception e) {
+                    System.err.println("Erro ao converter SystemStatistics para JSON: " + e.getMessage());
+                    return null;
+                }
+            }
+            return fullJson;
         }
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Supplier;
 
 /**
  * Endpoint WebSocket para difusão de estatísticas em tempo real para o browser.
@@ -13,6 +14,11 @@ import java.util.concurrent.CopyOnWriteArraySet;
  * Mapeado em {@code /stats}, gere as conexões dos clientes e distribui as mensagens
  * JSON recebidas do RMI para a interface web (Dashboard).
  * </p>
+ * <p>
+ * As mensagens são atualizações versionadas ({@code StatisticsDelta}): cada browser recebe o estado
+ * completo ao ligar-se e depois apenas as alterações. Um browser que perca a sequência envia
+ * {@code "resync"} e recebe de novo o estado completo.
+ * </p>
  *
  * @author Ivan, Rodrigo e Samuel
  * @version 1.0
@@ -27,10 +33,10 @@ public class StatsWebSocket {
     private static final Set<StatsWebSocket> connections = new CopyOnWriteArraySet<>();
 
     /**
-     * Cache da última mensagem de estado recebida.
-     * Útil para enviar dados imediatos a novos clientes que se conectam.
+     * Fonte do estado completo atual (JSON), enviado a novos clientes que se conectam
+     * e aos que pedem resincronização.
      */
-    private static volatile String currentSystemState = null;
+    private static volatile Supplier<String> snapshotSource = () -> null;
 
     /**
      * Sessão individual de um cliente conectado.
@@ -58,15 +64,33 @@ public class StatsWebSocket {
 
         // ENVIO IMEDIATO DO ESTADO ATUAL
         // Isto garante que vê os Barrels assim que abre a página
-        if (currentSystemState != null) {
-            try {
-                session.getBasicRemote().sendText(currentSystemState);
-            } catch (IOException e) {
-                // ignorar
+        sendSnapshot();
+    }
+
+    /**
+     * Envia o estado completo atual a este cliente.
+     */
+    private void sendSnapshot() {
+        String snapshot = snapshotSource.get();
+        if (snapshot == null) return;
+        try {
+            synchronized (this) {
+                session.getBasicRemote().sendText(snapshot);
             }
+        } catch (IOException e) {
+            // ignorar
         }
     }
 
+    /**
+     * Define a fonte do estado completo (normalmente o {@code RmiClientListener}).
+     *
+     * @param source Fornece o JSON do estado completo, ou null se ainda não houver.
+     */
+    public static void setSnapshotSource(Supplier<String> source) {
+        snapshotSource = source;
+    }
+
     /**
      * Chamado quando uma conexão WebSocket é fechada.
      */
@@ -76,12 +100,15 @@ public class StatsWebSocket {
     }
 
     /**
-     * Chamado quando uma mensagem é recebida do cliente (não utilizado neste contexto unidirecional).
+     * Chamado quando uma mensagem é recebida do cliente.
+     * A única mensagem esperada é {@code "resync"}, que pede o estado completo.
      *
      * @param message A mensagem recebida.
      */
     @OnMessage
-    public void incoming(String message) { }
+    public void incoming(String message) {
+        if ("resync".equals(message)) sendSnapshot();
+    }
 
     /**
      * Tratamento de erros na conexão WebSocket.
@@ -94,16 +121,12 @@ public class StatsWebSocket {
     /**
      * Envia uma mensagem para todos os clientes conectados.
      * <p>
-     * Atualiza também o estado em cache ({@code currentSystemState}).
      * Remove automaticamente clientes desconectados ou com erros de I/O.
      * </p>
      *
      * @param msg A mensagem (JSON) a enviar.
      */
     public static void broadcast(String msg) {
-        // Atualizamos o estado atual sempre que a Gateway manda novidades
-        currentSystemState = msg;
-
         for (StatsWebSocket client : connections) {
             try {
                 synchronized (client) {
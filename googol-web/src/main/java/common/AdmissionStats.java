@@ -0,0 +1,95 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Classe de dados (DTO) com os contadores do controlo de admissão do Gateway.
+ * <p>
+ * Incluída nas estatísticas publicadas ({@code SystemStatistics}) para mostrar no dashboard
+ * quantos pedidos foram rejeitados e o limite de pedidos simultâneos em vigor.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class AdmissionStats implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Pedidos rejeitados por o cliente exceder a sua taxa.
+     */
+    private final long rateLimited;
+
+    /**
+     * Pedidos rejeitados por o Gateway estar no limite de pedidos simultâneos.
+     */
+    private final long overloaded;
+
+    /**
+     * Limite atual de pedidos simultâneos aos Barrels.
+     */
+    private final int concurrencyLimit;
+
+    /**
+     * Pedidos aos Barrels em curso.
+     */
+    private final int inFlight;
+
+    /**
+     * Construtor completo.
+     *
+     * @param rateLimited Pedidos rejeitados pela taxa do cliente.
+     * @param overloaded Pedidos rejeitados pelo limite de concorrência.
+     * @param concurrencyLimit Limite atual de pedidos simultâneos.
+     * @param inFlight Pedidos em curso.
+     */
+    public AdmissionStats(long rateLimited, long overloaded, int concurrencyLimit, int inFlight) {
+        this.rateLimited = rateLimited;
+        this.overloaded = overloaded;
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Obtém o número de pedidos rejeitados por o cliente exceder a sua taxa.
+     *
+     * @return Total de pedidos.
+     */
+    public long getRateLimited() { return rateLimited; }
+
+    /**
+     * Obtém o número de pedidos rejeitados pelo limite de pedidos simultâneos.
+     *
+     * @return Total de pedidos.
+     */
+    public long getOverloaded() { return overloaded; }
+
+    /**
+     * Obtém o limite atual de pedidos simultâneos aos Barrels.
+     *
+     * @return Limite.
+     */
+    public int getConcurrencyLimit() { return concurrencyLimit; }
+
+    /**
+     * Obtém o número de pedidos aos Barrels em curso.
+     *
+     * @return Pedidos em curso.
+     */
+    public int getInFlight() { return inFlight; }
+
+    /**
+     * Retorna uma representação textual resumida.
+     *
+     * @return String formatada.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d/%d em curso, %d rejeitados (taxa do cliente), %d rejeitados (sobrecarga)",
+                inFlight, concurrencyLimit, rateLimited, overloaded);
+    }
+}
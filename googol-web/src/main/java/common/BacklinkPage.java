@@ -0,0 +1,119 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Classe de dados (DTO) que representa uma página de links de entrada (Backlinks) de um URL.
+ * <p>
+ * Em vez de transferir todo o conjunto de origens (que em páginas populares pode ter dezenas de
+ * milhares de entradas), o Barrel devolve o número exato de origens e apenas uma página delas,
+ * ordenadas pela relevância da origem (número de links que ela própria recebe). O cursor
+ * devolvido permite pedir a página seguinte.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class BacklinkPage implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cursor a usar para pedir a primeira página.
+     */
+    public static final long FIRST = -1L;
+
+    /**
+     * Valor de {@code nextCursor} quando não existem mais páginas.
+     */
+    public static final long END = 0L;
+
+    /**
+     * Número máximo de links devolvidos por página.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * O URL alvo.
+     */
+    private final String targetUrl;
+
+    /**
+     * Número total (exato) de páginas que apontam para o alvo.
+     */
+    private final int totalCount;
+
+    /**
+     * Origens desta página, da mais relevante para a menos relevante.
+     */
+    private final List<String> links;
+
+    /**
+     * Cursor da página seguinte, ou {@link #END}.
+     */
+    private final long nextCursor;
+
+    /**
+     * Construtor completo.
+     *
+     * @param targetUrl O URL alvo.
+     * @param totalCount Número total de origens.
+     * @param links Origens desta página.
+     * @param nextCursor Cursor da página seguinte, ou {@link #END}.
+     */
+    public BacklinkPage(String targetUrl, int totalCount, List<String> links, long nextCursor) {
+        this.targetUrl = targetUrl;
+        this.totalCount = totalCount;
+        this.links = links;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Cria uma página vazia (URL desconhecido ou sem links de entrada).
+     *
+     * @param targetUrl O URL alvo.
+     * @return Página sem links e sem continuação.
+     */
+    public static BacklinkPage empty(String targetUrl) {
+        return new BacklinkPage(targetUrl, 0, List.of(), END);
+    }
+
+    /**
+     * Obtém o URL alvo.
+     *
+     * @return String contendo o URL.
+     */
+    public String getTargetUrl() { return targetUrl; }
+
+    /**
+     * Obtém o número total de páginas que apontam para o alvo.
+     *
+     * @return Contagem exata.
+     */
+    public int getTotalCount() { return totalCount; }
+
+    /**
+     * Obtém as origens desta página.
+     *
+     * @return Lista de URLs.
+     */
+    public List<String> getLinks() { return links; }
+
+    /**
+     * Obtém o cursor da página seguinte.
+     *
+     * @return Cursor, ou {@link #END} se esta for a última página.
+     */
+    public long getNextCursor() { return nextCursor; }
+
+    /**
+     * Indica se existem mais páginas.
+     *
+     * @return true se {@code nextCursor} for válido.
+     */
+    public boolean isHasMore() { return nextCursor != END; }
+}
@@ -0,0 +1,92 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Classe de dados (DTO) com as métricas de latência medidas dentro de um Barrel.
+ * <p>
+ * Contém os histogramas de latência de pesquisa, armazenamento e sincronização, e as pesquisas
+ * lentas mais recentes com o tempo de cada fase. Obtida através de {@code IBarrel.getMetrics()}.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class BarrelMetrics implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final String barrelName;
+    private final LatencyHistogram searchLatency;
+    private final LatencyHistogram storeLatency;
+    private final LatencyHistogram syncLatency;
+    private final List<SlowQuery> slowQueries;
+
+    /**
+     * Construtor completo.
+     *
+     * @param barrelName Nome do Barrel.
+     * @param searchLatency Latência das pesquisas.
+     * @param storeLatency Latência do armazenamento de páginas.
+     * @param syncLatency Latência das sincronizações com outros Barrels.
+     * @param slowQueries Pesquisas lentas recentes (da mais antiga para a mais recente).
+     */
+    public BarrelMetrics(String barrelName, LatencyHistogram searchLatency, LatencyHistogram storeLatency,
+                         LatencyHistogram syncLatency, List<SlowQuery> slowQueries) {
+        this.barrelName = barrelName;
+        this.searchLatency = searchLatency;
+        this.storeLatency = storeLatency;
+        this.syncLatency = syncLatency;
+        this.slowQueries = slowQueries;
+    }
+
+    /**
+     * Obtém o nome do Barrel.
+     *
+     * @return Nome.
+     */
+    public String getBarrelName() { return barrelName; }
+
+    /**
+     * Obtém o histograma de latência das pesquisas.
+     *
+     * @return Histograma (µs).
+     */
+    public LatencyHistogram getSearchLatency() { return searchLatency; }
+
+    /**
+     * Obtém o histograma de latência do armazenamento de páginas.
+     *
+     * @return Histograma (µs).
+     */
+    public LatencyHistogram getStoreLatency() { return storeLatency; }
+
+    /**
+     * Obtém o histograma de latência das sincronizações.
+     *
+     * @return Histograma (µs).
+     */
+    public LatencyHistogram getSyncLatency() { return syncLatency; }
+
+    /**
+     * Obtém as pesquisas lentas recentes.
+     *
+     * @return Lista de pesquisas lentas.
+     */
+    public List<SlowQuery> getSlowQueries() { return slowQueries; }
+
+    /**
+     * Retorna um resumo textual das métricas.
+     *
+     * @return String formatada.
+     */
+    @Override
+    public String toString() {
+        return "[" + barrelName + "] pesquisa: " + searchLatency + " | store: " + storeLatency
+                + " | sync: " + syncLatency + " | " + slowQueries.size() + " pesquisas lentas";
+    }
+}
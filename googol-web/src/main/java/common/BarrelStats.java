@@ -1,6 +1,7 @@
 package common;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Classe que encapsula as métricas de desempenho e estado de um único Barrel.
@@ -49,6 +50,26 @@ public class BarrelStats implements Serializable {
      */
     private int incomingLinksCount;     // Tamanho da lista de links (URLs)
 
+    /**
+     * Número de pesquisas servidas pela cache de resultados do Barrel.
+     */
+    private long cacheHits;
+
+    /**
+     * Número de pesquisas que não estavam em cache e foram calculadas.
+     */
+    private long cacheMisses;
+
+    /**
+     * Número de entradas removidas da cache por falta de capacidade.
+     */
+    private long cacheEvictions;
+
+    /**
+     * Estimativa de memória ocupada pelas estruturas do Barrel (pode ser null se ainda não reportada).
+     */
+    private MemoryUsage memory;
+
     /**
      * Construtor completo para inicializar todas as métricas do Barrel.
      *
@@ -68,6 +89,47 @@ public class BarrelStats implements Serializable {
         this.incomingLinksCount = incomingLinksCount;
     }
 
+    /**
+     * Construtor completo incluindo os contadores da cache de resultados.
+     *
+     * @param name Nome do Barrel.
+     * @param status Estado de atividade.
+     * @param avgResponseTime Tempo médio de resposta.
+     * @param requestCount Número de requisições processadas.
+     * @param invertedIndexCount Tamanho do índice invertido.
+     * @param incomingLinksCount Tamanho do índice de links.
+     * @param cacheHits Pesquisas servidas pela cache.
+     * @param cacheMisses Pesquisas calculadas de raiz.
+     * @param cacheEvictions Entradas removidas da cache.
+     */
+    public BarrelStats(String name, String status, double avgResponseTime, int requestCount, int invertedIndexCount, int incomingLinksCount,
+                       long cacheHits, long cacheMisses, long cacheEvictions) {
+        this(name, status, avgResponseTime, requestCount, invertedIndexCount, incomingLinksCount);
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.cacheEvictions = cacheEvictions;
+    }
+
+    /**
+     * Construtor completo incluindo os contadores da cache e a estimativa de memória.
+     *
+     * @param name Nome do Barrel.
+     * @param status Estado de atividade.
+     * @param avgResponseTime Tempo médio de resposta.
+     * @param requestCount Número de requisições processadas.
+     * @param invertedIndexCount Tamanho do índice invertido.
+     * @param incomingLinksCount Tamanho do índice de links.
+     * @param cacheHits Pesquisas servidas pela cache.
+     * @param cacheMisses Pesquisas calculadas de raiz.
+     * @param cacheEvictions Entradas removidas da cache.
+     * @param memory Estimativa de memória (pode ser null).
+     */
+    public BarrelStats(String name, String status, double avgResponseTime, int requestCount, int invertedIndexCount, int incomingLinksCount,
+                       long cacheHits, long cacheMisses, long cacheEvictions, MemoryUsage memory) {
+        this(name, status, avgResponseTime, requestCount, invertedIndexCount, incomingLinksCount, cacheHits, cacheMisses, cacheEvictions);
+        this.memory = memory;
+    }
+
     // --- Getters ---
 
     /**
@@ -124,6 +186,88 @@ public class BarrelStats implements Serializable {
         return incomingLinksCount;
     }
 
+    /**
+     * Obtém o número de pesquisas servidas pela cache.
+     *
+     * @return Contador de hits.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Obtém o número de pesquisas calculadas de raiz.
+     *
+     * @return Contador de misses.
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Obtém o número de entradas removidas da cache por falta de capacidade.
+     *
+     * @return Contador de evictions.
+     */
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * Calcula a taxa de acerto da cache de resultados.
+     *
+     * @return Valor entre 0.0 e 1.0 (0.0 se ainda não houve pesquisas).
+     */
+    public double getCacheHitRatio() {
+        long total = cacheHits + cacheMisses;
+        return total == 0 ? 0.0 : (double) cacheHits / total;
+    }
+
+    /**
+     * Obtém a estimativa de memória ocupada pelas estruturas do Barrel.
+     *
+     * @return Objeto {@code MemoryUsage}, ou null se ainda não reportado.
+     */
+    public MemoryUsage getMemory() {
+        return memory;
+    }
+
+    // --- Comparação ---
+
+    /**
+     * Compara todas as métricas (usado para enviar apenas os Barrels que mudaram).
+     *
+     * @param o Objeto a comparar.
+     * @return true se todas as métricas forem iguais.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BarrelStats)) return false;
+        BarrelStats other = (BarrelStats) o;
+        return Double.compare(avgResponseTime, other.avgResponseTime) == 0
+                && requestCount == other.requestCount
+                && invertedIndexCount == other.invertedIndexCount
+                && incomingLinksCount == other.incomingLinksCount
+                && cacheHits == other.cacheHits
+                && cacheMisses == other.cacheMisses
+                && cacheEvictions == other.cacheEvictions
+                && Objects.equals(name, other.name)
+                && Objects.equals(status, other.status)
+                && Objects.equals(memory, other.memory);
+    }
+
+    /**
+     * Calcula o hash a partir de todas as métricas.
+     *
+     * @return Hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, status, avgResponseTime, requestCount, invertedIndexCount, incomingLinksCount,
+                cacheHits, cacheMisses, cacheEvictions, memory);
+    }
+
     // --- Exibição ---
 
     /**
@@ -138,12 +282,17 @@ public class BarrelStats implements Serializable {
         return String.format("%s [%s]\n" +
                         "   -> Palavras Indexadas: %d\n" +
                         "   -> URLs Conhecidos: %d\n" +
-                        "   -> Tempo Médio: %.2fms (baseado em %d pesquisas)",
+                        "   -> Tempo Médio: %.2fms (baseado em %d pesquisas)\n" +
+                        "   -> Cache: %.1f%% hits (%d evictions)\n" +
+                        "   -> Memória: %s",
                 name,
                 status,
                 invertedIndexCount,
                 incomingLinksCount,
                 avgResponseTime,
-                requestCount);
+                requestCount,
+                getCacheHitRatio() * 100,
+                cacheEvictions,
+                memory == null ? "N/A" : memory);
     }
 }
\ No newline at end of file
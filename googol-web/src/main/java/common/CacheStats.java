@@ -0,0 +1,134 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Classe de dados (DTO) com os contadores da cache de resultados do Gateway.
+ * <p>
+ * Incluída nas estatísticas publicadas ({@code SystemStatistics}) para mostrar no dashboard
+ * a taxa de acerto e a ocupação da cache.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class CacheStats implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Pedidos servidos pela cache.
+     */
+    private final long hits;
+
+    /**
+     * Pedidos que não estavam em cache (ou tinham expirado) e foram enviados a um Barrel.
+     */
+    private final long misses;
+
+    /**
+     * Entradas removidas ou rejeitadas por falta de capacidade.
+     */
+    private final long evictions;
+
+    /**
+     * Número de entradas guardadas.
+     */
+    private final int entries;
+
+    /**
+     * Bytes estimados das entradas guardadas.
+     */
+    private final long weightBytes;
+
+    /**
+     * Capacidade configurada (bytes estimados).
+     */
+    private final long capacityBytes;
+
+    /**
+     * Construtor completo.
+     *
+     * @param hits Pedidos servidos pela cache.
+     * @param misses Pedidos enviados a um Barrel.
+     * @param evictions Entradas removidas ou rejeitadas.
+     * @param entries Entradas guardadas.
+     * @param weightBytes Bytes estimados ocupados.
+     * @param capacityBytes Capacidade configurada.
+     */
+    public CacheStats(long hits, long misses, long evictions, int entries, long weightBytes, long capacityBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.weightBytes = weightBytes;
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * Obtém o número de pedidos servidos pela cache.
+     *
+     * @return Total de hits.
+     */
+    public long getHits() { return hits; }
+
+    /**
+     * Obtém o número de pedidos não servidos pela cache.
+     *
+     * @return Total de misses.
+     */
+    public long getMisses() { return misses; }
+
+    /**
+     * Obtém o número de entradas removidas ou rejeitadas por falta de capacidade.
+     *
+     * @return Total de evictions.
+     */
+    public long getEvictions() { return evictions; }
+
+    /**
+     * Obtém o número de entradas guardadas.
+     *
+     * @return Número de entradas.
+     */
+    public int getEntries() { return entries; }
+
+    /**
+     * Obtém os bytes estimados ocupados pelas entradas.
+     *
+     * @return Bytes estimados.
+     */
+    public long getWeightBytes() { return weightBytes; }
+
+    /**
+     * Obtém a capacidade configurada.
+     *
+     * @return Bytes estimados.
+     */
+    public long getCapacityBytes() { return capacityBytes; }
+
+    /**
+     * Calcula a taxa de acerto da cache.
+     *
+     * @return Fração (0 a 1) dos pedidos servidos pela cache.
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Retorna uma representação textual resumida.
+     *
+     * @return String formatada.
+     */
+    @Override
+    public String toString() {
+        return String.format("%.1f%% hits (%d/%d), %d evictions, %d entradas, %.1f/%.1f MB",
+                getHitRatio() * 100, hits, hits + misses, evictions, entries,
+                weightBytes / (1024.0 * 1024.0), capacityBytes / (1024.0 * 1024.0));
+    }
+}
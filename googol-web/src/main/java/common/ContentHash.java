@@ -0,0 +1,63 @@
+package common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Impressão exata (64 bits) do conteúdo de uma página, para detetar páginas que não mudaram.
+ * <p>
+ * Calculada pelo Downloader sobre o título, o texto e os links da página, logo após o download, e
+ * enviada primeiro num resumo ({@link PageData#unchanged(String, String, long)}). Os Barrels com a
+ * mesma impressão só atualizam o momento da visita; a página só é tokenizada e enviada completa se
+ * algum Barrel não tiver esta versão, e apenas para esses Barrels.
+ * Usa os primeiros 64 bits do SHA-256; o valor 0 é reservado para "desconhecido".
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public final class ContentHash {
+
+    /**
+     * Valor usado quando a impressão não é conhecida (nunca é igual a nenhuma outra).
+     */
+    public static final long UNKNOWN = 0L;
+
+    private ContentHash() {}
+
+    /**
+     * Calcula a impressão do conteúdo de uma página.
+     *
+     * @param title Título da página.
+     * @param text Texto da página.
+     * @param links Links de saída.
+     * @return Impressão de 64 bits (nunca {@link #UNKNOWN}).
+     */
+    public static long of(String title, String text, List<String> links) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+        update(digest, title);
+        update(digest, text);
+        if (links != null) {
+            for (String link : links) update(digest, link);
+        }
+        byte[] hash = digest.digest();
+        long value = 0;
+        for (int i = 0; i < 8; i++) value = (value << 8) | (hash[i] & 0xFF);
+        return value == UNKNOWN ? 1L : value;
+    }
+
+    /**
+     * Acrescenta uma string (seguida de um separador) ao digest.
+     */
+    private static void update(MessageDigest digest, String s) {
+        if (s != null) digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
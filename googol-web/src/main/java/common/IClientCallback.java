@@ -23,4 +23,17 @@ public interface IClientCallback extends Remote {
      * @throws RemoteException Se ocorrer um erro na comunicação RMI.
      */
     void onStatisticsUpdated(SystemStatistics stats) throws RemoteException;
+
+    /**
+     * Notifica o cliente com uma atualização versionada das estatísticas (completa ou incremental).
+     * <p>
+     * O valor devolvido serve de confirmação: se for diferente de {@code delta.getVersion()} (ex: a
+     * atualização incremental não partia da versão do cliente), o Gateway envia um estado completo.
+     * </p>
+     *
+     * @param delta Atualização (ver {@code StatisticsDelta}).
+     * @return A versão das estatísticas que o cliente passou a ter.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    long onStatisticsDelta(StatisticsDelta delta) throws RemoteException;
 }
\ No newline at end of file
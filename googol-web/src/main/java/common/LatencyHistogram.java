@@ -0,0 +1,191 @@
+package common;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Histograma de latências com memória fixa, ao estilo do HdrHistogram.
+ * <p>
+ * Os valores (em microssegundos) são agrupados em baldes log-lineares: cada potência de 2 é
+ * dividida em {@value #SUB_BUCKETS} baldes iguais, o que dá um erro relativo máximo de cerca de 3%
+ * em toda a gama (de 1 µs a vários dias), com um array de tamanho constante. Ao contrário de uma
+ * lista de tempos, o custo de registo e a memória não crescem com o número de pedidos.
+ * </p>
+ * <p>
+ * Os métodos são sincronizados; {@link #snapshot()} devolve uma cópia independente que pode ser
+ * enviada por RMI.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class LatencyHistogram implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Bits de precisão dentro de cada potência de 2.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Número de baldes por potência de 2.
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Maior potência de 2 representada (valores acima são contados no último balde).
+     */
+    private static final int MAX_BITS = 40;
+
+    /**
+     * Contagem de cada balde.
+     */
+    private final long[] counts;
+
+    /**
+     * Número total de valores registados.
+     */
+    private long count = 0;
+
+    /**
+     * Soma de todos os valores (para a média).
+     */
+    private long sum = 0;
+
+    /**
+     * Maior valor registado.
+     */
+    private long max = 0;
+
+    /**
+     * Cria um histograma vazio.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[SUB_BUCKETS + (MAX_BITS - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    }
+
+    /**
+     * Construtor de cópia.
+     */
+    private LatencyHistogram(LatencyHistogram other) {
+        this.counts = Arrays.copyOf(other.counts, other.counts.length);
+        this.count = other.count;
+        this.sum = other.sum;
+        this.max = other.max;
+    }
+
+    /**
+     * Regista um valor.
+     *
+     * @param micros Latência em microssegundos (valores negativos contam como 0).
+     */
+    public synchronized void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Obtém o valor abaixo do qual está uma dada percentagem dos registos.
+     *
+     * @param percentile Percentil (0 a 100, ex: 99.9).
+     * @return Latência em microssegundos (limite superior do balde), ou 0 se vazio.
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(highestValueAt(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Obtém o número de valores registados.
+     *
+     * @return Contagem.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Obtém a média dos valores registados.
+     *
+     * @return Média em microssegundos, ou 0 se vazio.
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Obtém o maior valor registado.
+     *
+     * @return Máximo em microssegundos.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Cria uma cópia independente do estado atual.
+     *
+     * @return Novo histograma.
+     */
+    public synchronized LatencyHistogram snapshot() {
+        return new LatencyHistogram(this);
+    }
+
+    /**
+     * Apaga todos os registos.
+     */
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Retorna um resumo textual (em milissegundos).
+     *
+     * @return String com contagem, média e percentis.
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("n=%d média=%.2fms p50=%.2fms p99=%.2fms p99.9=%.2fms máx=%.2fms",
+                count, getMean() / 1000.0, percentile(50) / 1000.0, percentile(99) / 1000.0,
+                percentile(99.9) / 1000.0, max / 1000.0);
+    }
+
+    /**
+     * Calcula o balde de um valor.
+     */
+    private int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude >= MAX_BITS) return counts.length - 1;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Maior valor que cai num balde.
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,218 @@
+package common;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Classe de dados (DTO) com a estimativa de memória heap ocupada pelas estruturas de um Barrel.
+ * <p>
+ * Enviada pelo Barrel ao Gateway, que a inclui nas estatísticas publicadas ({@code BarrelStats}).
+ * Indica também se o Barrel excedeu o seu orçamento de memória e passou a guardar dados em disco.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class MemoryUsage implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Bytes estimados do dicionário de URLs (URL <-> docID).
+     */
+    private final long urlDictionaryBytes;
+
+    /**
+     * Bytes estimados do dicionário de termos (chaves do índice invertido).
+     */
+    private final long termDictionaryBytes;
+
+    /**
+     * Bytes estimados das listas de docIDs de cada termo (postings).
+     */
+    private final long postingsBytes;
+
+    /**
+     * Bytes estimados do grafo de ligações.
+     */
+    private final long linkGraphBytes;
+
+    /**
+     * Bytes estimados dos metadados (títulos e citações) mantidos em memória.
+     */
+    private final long metadataBytes;
+
+    /**
+     * Bytes estimados do índice direto (docID -> termos).
+     */
+    private final long forwardIndexBytes;
+
+    /**
+     * Orçamento de memória configurado no Barrel.
+     */
+    private final long budgetBytes;
+
+    /**
+     * Número de entradas de metadados movidas para disco.
+     */
+    private final int spilledEntries;
+
+    /**
+     * Indica se o Barrel está no limite do orçamento e não deve receber carga adicional.
+     */
+    private final boolean saturated;
+
+    /**
+     * Construtor completo.
+     *
+     * @param urlDictionaryBytes Bytes do dicionário de URLs.
+     * @param termDictionaryBytes Bytes do dicionário de termos.
+     * @param postingsBytes Bytes das postings.
+     * @param linkGraphBytes Bytes do grafo de ligações.
+     * @param metadataBytes Bytes dos metadados em memória.
+     * @param forwardIndexBytes Bytes do índice direto.
+     * @param budgetBytes Orçamento configurado.
+     * @param spilledEntries Entradas de metadados em disco.
+     * @param saturated Se o Barrel está saturado.
+     */
+    public MemoryUsage(long urlDictionaryBytes, long termDictionaryBytes, long postingsBytes, long linkGraphBytes,
+                       long metadataBytes, long forwardIndexBytes, long budgetBytes, int spilledEntries, boolean saturated) {
+        this.urlDictionaryBytes = urlDictionaryBytes;
+        this.termDictionaryBytes = termDictionaryBytes;
+        this.postingsBytes = postingsBytes;
+        this.linkGraphBytes = linkGraphBytes;
+        this.metadataBytes = metadataBytes;
+        this.forwardIndexBytes = forwardIndexBytes;
+        this.budgetBytes = budgetBytes;
+        this.spilledEntries = spilledEntries;
+        this.saturated = saturated;
+    }
+
+    /**
+     * Obtém os bytes estimados do dicionário de URLs.
+     *
+     * @return Bytes estimados.
+     */
+    public long getUrlDictionaryBytes() { return urlDictionaryBytes; }
+
+    /**
+     * Obtém os bytes estimados do dicionário de termos.
+     *
+     * @return Bytes estimados.
+     */
+    public long getTermDictionaryBytes() { return termDictionaryBytes; }
+
+    /**
+     * Obtém os bytes estimados das postings.
+     *
+     * @return Bytes estimados.
+     */
+    public long getPostingsBytes() { return postingsBytes; }
+
+    /**
+     * Obtém os bytes estimados do grafo de ligações.
+     *
+     * @return Bytes estimados.
+     */
+    public long getLinkGraphBytes() { return linkGraphBytes; }
+
+    /**
+     * Obtém os bytes estimados dos metadados em memória.
+     *
+     * @return Bytes estimados.
+     */
+    public long getMetadataBytes() { return metadataBytes; }
+
+    /**
+     * Obtém os bytes estimados do índice direto.
+     *
+     * @return Bytes estimados.
+     */
+    public long getForwardIndexBytes() { return forwardIndexBytes; }
+
+    /**
+     * Obtém o total estimado de todas as estruturas.
+     *
+     * @return Bytes estimados.
+     */
+    public long getTotalBytes() {
+        return urlDictionaryBytes + termDictionaryBytes + postingsBytes + linkGraphBytes + metadataBytes + forwardIndexBytes;
+    }
+
+    /**
+     * Obtém o orçamento de memória do Barrel.
+     *
+     * @return Orçamento em bytes.
+     */
+    public long getBudgetBytes() { return budgetBytes; }
+
+    /**
+     * Obtém o número de entradas de metadados guardadas em disco.
+     *
+     * @return Número de entradas.
+     */
+    public int getSpilledEntries() { return spilledEntries; }
+
+    /**
+     * Indica se o Barrel está saturado (excedeu o orçamento de memória).
+     *
+     * @return true se saturado.
+     */
+    public boolean isSaturated() { return saturated; }
+
+    /**
+     * Compara todos os valores da estimativa.
+     *
+     * @param o Objeto a comparar.
+     * @return true se todos os valores forem iguais.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MemoryUsage)) return false;
+        MemoryUsage other = (MemoryUsage) o;
+        return urlDictionaryBytes == other.urlDictionaryBytes
+                && termDictionaryBytes == other.termDictionaryBytes
+                && postingsBytes == other.postingsBytes
+                && linkGraphBytes == other.linkGraphBytes
+                && metadataBytes == other.metadataBytes
+                && forwardIndexBytes == other.forwardIndexBytes
+                && budgetBytes == other.budgetBytes
+                && spilledEntries == other.spilledEntries
+                && saturated == other.saturated;
+    }
+
+    /**
+     * Calcula o hash a partir de todos os valores da estimativa.
+     *
+     * @return Hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(urlDictionaryBytes, termDictionaryBytes, postingsBytes, linkGraphBytes,
+                metadataBytes, forwardIndexBytes, budgetBytes, spilledEntries, saturated);
+    }
+
+    /**
+     * Retorna uma representação textual resumida (em MB).
+     *
+     * @return String formatada.
+     */
+    @Override
+    public String toString() {
+        return String.format("%.1f/%.1f MB (urls %.1f, termos %.1f, postings %.1f, links %.1f, metadados %.1f, direto %.1f; %d em disco)%s",
+                mb(getTotalBytes()), mb(budgetBytes), mb(urlDictionaryBytes), mb(termDictionaryBytes), mb(postingsBytes),
+                mb(linkGraphBytes), mb(metadataBytes), mb(forwardIndexBytes), spilledEntries,
+                saturated ? " [SATURADO]" : "");
+    }
+
+    /**
+     * Converte bytes em megabytes.
+     */
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -40,6 +40,21 @@ public class PageData implements Serializable {
      */
     private List<String> outgoingLinks;
 
+    /**
+     * Impressão do conteúdo ({@link ContentHash}), ou {@link ContentHash#UNKNOWN}.
+     */
+    private long contentHash = ContentHash.UNKNOWN;
+
+    /**
+     * Indica se é um resumo sem palavras nem links (ver {@link #unchanged(String, String, long)}).
+     */
+    private boolean stub = false;
+
+    /**
+     * Impressão {@link SimHash} dos termos analisados, ou null (ver {@link #duplicate(String, String, long, long)}).
+     */
+    private Long fingerprint;
+
     /**
      * Construtor da classe PageData.
      *
@@ -55,6 +70,53 @@ public class PageData implements Serializable {
         this.outgoingLinks = outgoingLinks;
     }
 
+    /**
+     * Construtor com a impressão do conteúdo.
+     *
+     * @param url O URL da página.
+     * @param title O título da página.
+     * @param words A lista de palavras significativas encontradas.
+     * @param outgoingLinks A lista de links extraídos.
+     * @param contentHash Impressão do conteúdo ({@link ContentHash}).
+     */
+    public PageData(String url, String title, List<String> words, List<String> outgoingLinks, long contentHash) {
+        this(url, title, words, outgoingLinks);
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Cria um resumo de uma página que pode já estar indexada: só o URL, o título e a impressão do
+     * conteúdo. Um Barrel só o aceita se tiver guardada a mesma impressão para o URL; caso contrário
+     * responde que precisa da página completa.
+     *
+     * @param url O URL da página.
+     * @param title O título da página.
+     * @param contentHash Impressão do conteúdo descarregado ({@link ContentHash}).
+     * @return O resumo, sem palavras nem links.
+     */
+    public static PageData unchanged(String url, String title, long contentHash) {
+        PageData page = new PageData(url, title, List.of(), List.of(), contentHash);
+        page.stub = true;
+        return page;
+    }
+
+    /**
+     * Cria um resumo de uma página que pode ser quase-duplicada de outra já indexada: o URL, o título,
+     * a impressão do conteúdo e a impressão SimHash dos termos. Um Barrel só o aceita se encontrar
+     * uma página próxima no seu índice; caso contrário responde que precisa da página completa.
+     *
+     * @param url O URL da página.
+     * @param title O título da página.
+     * @param contentHash Impressão do conteúdo descarregado ({@link ContentHash}).
+     * @param fingerprint Impressão {@link SimHash} dos termos analisados distintos.
+     * @return O resumo, sem palavras nem links.
+     */
+    public static PageData duplicate(String url, String title, long contentHash, long fingerprint) {
+        PageData page = unchanged(url, title, contentHash);
+        page.fingerprint = fingerprint;
+        return page;
+    }
+
     /**
      * Obtém o URL da página.
      *
@@ -90,4 +152,41 @@ public class PageData implements Serializable {
     public List<String> getOutgoingLinks() {
         return outgoingLinks;
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtém a impressão do conteúdo da página.
+     *
+     * @return Impressão, ou {@link ContentHash#UNKNOWN} se não foi calculada.
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Verifica se é um resumo sem palavras nem links.
+     *
+     * @return true se foi criado por {@link #unchanged(String, String, long)} ou
+     *         {@link #duplicate(String, String, long, long)}.
+     */
+    public boolean isStub() {
+        return stub;
+    }
+
+    /**
+     * Verifica se o resumo traz a impressão SimHash dos termos.
+     *
+     * @return true se foi criado por {@link #duplicate(String, String, long, long)}.
+     */
+    public boolean hasFingerprint() {
+        return fingerprint != null;
+    }
+
+    /**
+     * Obtém a impressão SimHash dos termos analisados.
+     *
+     * @return A impressão (só válida se {@link #hasFingerprint()}).
+     */
+    public long getFingerprint() {
+        return fingerprint == null ? 0L : fingerprint;
+    }
+}
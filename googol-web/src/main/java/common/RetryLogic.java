@@ -32,6 +32,10 @@ public class RetryLogic {
 
     /**
      * Executa uma operação com lógica de re-tentativa e reconexão opcional.
+     * <p>
+     * Se o servidor rejeitar a operação por excesso de carga ({@link ServiceOverloadedException}),
+     * espera pelo menos o tempo sugerido antes de tentar de novo e não tenta reconectar.
+     * </p>
      *
      * @param retries Número máximo de tentativas antes de desistir.
      * @param delay Tempo de espera (em milissegundos) entre tentativas.
@@ -39,6 +43,7 @@ public class RetryLogic {
      * @param operation A operação principal a ser executada.
      * @param <T> O tipo de retorno da operação.
      * @return O resultado da operação se for bem-sucedida.
+     * @throws ServiceOverloadedException Se a última tentativa for rejeitada por excesso de carga.
      * @throws RemoteException Se a operação falhar permanentemente após todas as tentativas.
      */
     public static <T> T executeWithRetry(int retries, long delay, ReconnectAction reconnect, Operation<T> operation)
@@ -50,10 +55,14 @@ public class RetryLogic {
                 return operation.execute();
             } catch (RemoteException e) {
                 attempt++;
+                ServiceOverloadedException overloaded = ServiceOverloadedException.from(e);
                 System.err.println("[RetryLogic] Falha ao executar operação (tentativa "
                         + attempt + "/" + retries + "): " + e.getMessage());
 
                 if (attempt >= retries) {
+                    // O servidor respondeu (está apenas sobrecarregado): reconectar não ajuda
+                    if (overloaded != null) throw overloaded;
+
                     // Tentativa de reconexão se existir ação
                     if (reconnect != null && reconnect.reconnect()) {
                         System.out.println("[RetryLogic] Reconexão bem-sucedida. Tentando novamente a operação...");
@@ -64,7 +73,7 @@ public class RetryLogic {
                 }
 
                 try {
-                    Thread.sleep(delay);
+                    Thread.sleep(overloaded != null ? Math.max(delay, overloaded.getRetryAfterMillis()) : delay);
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt(); // preserva estado da thread
                     throw new RemoteException("Thread interrompida durante retries", ie);
@@ -0,0 +1,67 @@
+package common;
+
+import java.rmi.RemoteException;
+
+/**
+ * Exceção lançada pelo Gateway quando recusa um pedido por excesso de carga (load shedding).
+ * <p>
+ * O pedido é rejeitado de imediato, antes de chegar a um Barrel, porque o cliente excedeu a sua taxa
+ * de pedidos ou porque o Gateway atingiu o limite de pedidos simultâneos. Indica quanto tempo o
+ * cliente deve esperar antes de tentar de novo. Como o Gateway já está a responder, não há motivo
+ * para o cliente se reconectar.
+ * </p>
+ * <p>
+ * Quando lançada por um método remoto chega ao cliente dentro de uma {@code ServerException};
+ * usar {@link #from(Throwable)} para a obter.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class ServiceOverloadedException extends RemoteException {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Espera sugerida (ms) antes de repetir o pedido.
+     */
+    private final long retryAfterMillis;
+
+    /**
+     * Construtor.
+     *
+     * @param message Motivo da rejeição.
+     * @param retryAfterMillis Espera sugerida (ms) antes de repetir o pedido.
+     */
+    public ServiceOverloadedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = Math.max(1, retryAfterMillis);
+    }
+
+    /**
+     * Obtém a espera sugerida antes de repetir o pedido.
+     *
+     * @return Espera (ms).
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Procura uma rejeição por excesso de carga na cadeia de causas de uma exceção
+     * (o RMI embrulha-a numa {@code ServerException}).
+     *
+     * @param error Exceção recebida.
+     * @return A rejeição, ou null se a exceção tiver outra origem.
+     */
+    public static ServiceOverloadedException from(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ServiceOverloadedException) return (ServiceOverloadedException) t;
+            if (t.getCause() == t) break;
+        }
+        return null;
+    }
+}
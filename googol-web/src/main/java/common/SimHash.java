@@ -0,0 +1,96 @@
+package common;
+
+import java.util.Collection;
+
+/**
+ * Impressão digital SimHash (64 bits) de um documento, para deteção de quase-duplicados.
+ * <p>
+ * Cada termo distinto do documento é convertido num hash de 64 bits; cada bit do resultado é 1
+ * se a maioria dos termos tiver esse bit a 1. Documentos com conjuntos de termos quase iguais
+ * (mirrors, versões de impressão, variantes com identificador de sessão) ficam com impressões
+ * a poucos bits de distância (distância de Hamming).
+ * </p>
+ * <p>
+ * É calculada sobre os termos analisados (ver {@code analysis.Analyzer}), sem pesos, para que o
+ * Downloader e os Barrels (inclusive depois de uma sincronização) obtenham o mesmo valor.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public final class SimHash {
+
+    /**
+     * Número mínimo de termos distintos para a impressão ser fiável.
+     * Páginas mais pequenas nunca são tratadas como duplicados.
+     */
+    public static final int MIN_TERMS = 16;
+
+    /**
+     * Distância máxima (bits diferentes) entre duas páginas consideradas quase-duplicadas
+     * ({@code -Dgoogol.dedup.distance}; negativo desativa a deteção).
+     */
+    public static final int MAX_DISTANCE = Integer.getInteger("googol.dedup.distance", 3);
+
+    private SimHash() {}
+
+    /**
+     * Calcula a impressão de um conjunto de termos.
+     *
+     * @param terms Termos distintos do documento.
+     * @return Impressão de 64 bits.
+     */
+    public static long of(Collection<String> terms) {
+        int[] votes = new int[64];
+        for (String term : terms) {
+            long h = hash(term);
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += ((h >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Calcula a distância de Hamming entre duas impressões.
+     *
+     * @param a Primeira impressão.
+     * @param b Segunda impressão.
+     * @return Número de bits diferentes (0 a 64).
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Verifica se um documento tem termos suficientes para ser comparado.
+     *
+     * @param distinctTerms Número de termos distintos.
+     * @return true se a deteção estiver ativa e o documento for grande o suficiente.
+     */
+    public static boolean applies(int distinctTerms) {
+        return MAX_DISTANCE >= 0 && distinctTerms >= MIN_TERMS;
+    }
+
+    /**
+     * Hash de 64 bits de um termo (FNV-1a seguido da finalização do MurmurHash3,
+     * para espalhar bem os bits).
+     */
+    private static long hash(String term) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < term.length(); i++) {
+            h ^= term.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,134 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Classe de dados (DTO) que descreve uma pesquisa lenta registada por um Barrel.
+ * <p>
+ * Além do tempo total, guarda o tempo de cada fase da pesquisa, para perceber onde foi gasto:
+ * interpretação dos termos (e consulta da cache), obtenção das postings, ordenação (ranking)
+ * e construção dos metadados/excertos dos resultados.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class SlowQuery implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final long timestamp;
+    private final List<String> terms;
+    private final int page;
+    private final int results;
+    private final long totalMicros;
+    private final long parseMicros;
+    private final long postingsMicros;
+    private final long scoringMicros;
+    private final long metadataMicros;
+
+    /**
+     * Construtor completo.
+     *
+     * @param timestamp Momento da pesquisa (ms desde a época).
+     * @param terms Termos pesquisados.
+     * @param page Página pedida.
+     * @param results Número total de resultados.
+     * @param totalMicros Tempo total (µs).
+     * @param parseMicros Tempo de interpretação e consulta da cache (µs).
+     * @param postingsMicros Tempo de obtenção das postings (µs).
+     * @param scoringMicros Tempo de ranking (µs).
+     * @param metadataMicros Tempo de construção dos resultados (µs).
+     */
+    public SlowQuery(long timestamp, List<String> terms, int page, int results, long totalMicros,
+                     long parseMicros, long postingsMicros, long scoringMicros, long metadataMicros) {
+        this.timestamp = timestamp;
+        this.terms = terms;
+        this.page = page;
+        this.results = results;
+        this.totalMicros = totalMicros;
+        this.parseMicros = parseMicros;
+        this.postingsMicros = postingsMicros;
+        this.scoringMicros = scoringMicros;
+        this.metadataMicros = metadataMicros;
+    }
+
+    /**
+     * Obtém o momento da pesquisa.
+     *
+     * @return Milissegundos desde a época.
+     */
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Obtém os termos pesquisados.
+     *
+     * @return Lista de termos.
+     */
+    public List<String> getTerms() { return terms; }
+
+    /**
+     * Obtém a página pedida.
+     *
+     * @return Número da página.
+     */
+    public int getPage() { return page; }
+
+    /**
+     * Obtém o número total de resultados.
+     *
+     * @return Total de resultados.
+     */
+    public int getResults() { return results; }
+
+    /**
+     * Obtém o tempo total.
+     *
+     * @return Microssegundos.
+     */
+    public long getTotalMicros() { return totalMicros; }
+
+    /**
+     * Obtém o tempo de interpretação e consulta da cache.
+     *
+     * @return Microssegundos.
+     */
+    public long getParseMicros() { return parseMicros; }
+
+    /**
+     * Obtém o tempo de obtenção das postings.
+     *
+     * @return Microssegundos.
+     */
+    public long getPostingsMicros() { return postingsMicros; }
+
+    /**
+     * Obtém o tempo de ranking.
+     *
+     * @return Microssegundos.
+     */
+    public long getScoringMicros() { return scoringMicros; }
+
+    /**
+     * Obtém o tempo de construção dos resultados (metadados e excertos).
+     *
+     * @return Microssegundos.
+     */
+    public long getMetadataMicros() { return metadataMicros; }
+
+    /**
+     * Retorna uma representação textual da pesquisa e das suas fases.
+     *
+     * @return String formatada.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s (Pag %d, %d resultados) %.2fms [parse %.2f | postings %.2f | ranking %.2f | metadados %.2f]",
+                terms, page, results, totalMicros / 1000.0, parseMicros / 1000.0, postingsMicros / 1000.0,
+                scoringMicros / 1000.0, metadataMicros / 1000.0);
+    }
+}
@@ -0,0 +1,315 @@
+package common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classe de dados (DTO) com uma atualização versionada das estatísticas do sistema.
+ * <p>
+ * Uma atualização é completa (transporta o {@code SystemStatistics} inteiro) ou incremental: contém
+ * apenas os termos, URLs e Barrels que mudaram desde a versão {@code baseVersion}, mais os contadores
+ * globais (pequenos, enviados sempre). Uma atualização incremental só pode ser aplicada por quem tem
+ * exatamente a versão base; caso contrário, o recetor deve pedir uma atualização completa.
+ * </p>
+ * <p>
+ * É enviada pelo Gateway aos subscritores ({@code IClientCallback}) e, em JSON, pelo servidor web
+ * aos browsers.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class StatisticsDelta implements Serializable {
+
+    /**
+     * Identificador para compatibilidade de serialização.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Versão das estatísticas após aplicar esta atualização.
+     */
+    private final long version;
+
+    /**
+     * Versão a que a atualização se aplica (-1 se for completa).
+     */
+    private final long baseVersion;
+
+    /**
+     * Estado completo (apenas nas atualizações completas).
+     */
+    private final SystemStatistics snapshot;
+
+    // Alterações (apenas nas atualizações incrementais)
+    private final Map<String, Integer> changedSearchTerms;
+    private final Set<String> removedSearchTerms;
+    private final Map<String, Integer> changedUrls;
+    private final Set<String> removedUrls;
+    private final List<BarrelStats> changedBarrels;
+    private final Set<String> removedBarrels;
+
+    // Contadores globais (enviados sempre nas atualizações incrementais)
+    private final long routedRequests;
+    private final long hedgedRequests;
+    private final long hedgeWins;
+    private final CacheStats gatewayCache;
+    private final AdmissionStats admission;
+
+    /**
+     * Construtor de uma atualização completa.
+     *
+     * @param snapshot Estado completo.
+     * @param version Versão do estado.
+     */
+    private StatisticsDelta(SystemStatistics snapshot, long version) {
+        this.version = version;
+        this.baseVersion = -1;
+        this.snapshot = snapshot;
+        this.changedSearchTerms = null;
+        this.removedSearchTerms = null;
+        this.changedUrls = null;
+        this.removedUrls = null;
+        this.changedBarrels = null;
+        this.removedBarrels = null;
+        this.routedRequests = snapshot.getRoutedRequests();
+        this.hedgedRequests = snapshot.getHedgedRequests();
+        this.hedgeWins = snapshot.getHedgeWins();
+        this.gatewayCache = snapshot.getGatewayCache();
+        this.admission = snapshot.getAdmission();
+    }
+
+    /**
+     * Construtor de uma atualização incremental entre dois estados.
+     *
+     * @param base Estado na versão base.
+     * @param baseVersion Versão base.
+     * @param current Estado atual.
+     * @param version Versão do estado atual.
+     */
+    private StatisticsDelta(SystemStatistics base, long baseVersion, SystemStatistics current, long version) {
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.snapshot = null;
+
+        this.changedSearchTerms = new HashMap<>();
+        this.removedSearchTerms = new HashSet<>();
+        diff(base.getTopSearchTerms(), current.getTopSearchTerms(), changedSearchTerms, removedSearchTerms);
+
+        this.changedUrls = new HashMap<>();
+        this.removedUrls = new HashSet<>();
+        diff(base.getTopConsultedUrls(), current.getTopConsultedUrls(), changedUrls, removedUrls);
+
+        this.changedBarrels = new ArrayList<>();
+        this.removedBarrels = new HashSet<>();
+        Map<String, BarrelStats> before = byName(base.getBarrelDetails());
+        Map<String, BarrelStats> after = byName(current.getBarrelDetails());
+        for (BarrelStats barrel : after.values()) {
+            if (!barrel.equals(before.get(barrel.getName()))) changedBarrels.add(barrel);
+        }
+        for (String name : before.keySet()) {
+            if (!after.containsKey(name)) removedBarrels.add(name);
+        }
+
+        this.routedRequests = current.getRoutedRequests();
+        this.hedgedRequests = current.getHedgedRequests();
+        this.hedgeWins = current.getHedgeWins();
+        this.gatewayCache = current.getGatewayCache();
+        this.admission = current.getAdmission();
+    }
+
+    /**
+     * Cria uma atualização completa.
+     *
+     * @param snapshot Estado completo.
+     * @param version Versão do estado.
+     * @return A atualização.
+     */
+    public static StatisticsDelta full(SystemStatistics snapshot, long version) {
+        return new StatisticsDelta(snapshot, version);
+    }
+
+    /**
+     * Cria uma atualização incremental com o que mudou entre dois estados.
+     *
+     * @param base Estado que o recetor já tem.
+     * @param baseVersion Versão desse estado.
+     * @param current Estado atual.
+     * @param version Versão do estado atual.
+     * @return A atualização.
+     */
+    public static StatisticsDelta between(SystemStatistics base, long baseVersion, SystemStatistics current, long version) {
+        return new StatisticsDelta(base, baseVersion, current, version);
+    }
+
+    /**
+     * Aplica a atualização a um estado.
+     *
+     * @param base Estado atual do recetor (pode ser null).
+     * @param baseVersion Versão desse estado.
+     * @return O novo estado, ou null se a atualização for incremental e não se aplicar a esta versão.
+     */
+    public SystemStatistics applyTo(SystemStatistics base, long baseVersion) {
+        if (isFull()) return snapshot;
+        if (base == null || baseVersion != this.baseVersion) return null;
+
+        Map<String, Integer> terms = patch(base.getTopSearchTerms(), changedSearchTerms, removedSearchTerms);
+        Map<String, Integer> urls = patch(base.getTopConsultedUrls(), changedUrls, removedUrls);
+
+        Map<String, BarrelStats> barrels = byName(base.getBarrelDetails());
+        barrels.keySet().removeAll(removedBarrels);
+        for (BarrelStats barrel : changedBarrels) barrels.put(barrel.getName(), barrel);
+
+        return new SystemStatistics(terms, urls, new ArrayList<>(barrels.values()),
+                routedRequests, hedgedRequests, hedgeWins, gatewayCache, admission);
+    }
+
+    /**
+     * Calcula as entradas alteradas e removidas entre dois mapas.
+     */
+    private static void diff(Map<String, Integer> before, Map<String, Integer> after,
+                             Map<String, Integer> changed, Set<String> removed) {
+        if (before == null) before = Map.of();
+        if (after == null) after = Map.of();
+        for (Map.Entry<String, Integer> e : after.entrySet()) {
+            if (!e.getValue().equals(before.get(e.getKey()))) changed.put(e.getKey(), e.getValue());
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) removed.add(key);
+        }
+    }
+
+    /**
+     * Aplica alterações e remoções a uma cópia de um mapa.
+     */
+    private static Map<String, Integer> patch(Map<String, Integer> base, Map<String, Integer> changed, Set<String> removed) {
+        Map<String, Integer> result = base == null ? new LinkedHashMap<>() : new LinkedHashMap<>(base);
+        result.keySet().removeAll(removed);
+        result.putAll(changed);
+        return result;
+    }
+
+    /**
+     * Indexa as estatísticas dos Barrels pelo nome, mantendo a ordem.
+     */
+    private static Map<String, BarrelStats> byName(List<BarrelStats> barrels) {
+        Map<String, BarrelStats> map = new LinkedHashMap<>();
+        if (barrels != null) {
+            for (BarrelStats barrel : barrels) map.put(barrel.getName(), barrel);
+        }
+        return map;
+    }
+
+    // Getters
+
+    /**
+     * Indica se a atualização é completa.
+     *
+     * @return true se transporta o estado inteiro.
+     */
+    public boolean isFull() { return snapshot != null; }
+
+    /**
+     * Obtém a versão das estatísticas após aplicar a atualização.
+     *
+     * @return Versão.
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Obtém a versão a que a atualização se aplica.
+     *
+     * @return Versão base (-1 se for completa).
+     */
+    public long getBaseVersion() { return baseVersion; }
+
+    /**
+     * Obtém o estado completo.
+     *
+     * @return Estatísticas (null se a atualização for incremental).
+     */
+    public SystemStatistics getSnapshot() { return snapshot; }
+
+    /**
+     * Obtém os termos cuja contagem mudou ou que entraram no top.
+     *
+     * @return Mapa (Termo -> Frequência), ou null numa atualização completa.
+     */
+    public Map<String, Integer> getChangedSearchTerms() { return changedSearchTerms; }
+
+    /**
+     * Obtém os termos que saíram do top.
+     *
+     * @return Conjunto de termos, ou null numa atualização completa.
+     */
+    public Set<String> getRemovedSearchTerms() { return removedSearchTerms; }
+
+    /**
+     * Obtém os URLs cuja contagem mudou ou que entraram no top.
+     *
+     * @return Mapa (URL -> Frequência), ou null numa atualização completa.
+     */
+    public Map<String, Integer> getChangedUrls() { return changedUrls; }
+
+    /**
+     * Obtém os URLs que saíram do top.
+     *
+     * @return Conjunto de URLs, ou null numa atualização completa.
+     */
+    public Set<String> getRemovedUrls() { return removedUrls; }
+
+    /**
+     * Obtém as estatísticas dos Barrels que mudaram ou são novos.
+     *
+     * @return Lista de BarrelStats, ou null numa atualização completa.
+     */
+    public List<BarrelStats> getChangedBarrels() { return changedBarrels; }
+
+    /**
+     * Obtém os nomes dos Barrels que deixaram de estar registados.
+     *
+     * @return Conjunto de nomes, ou null numa atualização completa.
+     */
+    public Set<String> getRemovedBarrels() { return removedBarrels; }
+
+    /**
+     * Obtém o número de pedidos encaminhados para os Barrels.
+     *
+     * @return Total de pedidos.
+     */
+    public long getRoutedRequests() { return routedRequests; }
+
+    /**
+     * Obtém o número de pedidos duplicados para um segundo Barrel.
+     *
+     * @return Total de pedidos hedged.
+     */
+    public long getHedgedRequests() { return hedgedRequests; }
+
+    /**
+     * Obtém o número de pedidos duplicados em que o segundo Barrel respondeu primeiro.
+     *
+     * @return Total de vitórias do hedging.
+     */
+    public long getHedgeWins() { return hedgeWins; }
+
+    /**
+     * Obtém os contadores da cache de resultados do Gateway.
+     *
+     * @return Estatísticas da cache.
+     */
+    public CacheStats getGatewayCache() { return gatewayCache; }
+
+    /**
+     * Obtém os contadores do controlo de admissão do Gateway.
+     *
+     * @return Estatísticas da admissão.
+     */
+    public AdmissionStats getAdmission() { return admission; }
+}
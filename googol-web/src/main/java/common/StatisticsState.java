@@ -0,0 +1,57 @@
+package common;
+
+/**
+ * Estado das estatísticas mantido por um recetor de atualizações versionadas ({@code StatisticsDelta}).
+ * <p>
+ * Guarda a última versão aplicada. As atualizações incrementais só são aceites se partirem dessa
+ * versão; caso contrário são rejeitadas e o recetor informa o emissor da versão que tem, para que este
+ * envie uma atualização completa.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class StatisticsState {
+
+    /**
+     * Estado atual (null enquanto não chegar nenhuma atualização completa).
+     */
+    private SystemStatistics current;
+
+    /**
+     * Versão do estado atual (-1 se não houver).
+     */
+    private long version = -1;
+
+    /**
+     * Aplica uma atualização.
+     *
+     * @param delta A atualização recebida.
+     * @return O novo estado, ou null se a atualização não se aplicar à versão atual.
+     */
+    public synchronized SystemStatistics apply(StatisticsDelta delta) {
+        SystemStatistics next = delta.applyTo(current, version);
+        if (next == null) return null;
+        current = next;
+        version = delta.getVersion();
+        return next;
+    }
+
+    /**
+     * Obtém o estado atual.
+     *
+     * @return Estatísticas (ou null).
+     */
+    public synchronized SystemStatistics getCurrent() {
+        return current;
+    }
+
+    /**
+     * Obtém a versão do estado atual.
+     *
+     * @return Versão (-1 se não houver estado).
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+}
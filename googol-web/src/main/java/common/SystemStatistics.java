@@ -31,6 +31,31 @@ public class SystemStatistics implements Serializable {
      */
     private List<BarrelStats> barrelDetails;
 
+    /**
+     * Número de pedidos encaminhados pelo Gateway para os Barrels.
+     */
+    private long routedRequests;
+
+    /**
+     * Número de pedidos duplicados para um segundo Barrel (hedging) por o primeiro estar lento.
+     */
+    private long hedgedRequests;
+
+    /**
+     * Número de pedidos duplicados em que o segundo Barrel respondeu primeiro.
+     */
+    private long hedgeWins;
+
+    /**
+     * Contadores da cache de resultados do Gateway.
+     */
+    private CacheStats gatewayCache;
+
+    /**
+     * Contadores do controlo de admissão do Gateway.
+     */
+    private AdmissionStats admission;
+
     /**
      * Construtor da classe SystemStatistics.
      *
@@ -46,6 +71,67 @@ public class SystemStatistics implements Serializable {
         this.barrelDetails = barrelDetails;
     }
 
+    /**
+     * Construtor com os contadores de hedging do Gateway.
+     *
+     * @param topSearchTerms Mapa dos termos mais pesquisados.
+     * @param topConsultedUrls Mapa dos URLs mais clicados/consultados.
+     * @param barrelDetails Lista de objetos BarrelStats com o estado de cada nó.
+     * @param routedRequests Pedidos encaminhados para os Barrels.
+     * @param hedgedRequests Pedidos duplicados para um segundo Barrel.
+     * @param hedgeWins Pedidos duplicados ganhos pelo segundo Barrel.
+     */
+    public SystemStatistics(Map<String, Integer> topSearchTerms,
+                            Map<String, Integer> topConsultedUrls,
+                            List<BarrelStats> barrelDetails,
+                            long routedRequests, long hedgedRequests, long hedgeWins) {
+        this(topSearchTerms, topConsultedUrls, barrelDetails);
+        this.routedRequests = routedRequests;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgeWins = hedgeWins;
+    }
+
+    /**
+     * Construtor com os contadores de hedging e da cache de resultados do Gateway.
+     *
+     * @param topSearchTerms Mapa dos termos mais pesquisados.
+     * @param topConsultedUrls Mapa dos URLs mais clicados/consultados.
+     * @param barrelDetails Lista de objetos BarrelStats com o estado de cada nó.
+     * @param routedRequests Pedidos encaminhados para os Barrels.
+     * @param hedgedRequests Pedidos duplicados para um segundo Barrel.
+     * @param hedgeWins Pedidos duplicados ganhos pelo segundo Barrel.
+     * @param gatewayCache Contadores da cache de resultados do Gateway.
+     */
+    public SystemStatistics(Map<String, Integer> topSearchTerms,
+                            Map<String, Integer> topConsultedUrls,
+                            List<BarrelStats> barrelDetails,
+                            long routedRequests, long hedgedRequests, long hedgeWins,
+                            CacheStats gatewayCache) {
+        this(topSearchTerms, topConsultedUrls, barrelDetails, routedRequests, hedgedRequests, hedgeWins);
+        this.gatewayCache = gatewayCache;
+    }
+
+    /**
+     * Construtor com os contadores de hedging, da cache de resultados e do controlo de admissão do Gateway.
+     *
+     * @param topSearchTerms Mapa dos termos mais pesquisados.
+     * @param topConsultedUrls Mapa dos URLs mais clicados/consultados.
+     * @param barrelDetails Lista de objetos BarrelStats com o estado de cada nó.
+     * @param routedRequests Pedidos encaminhados para os Barrels.
+     * @param hedgedRequests Pedidos duplicados para um segundo Barrel.
+     * @param hedgeWins Pedidos duplicados ganhos pelo segundo Barrel.
+     * @param gatewayCache Contadores da cache de resultados do Gateway.
+     * @param admission Contadores do controlo de admissão do Gateway.
+     */
+    public SystemStatistics(Map<String, Integer> topSearchTerms,
+                            Map<String, Integer> topConsultedUrls,
+                            List<BarrelStats> barrelDetails,
+                            long routedRequests, long hedgedRequests, long hedgeWins,
+                            CacheStats gatewayCache, AdmissionStats admission) {
+        this(topSearchTerms, topConsultedUrls, barrelDetails, routedRequests, hedgedRequests, hedgeWins, gatewayCache);
+        this.admission = admission;
+    }
+
     // Getters
 
     /**
@@ -68,4 +154,39 @@ public class SystemStatistics implements Serializable {
      * @return Lista de objetos BarrelStats.
      */
     public List<BarrelStats> getBarrelDetails() { return barrelDetails; }
+
+    /**
+     * Obtém o número de pedidos encaminhados para os Barrels.
+     *
+     * @return Total de pedidos.
+     */
+    public long getRoutedRequests() { return routedRequests; }
+
+    /**
+     * Obtém o número de pedidos duplicados para um segundo Barrel.
+     *
+     * @return Total de pedidos hedged.
+     */
+    public long getHedgedRequests() { return hedgedRequests; }
+
+    /**
+     * Obtém o número de pedidos duplicados em que o segundo Barrel respondeu primeiro.
+     *
+     * @return Total de vitórias do hedging.
+     */
+    public long getHedgeWins() { return hedgeWins; }
+
+    /**
+     * Obtém os contadores da cache de resultados do Gateway.
+     *
+     * @return Estatísticas da cache (ou null se não reportadas).
+     */
+    public CacheStats getGatewayCache() { return gatewayCache; }
+
+    /**
+     * Obtém os contadores do controlo de admissão do Gateway.
+     *
+     * @return Estatísticas da admissão (ou null se não reportadas).
+     */
+    public AdmissionStats getAdmission() { return admission; }
 }
\ No newline at end of file
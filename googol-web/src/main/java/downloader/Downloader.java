@@ -1,6 +1,9 @@
 package downloader;
 
 import adaptivestopwords.IAdaptiveStopWords;
+import analysis.Analyzer;
+import common.ContentHash;
+import common.SimHash;
 import adaptivestopwords.Tokenizer;
 import common.PageData;
 import common.RetryLogic;
@@ -91,6 +94,11 @@ public class Downloader implements IDownloader {
      * Utilitário para dividir texto em tokens (palavras).
      */
     private final Tokenizer tokenizer = new Tokenizer();
+
+    /**
+     * Cadeia de análise partilhada com os Barrels: as stop words são aprendidas sobre os termos analisados.
+     */
+    private final Analyzer analyzer = Analyzer.standard();
     // ======================================================================
 
     /**
@@ -172,32 +180,41 @@ public class Downloader implements IDownloader {
     }
 
     /**
-     * Envia os dados da página processada para todos os Barrels ativos.
+     * Envia os dados da página processada para os Barrels indicados.
      * Utiliza multicast lógico e remove Barrels que falhem consistentemente.
      *
-     * @param data Objeto PageData contendo título, URL e palavras.
+     * @param data Objeto PageData contendo título, URL e palavras (ou um resumo).
+     * @param targets Barrels de destino.
+     * @return Resultado do envio (Barrels que falharam e que pediram a página completa), ou null
+     *         se não houver Barrels ativos (o URL é re-adicionado à Queue).
      * @throws RemoteException Se ocorrer erro na comunicação.
      */
-    private void sendToBarrels(PageData data) throws RemoteException {
-        if (barrels.isEmpty()) {
+    private ReliableMulticast.Result sendToBarrels(PageData data, List<IBarrel> targets) throws RemoteException {
+        if (targets.isEmpty()) {
             System.err.println("[Downloader" + id + "] - Nenhum Barrel ativo disponível. URL será re-adicionado à Queue.");
             safeAddURL(data.getUrl());
-            return;
+            return null;
         }
 
-        System.out.println("\n[Downloader" + id + "] - A enviar página para os Barrels (via multicast lógico)...");
+        System.out.println("\n[Downloader" + id + "] - A enviar página para " + targets.size() + " Barrels (via multicast lógico)...");
         System.out.println("URL: " + data.getUrl());
         System.out.println("Título: " + data.getTitle());
-        System.out.println("Palavras: " + data.getWords().size());
-        System.out.println("Links encontrados: " + data.getOutgoingLinks().size());
+        if (data.isStub()) {
+            System.out.println("Resumo (impressão " + Long.toHexString(data.getContentHash()) + ")");
+        } else {
+            System.out.println("Palavras: " + data.getWords().size());
+            System.out.println("Links encontrados: " + data.getOutgoingLinks().size());
+        }
 
-        List<IBarrel> failedBarrels = multicast.multicastToBarrels(barrels, data);
+        ReliableMulticast.Result result = multicast.multicastToBarrels(targets, data);
+        List<IBarrel> failedBarrels = result.getFailed();
 
         if (!failedBarrels.isEmpty()) {
             barrels.removeAll(failedBarrels);
             System.err.println("[Downloader" + id + "] - Removidos " + failedBarrels.size()
                     + " barrels inativos da lista. Barrels ativos: " + barrels.size());
         }
+        return result;
     }
 
     /**
@@ -313,6 +330,27 @@ public class Downloader implements IDownloader {
                     return;
                 }
 
+                // Extrair links
+                Elements links = doc.select("a[href]");
+                List<String> outgoingLinks = links.stream()
+                        .map(link -> link.absUrl("href"))
+                        .filter(href -> !href.isEmpty())
+                        .collect(Collectors.toList());
+
+                // 5. Resumo com a impressão do conteúdo: os Barrels que já têm esta versão só atualizam
+                // o momento da visita; a página só é tokenizada para os que a pedirem completa
+                long contentHash = ContentHash.of(title, text, outgoingLinks);
+                List<IBarrel> targets = new ArrayList<>(barrels);
+                ReliableMulticast.Result summary = sendToBarrels(PageData.unchanged(url, title, contentHash), targets);
+                if (summary == null) return;
+                List<IBarrel> missing = summary.getRejected();
+                // Algum Barrel já tinha esta versão: a página não volta a contar para as stop words
+                // nem a seguir os links
+                boolean unchanged = missing.size() + summary.getFailed().size() < targets.size();
+                if (missing.isEmpty()) {
+                    if (unchanged) System.out.println("[Downloader" + id + "] - Conteúdo inalterado: " + url);
+                    return;
+                }
 
                 // Tokenizar
                 List<String> allWords = tokenizer.tokenize(text);
@@ -322,22 +360,34 @@ public class Downloader implements IDownloader {
                     return;
                 }
 
-                // Enviar palavras para o algoritmo de aprendizagem de stop words
-                Set<String> uniqueWords = new HashSet<>(allWords);
-                adaptiveStopWords.processDoc(url, uniqueWords);
+                // Termos analisados, como no índice
+                Set<String> uniqueWords = new HashSet<>();
+                for (String word : allWords) {
+                    String term = analyzer.term(word);
+                    if (term != null) uniqueWords.add(term);
+                }
 
-                // Extrair links
-                Elements links = doc.select("a[href]");
-                List<String> outgoingLinks = links.stream()
-                        .map(link -> link.absUrl("href"))
-                        .filter(href -> !href.isEmpty())
-                        .collect(Collectors.toList());
+                // Resumo com a impressão SimHash: os Barrels com uma página próxima registam esta como
+                // quase-duplicado; a página completa só segue para os restantes
+                boolean duplicate = false;
+                if (SimHash.applies(uniqueWords.size())) {
+                    long fingerprint = SimHash.of(uniqueWords);
+                    ReliableMulticast.Result near = sendToBarrels(PageData.duplicate(url, title, contentHash, fingerprint), missing);
+                    if (near == null) return;
+                    duplicate = near.getRejected().size() + near.getFailed().size() < missing.size();
+                    if (duplicate) System.out.println("[Downloader" + id + "] - Quase-duplicado de uma página indexada: " + url);
+                    missing = near.getRejected();
+                }
 
-                // Enviar para os barrels apenas as palavras filtradas
-                PageData pageData = new PageData(url, title, allWords, outgoingLinks);
+                // Enviar termos para o algoritmo de aprendizagem de stop words (duplicados e páginas inalteradas não contam)
+                if (!unchanged && !duplicate) adaptiveStopWords.processDoc(url, uniqueWords);
+
+                // Página completa só para os Barrels que não têm esta versão nem uma página próxima
+                if (!missing.isEmpty()) {
+                    sendToBarrels(new PageData(url, title, allWords, outgoingLinks, contentHash), missing);
+                }
 
-                // 5. Envio para Barrels e tratamento de links
-                sendToBarrels(pageData);
+                if (unchanged) return;
 
                 if (outgoingLinks.size() == 1) {
                     safeAddURL(outgoingLinks.getFirst());
@@ -0,0 +1,116 @@
+package gateway;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estimativa de carga de um Barrel, usada pelo Gateway para escolher para onde enviar cada pedido.
+ * <p>
+ * Guarda, em memória fixa, uma média móvel exponencial (EWMA) dos tempos de resposta e o número de
+ * pedidos em curso. A média é do tipo "peak EWMA": sobe imediatamente quando chega uma resposta mais
+ * lenta que a estimativa (ex: pausa de GC) e desce gradualmente, com constante de tempo
+ * {@code decayNanos}, à medida que chegam respostas rápidas. O custo esperado de um novo pedido é
+ * {@code ewma × (emCurso + 1)}; sem respostas recentes, a estimativa também decai com o tempo, para que
+ * um Barrel que foi lento volte a ser experimentado.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class BarrelLoad {
+
+    /**
+     * Constante de tempo do decaimento da média (ns).
+     */
+    private final long decayNanos;
+
+    /**
+     * Estimativa atual do tempo de resposta (µs); 0 enquanto não houver respostas.
+     */
+    private double ewmaMicros = 0;
+
+    /**
+     * Momento (System.nanoTime) da última atualização da estimativa.
+     */
+    private long lastUpdateNanos = System.nanoTime();
+
+    /**
+     * Número de respostas observadas.
+     */
+    private long samples = 0;
+
+    /**
+     * Pedidos enviados a este Barrel que ainda não terminaram.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Construtor.
+     *
+     * @param decayMillis Constante de tempo do decaimento da média (ms).
+     */
+    public BarrelLoad(long decayMillis) {
+        this.decayNanos = Math.max(1, decayMillis) * 1_000_000;
+    }
+
+    /**
+     * Regista o início de um pedido.
+     */
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Regista o fim de um pedido.
+     *
+     * @param micros Tempo de resposta (µs), ou negativo se o pedido falhou (não atualiza a média).
+     */
+    public void finish(long micros) {
+        inFlight.decrementAndGet();
+        if (micros >= 0) observe(micros);
+    }
+
+    /**
+     * Atualiza a média com um novo tempo de resposta.
+     *
+     * @param micros Tempo de resposta (µs).
+     */
+    private synchronized void observe(long micros) {
+        long now = System.nanoTime();
+        if (samples++ == 0 || micros > ewmaMicros) {
+            ewmaMicros = micros;
+        } else {
+            double w = Math.exp(-(double) (now - lastUpdateNanos) / decayNanos);
+            ewmaMicros = ewmaMicros * w + micros * (1 - w);
+        }
+        lastUpdateNanos = now;
+    }
+
+    /**
+     * Calcula o custo esperado de enviar mais um pedido a este Barrel.
+     * Um Barrel ainda sem respostas tem custo 0, para ser experimentado.
+     *
+     * @return Custo (µs ponderados pelos pedidos em curso).
+     */
+    public synchronized double cost() {
+        double idle = System.nanoTime() - lastUpdateNanos;
+        return ewmaMicros * Math.exp(-idle / decayNanos) * (inFlight.get() + 1);
+    }
+
+    /**
+     * Obtém a estimativa atual do tempo de resposta.
+     *
+     * @return Média móvel em µs (0 se ainda não houver respostas).
+     */
+    public synchronized double getEwmaMicros() {
+        return ewmaMicros;
+    }
+
+    /**
+     * Obtém o número de pedidos em curso.
+     *
+     * @return Pedidos enviados e ainda sem resposta.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,148 @@
+package gateway;
+
+/**
+ * Limite adaptativo de pedidos simultâneos aos Barrels, ajustado pela latência observada
+ * (algoritmo de gradiente, semelhante ao TCP Vegas).
+ * <p>
+ * Mantém duas médias móveis do tempo de resposta: uma curta, que segue a latência atual, e uma longa,
+ * que representa a latência "sem fila". Quando a latência atual sobe acima da longa (os Barrels estão
+ * a acumular fila), o gradiente {@code longa / curta} fica abaixo de 1 e o limite desce; enquanto a
+ * latência se mantém, o limite sobe devagar ({@code + sqrt(limite)}). Pedidos acima do limite são
+ * rejeitados de imediato, em vez de esperarem numa fila até expirarem.
+ * </p>
+ * Os métodos são sincronizados: são chamados por todas as threads que atendem pedidos.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * Folga tolerada: a latência atual pode chegar a {@code TOLERANCE} vezes a longa sem baixar o limite.
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * Peso de cada novo limite calculado (suaviza as oscilações).
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Pesos de cada amostra nas médias móveis curta e longa.
+     */
+    private static final double SHORT_ALPHA = 0.1;
+    private static final double LONG_ALPHA = 1.0 / 600;
+
+    /**
+     * Limites mínimo e máximo.
+     */
+    private final int minLimit;
+    private final int maxLimit;
+
+    /**
+     * Limite atual (fracionário, para acumular os pequenos ajustes).
+     */
+    private double limit;
+
+    /**
+     * Pedidos em curso.
+     */
+    private int inFlight = 0;
+
+    /**
+     * Médias móveis curta e longa do tempo de resposta (µs); 0 enquanto não houver amostras.
+     */
+    private double shortRtt = 0;
+    private double longRtt = 0;
+
+    /**
+     * Pedidos rejeitados.
+     */
+    private long rejected = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param initialLimit Limite inicial.
+     * @param minLimit Limite mínimo.
+     * @param maxLimit Limite máximo.
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Tenta reservar uma vaga para um pedido.
+     *
+     * @return true se o pedido pode avançar (deve depois chamar {@link #release(long)}).
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Liberta a vaga de um pedido e ajusta o limite com o tempo de resposta observado.
+     *
+     * @param rttMicros Tempo de resposta (µs), ou negativo se o pedido falhou (não conta para a latência).
+     */
+    public synchronized void release(long rttMicros) {
+        int concurrent = inFlight--;
+        if (rttMicros < 0) return;
+
+        shortRtt = shortRtt == 0 ? rttMicros : shortRtt + SHORT_ALPHA * (rttMicros - shortRtt);
+        longRtt = longRtt == 0 ? rttMicros : longRtt + LONG_ALPHA * (rttMicros - longRtt);
+        // Se a latência desceu de forma duradoura, a média longa acompanha-a mais depressa
+        if (longRtt > 2 * shortRtt) longRtt *= 0.95;
+
+        // Com poucos pedidos em curso a latência não diz nada sobre o limite
+        if (concurrent < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.min(maxLimit, Math.max(minLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    /**
+     * Obtém a espera sugerida a um pedido rejeitado: o tempo de resposta atual, em que deve
+     * vagar um lugar.
+     *
+     * @return Espera (ms).
+     */
+    public synchronized long getRetryAfterMillis() {
+        return Math.max(1, (long) Math.ceil(shortRtt / 1000));
+    }
+
+    /**
+     * Obtém o limite atual de pedidos simultâneos.
+     *
+     * @return Limite.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Obtém o número de pedidos em curso.
+     *
+     * @return Pedidos em curso.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Obtém o número de pedidos rejeitados.
+     *
+     * @return Total de rejeições.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
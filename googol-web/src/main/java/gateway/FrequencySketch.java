@@ -0,0 +1,129 @@
+package gateway;
+
+/**
+ * Estimativa aproximada da frequência recente de chaves (Count-Min Sketch com contadores de 4 bits).
+ * <p>
+ * Cada chave incrementa um contador em cada uma das {@value #DEPTH} linhas; a frequência estimada é
+ * o menor desses contadores (nunca subestima, pode sobrestimar em colisões). Os contadores saturam
+ * em 15 e, a cada {@code sampleSize} incrementos, são todos divididos por dois, para que a estimativa
+ * acompanhe a popularidade recente e esqueça as chaves que deixaram de aparecer.
+ * </p>
+ * Esta classe não é thread-safe; a {@link ResultCache} acede-lhe dentro dos seus métodos sincronizados.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class FrequencySketch {
+
+    /**
+     * Número de linhas (funções de hash independentes).
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Valor máximo de um contador.
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * Sementes de cada linha.
+     */
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    /**
+     * Contadores: 16 contadores de 4 bits por long, {@code width} contadores por linha.
+     */
+    private final long[][] table;
+
+    /**
+     * Máscara do índice dentro de uma linha ({@code width - 1}).
+     */
+    private final int mask;
+
+    /**
+     * Número de incrementos após o qual os contadores são divididos por dois.
+     */
+    private final int sampleSize;
+
+    /**
+     * Incrementos desde a última divisão.
+     */
+    private int additions = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param expectedEntries Número esperado de chaves distintas em cache (define a largura).
+     */
+    public FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(64, Math.min(1 << 24, expectedEntries)) * 2 - 1);
+        this.table = new long[DEPTH][width / 16];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Regista uma ocorrência da chave.
+     *
+     * @param key Chave.
+     */
+    public void increment(String key) {
+        long hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            long word = table[row][index >>> 4];
+            int shift = (index & 15) << 2;
+            if (((word >>> shift) & 0xF) < MAX_COUNT) {
+                table[row][index >>> 4] = word + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    /**
+     * Estima quantas vezes a chave ocorreu recentemente.
+     *
+     * @param key Chave.
+     * @return Frequência estimada (0 a 15).
+     */
+    public int frequency(String key) {
+        long hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            int count = (int) ((table[row][index >>> 4] >>> ((index & 15) << 2)) & 0xF);
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    /**
+     * Divide todos os contadores por dois (envelhecimento).
+     */
+    private void reset() {
+        for (long[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (row[i] >>> 1) & 0x7777777777777777L;
+            }
+        }
+        additions /= 2;
+    }
+
+    /**
+     * Posição da chave numa linha.
+     */
+    private int index(long hash, int row) {
+        long h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        return (int) (h >>> 32) & mask;
+    }
+
+    /**
+     * Mistura os bits do hashCode (que pode ser fraco nos bits baixos).
+     */
+    private static long spread(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
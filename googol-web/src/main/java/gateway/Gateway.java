@@ -7,12 +7,33 @@ import common.RetryLogic;
 import common.SystemStatistics; // Classe de dados
 import common.BarrelStats;      // Classe de dados
 import common.IClientCallback;  // Interface de callback atualizada
+import common.MemoryUsage;      // Classe de dados
+import common.LatencyHistogram; // Classe de dados
+import common.BacklinkPage;     // Classe de dados
+import common.AdmissionStats;   // Classe de dados
+import common.ServiceOverloadedException;
 
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.rmi.server.ServerNotActiveException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.net.ConnectException;
 
 /**
@@ -24,8 +45,17 @@ import java.net.ConnectException;
  * <li>Balanceamento de carga entre os Barrels disponíveis (baseado em tempos de resposta).</li>
  * <li>Tolerância a falhas (reconexão e retry logic).</li>
  * <li>Agregação de estatísticas do sistema e notificação em tempo real via Callbacks.</li>
- * <li>Monitorização da "saúde" dos Barrels (Heartbeat).</li>
+ * <li>Monitorização da "saúde" dos Barrels (Heartbeat com detetor de falhas phi accrual).</li>
+ * <li>Cache dos resultados de pesquisas populares ({@link ResultCache}).</li>
+ * <li>Controlo de admissão: taxa por cliente ({@link TokenBucket}) e limite adaptativo de pedidos
+ * simultâneos aos Barrels ({@link ConcurrencyLimiter}); o excesso é rejeitado de imediato.</li>
  * </ul>
+ * <p>
+ * O estado de encaminhamento é guardado em estruturas concorrentes (mapas {@code ConcurrentHashMap}),
+ * sem um lock global: as chamadas remotas aos Barrels, incluindo as esperas entre tentativas, correm sem
+ * bloquear os pedidos dos outros clientes. As estatísticas são entregues a cada subscritor pela sua
+ * própria thread ({@link SubscriberMailbox}), pelo que um subscritor lento não atrasa as pesquisas.
+ * </p>
  *
  * @author Ivan, Rodrigo e Samuel
  * @version 2.0
@@ -33,21 +63,111 @@ import java.net.ConnectException;
 public class Gateway extends UnicastRemoteObject implements IGateway {
 
     private final IQueue queue;
+    // Barrel -> momento da última utilização (0 se nunca usado)
     private final Map<IBarrel, Long> barrels;
-    private final Map<IBarrel, List<Long>> responseTimes;
-    private final Map<String, Integer> termFrequency;
-    private final Map<String, Integer> urlFrequency;
-    private final Random random;
-
-    // Estatísticas (Agora guardamos o objeto em vez de texto)
-    private SystemStatistics currentStats;
+    // Os mesmos Barrels num array imutável, substituído a cada registo/remoção (escolha O(1) sem lock)
+    private volatile IBarrel[] barrelArray = new IBarrel[0];
+    // Histograma (memória fixa) dos tempos de resposta de cada Barrel, em µs
+    private final Map<IBarrel, LatencyHistogram> responseTimes;
+    // Latência média móvel e pedidos em curso de cada Barrel, para o balanceamento de carga
+    private final Map<IBarrel, BarrelLoad> barrelLoads;
+    // Nome de cada Barrel, obtido uma vez no registo
+    private final Map<IBarrel, String> barrelNames;
+    // Termos e URLs mais pedidos (memória fixa: apenas os TOP_K_CAPACITY mais frequentes)
+    private final TopKCounter termFrequency;
+    private final TopKCounter urlFrequency;
+
+    // Estatísticas (Agora guardamos o objeto em vez de texto); substituídas por inteiro a cada atualização
+    private volatile SystemStatistics currentStats;
+    // Versão do snapshot atual (incrementada a cada publicação)
+    private volatile long currentStatsVersion = 0;
 
     // Mapas auxiliares para guardar tamanhos reportados pelos Barrels
     private final Map<IBarrel, Integer> barrelInvertedSizes;
     private final Map<IBarrel, Integer> barrelIncomingSizes;
 
-    // Lista de clientes RMI (Spring Boot) subscritos
-    private final List<IClientCallback> subscribedClients;
+    // Contadores da cache de resultados de cada Barrel: {hits, misses, evictions}
+    private final Map<IBarrel, long[]> barrelCacheStats;
+
+    // Estimativa de memória reportada por cada Barrel
+    private final Map<IBarrel, MemoryUsage> barrelMemory;
+
+    // Clientes RMI (Spring Boot) subscritos, cada um com a sua caixa e thread de entrega
+    private final Map<IClientCallback, SubscriberMailbox> subscribers;
+    private final AtomicInteger subscriberSequence = new AtomicInteger();
+
+    // Falhas de entrega consecutivas toleradas antes de remover um subscritor
+    private static final int SUBSCRIBER_FAILURE_BUDGET = Integer.getInteger("googol.subscriber.failures", 3);
+
+    // Intervalo (ms) entre envios do estado completo a cada subscritor (os restantes envios são incrementais)
+    private static final long STATS_FULL_INTERVAL_MS = Long.getLong("googol.stats.full.interval.ms", 30000);
+
+    // Número de termos/URLs contados e número publicado nas estatísticas
+    private static final int TOP_K_CAPACITY = Integer.getInteger("googol.stats.topk", 1000);
+    private static final int TOP_PUBLISHED = 20;
+
+    // Intervalo (ms) entre publicações das estatísticas; os pedidos apenas marcam que houve alterações
+    private static final long STATS_INTERVAL_MS = Long.getLong("googol.stats.interval.ms", 1000);
+    private final AtomicBoolean statsDirty = new AtomicBoolean(true);
+    private final ScheduledExecutorService statsPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "gateway-stats");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Constante de tempo (ms) do decaimento da latência média móvel de cada Barrel
+    private static final long LOAD_DECAY_MS = Long.getLong("googol.balancer.decay.ms", 5000);
+
+    // Heartbeat: intervalo entre sondas, prazo de cada sonda e pausa tolerada pelo detetor de falhas (ms)
+    private static final long HEARTBEAT_INTERVAL_MS = Long.getLong("googol.heartbeat.interval.ms", 1000);
+    private static final long PROBE_TIMEOUT_MS = Long.getLong("googol.heartbeat.timeout.ms", 2000);
+    private static final long HEARTBEAT_PAUSE_MS = Long.getLong("googol.heartbeat.pause.ms", 500);
+    // Níveis de suspeita (phi) a partir dos quais um Barrel é drenado e removido
+    private static final double PHI_SUSPECT = Double.parseDouble(System.getProperty("googol.phi.suspect", "1"));
+    private static final double PHI_REMOVE = Double.parseDouble(System.getProperty("googol.phi.remove", "8"));
+
+    // Detetor de falhas de cada Barrel, Barrels com sonda pendente e peso (0 a 1) dos Barrels suspeitos
+    private final Map<IBarrel, PhiAccrualDetector> detectors = new ConcurrentHashMap<>();
+    private final Set<IBarrel> probesInFlight = ConcurrentHashMap.newKeySet();
+    private final Map<IBarrel, Double> drainWeights = new ConcurrentHashMap<>();
+    // Barrels que respondem às sondas mas ainda não estão ativos (a sincronizar): peso 0
+    private final Set<IBarrel> inactiveBarrels = ConcurrentHashMap.newKeySet();
+
+    // Threads das sondas de heartbeat (uma sonda pendurada não bloqueia as dos outros Barrels)
+    private final ExecutorService heartbeatExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "gateway-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Pedidos duplicados para um segundo Barrel quando o primeiro demora mais que o seu p95
+    private final HedgePolicy hedgePolicy = HedgePolicy.fromSystemProperties();
+
+    // Cache de resultados (pesquisas e páginas de backlinks), limitada em bytes estimados e com TTL
+    private final ResultCache<Object> resultCache = new ResultCache<>(
+            Long.getLong("googol.gateway.cache.mb", 32) * 1024 * 1024,
+            Long.getLong("googol.gateway.cache.ttl.ms", 30000),
+            Gateway::weigh);
+
+    // Taxa de pedidos de cada cliente (host RMI) por operação; os baldes cheios são descartados pelo publicador
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    // Limite adaptativo de pedidos simultâneos aos Barrels, ajustado pela latência observada
+    private final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(
+            Integer.getInteger("googol.admission.limit.initial", 20),
+            Integer.getInteger("googol.admission.limit.min", 4),
+            Integer.getInteger("googol.admission.limit.max", 200));
+
+    // Pedidos em curso nos Barrels, por chave da cache: pedidos idênticos partilham a mesma chamada
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Threads onde correm as chamadas remotas com hedging (daemon: não impedem o fim do processo)
+    private final ExecutorService hedgeExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "gateway-hedge");
+        t.setDaemon(true);
+        return t;
+    });
 
     /**
      * Construtor do Gateway.
@@ -61,14 +181,17 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      */
     public Gateway() throws RemoteException {
         super();
-        this.barrels = new HashMap<>();
-        this.responseTimes = new HashMap<>();
-        this.termFrequency = new HashMap<>();
-        this.urlFrequency = new HashMap<>();
-        this.barrelInvertedSizes = new HashMap<>();
-        this.barrelIncomingSizes = new HashMap<>();
-        this.subscribedClients = new ArrayList<>();
-        this.random = new Random();
+        this.barrels = new ConcurrentHashMap<>();
+        this.responseTimes = new ConcurrentHashMap<>();
+        this.barrelLoads = new ConcurrentHashMap<>();
+        this.barrelNames = new ConcurrentHashMap<>();
+        this.termFrequency = new TopKCounter(TOP_K_CAPACITY);
+        this.urlFrequency = new TopKCounter(TOP_K_CAPACITY);
+        this.barrelInvertedSizes = new ConcurrentHashMap<>();
+        this.barrelIncomingSizes = new ConcurrentHashMap<>();
+        this.barrelCacheStats = new ConcurrentHashMap<>();
+        this.barrelMemory = new ConcurrentHashMap<>();
+        this.subscribers = new ConcurrentHashMap<>();
 
         try {
             Registry registry = LocateRegistry.getRegistry("localhost", 1099);
@@ -100,6 +223,7 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
         }
 
         startHeartbeatMonitor();
+        startStatsPublisher();
     }
 
     // --- GESTÃO DE SUBSCRIÇÕES (ATUALIZADO PARA OBJETOS) ---
@@ -107,29 +231,24 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
     /**
      * Subscreve um cliente para receber atualizações de estatísticas em tempo real.
      * <p>
-     * Se existirem estatísticas atuais disponíveis, estas são enviadas imediatamente
-     * ao cliente para popular o dashboard inicial.
+     * Cria a caixa de entrega do cliente e a sua thread. Se existirem estatísticas atuais
+     * disponíveis, são colocadas de imediato na caixa para popular o dashboard inicial.
      * </p>
      *
      * @param client A referência para a interface de callback do cliente.
      * @throws RemoteException Se falhar a comunicação com o cliente.
      */
     @Override
-    public synchronized void subscribe(IClientCallback client) throws RemoteException {
-        if (!subscribedClients.contains(client)) {
-            subscribedClients.add(client);
+    public void subscribe(IClientCallback client) throws RemoteException {
+        SubscriberMailbox mailbox = new SubscriberMailbox(client, SUBSCRIBER_FAILURE_BUDGET, STATS_FULL_INTERVAL_MS,
+                this::expireSubscriber);
+        if (subscribers.putIfAbsent(client, mailbox) == null) {
             System.out.println("[Gateway] Novo cliente subscrito.");
+            mailbox.start("gateway-notify-" + subscriberSequence.incrementAndGet());
 
-            // Se já tivermos estatísticas calculadas, enviamos imediatamente
+            // Se já tivermos estatísticas calculadas, enviamos logo
             // para o dashboard do cliente não começar vazio.
-            if (currentStats != null) {
-                try {
-                    client.onStatisticsUpdated(currentStats);
-                } catch (RemoteException e) {
-                    System.err.println("[Gateway] Falha ao enviar stats iniciais. Cliente removido.");
-                    subscribedClients.remove(client);
-                }
-            }
+            mailbox.offer(currentStats, currentStatsVersion);
         }
     }
 
@@ -140,53 +259,52 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      * @throws RemoteException Se ocorrer um erro RMI.
      */
     @Override
-    public synchronized void unsubscribe(IClientCallback client) throws RemoteException {
-        subscribedClients.remove(client);
+    public void unsubscribe(IClientCallback client) throws RemoteException {
+        SubscriberMailbox mailbox = subscribers.remove(client);
+        if (mailbox != null) mailbox.close();
         System.out.println("[Gateway] Cliente removeu subscrição.");
     }
 
+    /**
+     * Remove um subscritor que esgotou o orçamento de falhas de entrega.
+     * Chamado pela thread de entrega do próprio subscritor.
+     *
+     * @param mailbox A caixa do subscritor.
+     */
+    private void expireSubscriber(SubscriberMailbox mailbox) {
+        if (subscribers.remove(mailbox.getClient(), mailbox)) {
+            System.out.println("[Gateway] Limpeza: cliente inativo removido após "
+                    + SUBSCRIBER_FAILURE_BUDGET + " falhas de entrega.");
+        }
+    }
+
     /**
      * Inicia uma thread em background para monitorizar a saúde dos Barrels (Heartbeat).
      * <p>
-     * Verifica periodicamente se os Barrels registados respondem. Se um Barrel não responder,
-     * é considerado "morto" e removido das listas de balanceamento e estatísticas.
+     * A cada {@code HEARTBEAT_INTERVAL_MS} lança uma sonda ({@code isActive}) por Barrel, em paralelo,
+     * e avalia o nível de suspeita de cada um ({@link PhiAccrualDetector}). Um Barrel que não responde
+     * não atrasa a verificação dos outros: enquanto a sua sonda estiver pendurada não recebe outra, e a
+     * falta de heartbeats faz subir a suspeita. Ver {@link #evaluateBarrel(IBarrel, long)}.
      * </p>
      */
     private void startHeartbeatMonitor() {
-        new Thread(() -> {
+        Thread monitor = new Thread(() -> {
             while (true) {
                 try {
-                    // Verifica a cada 3 segundos
-                    Thread.sleep(3000);
-
-                    List<IBarrel> deadBarrels = new ArrayList<>();
-
-                    synchronized (barrels) {
-                        // 1. Testar conexão com cada Barrel
-                        for (IBarrel barrel : barrels.keySet()) {
-                            try {
-                                // Tenta uma chamada leve RMI
-                                barrel.isActive();
-                            } catch (RemoteException e) {
-                                // Se der exceção, o Barrel está morto/inacessível
-                                deadBarrels.add(barrel);
-                            }
-                        }
+                    Thread.sleep(HEARTBEAT_INTERVAL_MS);
 
-                        // 2. Remover os mortos
-                        if (!deadBarrels.isEmpty()) {
-                            for (IBarrel dead : deadBarrels) {
-                                System.out.println("[Gateway] Heartbeat falhou. Removendo Barrel morto.");
-                                barrels.remove(dead);
-                                responseTimes.remove(dead);
-                                barrelInvertedSizes.remove(dead);
-                                barrelIncomingSizes.remove(dead);
-                            }
-
-                            // 3. Forçar atualização imediata do Dashboard
-                            updateSystemStatistics();
+                    // 1. Lançar as sondas (sem lock e sem esperar por elas)
+                    for (IBarrel barrel : barrelArray) {
+                        if (probesInFlight.add(barrel)) {
+                            heartbeatExecutor.execute(() -> probeBarrel(barrel));
                         }
                     }
+
+                    // 2. Avaliar a suspeita de cada Barrel com os heartbeats recebidos até agora
+                    long now = System.currentTimeMillis();
+                    for (IBarrel barrel : barrelArray) {
+                        evaluateBarrel(barrel, now);
+                    }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
@@ -194,87 +312,219 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
                     System.err.println("[Gateway] Erro no monitor de Heartbeat: " + e.getMessage());
                 }
             }
-        }).start();
+        }, "gateway-heartbeat-monitor");
+        monitor.start();
     }
 
     /**
-     * Notifica todos os clientes subscritos com as estatísticas mais recentes do sistema.
-     * Remove automaticamente clientes que não estejam acessíveis.
+     * Sonda um Barrel e regista o heartbeat se a resposta chegar dentro do prazo.
+     * Uma recusa de ligação (processo terminado) remove o Barrel de imediato.
+     * Um Barrel que responde mas não está ativo deixa de receber pedidos até voltar a estar ativo;
+     * nessa altura a cache de resultados é invalidada.
+     *
+     * @param barrel O Barrel a sondar.
      */
-    private void notifyClients() {
-        // Se ainda não há dados, não vale a pena notificar
-        if (currentStats == null) return;
-
-        List<IClientCallback> clientsToRemove = new ArrayList<>();
-        List<IClientCallback> currentClients;
-
-        // Cópia defensiva para evitar ConcurrentModificationException
-        synchronized (this) {
-            currentClients = new ArrayList<>(subscribedClients);
+    private void probeBarrel(IBarrel barrel) {
+        long start = System.currentTimeMillis();
+        try {
+            boolean active = barrel.isActive();
+            long end = System.currentTimeMillis();
+            PhiAccrualDetector detector = detectors.get(barrel);
+            if (detector != null && end - start <= PROBE_TIMEOUT_MS) detector.heartbeat(end);
+
+            if (!active) {
+                if (barrels.containsKey(barrel) && inactiveBarrels.add(barrel)) {
+                    drainWeights.put(barrel, 0.0);
+                    System.out.println("[Gateway] Barrel inativo (a sincronizar), sem pedidos: " + barrelName(barrel));
+                    markStatsDirty();
+                }
+            } else if (inactiveBarrels.remove(barrel)) {
+                drainWeights.remove(barrel);
+                resultCache.invalidateAll(); // Os resultados foram calculados sem este Barrel
+                System.out.println("[Gateway] Barrel voltou a estar ativo: " + barrelName(barrel));
+                markStatsDirty();
+            }
+        } catch (RemoteException e) {
+            if (isConnectionRefused(e) && barrels.containsKey(barrel)) {
+                System.out.println("[Gateway] Heartbeat recusado. Removendo Barrel morto: " + barrelName(barrel));
+                removeBarrel(barrel);
+                markStatsDirty();
+            }
+            // Outras falhas: sem heartbeat, a suspeita sobe
+        } finally {
+            probesInFlight.remove(barrel);
         }
+    }
 
-        for (IClientCallback client : currentClients) {
-            try {
-                // ENVIO DO OBJETO COMPLETO
-                client.onStatisticsUpdated(currentStats);
-            } catch (RemoteException e) {
-                clientsToRemove.add(client);
+    /**
+     * Atualiza o estado de um Barrel a partir do seu nível de suspeita (phi).
+     * <ul>
+     * <li>phi abaixo de {@code PHI_SUSPECT}: recebe a sua parte normal dos pedidos.</li>
+     * <li>entre {@code PHI_SUSPECT} e {@code PHI_REMOVE}: suspeito, é drenado gradualmente (a fração de
+     * pedidos que pode receber desce linearmente até 0).</li>
+     * <li>a partir de {@code PHI_REMOVE}: removido.</li>
+     * </ul>
+     * Um Barrel inativo (ver {@link #probeBarrel(IBarrel)}) fica com peso 0 enquanto não for removido.
+     *
+     * @param barrel O Barrel.
+     * @param now Momento atual (ms).
+     */
+    private void evaluateBarrel(IBarrel barrel, long now) {
+        PhiAccrualDetector detector = detectors.get(barrel);
+        if (detector == null) return;
+        double phi = detector.phi(now);
+
+        if (phi >= PHI_REMOVE) {
+            System.out.printf("[Gateway] Heartbeat em falta há %d ms (phi %.1f). Removendo Barrel: %s%n",
+                    now - detector.getLastHeartbeat(), phi, barrelName(barrel));
+            removeBarrel(barrel);
+            markStatsDirty();
+        } else if (inactiveBarrels.contains(barrel)) {
+            drainWeights.put(barrel, 0.0);
+        } else if (phi >= PHI_SUSPECT) {
+            double weight = (PHI_REMOVE - phi) / (PHI_REMOVE - PHI_SUSPECT);
+            if (drainWeights.put(barrel, weight) == null) {
+                System.out.printf("[Gateway] Barrel suspeito (phi %.1f), a drenar pedidos: %s%n", phi, barrelName(barrel));
+                markStatsDirty();
             }
+        } else if (drainWeights.remove(barrel) != null) {
+            System.out.println("[Gateway] Barrel voltou a responder: " + barrelName(barrel));
+            markStatsDirty();
         }
+    }
 
-        if (!clientsToRemove.isEmpty()) {
-            synchronized (this) {
-                subscribedClients.removeAll(clientsToRemove);
+    /**
+     * Verifica se um Barrel suspeito deve ser evitado neste pedido.
+     * Um Barrel com peso {@code w} (0 a 1) é aceite com probabilidade {@code w}.
+     *
+     * @param barrel O Barrel.
+     * @param random Gerador aleatório da thread.
+     * @return true se o Barrel deve ser evitado.
+     */
+    private boolean isDraining(IBarrel barrel, ThreadLocalRandom random) {
+        Double weight = drainWeights.get(barrel);
+        return weight != null && random.nextDouble() >= weight;
+    }
+
+    /**
+     * Inicia a publicação periódica das estatísticas.
+     * <p>
+     * Os pedidos e os relatórios dos Barrels apenas atualizam contadores e marcam as estatísticas como
+     * alteradas ({@link #markStatsDirty()}); a cada {@code STATS_INTERVAL_MS} esta thread constrói um
+     * snapshot e envia-o aos clientes, se houve alterações. Assim, o custo de construir e enviar as
+     * estatísticas não depende do número de pesquisas e não recai sobre quem pesquisa.
+     * </p>
+     */
+    private void startStatsPublisher() {
+        statsPublisher.scheduleWithFixedDelay(() -> {
+            try {
+                clientBuckets.values().removeIf(TokenBucket::isIdle);
+                if (statsDirty.getAndSet(false)) updateSystemStatistics();
+            } catch (Exception e) {
+                System.err.println("[Gateway] Erro ao publicar estatísticas: " + e.getMessage());
             }
-            System.out.println("[Gateway] Limpeza: " + clientsToRemove.size() + " clientes inativos removidos.");
+        }, STATS_INTERVAL_MS, STATS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marca as estatísticas como alteradas; são publicadas no próximo ciclo do publicador.
+     */
+    private void markStatsDirty() {
+        statsDirty.set(true);
+    }
+
+    /**
+     * Notifica todos os clientes subscritos com as estatísticas mais recentes do sistema.
+     * Não bloqueia: coloca o snapshot na caixa de cada subscritor, substituindo o anterior se ainda
+     * não tiver sido entregue. Os clientes inacessíveis são removidos pela sua thread de entrega.
+     */
+    private void notifyClients() {
+        // Se ainda não há dados, não vale a pena notificar
+        SystemStatistics stats = currentStats;
+        if (stats == null) return;
+
+        long version = currentStatsVersion;
+        for (SubscriberMailbox mailbox : subscribers.values()) {
+            mailbox.offer(stats, version);
         }
     }
 
     // --- LÓGICA PRINCIPAL (SEARCH / INDEX / LINKS) ---
 
     /**
-     * Seleciona o melhor Barrel para processar um pedido.
+     * Seleciona o Barrel para processar um pedido ("power of two choices").
      * <p>
-     * A estratégia de seleção é:
-     * 1. Barrel com menor tempo médio de resposta.
-     * 2. Se não houver dados históricos suficiente, um Barrel nunca usado.
-     * 3. Aleatório ou o primeiro disponível.
+     * Escolhem-se dois Barrels ao acaso e fica o de menor custo esperado ({@link BarrelLoad#cost()}:
+     * latência média móvel × pedidos em curso). Ao contrário de escolher sempre o mais rápido, a carga
+     * reparte-se pelos Barrels e um Barrel sobrecarregado perde pedidos assim que acumula pedidos em curso.
+     * A escolha é O(1) e não bloqueia.
+     * Barrels saturados (orçamento de memória excedido) só são escolhidos se não houver alternativa.
      * </p>
      *
      * @return A referência para o Barrel escolhido ou null se não houver nenhum disponível.
      */
     private IBarrel chooseBarrel() {
-        synchronized (barrels) {
-            if (barrels.isEmpty()) return null;
-
-            // Estratégia: Escolher o melhor tempo médio de resposta
-            boolean allHaveStats = responseTimes.values().stream()
-                    .allMatch(list -> list != null && !list.isEmpty());
-
-            if (allHaveStats) {
-                IBarrel bestBarrel = null;
-                double bestAvg = Double.MAX_VALUE;
-                for (Map.Entry<IBarrel, List<Long>> entry : responseTimes.entrySet()) {
-                    double avg = entry.getValue().stream().mapToLong(Long::longValue).average().orElse(Double.MAX_VALUE);
-                    if (avg < bestAvg) {
-                        bestAvg = avg;
-                        bestBarrel = entry.getKey();
-                    }
-                }
-                if (bestBarrel != null) return bestBarrel;
-            }
+        return chooseBarrel(null);
+    }
 
-            // Fallback: Tentar usar barrels nunca usados
-            List<IBarrel> neverUsed = new ArrayList<>();
-            for (Map.Entry<IBarrel, Long> entry : barrels.entrySet()) {
-                if (entry.getValue() == 0) neverUsed.add(entry.getKey());
+    /**
+     * Seleciona o Barrel para processar um pedido, ignorando um Barrel (ex: o que está lento).
+     *
+     * @param exclude Barrel a ignorar (ou null).
+     * @return A referência para o Barrel escolhido ou null se não houver nenhum disponível.
+     */
+    private IBarrel chooseBarrel(IBarrel exclude) {
+        IBarrel[] candidates = barrelArray;
+        int n = candidates.length;
+        if (n == 0 || (n == 1 && candidates[0].equals(exclude))) return null;
+        if (n == 1) return candidates[0];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if (j >= i) j++;
+        IBarrel a = candidates[i], b = candidates[j];
+        boolean aUsable = !a.equals(exclude) && !isSaturated(a) && !isDraining(a, random);
+        boolean bUsable = !b.equals(exclude) && !isSaturated(b) && !isDraining(b, random);
+
+        if (aUsable && bUsable) return cost(a) <= cost(b) ? a : b;
+        if (aUsable) return a;
+        if (bUsable) return b;
+
+        // Nenhum dos dois serve: qualquer um saudável, senão qualquer um não saturado, senão qualquer um
+        IBarrel usable = null;
+        IBarrel any = null;
+        for (IBarrel barrel : candidates) {
+            if (barrel.equals(exclude)) continue;
+            if (!isSaturated(barrel)) {
+                if (!drainWeights.containsKey(barrel)) return barrel;
+                if (usable == null) usable = barrel;
             }
+            any = barrel;
+        }
+        return usable != null ? usable : any;
+    }
 
-            if (!neverUsed.isEmpty()) return neverUsed.get(random.nextInt(neverUsed.size()));
+    /**
+     * Obtém o custo esperado de enviar um pedido a um Barrel.
+     *
+     * @param barrel O Barrel.
+     * @return Custo (0 se ainda não houver respostas, para que seja experimentado).
+     */
+    private double cost(IBarrel barrel) {
+        BarrelLoad load = barrelLoads.get(barrel);
+        return load == null ? 0 : load.cost();
+    }
 
-            // Último recurso: qualquer um serve
-            return barrels.keySet().iterator().next();
-        }
+    /**
+     * Verifica se um Barrel reportou ter excedido o seu orçamento de memória.
+     *
+     * @param barrel O Barrel a verificar.
+     * @return true se estiver saturado.
+     */
+    private boolean isSaturated(IBarrel barrel) {
+        MemoryUsage usage = barrelMemory.get(barrel);
+        return usage != null && usage.isSaturated();
     }
 
     /**
@@ -299,10 +549,12 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      *
      * @param url O URL a ser indexado.
      * @return Mensagem de estado sobre a operação.
+     * @throws ServiceOverloadedException Se o cliente exceder a sua taxa de pedidos.
      * @throws RemoteException Se ocorrer erro na comunicação RMI.
      */
     @Override
     public String indexURL(String url) throws RemoteException {
+        admit("index");
         if (queue != null) {
             queue.addURL(url);
             return "URL enviado para indexação.";
@@ -315,93 +567,380 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      * <p>
      * Seleciona um Barrel, executa a pesquisa e mede o tempo de resposta.
      * Em caso de falha, tenta reconectar ou seleciona outro Barrel.
+     * Pesquisas repetidas (mesmos termos e página) são servidas pela cache de resultados do Gateway.
      * </p>
      *
      * @param terms Lista de termos a pesquisar.
      * @return Mapa de URLs e metadados encontrados.
+     * @throws ServiceOverloadedException Se o pedido for rejeitado pelo controlo de admissão.
      * @throws RemoteException Se todos os Barrels falharem.
      */
     @Override
     public Map<String, UrlMetadata> search(List<String> terms) throws RemoteException {
-        synchronized (barrels) {
-            while (!barrels.isEmpty()) {
-                IBarrel chosen = chooseBarrel();
-                if (chosen == null) break;
+        admit("search");
+        // O Barrel já faz a ordenação e a paginação internamente
+        // Um Barrel ainda a sincronizar responde com um mapa vazio, sem estatísticas: não fica em cache
+        Map<String, UrlMetadata> result = fetchShared(searchKey(terms), "search", terms, Collections.emptyList(),
+                barrel -> barrel.search(terms), found -> found.containsKey("##META_STATS##"));
+        return result != null ? result : new HashMap<>(); // Retorna vazio se falhar tudo
+    }
 
-                try {
-                    barrels.put(chosen, System.currentTimeMillis());
-                    String barrelName = extractBarrelName(chosen);
+    /**
+     * Obtém os links que apontam para um determinado URL (Incoming Links).
+     *
+     * @param url O URL de destino.
+     * @return Lista de URLs que apontam para o destino.
+     * @throws ServiceOverloadedException Se o pedido for rejeitado pelo controlo de admissão.
+     * @throws RemoteException Se ocorrer erro na comunicação RMI.
+     */
+    @Override
+    public List<String> getIncomingLinks(String url) throws RemoteException {
+        admit("links");
+        Collection<String> rawLinks = callBarrel("getIncomingLinks", Collections.emptyList(), List.of(url),
+                barrel -> barrel.getIncomingLinks(url));
+        if (rawLinks == null) return new ArrayList<>();
+
+        List<String> links = new ArrayList<>(rawLinks);
+        // Ordena por tamanho (exemplo simples)
+        links.sort((a, b) -> Integer.compare(b.length(), a.length()));
+        return links;
+    }
 
-                    long start = System.currentTimeMillis();
+    /**
+     * Obtém uma página dos links que apontam para um URL, já ordenada pelo Barrel.
+     * Ao contrário de {@link #getIncomingLinks(String)}, não transfere o conjunto completo.
+     *
+     * @param url O URL de destino.
+     * @param cursor Cursor da página ({@code BacklinkPage.FIRST} para a primeira).
+     * @param limit Número máximo de links.
+     * @return A página de links de entrada.
+     * @throws ServiceOverloadedException Se o pedido for rejeitado pelo controlo de admissão.
+     * @throws RemoteException Se ocorrer erro na comunicação RMI.
+     */
+    @Override
+    public BacklinkPage getBacklinks(String url, long cursor, int limit) throws RemoteException {
+        admit("links");
+        BacklinkPage page = fetchShared("backlinks:" + url + "#" + cursor + "#" + limit, "getBacklinks",
+                Collections.emptyList(), List.of(url), barrel -> barrel.getBacklinks(url, cursor, limit), found -> true);
+        return page != null ? page : BacklinkPage.empty(url);
+    }
 
-                    // Tenta executar com repetições (Retry Logic)
-                    // O Barrel agora já faz a ordenação e a paginação internamente!
-                    Map<String, UrlMetadata> result = RetryLogic.executeWithRetry(
-                            3, 2000,
-                            () -> tryReconnect(barrelName),
-                            () -> chosen.search(terms)
-                    );
+    /**
+     * Controlo de admissão por cliente: gasta uma ficha do balde do cliente (identificado pelo host RMI)
+     * para a operação pedida.
+     * <p>
+     * Um cliente que exceda a sua taxa é rejeitado de imediato, com a espera até à próxima ficha, sem
+     * afetar os restantes clientes. Taxa e rajada configuráveis por operação
+     * ({@code googol.admission.<operação>.rate} e {@code .burst}).
+     * </p>
+     *
+     * @param operation Operação pedida ("search", "index" ou "links").
+     * @throws ServiceOverloadedException Se o balde do cliente estiver vazio.
+     */
+    private void admit(String operation) throws ServiceOverloadedException {
+        String client;
+        try {
+            client = getClientHost();
+        } catch (ServerNotActiveException e) {
+            client = "local"; // Chamada feita no próprio processo
+        }
 
-                    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        long wait = clientBuckets.computeIfAbsent(operation + "@" + client, k -> newBucket(operation)).tryAcquire();
+        if (wait > 0) {
+            rateLimited.incrementAndGet();
+            markStatsDirty();
+            throw new ServiceOverloadedException("Demasiados pedidos '" + operation + "' de " + client, wait);
+        }
+    }
+
+    /**
+     * Cria o balde de fichas de um cliente para uma operação, com a taxa e a rajada configuradas.
+     *
+     * @param operation Operação ("search", "index" ou "links").
+     * @return Balde cheio.
+     */
+    private static TokenBucket newBucket(String operation) {
+        // A aplicação web é um único cliente RMI para todos os browsers: os valores por omissão são largos
+        double rate = "index".equals(operation) ? 20 : 200;
+        String prefix = "googol.admission." + operation;
+        return new TokenBucket(
+                Double.parseDouble(System.getProperty(prefix + ".rate", String.valueOf(rate))),
+                Double.parseDouble(System.getProperty(prefix + ".burst", String.valueOf(rate * 2))));
+    }
 
-                    // Atualiza estatísticas internas e notifica clientes
-                    updateInternalStats(chosen, terms, Collections.emptyList(), elapsed);
-                    updateSystemStatistics();
+    /**
+     * Obtém um resultado da cache ou, se não existir, de um Barrel, partilhando a chamada remota entre
+     * pedidos idênticos simultâneos (single-flight).
+     * <p>
+     * O primeiro pedido de uma chave regista um {@code CompletableFuture} em {@code inFlight} e faz a
+     * chamada; os pedidos idênticos que chegam entretanto esperam por esse futuro em vez de irem a um
+     * Barrel. O resultado é guardado na cache antes de o futuro ser removido, pelo que uma rajada de
+     * pedidos iguais chega ao Barrel uma única vez.
+     * </p>
+     *
+     * @param key Chave normalizada do pedido.
+     * @param context Nome da operação (para logs).
+     * @param terms Termos pesquisados (para estatística).
+     * @param urls URLs envolvidos (para estatística).
+     * @param call Operação remota.
+     * @param cacheable Indica se um resultado pode ser guardado na cache (ex: não é a resposta vazia
+     *                  de um Barrel inativo).
+     * @param <T> Tipo do resultado.
+     * @return O resultado, ou null se não houver nenhum Barrel disponível.
+     * @throws RemoteException Se a chamada partilhada falhar.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T fetchShared(String key, String context, List<String> terms, List<String> urls, BarrelCall<T> call,
+                              Predicate<T> cacheable) throws RemoteException {
+        T cached = (T) resultCache.get(key);
+        if (cached != null) {
+            countRequest(terms, urls);
+            markStatsDirty();
+            return cached;
+        }
 
-                    // ALTERAÇÃO: Retorna direto. Não ordenamos mais aqui para evitar lentidão.
-                    return result;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            T shared = (T) awaitShared(leader);
+            countRequest(terms, urls);
+            markStatsDirty();
+            return shared;
+        }
 
-                } catch (RemoteException e) {
-                    handleBarrelFailure(chosen, e, "search");
+        try {
+            // Outro pedido pode ter terminado entre a consulta à cache e o registo do futuro
+            T result = (T) resultCache.peek(key);
+            if (result == null) {
+                result = callBarrel(context, terms, urls, call);
+                if (result != null && cacheable.test(result)) resultCache.put(key, result);
+            }
+            mine.complete(result);
+            return result;
+        } catch (RemoteException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Espera pelo resultado de uma chamada partilhada feita por outro pedido.
+     *
+     * @param future Futuro da chamada em curso.
+     * @return O resultado (pode ser null).
+     * @throws RemoteException Se a chamada falhou ou a espera foi interrompida.
+     */
+    private Object awaitShared(CompletableFuture<Object> future) throws RemoteException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrompido à espera de um pedido partilhado", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RemoteException) throw (RemoteException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RemoteException("Falha no pedido partilhado", cause);
+        }
+    }
+
+    /**
+     * Calcula a chave de cache de uma pesquisa: termos em minúsculas, sem repetições e ordenados,
+     * seguidos da página pedida (a tag {@code [PAGE:X]} pode vir colada a qualquer termo).
+     *
+     * @param terms Termos pesquisados.
+     * @return Chave normalizada.
+     */
+    private static String searchKey(List<String> terms) {
+        String page = "1";
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String t : terms) {
+            int tag = t.lastIndexOf("[PAGE:");
+            if (tag >= 0) {
+                int end = t.indexOf(']', tag);
+                page = t.substring(tag + 6, end > tag ? end : t.length()).trim();
+                t = t.substring(0, tag);
+            }
+            t = t.trim().toLowerCase();
+            if (!t.isEmpty()) normalized.add(t);
+        }
+        return "search:" + String.join(" ", normalized) + "#" + page;
+    }
+
+    /**
+     * Estima o peso (bytes) de um resultado guardado na cache de resultados.
+     *
+     * @param value Mapa de resultados de uma pesquisa ou página de backlinks.
+     * @return Bytes estimados.
+     */
+    @SuppressWarnings("unchecked")
+    private static long weigh(Object value) {
+        long bytes = 64;
+        if (value instanceof Map) {
+            for (Map.Entry<String, UrlMetadata> e : ((Map<String, UrlMetadata>) value).entrySet()) {
+                UrlMetadata meta = e.getValue();
+                bytes += 64 + 2L * e.getKey().length();
+                if (meta != null) {
+                    bytes += 2L * ((meta.getTitle() != null ? meta.getTitle().length() : 0)
+                            + (meta.getCitation() != null ? meta.getCitation().length() : 0));
                 }
             }
+        } else if (value instanceof BacklinkPage) {
+            for (String link : ((BacklinkPage) value).getLinks()) {
+                bytes += 48 + 2L * link.length();
+            }
         }
-        return new HashMap<>(); // Retorna vazio se falhar tudo
+        return bytes;
     }
 
     /**
-     * Obtém os links que apontam para um determinado URL (Incoming Links).
+     * Operação remota executada sobre o Barrel escolhido.
      *
-     * @param url O URL de destino.
-     * @return Lista de URLs que apontam para o destino.
-     * @throws RemoteException Se ocorrer erro na comunicação RMI.
+     * @param <T> Tipo do resultado.
      */
-    @Override
-    public List<String> getIncomingLinks(String url) throws RemoteException {
-        synchronized (barrels) {
+    @FunctionalInterface
+    private interface BarrelCall<T> {
+        T call(IBarrel barrel) throws RemoteException;
+    }
+
+    /**
+     * Executa uma operação no melhor Barrel disponível, com tentativas e reconexão.
+     * <p>
+     * Não segura nenhum lock durante a chamada remota: vários pedidos podem estar em curso em
+     * simultâneo, no mesmo Barrel ou em Barrels diferentes. Se o Barrel recusar a ligação, é
+     * removido e a operação passa para o seguinte. Se demorar mais que o habitual, o pedido é
+     * duplicado para outro Barrel (ver {@link #callHedged}).
+     * </p>
+     * <p>
+     * Cada chamada ocupa uma vaga do limite de concorrência ({@link ConcurrencyLimiter}) e o seu tempo
+     * total ajusta esse limite. Sem vaga, o pedido é rejeitado de imediato: é preferível recusar uma
+     * parte dos pedidos a deixá-los todos esperar numa fila até expirarem.
+     * </p>
+     *
+     * @param context Nome da operação (para logs).
+     * @param terms Termos pesquisados (para estatística).
+     * @param urls URLs envolvidos (para estatística).
+     * @param call Operação remota.
+     * @param <T> Tipo do resultado.
+     * @return O resultado, ou null se não houver nenhum Barrel disponível.
+     * @throws ServiceOverloadedException Se o limite de pedidos simultâneos foi atingido.
+     * @throws RemoteException Se a falha não for de ligação.
+     */
+    private <T> T callBarrel(String context, List<String> terms, List<String> urls, BarrelCall<T> call) throws RemoteException {
+        if (barrels.isEmpty()) return null;
+        if (!concurrencyLimiter.tryAcquire()) {
+            markStatsDirty();
+            throw new ServiceOverloadedException("Gateway sobrecarregado: " + concurrencyLimiter.getLimit()
+                    + " pedidos em curso", concurrencyLimiter.getRetryAfterMillis());
+        }
+
+        long start = System.nanoTime();
+        long rttMicros = -1;
+        try {
             while (!barrels.isEmpty()) {
                 IBarrel chosen = chooseBarrel();
                 if (chosen == null) break;
 
                 try {
-                    barrels.put(chosen, System.currentTimeMillis());
-                    String barrelName = extractBarrelName(chosen);
-                    long start = System.currentTimeMillis();
+                    barrels.replace(chosen, System.currentTimeMillis());
+                    hedgePolicy.onRequest();
+                    T result = callHedged(chosen, call, terms, urls);
+                    rttMicros = (System.nanoTime() - start) / 1000;
 
-                    Collection<String> rawLinks = RetryLogic.executeWithRetry(
-                            3, 2000,
-                            () -> tryReconnect(barrelName),
-                            () -> chosen.getIncomingLinks(url)
-                    );
+                    // Marca as estatísticas para publicação (as internas já foram atualizadas)
+                    markStatsDirty();
+                    return result;
 
-                    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                } catch (RemoteException e) {
+                    handleBarrelFailure(chosen, e, context);
+                }
+            }
+            return null;
+        } finally {
+            concurrencyLimiter.release(rttMicros);
+        }
+    }
 
-                    List<String> links = new ArrayList<>(rawLinks);
+    /**
+     * Executa uma operação no Barrel escolhido e, se este não responder dentro do percentil
+     * configurado dos seus tempos de resposta, envia-a também a outro Barrel (hedging).
+     * <p>
+     * Usa-se a primeira resposta com sucesso e cancela-se a outra chamada (a interrupção para as
+     * esperas entre tentativas; uma leitura RMI já em curso termina sozinha e é descartada).
+     * O pedido duplicado só é enviado se houver orçamento ({@link HedgePolicy}). Um Barrel cancelado
+     * regista o tempo que esperou, para que o seu percentil reflita a lentidão.
+     * </p>
+     *
+     * @param primary Barrel escolhido.
+     * @param call Operação remota (só leitura, pode ser repetida).
+     * @param terms Termos pesquisados (para estatística).
+     * @param urls URLs envolvidos (para estatística).
+     * @param <T> Tipo do resultado.
+     * @return O resultado da primeira resposta com sucesso.
+     * @throws RemoteException Se o Barrel principal falhar (e o secundário, se existir, também).
+     */
+    private <T> T callHedged(IBarrel primary, BarrelCall<T> call, List<String> terms, List<String> urls) throws RemoteException {
+        String primaryName = barrelName(primary);
+        long start = System.currentTimeMillis();
+        long delay = hedgePolicy.delayMicros(responseTimes.get(primary));
+
+        if (delay < 0) {
+            // Sem histórico ou orçamento: chamada direta, com repetições (Retry Logic)
+            T result = RetryLogic.executeWithRetry(3, 2000, () -> tryReconnect(primaryName), () -> callTracked(primary, call));
+            updateInternalStats(primary, terms, urls, Math.max(1, System.currentTimeMillis() - start));
+            return result;
+        }
 
-                    // Atualiza stats e notifica
-                    updateInternalStats(chosen, Collections.emptyList(), List.of(url), elapsed);
-                    updateSystemStatistics();
+        CompletionService<T> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        Map<Future<T>, IBarrel> pending = new HashMap<>();
+        pending.put(completion.submit(() -> RetryLogic.executeWithRetry(3, 2000,
+                () -> tryReconnect(primaryName), () -> callTracked(primary, call))), primary);
+        IBarrel backup = null;
+        RemoteException primaryError = null;
 
-                    // Ordena por tamanho (exemplo simples)
-                    links.sort((a, b) -> Integer.compare(b.length(), a.length()));
-                    return links;
+        try {
+            Future<T> done = completion.poll(delay, TimeUnit.MICROSECONDS);
+            if (done == null && (backup = chooseBarrel(primary)) != null && hedgePolicy.tryHedge()) {
+                IBarrel secondary = backup;
+                pending.put(completion.submit(() -> callTracked(secondary, call)), secondary);
+                System.out.println("[Gateway] " + primaryName + " sem resposta após " + delay / 1000
+                        + " ms. Pedido duplicado para " + barrelName(secondary));
+            }
 
-                } catch (RemoteException e) {
-                    handleBarrelFailure(chosen, e, "getIncomingLinks");
+            while (!pending.isEmpty()) {
+                if (done == null) done = completion.take();
+                IBarrel responder = pending.remove(done);
+                try {
+                    T result = done.get();
+                    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                    updateInternalStats(responder, terms, urls, elapsed);
+                    if (responder != primary) hedgePolicy.onHedgeWin();
+                    // A chamada perdedora é cancelada; o tempo que já esperou conta como limite inferior
+                    for (var loser : pending.entrySet()) {
+                        loser.getKey().cancel(true);
+                        if (loser.getValue() == primary) recordLatency(primary, elapsed);
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    RemoteException cause = e.getCause() instanceof RemoteException re ? re
+                            : new RemoteException("Falha na chamada ao Barrel", e.getCause());
+                    if (responder == primary) {
+                        primaryError = cause;
+                    } else {
+                        System.err.println("[Gateway] Pedido duplicado falhou em " + barrelName(responder) + ": " + cause.getMessage());
+                        if (isConnectionRefused(cause)) removeBarrel(responder);
+                    }
                 }
+                done = null;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.keySet().forEach(f -> f.cancel(true));
+            throw new RemoteException("Thread interrompida durante o pedido", e);
         }
-        return new ArrayList<>();
+        throw primaryError != null ? primaryError : new RemoteException("Sem resposta de " + primaryName);
     }
 
     /**
@@ -415,21 +954,85 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      */
     private void handleBarrelFailure(IBarrel chosen, RemoteException e, String context) throws RemoteException {
         if (isConnectionRefused(e)) {
-            System.out.println("[Gateway] Barrel removido durante " + context + ": " + extractBarrelName(chosen));
+            System.out.println("[Gateway] Barrel removido durante " + context + ": " + barrelName(chosen));
 
             // Remove de todos os mapas
-            barrels.remove(chosen);
-            responseTimes.remove(chosen);
-            barrelInvertedSizes.remove(chosen);
-            barrelIncomingSizes.remove(chosen);
+            removeBarrel(chosen);
 
             // Atualiza stats para refletir a remoção do Barrel
-            updateSystemStatistics();
+            markStatsDirty();
         } else {
             throw e; // Se não for falha de conexão, relança
         }
     }
 
+    /**
+     * Remove um Barrel de todos os mapas de encaminhamento e estatísticas.
+     *
+     * @param barrel O Barrel a remover.
+     */
+    private void removeBarrel(IBarrel barrel) {
+        barrels.remove(barrel);
+        refreshBarrelArray();
+        resultCache.invalidateAll(); // Os resultados podiam depender de dados só deste Barrel
+        responseTimes.remove(barrel);
+        barrelLoads.remove(barrel);
+        barrelInvertedSizes.remove(barrel);
+        barrelIncomingSizes.remove(barrel);
+        barrelCacheStats.remove(barrel);
+        barrelMemory.remove(barrel);
+        barrelNames.remove(barrel);
+        detectors.remove(barrel);
+        drainWeights.remove(barrel);
+        inactiveBarrels.remove(barrel);
+    }
+
+    /**
+     * Reconstrói o array de Barrels usado na escolha a partir do mapa de Barrels registados.
+     * Sincronizado apenas entre registos e remoções (raros); as leituras não bloqueiam.
+     */
+    private synchronized void refreshBarrelArray() {
+        barrelArray = barrels.keySet().toArray(new IBarrel[0]);
+    }
+
+    /**
+     * Executa uma chamada remota contabilizando-a na carga do Barrel (pedidos em curso e latência).
+     *
+     * @param barrel O Barrel.
+     * @param call Operação remota.
+     * @param <T> Tipo do resultado.
+     * @return O resultado.
+     * @throws RemoteException Se a chamada falhar.
+     */
+    private <T> T callTracked(IBarrel barrel, BarrelCall<T> call) throws RemoteException {
+        BarrelLoad load = barrelLoads.get(barrel);
+        if (load == null) return call.call(barrel);
+        long start = System.nanoTime();
+        load.start();
+        long micros = -1;
+        try {
+            T result = call.call(barrel);
+            micros = (System.nanoTime() - start) / 1000;
+            return result;
+        } finally {
+            load.finish(micros);
+        }
+    }
+
+    /**
+     * Recebe a indicação de que um Barrel terminou a sincronização.
+     * Invalida a cache de resultados, que pode ter sido preenchida sem as páginas deste Barrel.
+     *
+     * @param barrel O Barrel que ficou ativo.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public void barrelActivated(IBarrel barrel) throws RemoteException {
+        resultCache.invalidateAll();
+        System.out.println("[Gateway] Barrel ativo: " + barrelName(barrel) + ". Cache de resultados invalidada.");
+        markStatsDirty();
+    }
+
     // --- ESTATÍSTICAS DO SISTEMA (CONSTRUÇÃO DO OBJETO) ---
 
     /**
@@ -442,54 +1045,96 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      */
     @Override
     public void updateBarrelIndexSize(IBarrel barrel, int invertedSize, int incomingSize) throws RemoteException {
-        synchronized (barrels) {
-            barrelInvertedSizes.put(barrel, invertedSize);
-            barrelIncomingSizes.put(barrel, incomingSize);
-            updateSystemStatistics(); // Recalcula e notifica sempre que há dados novos
+        barrelInvertedSizes.put(barrel, invertedSize);
+        barrelIncomingSizes.put(barrel, incomingSize);
+        markStatsDirty(); // Publicado no próximo ciclo do publicador
+    }
+
+    /**
+     * Recebe os contadores da cache de resultados reportados por um Barrel.
+     * Não notifica os clientes: os valores seguem no próximo snapshot.
+     *
+     * @param barrel O Barrel que reporta.
+     * @param hits Pesquisas servidas pela cache.
+     * @param misses Pesquisas calculadas de raiz.
+     * @param evictions Entradas removidas por falta de capacidade.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public void updateBarrelCacheStats(IBarrel barrel, long hits, long misses, long evictions) throws RemoteException {
+        barrelCacheStats.put(barrel, new long[]{hits, misses, evictions});
+    }
+
+    /**
+     * Recebe a estimativa de memória reportada por um Barrel.
+     * Notifica os clientes apenas quando o estado de saturação muda.
+     *
+     * @param barrel O Barrel que reporta.
+     * @param usage Estimativa de memória.
+     * @throws RemoteException Se ocorrer erro RMI.
+     */
+    @Override
+    public void updateBarrelMemory(IBarrel barrel, MemoryUsage usage) throws RemoteException {
+        MemoryUsage previous = barrelMemory.put(barrel, usage);
+        if (previous == null || previous.isSaturated() != usage.isSaturated()) {
+            if (usage.isSaturated()) {
+                System.out.println("[Gateway] Barrel saturado, deixa de ser preferido: " + barrelName(barrel));
+            }
+            markStatsDirty();
         }
     }
 
     /**
      * Recalcula as estatísticas globais do sistema e notifica os clientes.
-     * Cria um snapshot (`SystemStatistics`) contendo frequência de termos, URLs
-     * e estado de cada Barrel.
+     * Cria um snapshot (`SystemStatistics`) contendo os termos e URLs mais frequentes
+     * e o estado de cada Barrel. Lê os mapas concorrentes sem lock e publica o novo objeto de uma vez.
+     * Chamado apenas pelo publicador periódico ({@link #startStatsPublisher()}).
      */
     private void updateSystemStatistics() {
-        synchronized (barrels) {
-            List<BarrelStats> barrelStatsList = new ArrayList<>();
-
-            for (IBarrel barrel : barrels.keySet()) {
-                String name = extractBarrelName(barrel);
-
-                // Calcular tempo médio
-                List<Long> times = responseTimes.get(barrel);
-                double avgTime = 0.0;
-                int count = 0;
-                if (times != null && !times.isEmpty()) {
-                    avgTime = times.stream().mapToLong(Long::longValue).average().orElse(0.0);
-                    count = times.size();
-                }
+        List<BarrelStats> barrelStatsList = new ArrayList<>();
+
+        for (IBarrel barrel : barrels.keySet()) {
+            String name = barrelName(barrel);
+
+            // Calcular tempo médio
+            LatencyHistogram times = responseTimes.get(barrel);
+            double avgTime = 0.0;
+            int count = 0;
+            if (times != null && times.getCount() > 0) {
+                avgTime = times.getMean() / 1000.0;
+                count = (int) times.getCount();
+            }
 
-                // Obter tamanhos reportados
-                int invSize = barrelInvertedSizes.getOrDefault(barrel, 0);
-                int incSize = barrelIncomingSizes.getOrDefault(barrel, 0);
+            // Obter tamanhos reportados
+            int invSize = barrelInvertedSizes.getOrDefault(barrel, 0);
+            int incSize = barrelIncomingSizes.getOrDefault(barrel, 0);
 
-                // --- CORREÇÃO AQUI ---
-                // Mude 'true' para "Active" (ou a string que preferir)
-                barrelStatsList.add(new BarrelStats(name, "Active", avgTime, count, invSize, incSize));
+            long[] cache = barrelCacheStats.getOrDefault(barrel, new long[3]);
 
-                // NOTA: Se o 3º argumento (avgTime) der erro também, verifique se o construtor
-                // pede 'double' ou 'int'. Se pedir int, use: (int) avgTime
-            }
+            // --- CORREÇÃO AQUI ---
+            // Mude 'true' para "Active" (ou a string que preferir)
+            MemoryUsage memoryUsage = barrelMemory.get(barrel);
+            String status = isSaturated(barrel) ? "Saturated" : inactiveBarrels.contains(barrel) ? "Synching"
+                    : drainWeights.containsKey(barrel) ? "Suspect" : "Active";
+            barrelStatsList.add(new BarrelStats(name, status, avgTime, count, invSize, incSize,
+                    cache[0], cache[1], cache[2], memoryUsage));
 
-            // Criar o objeto principal
-            this.currentStats = new SystemStatistics(
-                    new HashMap<>(termFrequency),
-                    new HashMap<>(urlFrequency),
-                    barrelStatsList
-            );
+            // NOTA: Se o 3º argumento (avgTime) der erro também, verifique se o construtor
+            // pede 'double' ou 'int'. Se pedir int, use: (int) avgTime
         }
 
+        // Criar o objeto principal (só a thread do publicador escreve a versão e o snapshot)
+        this.currentStatsVersion = currentStatsVersion + 1;
+        this.currentStats = new SystemStatistics(
+                termFrequency.top(TOP_PUBLISHED),
+                urlFrequency.top(TOP_PUBLISHED),
+                barrelStatsList,
+                hedgePolicy.getRequests(), hedgePolicy.getHedges(), hedgePolicy.getWins(),
+                resultCache.getStats(),
+                new AdmissionStats(rateLimited.get(), concurrencyLimiter.getRejected(),
+                        concurrencyLimiter.getLimit(), concurrencyLimiter.getInFlight())
+        );
+
         // Enviar para todos os clientes ligados
         notifyClients();
     }
@@ -503,6 +1148,18 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      * @param elapsed Tempo decorrido na operação.
      */
     private void updateInternalStats(IBarrel barrel, List<String> terms, List<String> urls, long elapsed) {
+        countRequest(terms, urls);
+        recordLatency(barrel, elapsed);
+    }
+
+    /**
+     * Contabiliza os termos e URLs de um pedido nas estatísticas de popularidade
+     * (também para pedidos servidos pela cache de resultados).
+     *
+     * @param terms Termos pesquisados.
+     * @param urls URLs envolvidos.
+     */
+    private void countRequest(List<String> terms, List<String> urls) {
         for (String t : terms) {
             // LÓGICA NOVA: Remove a tag [PAGE:X] antes de contar para a estatística
             String termoLimpo = t;
@@ -514,16 +1171,26 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
 
             // Só conta se a palavra não for vazia
             if (!termoLimpo.isEmpty()) {
-                termFrequency.put(termoLimpo, termFrequency.getOrDefault(termoLimpo, 0) + 1);
+                termFrequency.add(termoLimpo);
             }
         }
 
         for (String u : urls) {
-            urlFrequency.put(u, urlFrequency.getOrDefault(u, 0) + 1);
+            urlFrequency.add(u);
         }
+    }
 
-        if (elapsed > 0) {
-            responseTimes.computeIfAbsent(barrel, k -> new ArrayList<>()).add(elapsed);
+    /**
+     * Regista um tempo de resposta no histograma de um Barrel.
+     * Só regista se o Barrel continuar registado (pode ter sido removido durante a chamada).
+     *
+     * @param barrel O Barrel.
+     * @param elapsed Tempo decorrido (ms).
+     */
+    private void recordLatency(IBarrel barrel, long elapsed) {
+        LatencyHistogram times = responseTimes.get(barrel);
+        if (elapsed > 0 && times != null) {
+            times.record(elapsed * 1000);
         }
     }
 
@@ -536,15 +1203,19 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
      * @throws RemoteException Se ocorrer erro RMI.
      */
     @Override
-    public synchronized void registerBarrel(IBarrel barrel) throws RemoteException {
-        if (!barrels.containsKey(barrel)) {
-            barrels.put(barrel, 0L);
-            responseTimes.put(barrel, new ArrayList<>());
+    public void registerBarrel(IBarrel barrel) throws RemoteException {
+        if (barrels.putIfAbsent(barrel, 0L) == null) {
+            responseTimes.put(barrel, new LatencyHistogram());
+            barrelLoads.put(barrel, new BarrelLoad(LOAD_DECAY_MS));
+            detectors.put(barrel, new PhiAccrualDetector(System.currentTimeMillis(), HEARTBEAT_INTERVAL_MS, HEARTBEAT_PAUSE_MS));
+            refreshBarrelArray();
+            resultCache.invalidateAll(); // Um novo Barrel pode ter páginas que os outros não têm
             barrelInvertedSizes.put(barrel, 0);
             barrelIncomingSizes.put(barrel, 0);
+            barrelNames.put(barrel, extractBarrelName(barrel)); // Uma única chamada remota por Barrel
 
-            System.out.println("[Gateway] Barrel registado: " + extractBarrelName(barrel));
-            updateSystemStatistics(); // Notifica nova entrada
+            System.out.println("[Gateway] Barrel registado: " + barrelName(barrel));
+            markStatsDirty(); // Notifica nova entrada
         }
     }
 
@@ -594,6 +1265,16 @@ public class Gateway extends UnicastRemoteObject implements IGateway {
         try { return barrel.getName(); } catch (Exception e) { return "Barrel (N/A)"; }
     }
 
+    /**
+     * Obtém o nome de um Barrel guardado no registo (sem chamada remota).
+     *
+     * @param barrel O objeto Barrel.
+     * @return O nome do Barrel ou "Barrel (N/A)" se não estiver registado.
+     */
+    private String barrelName(IBarrel barrel) {
+        return barrelNames.getOrDefault(barrel, "Barrel (N/A)");
+    }
+
     /**
      * Método principal (Main) para iniciar o serviço Gateway.
      *
@@ -0,0 +1,160 @@
+package gateway;
+
+import common.LatencyHistogram;
+
+/**
+ * Política de pedidos "hedged" do Gateway.
+ * <p>
+ * Se o Barrel escolhido não responder dentro do percentil {@code percentile} dos seus tempos de
+ * resposta (ex: p95), o mesmo pedido é enviado a outro Barrel e usa-se a primeira resposta.
+ * Para que um Barrel lento não duplique a carga de todo o sistema, o número de pedidos duplicados
+ * é limitado por um balde de fichas: cada pedido encaminhado acrescenta {@code budget} fichas, até
+ * um máximo de {@link #BURST}, e cada pedido duplicado gasta uma. O orçamento não poupado num
+ * período calmo perde-se, pelo que um Barrel que fique lento depois de muitos pedidos rápidos não
+ * pode duplicar uma rajada de pedidos.
+ * </p>
+ * <p>
+ * Configurável com {@code -Dgoogol.hedge.percentile}, {@code -Dgoogol.hedge.budget} e
+ * {@code -Dgoogol.hedge.min.ms}; um orçamento 0 desativa o mecanismo.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class HedgePolicy {
+
+    /**
+     * Número mínimo de respostas de um Barrel antes de o seu percentil ser usado.
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * Número máximo de fichas acumuladas (pedidos que podem ser duplicados seguidos).
+     */
+    private static final double BURST = 2;
+
+    /**
+     * Percentil (0 a 100) dos tempos de resposta após o qual o pedido é duplicado.
+     */
+    private final double percentile;
+
+    /**
+     * Fração máxima de pedidos que podem ser duplicados.
+     */
+    private final double budget;
+
+    /**
+     * Espera mínima (µs) antes de duplicar um pedido.
+     */
+    private final long minDelayMicros;
+
+    /**
+     * Fichas disponíveis para duplicar pedidos (o balde começa cheio).
+     */
+    private double tokens = BURST;
+
+    /**
+     * Pedidos encaminhados.
+     */
+    private long requests = 0;
+
+    /**
+     * Pedidos duplicados para um segundo Barrel.
+     */
+    private long hedges = 0;
+
+    /**
+     * Pedidos duplicados em que a resposta do segundo Barrel chegou primeiro.
+     */
+    private long wins = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param percentile Percentil (0 a 100) dos tempos de resposta.
+     * @param budget Fração máxima de pedidos duplicados (0 desativa).
+     * @param minDelayMicros Espera mínima (µs) antes de duplicar.
+     */
+    public HedgePolicy(double percentile, double budget, long minDelayMicros) {
+        this.percentile = percentile;
+        this.budget = budget;
+        this.minDelayMicros = minDelayMicros;
+    }
+
+    /**
+     * Cria a política a partir das propriedades do sistema (por omissão: p95, 5% dos pedidos, 5 ms).
+     *
+     * @return A política configurada.
+     */
+    public static HedgePolicy fromSystemProperties() {
+        return new HedgePolicy(
+                Double.parseDouble(System.getProperty("googol.hedge.percentile", "95")),
+                Double.parseDouble(System.getProperty("googol.hedge.budget", "0.05")),
+                Long.getLong("googol.hedge.min.ms", 5) * 1000);
+    }
+
+    /**
+     * Calcula quanto esperar pela resposta de um Barrel antes de duplicar o pedido.
+     *
+     * @param times Tempos de resposta do Barrel (ou null).
+     * @return Espera em µs, ou -1 se o pedido não deve ser duplicado (sem orçamento ou sem amostras).
+     */
+    public long delayMicros(LatencyHistogram times) {
+        if (budget <= 0 || times == null || times.getCount() < MIN_SAMPLES) return -1;
+        return Math.max(minDelayMicros, times.percentile(percentile));
+    }
+
+    /**
+     * Regista um pedido encaminhado (acrescenta {@code budget} fichas, até {@link #BURST}).
+     */
+    public synchronized void onRequest() {
+        requests++;
+        tokens = Math.min(BURST, tokens + budget);
+    }
+
+    /**
+     * Tenta gastar o orçamento para duplicar um pedido.
+     *
+     * @return true se o pedido pode ser duplicado.
+     */
+    public synchronized boolean tryHedge() {
+        if (budget <= 0 || tokens < 1) return false;
+        tokens--;
+        hedges++;
+        return true;
+    }
+
+    /**
+     * Regista que a resposta do segundo Barrel foi a usada.
+     */
+    public synchronized void onHedgeWin() {
+        wins++;
+    }
+
+    /**
+     * Obtém o número de pedidos encaminhados.
+     *
+     * @return Total de pedidos.
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Obtém o número de pedidos duplicados.
+     *
+     * @return Total de pedidos enviados a um segundo Barrel.
+     */
+    public synchronized long getHedges() {
+        return hedges;
+    }
+
+    /**
+     * Obtém o número de pedidos duplicados em que o segundo Barrel respondeu primeiro.
+     *
+     * @return Total de vitórias.
+     */
+    public synchronized long getWins() {
+        return wins;
+    }
+}
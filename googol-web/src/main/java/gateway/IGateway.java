@@ -5,7 +5,9 @@ import java.rmi.RemoteException;
 import java.util.List;
 import java.util.Map;
 import barrel.IBarrel;
+import common.BacklinkPage;
 import common.IClientCallback;
+import common.MemoryUsage;
 import common.UrlMetadata;
 
 /**
@@ -47,6 +49,17 @@ public interface IGateway extends Remote {
      */
     List<String> getIncomingLinks(String url) throws RemoteException;
 
+    /**
+     * Obtém uma página dos URLs que apontam para um URL específico, com a contagem exata total.
+     *
+     * @param url O URL de destino.
+     * @param cursor {@code BacklinkPage.FIRST} para a primeira página, ou o cursor devolvido pela anterior.
+     * @param limit Número máximo de URLs a devolver.
+     * @return A página de links de entrada (vazia se nenhum Barrel responder).
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    BacklinkPage getBacklinks(String url, long cursor, int limit) throws RemoteException;
+
     /**
      * Regista um novo servidor de armazenamento (Barrel) no Gateway.
      *
@@ -55,6 +68,15 @@ public interface IGateway extends Remote {
      */
     void registerBarrel(IBarrel barrel) throws RemoteException;
 
+    /**
+     * Indica que um Barrel terminou a sincronização e passou a servir pedidos.
+     * Os resultados em cache podiam ter sido calculados sem as páginas que só este Barrel tem.
+     *
+     * @param barrel A referência remota do Barrel que ficou ativo.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    void barrelActivated(IBarrel barrel) throws RemoteException;
+
     /**
      * Atualiza as informações de carga/tamanho dos índices de um Barrel específico.
      * Utilizado para balanceamento de carga e monitorização.
@@ -66,6 +88,28 @@ public interface IGateway extends Remote {
      */
     void updateBarrelIndexSize(IBarrel barrel, int invertedSize, int incomingSize) throws RemoteException;
 
+    /**
+     * Atualiza os contadores da cache de resultados de um Barrel específico.
+     * Os valores são apenas guardados; são publicados no próximo snapshot de estatísticas.
+     *
+     * @param barrel A referência remota do Barrel que está a reportar.
+     * @param hits Número de pesquisas servidas pela cache.
+     * @param misses Número de pesquisas calculadas de raiz.
+     * @param evictions Número de entradas removidas por falta de capacidade.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    void updateBarrelCacheStats(IBarrel barrel, long hits, long misses, long evictions) throws RemoteException;
+
+    /**
+     * Atualiza a estimativa de memória de um Barrel específico.
+     * Um Barrel saturado (que excedeu o seu orçamento) deixa de ser preferido no encaminhamento de pedidos.
+     *
+     * @param barrel A referência remota do Barrel que está a reportar.
+     * @param usage Estimativa de memória por estrutura e estado de saturação.
+     * @throws RemoteException Se ocorrer um erro na comunicação RMI.
+     */
+    void updateBarrelMemory(IBarrel barrel, MemoryUsage usage) throws RemoteException;
+
     /**
      * Subscreve um cliente para receber notificações assíncronas (callbacks) do Gateway.
      * Geralmente utilizado para painéis de administração ou atualizações de estado em tempo real.
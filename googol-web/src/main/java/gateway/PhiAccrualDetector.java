@@ -0,0 +1,124 @@
+package gateway;
+
+/**
+ * Detetor de falhas "phi accrual" para um Barrel.
+ * <p>
+ * Em vez de declarar o Barrel morto ao primeiro heartbeat falhado, calcula um nível de suspeita
+ * contínuo {@code phi = -log10(P(o próximo heartbeat ainda chegar))}, a partir da média e do desvio
+ * padrão dos intervalos entre heartbeats recentes. Phi 1 corresponde a ~10% de probabilidade de
+ * erro ao suspeitar, phi 3 a ~0,1%, etc. Assim, um Barrel com heartbeats irregulares (ex: pausas de
+ * GC) tolera atrasos maiores do que um Barrel que responde sempre à mesma cadência. Uma pausa
+ * aceitável ({@code acceptablePauseMillis}) é somada ao intervalo médio esperado.
+ * </p>
+ * Os métodos são sincronizados: os heartbeats são registados pelas sondas e o phi é lido pelo monitor.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class PhiAccrualDetector {
+
+    /**
+     * Número de intervalos guardados.
+     */
+    private static final int WINDOW = 100;
+
+    /**
+     * Desvio padrão mínimo (ms), para que intervalos muito regulares não tornem o detetor hipersensível.
+     */
+    private static final double MIN_STD_DEV_MS = 500;
+
+    /**
+     * Intervalos (ms) entre heartbeats, em buffer circular.
+     */
+    private final long[] intervals = new long[WINDOW];
+
+    /**
+     * Número de intervalos válidos no buffer e posição do próximo.
+     */
+    private int count = 0;
+    private int next = 0;
+
+    /**
+     * Soma e soma dos quadrados dos intervalos no buffer.
+     */
+    private double sum = 0;
+    private double sumSquares = 0;
+
+    /**
+     * Momento (ms) do último heartbeat.
+     */
+    private long lastHeartbeat;
+
+    /**
+     * Atraso (ms) tolerado para além do intervalo médio antes de a suspeita começar a subir.
+     */
+    private final long acceptablePauseMillis;
+
+    /**
+     * Construtor.
+     *
+     * @param nowMillis Momento do registo (conta como primeiro heartbeat).
+     * @param expectedIntervalMillis Intervalo esperado entre heartbeats (semente da estatística).
+     * @param acceptablePauseMillis Atraso tolerado para além do intervalo médio.
+     */
+    public PhiAccrualDetector(long nowMillis, long expectedIntervalMillis, long acceptablePauseMillis) {
+        this.lastHeartbeat = nowMillis;
+        this.acceptablePauseMillis = acceptablePauseMillis;
+        add(expectedIntervalMillis);
+    }
+
+    /**
+     * Regista a chegada de um heartbeat.
+     *
+     * @param nowMillis Momento da chegada (ms).
+     */
+    public synchronized void heartbeat(long nowMillis) {
+        long interval = nowMillis - lastHeartbeat;
+        lastHeartbeat = nowMillis;
+        if (interval > 0) add(interval);
+    }
+
+    /**
+     * Calcula o nível de suspeita atual.
+     *
+     * @param nowMillis Momento atual (ms).
+     * @return Phi (próximo de 0 enquanto o heartbeat não está atrasado; cresce sem limite).
+     */
+    public synchronized double phi(long nowMillis) {
+        double mean = sum / count;
+        double variance = Math.max(0, sumSquares / count - mean * mean);
+        double stdDev = Math.max(MIN_STD_DEV_MS, Math.sqrt(variance));
+        double y = (nowMillis - lastHeartbeat - mean - acceptablePauseMillis) / stdDev;
+
+        // Aproximação logística da cauda da normal: P(X > t) ≈ 1 / (1 + e^(y(1.5976 + 0.070566y²)))
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        double pLater = y > 0 ? e / (1.0 + e) : 1.0 - 1.0 / (1.0 + e);
+        return -Math.log10(Math.max(pLater, Double.MIN_VALUE));
+    }
+
+    /**
+     * Obtém o momento do último heartbeat.
+     *
+     * @return Momento (ms).
+     */
+    public synchronized long getLastHeartbeat() {
+        return lastHeartbeat;
+    }
+
+    /**
+     * Acrescenta um intervalo ao buffer (substituindo o mais antigo se estiver cheio).
+     */
+    private void add(long interval) {
+        if (count == WINDOW) {
+            long old = intervals[next];
+            sum -= old;
+            sumSquares -= (double) old * old;
+        } else {
+            count++;
+        }
+        intervals[next] = interval;
+        next = (next + 1) % WINDOW;
+        sum += interval;
+        sumSquares += (double) interval * interval;
+    }
+}
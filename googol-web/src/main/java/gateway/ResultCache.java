@@ -0,0 +1,310 @@
+package gateway;
+
+import common.CacheStats;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache de resultados do Gateway, limitada pelo peso (bytes estimados) e com admissão W-TinyLFU.
+ * <p>
+ * As entradas novas entram numa pequena janela LRU ({@value #WINDOW_PERCENT}% do peso). Quando a
+ * janela transborda, a entrada mais antiga só é admitida na zona principal se for mais frequente
+ * (segundo o {@link FrequencySketch}) do que a entrada que teria de sair; assim, uma rajada de
+ * pesquisas únicas não expulsa as pesquisas populares. A zona principal é uma LRU segmentada: as
+ * entradas começam em "provação" e passam a "protegidas" ao segundo acesso.
+ * </p>
+ * <p>
+ * Cada entrada expira ao fim de {@code ttlMillis} e é marcada com a geração da cache; avançar a
+ * geração ({@link #invalidateAll()}) invalida todas as entradas sem as percorrer.
+ * </p>
+ *
+ * @param <V> Tipo dos resultados guardados.
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class ResultCache<V> {
+
+    /**
+     * Percentagem do peso reservada à janela de admissão.
+     */
+    private static final int WINDOW_PERCENT = 1;
+
+    /**
+     * Percentagem da zona principal reservada às entradas protegidas.
+     */
+    private static final int PROTECTED_PERCENT = 80;
+
+    /**
+     * Peso médio esperado de uma entrada (para dimensionar o sketch de frequências).
+     */
+    private static final long EXPECTED_ENTRY_BYTES = 4096;
+
+    /**
+     * Entrada da cache.
+     */
+    private static final class Node<V> {
+        final String key;
+        V value;
+        long weight;
+        long expiresAt;
+        long generation;
+
+        Node(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Janela de admissão, da entrada menos recente para a mais recente.
+     */
+    private final LinkedHashMap<String, Node<V>> window = new LinkedHashMap<>();
+
+    /**
+     * Zona principal: entradas acedidas uma vez desde que foram admitidas.
+     */
+    private final LinkedHashMap<String, Node<V>> probation = new LinkedHashMap<>();
+
+    /**
+     * Zona principal: entradas acedidas mais de uma vez.
+     */
+    private final LinkedHashMap<String, Node<V>> protectedZone = new LinkedHashMap<>();
+
+    /**
+     * Frequência recente das chaves pedidas (em cache ou não).
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Calcula o peso (bytes estimados) de um resultado.
+     */
+    private final ToLongFunction<V> weigher;
+
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final long ttlMillis;
+
+    private long windowWeight = 0;
+    private long probationWeight = 0;
+    private long protectedWeight = 0;
+    private long generation = 0;
+
+    // Contadores
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param maxWeight Peso máximo (bytes estimados) de todas as entradas.
+     * @param ttlMillis Tempo de vida de cada entrada (ms).
+     * @param weigher Função que estima o peso de um resultado.
+     */
+    public ResultCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.maxWeight = Math.max(1, maxWeight);
+        this.windowMax = Math.max(1, this.maxWeight * WINDOW_PERCENT / 100);
+        this.protectedMax = (this.maxWeight - windowMax) * PROTECTED_PERCENT / 100;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, this.maxWeight / EXPECTED_ENTRY_BYTES));
+    }
+
+    /**
+     * Obtém um resultado em cache e regista o pedido no sketch de frequências.
+     *
+     * @param key Chave normalizada.
+     * @return O resultado, ou null se não existir, tiver expirado ou for de uma geração anterior.
+     */
+    public synchronized V get(String key) {
+        sketch.increment(key);
+        Node<V> node = find(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        if (node.generation != generation || System.currentTimeMillis() > node.expiresAt) {
+            remove(node);
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(node);
+        return node.value;
+    }
+
+    /**
+     * Consulta um resultado sem o contabilizar (nem nos contadores nem no sketch de frequências).
+     *
+     * @param key Chave normalizada.
+     * @return O resultado, ou null se não existir ou já não for válido.
+     */
+    public synchronized V peek(String key) {
+        Node<V> node = find(key);
+        if (node == null || node.generation != generation || System.currentTimeMillis() > node.expiresAt) return null;
+        return node.value;
+    }
+
+    /**
+     * Guarda um resultado.
+     *
+     * @param key Chave normalizada.
+     * @param value Resultado.
+     */
+    public synchronized void put(String key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight - windowMax) return; // Nunca caberia na zona principal
+
+        Node<V> node = find(key);
+        if (node != null) remove(node);
+        node = new Node<>(key);
+        node.value = value;
+        node.weight = weight;
+        node.expiresAt = System.currentTimeMillis() + ttlMillis;
+        node.generation = generation;
+
+        window.put(key, node);
+        windowWeight += weight;
+        while (windowWeight > windowMax && !window.isEmpty()) {
+            Node<V> candidate = removeEldest(window);
+            windowWeight -= candidate.weight;
+            admit(candidate);
+        }
+    }
+
+    /**
+     * Invalida todas as entradas (avança a geração; as entradas antigas são descartadas ao serem lidas
+     * ou expulsas).
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+    }
+
+    /**
+     * Tenta admitir na zona principal uma entrada que saiu da janela.
+     * Enquanto não houver espaço, compara a frequência da candidata com a da vítima (a entrada menos
+     * recente em provação, ou protegida se a provação estiver vazia); a menos frequente sai.
+     * Vítimas expiradas ou de uma geração anterior saem sempre.
+     */
+    private void admit(Node<V> candidate) {
+        long mainMax = maxWeight - windowMax;
+        while (probationWeight + protectedWeight + candidate.weight > mainMax) {
+            LinkedHashMap<String, Node<V>> zone = probation.isEmpty() ? protectedZone : probation;
+            Node<V> victim = zone.values().iterator().next();
+            boolean victimStale = victim.generation != generation || System.currentTimeMillis() > victim.expiresAt;
+            if (!victimStale && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                evictions++;
+                return;
+            }
+            remove(victim);
+            evictions++;
+        }
+        probation.put(candidate.key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    /**
+     * Regista um acesso: move a entrada para o fim da sua zona, ou de provação para protegida.
+     */
+    private void touch(Node<V> node) {
+        if (window.remove(node.key) != null) {
+            window.put(node.key, node);
+        } else if (protectedZone.remove(node.key) != null) {
+            protectedZone.put(node.key, node);
+        } else if (probation.remove(node.key) != null) {
+            probationWeight -= node.weight;
+            protectedZone.put(node.key, node);
+            protectedWeight += node.weight;
+            // Protegidas em excesso voltam para a provação (a mais recente da provação)
+            while (protectedWeight > protectedMax && protectedZone.size() > 1) {
+                Node<V> demoted = removeEldest(protectedZone);
+                protectedWeight -= demoted.weight;
+                probation.put(demoted.key, demoted);
+                probationWeight += demoted.weight;
+            }
+        }
+    }
+
+    /**
+     * Procura uma entrada em qualquer das zonas.
+     */
+    private Node<V> find(String key) {
+        Node<V> node = window.get(key);
+        if (node == null) node = probation.get(key);
+        if (node == null) node = protectedZone.get(key);
+        return node;
+    }
+
+    /**
+     * Remove uma entrada da zona onde estiver.
+     */
+    private void remove(Node<V> node) {
+        if (window.remove(node.key) != null) windowWeight -= node.weight;
+        else if (probation.remove(node.key) != null) probationWeight -= node.weight;
+        else if (protectedZone.remove(node.key) != null) protectedWeight -= node.weight;
+    }
+
+    /**
+     * Remove e devolve a entrada menos recente de uma zona.
+     */
+    private static <V> Node<V> removeEldest(LinkedHashMap<String, Node<V>> zone) {
+        Iterator<Map.Entry<String, Node<V>>> it = zone.entrySet().iterator();
+        Node<V> eldest = it.next().getValue();
+        it.remove();
+        return eldest;
+    }
+
+    /**
+     * Obtém o número de pedidos servidos pela cache.
+     *
+     * @return Total de hits.
+     */
+    public synchronized long getHits() { return hits; }
+
+    /**
+     * Obtém o número de pedidos não servidos pela cache.
+     *
+     * @return Total de misses.
+     */
+    public synchronized long getMisses() { return misses; }
+
+    /**
+     * Obtém o número de entradas expulsas ou rejeitadas pela admissão.
+     *
+     * @return Total de evictions.
+     */
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * Obtém o número de entradas guardadas.
+     *
+     * @return Número de entradas.
+     */
+    public synchronized int size() { return window.size() + probation.size() + protectedZone.size(); }
+
+    /**
+     * Obtém o peso atual das entradas.
+     *
+     * @return Bytes estimados.
+     */
+    public synchronized long getWeight() { return windowWeight + probationWeight + protectedWeight; }
+
+    /**
+     * Obtém o peso máximo configurado.
+     *
+     * @return Bytes estimados.
+     */
+    public long getMaxWeight() { return maxWeight; }
+
+    /**
+     * Obtém uma cópia consistente de todos os contadores.
+     *
+     * @return Estatísticas da cache.
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, size(), getWeight(), maxWeight);
+    }
+}
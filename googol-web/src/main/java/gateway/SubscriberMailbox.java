@@ -0,0 +1,217 @@
+package gateway;
+
+import common.IClientCallback;
+import common.StatisticsDelta;
+import common.SystemStatistics;
+
+import java.rmi.RemoteException;
+import java.util.function.Consumer;
+
+/**
+ * Entrega assíncrona das estatísticas a um cliente subscrito.
+ * <p>
+ * Cada subscritor tem uma caixa de uma só posição e uma thread própria que lhe entrega o conteúdo.
+ * Publicar ({@link #offer(SystemStatistics, long)}) nunca bloqueia: se a entrega anterior ainda não terminou,
+ * o snapshot pendente é substituído pelo mais recente (os intermédios são descartados). Assim, um
+ * cliente lento ou inacessível apenas atrasa as suas próprias atualizações.
+ * </p>
+ * <p>
+ * As entregas são versionadas ({@link StatisticsDelta}): a caixa guarda o último snapshot confirmado
+ * pelo cliente e envia apenas o que mudou desde então. Envia o estado completo na primeira entrega,
+ * quando o cliente confirma uma versão diferente da enviada e, para resincronizar, a cada
+ * {@code fullIntervalMillis}.
+ * </p>
+ * <p>
+ * Após {@code failureBudget} falhas consecutivas a thread termina e o subscritor é entregue a
+ * {@code onExpired} para ser removido.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class SubscriberMailbox implements Runnable {
+
+    /**
+     * Espera (ms) após uma falha, multiplicada pelo número de falhas consecutivas.
+     */
+    private static final long RETRY_DELAY_MS = 500;
+
+    /**
+     * O cliente subscrito.
+     */
+    private final IClientCallback client;
+
+    /**
+     * Número de falhas consecutivas toleradas antes de remover o subscritor.
+     */
+    private final int failureBudget;
+
+    /**
+     * Chamado quando o orçamento de falhas se esgota.
+     */
+    private final Consumer<SubscriberMailbox> onExpired;
+
+    /**
+     * Intervalo (ms) entre envios do estado completo.
+     */
+    private final long fullIntervalMillis;
+
+    /**
+     * Snapshot à espera de ser entregue (null se não houver) e a sua versão.
+     */
+    private SystemStatistics pending;
+    private long pendingVersion;
+
+    // Snapshot em entrega e último snapshot confirmado pelo cliente (usados apenas pela thread de entrega)
+    private SystemStatistics sending;
+    private SystemStatistics acked;
+    private long ackedVersion = -1;
+    private long lastFullAt = 0;
+
+    /**
+     * Indica que a caixa foi fechada (subscrição cancelada).
+     */
+    private boolean closed = false;
+
+    /**
+     * Snapshots substituídos antes de serem entregues.
+     */
+    private long dropped = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param client O cliente subscrito.
+     * @param failureBudget Falhas consecutivas toleradas.
+     * @param fullIntervalMillis Intervalo (ms) entre envios do estado completo.
+     * @param onExpired Chamado quando o orçamento de falhas se esgota.
+     */
+    public SubscriberMailbox(IClientCallback client, int failureBudget, long fullIntervalMillis,
+                             Consumer<SubscriberMailbox> onExpired) {
+        this.client = client;
+        this.failureBudget = Math.max(1, failureBudget);
+        this.fullIntervalMillis = fullIntervalMillis;
+        this.onExpired = onExpired;
+    }
+
+    /**
+     * Inicia a thread de entrega.
+     *
+     * @param name Nome da thread.
+     */
+    public void start(String name) {
+        Thread t = new Thread(this, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Coloca um snapshot na caixa, substituindo o que ainda não tiver sido entregue.
+     *
+     * @param stats Snapshot a entregar.
+     * @param version Versão do snapshot.
+     */
+    public synchronized void offer(SystemStatistics stats, long version) {
+        if (closed || stats == null) return;
+        if (pending != null) dropped++;
+        pending = stats;
+        pendingVersion = version;
+        notifyAll();
+    }
+
+    /**
+     * Fecha a caixa; a thread de entrega termina.
+     */
+    public synchronized void close() {
+        closed = true;
+        pending = null;
+        notifyAll();
+    }
+
+    /**
+     * Espera pelo próximo snapshot a entregar e prepara a atualização a enviar.
+     *
+     * @return A atualização, ou null se a caixa foi fechada.
+     * @throws InterruptedException Se a thread for interrompida.
+     */
+    private synchronized StatisticsDelta take() throws InterruptedException {
+        while (pending == null && !closed) wait();
+        if (closed) return null;
+        sending = pending;
+        pending = null;
+        boolean full = acked == null || System.currentTimeMillis() - lastFullAt >= fullIntervalMillis;
+        return full ? StatisticsDelta.full(sending, pendingVersion)
+                : StatisticsDelta.between(acked, ackedVersion, sending, pendingVersion);
+    }
+
+    /**
+     * Volta a colocar um snapshot cuja entrega falhou, se entretanto não chegou um mais recente.
+     *
+     * @param stats Snapshot não entregue.
+     * @param version Versão do snapshot.
+     */
+    private synchronized void retry(SystemStatistics stats, long version) {
+        if (!closed && pending == null) {
+            pending = stats;
+            pendingVersion = version;
+        }
+    }
+
+    /**
+     * Ciclo de entrega: entrega o snapshot mais recente e, em caso de falha, tenta de novo com espera
+     * crescente até esgotar o orçamento de falhas. Se o cliente confirmar uma versão diferente da
+     * enviada, a próxima entrega é completa.
+     */
+    @Override
+    public void run() {
+        int failures = 0;
+        try {
+            StatisticsDelta delta;
+            while ((delta = take()) != null) {
+                SystemStatistics stats = sending;
+                try {
+                    long ack = client.onStatisticsDelta(delta);
+                    if (ack == delta.getVersion()) {
+                        acked = stats;
+                        ackedVersion = ack;
+                        if (delta.isFull()) lastFullAt = System.currentTimeMillis();
+                        failures = 0;
+                        continue;
+                    }
+                    // Cliente fora de sequência (ex: reiniciou): reenviar já, completo
+                    acked = null;
+                    if (delta.isFull()) throw new RemoteException("Versão confirmada inválida: " + ack);
+                    retry(stats, delta.getVersion());
+                } catch (RemoteException | RuntimeException e) {
+                    if (++failures >= failureBudget) {
+                        close();
+                        onExpired.accept(this);
+                        return;
+                    }
+                    retry(stats, delta.getVersion());
+                    Thread.sleep(RETRY_DELAY_MS * failures);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtém o cliente subscrito.
+     *
+     * @return A referência de callback.
+     */
+    public IClientCallback getClient() {
+        return client;
+    }
+
+    /**
+     * Obtém o número de snapshots substituídos antes de serem entregues.
+     *
+     * @return Total de snapshots descartados.
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+}
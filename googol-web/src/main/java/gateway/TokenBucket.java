@@ -0,0 +1,76 @@
+package gateway;
+
+/**
+ * Balde de fichas (token bucket) que limita a taxa de pedidos de um cliente.
+ * <p>
+ * O balde enche a {@code ratePerSecond} fichas por segundo até {@code burst} fichas; cada pedido
+ * gasta uma. Um cliente pode assim fazer rajadas curtas de até {@code burst} pedidos, mas a taxa
+ * sustentada fica limitada a {@code ratePerSecond}. Quando o balde está vazio, o pedido é recusado
+ * e é indicado quanto falta para a próxima ficha.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class TokenBucket {
+
+    /**
+     * Fichas acrescentadas por nanossegundo.
+     */
+    private final double ratePerNano;
+
+    /**
+     * Número máximo de fichas (tamanho da rajada).
+     */
+    private final double capacity;
+
+    /**
+     * Fichas disponíveis.
+     */
+    private double tokens;
+
+    /**
+     * Momento (ns) do último reabastecimento.
+     */
+    private long lastRefill;
+
+    /**
+     * Construtor. O balde começa cheio.
+     *
+     * @param ratePerSecond Taxa sustentada (pedidos por segundo).
+     * @param burst Tamanho máximo de uma rajada.
+     */
+    public TokenBucket(double ratePerSecond, double burst) {
+        this.ratePerNano = Math.max(ratePerSecond, 1e-3) / 1e9;
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Tenta gastar uma ficha.
+     *
+     * @return 0 se o pedido foi admitido; caso contrário, a espera (ms) até haver uma ficha.
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerNano / 1e6));
+    }
+
+    /**
+     * Indica se o balde está cheio (o cliente não fez pedidos recentes) e pode ser descartado.
+     *
+     * @return true se o balde voltou à capacidade máxima.
+     */
+    public synchronized boolean isIdle() {
+        long now = System.nanoTime();
+        return tokens + (now - lastRefill) * ratePerNano >= capacity;
+    }
+}
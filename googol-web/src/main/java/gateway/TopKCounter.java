@@ -0,0 +1,117 @@
+package gateway;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Contador dos itens mais frequentes (heavy hitters) em memória fixa, pelo algoritmo Space-Saving.
+ * <p>
+ * Guarda no máximo {@code capacity} contadores. Quando chega um item novo e não há espaço, substitui
+ * o item com menor contagem e herda essa contagem (+1). Qualquer item com frequência real superior a
+ * {@code total / capacity} fica garantidamente na estrutura; as contagens podem estar sobrestimadas,
+ * no máximo, pelo valor herdado.
+ * </p>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+public class TopKCounter {
+
+    /**
+     * Contador de um item.
+     */
+    private static final class Counter implements Comparable<Counter> {
+        final String item;
+        final long order;
+        final int error;
+        int count;
+
+        Counter(String item, long order, int count, int error) {
+            this.item = item;
+            this.order = order;
+            this.count = count;
+            this.error = error;
+        }
+
+        @Override
+        public int compareTo(Counter o) {
+            if (count != o.count) return Integer.compare(count, o.count);
+            return Long.compare(order, o.order);
+        }
+    }
+
+    /**
+     * Número máximo de itens contados.
+     */
+    private final int capacity;
+
+    /**
+     * Item -> contador.
+     */
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    /**
+     * Contadores ordenados por contagem crescente (o primeiro é o próximo a ser substituído).
+     */
+    private final TreeSet<Counter> byCount = new TreeSet<>();
+
+    /**
+     * Sequência para desempatar contadores com a mesma contagem.
+     */
+    private long sequence = 0;
+
+    /**
+     * Construtor.
+     *
+     * @param capacity Número máximo de itens contados.
+     */
+    public TopKCounter(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Regista uma ocorrência de um item.
+     *
+     * @param item O item.
+     */
+    public synchronized void add(String item) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count++;
+            byCount.add(counter);
+            return;
+        }
+
+        int inherited = 0;
+        if (counters.size() >= capacity) {
+            Counter min = byCount.pollFirst();
+            counters.remove(min.item);
+            inherited = min.count;
+        }
+        counter = new Counter(item, sequence++, inherited + 1, inherited);
+        counters.put(item, counter);
+        byCount.add(counter);
+    }
+
+    /**
+     * Obtém os itens mais frequentes.
+     * As contagens devolvidas são o mínimo garantido (contagem menos o valor herdado), pelo que nunca
+     * sobrestimam a frequência real.
+     *
+     * @param n Número máximo de itens.
+     * @return Mapa (Item -> Contagem mínima garantida), por ordem decrescente de contagem estimada.
+     */
+    public synchronized Map<String, Integer> top(int n) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        Iterator<Counter> it = byCount.descendingIterator();
+        while (it.hasNext() && top.size() < n) {
+            Counter counter = it.next();
+            top.put(counter.item, counter.count - counter.error);
+        }
+        return top;
+    }
+}
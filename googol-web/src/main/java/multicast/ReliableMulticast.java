@@ -3,7 +3,6 @@ package multicast;
 import barrel.IBarrel;
 import common.PageData;
 
-import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
@@ -56,23 +55,64 @@ public class ReliableMulticast {
         this.backoffFactor = backoffFactor;
     }
 
+    /**
+     * Resultado de um envio: Barrels que falharam e Barrels que pediram a página completa.
+     */
+    public static class Result {
+
+        /**
+         * Barrels que falharam definitivamente após todas as tentativas.
+         */
+        private final List<IBarrel> failed;
+
+        /**
+         * Barrels que responderam mas recusaram um resumo (precisam da página completa).
+         */
+        private final List<IBarrel> rejected;
+
+        private Result(List<IBarrel> failed, List<IBarrel> rejected) {
+            this.failed = failed;
+            this.rejected = rejected;
+        }
+
+        /**
+         * Obtém os Barrels que falharam definitivamente.
+         *
+         * @return Lista vazia se todos confirmaram o recebimento.
+         */
+        public List<IBarrel> getFailed() {
+            return failed;
+        }
+
+        /**
+         * Obtém os Barrels que recusaram um resumo e precisam da página completa.
+         *
+         * @return Lista vazia se todos aceitaram.
+         */
+        public List<IBarrel> getRejected() {
+            return rejected;
+        }
+    }
+
     /**
      * Envia um objeto {@code PageData} para uma lista de Barrels.
      * <p>
      * O método tenta enviar os dados para todos os Barrels fornecidos. Se algum falhar
      * ou exceder o tempo limite, o sistema aguarda um tempo (baseado no backoff factor)
      * e tenta novamente até atingir o número máximo de tentativas (`maxRetries`).
+     * Um Barrel que responda {@code false} a um resumo ({@link PageData#isStub()}) não é uma
+     * falha: fica na lista de recusados, para lhe ser enviada a página completa.
      * </p>
      *
      * @param barrels Lista de interfaces remotas dos Barrels de destino.
      * @param data O objeto contendo os dados da página a ser armazenada.
-     * @return Uma lista contendo os Barrels que falharam definitivamente após todas as tentativas.
-     * Retorna uma lista vazia se todos confirmarem o recebimento com sucesso.
+     * @return Os Barrels que falharam definitivamente e os que recusaram os dados.
      */
-    public List<IBarrel> multicastToBarrels(List<IBarrel> barrels, PageData data) {
+    public Result multicastToBarrels(List<IBarrel> barrels, PageData data) {
+        List<IBarrel> rejected = new ArrayList<>();
         if (barrels == null || barrels.isEmpty()) {
             System.err.println("[Multicast] Nenhum barrel disponível!");
-            return new ArrayList<>();
+            return new Result(new ArrayList<>(), rejected);
         }
 
         List<IBarrel> pending = new ArrayList<>(barrels);
@@ -84,15 +124,7 @@ public class ReliableMulticast {
 
             List<Future<Boolean>> results = new ArrayList<>();
             for (IBarrel barrel : pending) {
-                results.add(executor.submit(() -> {
-                    try {
-                        barrel.storePage(data);
-                        return true;
-                    } catch (RemoteException e) {
-                        System.err.println("[Multicast] Falha no barrel: " + e.getMessage());
-                        return false;
-                    }
-                }));
+                results.add(executor.submit(() -> barrel.storePage(data)));
             }
 
             List<IBarrel> failed = new ArrayList<>();
@@ -100,8 +132,11 @@ public class ReliableMulticast {
                 try {
                     // Obtenha o resultado com o tempo de espera configurado
                     if (!results.get(i).get(ackTimeoutMs, TimeUnit.MILLISECONDS)) {
-                        failed.add(pending.get(i));
+                        rejected.add(pending.get(i));
                     }
+                } catch (ExecutionException e) {
+                    System.err.println("[Multicast] Falha no barrel: " + e.getCause().getMessage());
+                    failed.add(pending.get(i));
                 } catch (InterruptedException | TimeoutException e) {
                     // Adiciona falha por timeout ou interrupção
                     System.err.println("[Multicast] Timeout ou interrupção para o barrel: " + pending.get(i));
@@ -130,11 +165,13 @@ public class ReliableMulticast {
 
         if (!pending.isEmpty()) {
             System.err.println("[Multicast] Nem todos os barrels confirmaram após " + maxRetries + " tentativas: " + pending.size() + " falharam.");
+        } else if (!rejected.isEmpty()) {
+            System.out.println("[Multicast] " + rejected.size() + " barrels pediram a página completa.");
         } else {
             System.out.println("[Multicast] Todos os barrels confirmaram com sucesso.");
         }
 
-        // Devolve a lista dos barrels que falharam definitivamente
-        return pending;
+        // Devolve os barrels que falharam definitivamente e os que recusaram os dados
+        return new Result(pending, rejected);
     }
-}
\ No newline at end of file
+}
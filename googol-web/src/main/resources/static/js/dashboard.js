@@ -1,5 +1,9 @@
 var websocket = null;
 
+// Estado das estatísticas reconstruído a partir das atualizações versionadas (completas ou incrementais)
+var statsState = null;
+var statsVersion = -1;
+
 window.onload = function() {
     connect();
 };
@@ -39,7 +43,12 @@ function connect() {
     websocket.onmessage = function(event) {
         try {
             var data = JSON.parse(event.data);
-            if(contentDiv) renderDashboard(data, contentDiv);
+            if (!applyStatsUpdate(data)) {
+                // Atualização fora de sequência: pede o estado completo
+                websocket.send("resync");
+                return;
+            }
+            if(contentDiv) renderDashboard(statsState, contentDiv);
         } catch (e) {
             console.error("Erro ao ler JSON recebido:", e);
         }
@@ -59,6 +68,44 @@ function connect() {
     };
 }
 
+/**
+ * Aplica uma atualização (StatisticsDelta) ao estado local.
+ * Devolve false se for incremental e não partir da versão que temos.
+ */
+function applyStatsUpdate(update) {
+    if (update.full) {
+        statsState = update.snapshot;
+        statsVersion = update.version;
+        return true;
+    }
+    if (!statsState || update.baseVersion !== statsVersion) return false;
+
+    patchMap(statsState, 'topSearchTerms', update.changedSearchTerms, update.removedSearchTerms);
+    patchMap(statsState, 'topConsultedUrls', update.changedUrls, update.removedUrls);
+
+    let removed = update.removedBarrels || [];
+    let barrels = (statsState.barrelDetails || []).filter(b => !removed.includes(b.name));
+    (update.changedBarrels || []).forEach(changed => {
+        let index = barrels.findIndex(b => b.name === changed.name);
+        if (index >= 0) barrels[index] = changed; else barrels.push(changed);
+    });
+    statsState.barrelDetails = barrels;
+
+    statsState.routedRequests = update.routedRequests;
+    statsState.hedgedRequests = update.hedgedRequests;
+    statsState.hedgeWins = update.hedgeWins;
+    statsState.gatewayCache = update.gatewayCache;
+    statsState.admission = update.admission;
+    statsVersion = update.version;
+    return true;
+}
+
+function patchMap(state, field, changed, removed) {
+    let map = Object.assign({}, state[field] || {}, changed || {});
+    (removed || []).forEach(key => delete map[key]);
+    state[field] = map;
+}
+
 function renderDashboard(data, container) {
     let html = "";
 
@@ -79,16 +126,52 @@ function renderDashboard(data, container) {
     }
     html += '</ul>';
 
-    // --- 2. BARRELS ---
+    // --- 2. ENCAMINHAMENTO (HEDGING) ---
+    if (data.routedRequests) {
+        let hedgePct = (100 * (data.hedgedRequests || 0) / data.routedRequests).toFixed(1);
+        html += '<span class="stats-section-title">Encaminhamento</span>';
+        html += `<div style="font-size:11px; color:#9aa0a6; padding:2px 5px;">
+                    ${data.routedRequests} pedidos, ${data.hedgedRequests || 0} duplicados (${hedgePct}%),
+                    ${data.hedgeWins || 0} ganhos pelo 2º Barrel
+                 </div>`;
+        let admission = data.admission;
+        if (admission) {
+            html += `<div style="font-size:11px; color:#9aa0a6; padding:2px 5px;">
+                        ${admission.inFlight}/${admission.concurrencyLimit} em curso,
+                        ${admission.rateLimited + admission.overloaded} rejeitados
+                        (${admission.rateLimited} por taxa, ${admission.overloaded} por sobrecarga)
+                     </div>`;
+        }
+    }
+
+    // --- 3. CACHE DO GATEWAY ---
+    let cache = data.gatewayCache;
+    if (cache && (cache.hits || cache.misses)) {
+        html += '<span class="stats-section-title">Cache do Gateway</span>';
+        html += `<div style="font-size:11px; color:#9aa0a6; padding:2px 5px;">
+                    ${(cache.hitRatio * 100).toFixed(1)}% hits (${cache.hits}/${cache.hits + cache.misses}),
+                    ${cache.evictions} evictions, ${cache.entries} entradas
+                    (${(cache.weightBytes / 1048576).toFixed(1)}/${(cache.capacityBytes / 1048576).toFixed(0)} MB)
+                 </div>`;
+    }
+
+    // --- 4. BARRELS ---
     html += '<span class="stats-section-title">Estado dos Barrels</span>';
 
     if (data.barrelDetails && data.barrelDetails.length > 0) {
         data.barrelDetails.forEach(barrel => {
-            let isActive = (barrel.status === "Active");
-            let statusLabel = isActive ? 'ATIVO' : 'OFFLINE';
+            let isSaturated = (barrel.status === "Saturated");
+            let isSuspect = (barrel.status === "Suspect");
+            let isSynching = (barrel.status === "Synching");
+            let isActive = (barrel.status === "Active") || isSaturated || isSuspect || isSynching;
+            let statusLabel = isSaturated ? 'SATURADO' : (isSynching ? 'A SINCRONIZAR' : (isSuspect ? 'SUSPEITO' : (isActive ? 'ATIVO' : 'OFFLINE')));
             let cardClass = isActive ? '' : 'inactive';
-            let badgeColor = isActive ? 'rgba(129, 201, 149, 0.2)' : 'rgba(242, 139, 130, 0.2)';
-            let textColor = isActive ? '#81c995' : '#f28b82';
+            let isWarning = isSaturated || isSuspect || isSynching;
+            let badgeColor = isWarning ? 'rgba(253, 214, 99, 0.2)' : (isActive ? 'rgba(129, 201, 149, 0.2)' : 'rgba(242, 139, 130, 0.2)');
+            let textColor = isWarning ? '#fdd663' : (isActive ? '#81c995' : '#f28b82');
+            let memory = barrel.memory;
+            let memoryMb = memory ? (memory.totalBytes / 1048576).toFixed(1) : '0.0';
+            let budgetMb = memory ? (memory.budgetBytes / 1048576).toFixed(0) : '-';
 
             html += `
                 <div class="barrel-card ${cardClass}">
@@ -114,6 +197,16 @@ function renderDashboard(data, container) {
                             </span>
                             <span style="font-size:9px; color:#9aa0a6;">(${barrel.requestCount || 0} reqs)</span>
                         </div>
+                        <div class="stat-item" style="grid-column: span 2;">
+                            <span class="stat-label">Cache:</span>
+                            <span class="stat-val">${((barrel.cacheHitRatio || 0) * 100).toFixed(1)}%</span>
+                            <span style="font-size:9px; color:#9aa0a6;">(${barrel.cacheEvictions || 0} evictions)</span>
+                        </div>
+                        <div class="stat-item" style="grid-column: span 2;">
+                            <span class="stat-label">Memória:</span>
+                            <span class="stat-val">${memoryMb}/${budgetMb} MB</span>
+                            <span style="font-size:9px; color:#9aa0a6;">(${memory ? memory.spilledEntries : 0} em disco)</span>
+                        </div>
                     </div>
                 </div>`;
         });
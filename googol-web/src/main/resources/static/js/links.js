@@ -0,0 +1,50 @@
+// Carrega as páginas seguintes de links de entrada (/links/page) e acrescenta-as à lista,
+// sem voltar a pedir as páginas já mostradas.
+window.addEventListener("load", function() {
+    var more = document.getElementById("links-more");
+    var list = document.getElementById("links-list");
+    if (!more || !list) return;
+
+    more.addEventListener("click", function(event) {
+        event.preventDefault();
+        if (more.dataset.loading === "true") return;
+        more.dataset.loading = "true";
+        more.textContent = "A carregar...";
+
+        var query = "url=" + encodeURIComponent(more.dataset.url) + "&cursor=" + encodeURIComponent(more.dataset.cursor);
+        fetch("/links/page?" + query)
+            .then(function(response) { return response.json(); })
+            .then(function(page) {
+                // 503: o Gateway recusou o pedido por excesso de carga; o utilizador pode tentar de novo
+                if (page.error) {
+                    more.textContent = page.error + " Carregar mais →";
+                    return;
+                }
+                page.links.forEach(function(link) { list.appendChild(createItem(link)); });
+
+                if (page.hasMore) {
+                    more.dataset.cursor = page.nextCursor;
+                    more.href = "/links?" + "url=" + encodeURIComponent(more.dataset.url) + "&cursor=" + page.nextCursor;
+                    more.textContent = "Carregar mais →";
+                } else {
+                    more.remove();
+                }
+            })
+            .catch(function(error) {
+                console.error("Erro ao carregar links:", error);
+                more.textContent = "Carregar mais →";
+            })
+            .finally(function() { more.dataset.loading = "false"; });
+    });
+
+    function createItem(link) {
+        var li = document.createElement("li");
+        li.style.cssText = "background: var(--card-bg); margin: 5px 0; padding: 15px; border-radius: 5px; border: 1px solid var(--border-color);";
+        var a = document.createElement("a");
+        a.href = link;
+        a.textContent = link;
+        a.style.cssText = "color: var(--link-color); text-decoration: none;";
+        li.appendChild(a);
+        return li;
+    }
+});
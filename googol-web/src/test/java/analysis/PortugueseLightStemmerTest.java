@@ -0,0 +1,78 @@
+package analysis;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link PortugueseLightStemmer}, aplicado (como na cadeia do {@link Analyzer}) depois da
+ * remoção de acentos.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class PortugueseLightStemmerTest {
+
+    private final AccentFoldingFilter folding = new AccentFoldingFilter();
+    private final PortugueseLightStemmer stemmer = new PortugueseLightStemmer();
+
+    private String stem(String word) {
+        return stemmer.filter(folding.filter(word));
+    }
+
+    @Test
+    void reducesPluralsToSingular() {
+        assertSameStem("ação", "ações");
+        assertSameStem("pão", "pães");
+        assertSameStem("jornal", "jornais");
+        assertSameStem("papel", "papéis");
+        assertSameStem("lençol", "lençóis");
+        assertSameStem("homem", "homens");
+        assertSameStem("flor", "flores");
+        assertSameStem("luz", "luzes");
+        assertSameStem("cidade", "cidades");
+        assertSameStem("lei", "leis");
+        assertSameStem("mês", "meses");
+    }
+
+    @Test
+    void singularAndPluralOfEsWordsMatch() {
+        assertSameStem("português", "portugueses");
+        assertSameStem("inglês", "ingleses");
+        assertSameStem("francês", "franceses");
+        assertSameStem("japonês", "japoneses");
+        assertSameStem("chinês", "chineses");
+    }
+
+    @Test
+    void keepsWordsThatAreNotPlurals() {
+        assertEquals("mais", stem("mais"));
+        assertEquals("depois", stem("depois"));
+        assertEquals("dois", stem("dois"));
+        assertEquals("lapis", stem("lápis"));
+        assertEquals("cais", stem("cais"));
+        assertEquals("menos", stem("menos"));
+        assertEquals("atraves", stem("através"));
+        assertEquals("simples", stem("simples"));
+        assertEquals("onibus", stem("ônibus"));
+        assertEquals("classe", stem("classe"));
+    }
+
+    @Test
+    void doesNotMergeDifferentWords() {
+        assertNotEquals(stem("mal"), stem("mais"));
+        assertNotEquals(stem("dol"), stem("dois"));
+        assertNotEquals(stem("depol"), stem("depois"));
+    }
+
+    @Test
+    void leavesShortWordsAlone() {
+        assertEquals("nos", stem("nós"));
+        assertEquals("gas", stem("gás"));
+        assertEquals("mes", stem("mês"));
+    }
+
+    private void assertSameStem(String singular, String plural) {
+        assertEquals(stem(singular), stem(plural), singular + " / " + plural);
+    }
+}
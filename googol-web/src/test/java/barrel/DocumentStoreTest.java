@@ -0,0 +1,101 @@
+package barrel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link DocumentStore}: leitura após substituições e remoções, e compactação do ficheiro.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class DocumentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackStoredTokens() throws Exception {
+        DocumentStore store = new DocumentStore(dir.resolve("docs.dat"));
+        List<String> tokens = randomTokens(new Random(1), 1000);
+        store.put(7, tokens);
+
+        assertEquals(tokens, store.get(7));
+        assertTrue(store.contains(7));
+        assertNull(store.get(8));
+    }
+
+    @Test
+    void removedRecordsAreGoneAndReclaimed() throws Exception {
+        DocumentStore store = new DocumentStore(dir.resolve("docs.dat"));
+        Random random = new Random(3);
+        Map<Integer, List<String>> expected = new HashMap<>();
+        for (int doc = 0; doc < 400; doc++) {
+            List<String> tokens = randomTokens(random, 2000);
+            store.put(doc, tokens);
+            expected.put(doc, tokens);
+        }
+        long full = store.sizeOnDisk();
+
+        for (int doc = 0; doc < 400; doc += 4) {
+            if (doc % 8 != 0) continue;
+            store.remove(doc);
+            expected.remove(doc);
+        }
+        for (int doc = 1; doc < 400; doc += 2) {
+            store.remove(doc);
+            expected.remove(doc);
+        }
+        store.remove(1000);
+
+        assertFalse(store.contains(0));
+        assertNull(store.get(1));
+        assertTrue(store.sizeOnDisk() < full, "ficheiro não foi compactado após remoções");
+        for (Map.Entry<Integer, List<String>> e : expected.entrySet()) {
+            assertEquals(e.getValue(), store.get(e.getKey()), "docID " + e.getKey());
+        }
+    }
+
+    @Test
+    void compactsOrphanedRecordsAndKeepsLatestVersions() throws Exception {
+        DocumentStore store = new DocumentStore(dir.resolve("docs.dat"));
+        Random random = new Random(42);
+        Map<Integer, List<String>> expected = new HashMap<>();
+
+        for (int round = 0; round < 80; round++) {
+            for (int doc = 0; doc < 20; doc++) {
+                List<String> tokens = randomTokens(random, 200 + random.nextInt(600));
+                store.put(doc, tokens);
+                expected.put(doc, tokens);
+            }
+        }
+
+        // Sem compactação o ficheiro teria 80 versões de cada documento
+        DocumentStore fresh = new DocumentStore(dir.resolve("fresh.dat"));
+        for (Map.Entry<Integer, List<String>> e : expected.entrySet()) fresh.put(e.getKey(), e.getValue());
+        long live = fresh.sizeOnDisk();
+        assertTrue(store.sizeOnDisk() <= Math.max(2 * live, 1024 * 1024) + 64 * 1024,
+                "ficheiro não foi compactado: " + store.sizeOnDisk() + " bytes para " + live + " vivos");
+
+        for (Map.Entry<Integer, List<String>> e : expected.entrySet()) {
+            assertEquals(e.getValue(), store.get(e.getKey()), "docID " + e.getKey());
+        }
+    }
+
+    private static List<String> randomTokens(Random random, int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(Integer.toString(random.nextInt(1 << 20), 36));
+        }
+        return tokens;
+    }
+}
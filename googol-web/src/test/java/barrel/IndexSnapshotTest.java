@@ -0,0 +1,138 @@
+package barrel;
+
+import common.ContentHash;
+import common.PageData;
+import common.UrlMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link IndexSnapshot}: um snapshot gravado por um Barrel e reaberto por outro tem de
+ * responder como o estado em memória que lhe deu origem, incluindo as páginas do snapshot
+ * anterior que foram substituídas (sombreadas) e os links de entrada que deixaram de contar.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class IndexSnapshotTest {
+
+    private static final String A = "https://a.example.pt/";
+    private static final String B = "https://b.example.pt/";
+    private static final String C = "https://c.example.pt/";
+    private static final String D = "https://d.example.pt/";
+    private static final String LONG = "https://e.example.pt/longa";
+    private static final String COPY = "https://f.example.pt/copia";
+
+    /**
+     * Termos suficientes para a deteção de quase-duplicados (SimHash).
+     */
+    private static final List<String> LONG_WORDS = List.of("guitarra", "bicicleta", "montanha", "oceano",
+            "castelo", "relogio", "janela", "girassol", "elefante", "tartaruga", "violino", "cometa",
+            "farol", "pinheiro", "dragao", "vulcao", "arquipelago", "biblioteca", "catedral", "moinho");
+
+    @TempDir
+    Path dir;
+
+    private final List<Barrel> barrels = new ArrayList<>();
+
+    @AfterEach
+    void unexport() throws Exception {
+        for (Barrel barrel : barrels) UnicastRemoteObject.unexportObject(barrel, true);
+    }
+
+    @Test
+    void reopenedSnapshotMatchesHeapState() throws Exception {
+        Barrel first = barrel("BarrelA", dir.resolve("none.snapshot"));
+        store(first, A, List.of("castelo", "dragao", "muralha"), List.of(B, C));
+        store(first, B, List.of("castelo", "farol"), List.of(C));
+        store(first, C, List.of("castelo", "oceano"), List.of(A));
+        store(first, LONG, LONG_WORDS, List.of(A));
+        store(first, COPY, LONG_WORDS, List.of(B));
+        assertEquals(Map.of(COPY, LONG), first.getDuplicates());
+
+        Path v1 = dir.resolve("v1.snapshot");
+        first.writeSnapshot(v1);
+        Barrel second = barrel("BarrelB", v1);
+        assertSameState(first, second);
+
+        // Nova versão de A (sombreia a do snapshot) e uma página só em memória
+        store(second, A, List.of("castelo", "vulcao"), List.of(D));
+        store(second, D, List.of("castelo", "moinho"), List.of(C));
+        assertNotEquals(termsOf(first, A), termsOf(second, A));
+        assertFalse(second.getIncomingLinks(B).contains(A));
+
+        Path v2 = dir.resolve("v2.snapshot");
+        second.writeSnapshot(v2);
+        Barrel third = barrel("BarrelC", v2);
+        assertSameState(second, third);
+        assertEquals(termsOf(second, A), termsOf(third, A));
+
+        IndexSnapshot reopened = IndexSnapshot.open(v2);
+        Map<String, Set<String>> incoming = second.getIncomingLinksMap();
+        for (int docId = 0; docId < reopened.docCount(); docId++) {
+            String url = reopened.url(docId);
+            assertEquals(docId, reopened.lookup(url));
+            int expected = incoming.getOrDefault(url, Set.of()).size();
+            assertEquals(expected, reopened.inDegree(docId), url);
+            assertEquals(expected, reopened.incoming(docId).length, url);
+        }
+        // Os links de um quase-duplicado não contam
+        assertEquals(Set.of(LONG, C), incoming.get(A));
+        assertNull(incoming.get(B));
+        assertEquals(Set.of(B, D), incoming.get(C));
+        assertEquals(reopened.lookup(LONG), reopened.canonical(reopened.lookup(COPY)));
+    }
+
+    private Barrel barrel(String name, Path snapshotFile) throws Exception {
+        Barrel barrel = new Barrel(name, snapshotFile, dir.resolve(name));
+        barrels.add(barrel);
+        barrel.activateStandalone();
+        return barrel;
+    }
+
+    private static void store(Barrel barrel, String url, List<String> words, List<String> links) throws Exception {
+        String title = "Página " + url;
+        barrel.storePage(new PageData(url, title, words, links, ContentHash.of(title, String.join(" ", words), links)));
+    }
+
+    private static void assertSameState(Barrel expected, Barrel actual) throws Exception {
+        assertEquals(expected.getInvertedIndex(), actual.getInvertedIndex());
+        assertEquals(expected.getIncomingLinksMap(), actual.getIncomingLinksMap());
+        assertEquals(expected.getDuplicates(), actual.getDuplicates());
+        assertEquals(expected.getContentHashes(), actual.getContentHashes());
+        assertEquals(describe(expected.getPageMetadata()), describe(actual.getPageMetadata()));
+        // A ordem dos resultados depende do número de links de entrada
+        for (List<String> query : List.of(List.of("castelo"), List.of("castelo", "site:example.pt"),
+                List.of("site:a.example.pt", "site:d.example.pt"))) {
+            assertEquals(new ArrayList<>(expected.search(query).keySet()),
+                    new ArrayList<>(actual.search(query).keySet()), query.toString());
+        }
+        for (String url : List.of(A, B, C, D, LONG, COPY)) {
+            assertEquals(expected.isUrlInBarrel(url), actual.isUrlInBarrel(url), url);
+        }
+    }
+
+    private static Map<String, String> describe(Map<String, UrlMetadata> metadata) {
+        Map<String, String> described = new HashMap<>();
+        metadata.forEach((url, meta) -> described.put(url, meta.getTitle() + "|" + meta.getCitation()));
+        return described;
+    }
+
+    private static Set<String> termsOf(Barrel barrel, String url) throws Exception {
+        Set<String> terms = new TreeSet<>();
+        barrel.getInvertedIndex().forEach((term, urls) -> { if (urls.contains(url)) terms.add(term); });
+        return terms;
+    }
+}
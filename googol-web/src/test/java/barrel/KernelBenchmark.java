@@ -0,0 +1,99 @@
+package barrel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparação de desempenho (JMH) entre os kernels escalar e vetorial de {@link PostingKernel}.
+ * <p>
+ * Gera listas de docIDs aleatórias e mede a interseção e a contagem (a concordância entre os
+ * kernels é verificada por {@link PostingKernelsTest}). Fica nas fontes de teste para não ser
+ * incluído no jar. O kernel vetorial só existe nas compilações com o perfil {@code vector}; sem
+ * ele, os casos {@code kernel=vetorial} falham no arranque e apenas o escalar é medido.
+ * </p>
+ * <pre>
+ * mvn -Pvector test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     org.openjdk.jmh.Main KernelBenchmark
+ * </pre>
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+
+    /**
+     * Kernel medido.
+     */
+    @Param({"escalar", "vetorial"})
+    public String kernel;
+
+    /**
+     * Tamanho da lista maior; a menor tem um quarto dos valores.
+     */
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private PostingKernel implementation;
+    private int[] large;
+    private int[] medium;
+    private int[] out;
+
+    /**
+     * Gera as listas e escolhe o kernel.
+     */
+    @Setup
+    public void setUp() {
+        implementation = "vetorial".equals(kernel) ? PostingKernels.vectorKernel() : new ScalarPostingKernel();
+        if (implementation == null) {
+            throw new IllegalStateException("Kernel vetorial indisponível (compilar com -Pvector)");
+        }
+        Random random = new Random(42);
+        large = sortedUnique(random, size, size * 4);
+        medium = sortedUnique(random, size / 4, size * 4);
+        out = new int[medium.length];
+    }
+
+    /**
+     * Interseção com escrita dos docIDs comuns.
+     */
+    @Benchmark
+    public void intersect(Blackhole blackhole) {
+        blackhole.consume(implementation.intersect(large, large.length, medium, medium.length, out));
+        blackhole.consume(out);
+    }
+
+    /**
+     * Contagem dos docIDs comuns.
+     */
+    @Benchmark
+    public int intersectCount() {
+        return implementation.intersectCount(large, large.length, medium, medium.length);
+    }
+
+    /**
+     * Gera uma lista ordenada de valores distintos.
+     */
+    private static int[] sortedUnique(Random random, int n, int bound) {
+        return random.ints(n, 0, bound).sorted().distinct().toArray();
+    }
+}
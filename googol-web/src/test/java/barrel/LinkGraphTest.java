@@ -0,0 +1,111 @@
+package barrel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link LinkGraph}: compara o grafo comprimido com um mapa simples
+ * ({@code destino -> origens}) ao longo de inserções, remoções e recompressões.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class LinkGraphTest {
+
+    private static final int NODES = 3000;
+
+    @Test
+    void matchesPlainMapAcrossAppendsRemovalsAndCompactions() {
+        Random random = new Random(2024);
+        LinkGraph graph = new LinkGraph();
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+
+        for (int op = 0; op < 200_000; op++) {
+            int target = random.nextInt(NODES);
+            int source = randomSource(random, target);
+            Set<Integer> sources = expected.computeIfAbsent(target, k -> new TreeSet<>());
+
+            if (random.nextInt(4) == 0 && !sources.isEmpty()) {
+                // Remove uma origem existente ou uma que não existe
+                int victim = random.nextBoolean() ? sources.iterator().next() : source;
+                assertEquals(sources.remove(victim), graph.remove(target, victim), "remove " + victim + " -> " + target);
+            } else {
+                assertEquals(sources.add(source), graph.add(target, source), "add " + source + " -> " + target);
+            }
+
+            if (op % 25_000 == 0) graph.compact();
+            if (op % 10_000 == 0) assertSameGraph(expected, graph);
+        }
+        assertSameGraph(expected, graph);
+
+        graph.compact();
+        assertSameGraph(expected, graph);
+    }
+
+    @Test
+    void listsOfNeighbouringPagesShareReferences() {
+        LinkGraph graph = new LinkGraph();
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+
+        // Páginas do mesmo site com origens quase iguais (casos de referência e cadeias de referências)
+        for (int target = 0; target < 500; target++) {
+            Set<Integer> sources = expected.computeIfAbsent(target, k -> new TreeSet<>());
+            for (int source = 1000; source < 1060; source++) {
+                if ((source + target) % 7 != 0) sources.add(source);
+            }
+            sources.add(5000 + target);
+            for (int source : sources) graph.add(target, source);
+        }
+        graph.compact();
+        assertSameGraph(expected, graph);
+
+        for (int target = 0; target < 500; target += 3) {
+            graph.remove(target, 1001);
+            expected.get(target).remove(1001);
+        }
+        graph.compact();
+        assertSameGraph(expected, graph);
+    }
+
+    @Test
+    void unknownNodesHaveNoLinks() {
+        LinkGraph graph = new LinkGraph();
+        graph.add(3, 1);
+        graph.compact();
+
+        assertEquals(0, graph.inDegree(99));
+        assertEquals(0, graph.sources(99).length);
+        assertFalse(graph.remove(99, 1));
+        assertEquals(0, graph.inDegree(-1));
+    }
+
+    /**
+     * Origens concentradas perto do destino (como páginas do mesmo site), para exercitar as referências.
+     */
+    private static int randomSource(Random random, int target) {
+        if (random.nextInt(3) == 0) return random.nextInt(NODES * 2);
+        return Math.max(0, target - 50 + random.nextInt(100));
+    }
+
+    private static void assertSameGraph(Map<Integer, Set<Integer>> expected, LinkGraph graph) {
+        long edges = 0;
+        int targets = 0;
+        for (int node = 0; node < NODES; node++) {
+            Set<Integer> sources = expected.getOrDefault(node, Set.of());
+            int[] actual = graph.sources(node);
+            assertArrayEquals(sources.stream().mapToInt(Integer::intValue).toArray(), actual, "origens de " + node);
+            assertEquals(sources.size(), graph.inDegree(node), "grau de " + node);
+            edges += sources.size();
+            if (!sources.isEmpty()) targets++;
+        }
+        assertEquals(edges, graph.edgeCount());
+        assertEquals(targets, graph.targetCount());
+    }
+}
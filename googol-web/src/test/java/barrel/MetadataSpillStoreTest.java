@@ -0,0 +1,61 @@
+package barrel;
+
+import common.UrlMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link MetadataSpillStore}: os metadados que entram e saem do disco não fazem crescer
+ * o ficheiro sem limite.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class MetadataSpillStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactsWhenOrphanedBytesExceedLiveBytes() throws Exception {
+        MetadataSpillStore store = new MetadataSpillStore(dir.resolve("spill.dat"));
+        Random random = new Random(3);
+        Map<Integer, UrlMetadata> expected = new HashMap<>();
+
+        for (int round = 0; round < 200; round++) {
+            for (int doc = 0; doc < 100; doc++) {
+                if (random.nextInt(4) == 0) {
+                    store.remove(doc);
+                    expected.remove(doc);
+                } else {
+                    UrlMetadata meta = new UrlMetadata("Título " + doc + "-" + round, "Citação " + "x".repeat(random.nextInt(400)));
+                    store.put(doc, meta);
+                    expected.put(doc, meta);
+                }
+            }
+        }
+
+        long live = 0;
+        for (UrlMetadata meta : expected.values()) live += 8 + meta.getTitle().getBytes("UTF-8").length + meta.getCitation().getBytes("UTF-8").length;
+        assertTrue(store.sizeOnDisk() <= Math.max(2 * live, 64 * 1024) + 1024,
+                "ficheiro não foi compactado: " + store.sizeOnDisk() + " bytes para " + live + " vivos");
+
+        assertEquals(expected.size(), store.size());
+        for (int doc = 0; doc < 100; doc++) {
+            UrlMetadata meta = store.get(doc);
+            if (!expected.containsKey(doc)) {
+                assertNull(meta);
+                continue;
+            }
+            assertEquals(expected.get(doc).getTitle(), meta.getTitle());
+            assertEquals(expected.get(doc).getCitation(), meta.getCitation());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package barrel;
+
+import analysis.Analyzer;
+import common.ContentHash;
+import common.PageData;
+import common.SimHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos resumos ({@link PageData#isStub()}) enviados pelo Downloader antes da página completa:
+ * um Barrel só os aceita se tiver a mesma versão da página ou uma página próxima (quase-duplicado),
+ * e recusa-os sem alterar o índice.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class PageStubTest {
+
+    private static final String URL = "https://a.example.pt/";
+    private static final String COPY = "https://f.example.pt/copia";
+
+    /**
+     * Termos suficientes para a deteção de quase-duplicados (SimHash).
+     */
+    private static final List<String> LONG_WORDS = List.of("guitarra", "bicicleta", "montanha", "oceano",
+            "castelo", "relogio", "janela", "girassol", "elefante", "tartaruga", "violino", "cometa",
+            "farol", "pinheiro", "dragao", "vulcao", "arquipelago", "biblioteca", "catedral", "moinho");
+
+    @TempDir
+    Path dir;
+
+    private final List<Barrel> barrels = new ArrayList<>();
+
+    @AfterEach
+    void unexport() throws Exception {
+        for (Barrel barrel : barrels) UnicastRemoteObject.unexportObject(barrel, true);
+    }
+
+    @Test
+    void unknownPageAsksForFullPage() throws Exception {
+        Barrel barrel = barrel("BarrelA", true);
+        assertFalse(barrel.storePage(PageData.unchanged(URL, "Título", ContentHash.of("Título", "castelo", List.of()))));
+        assertTrue(barrel.getContentHashes().isEmpty());
+        assertFalse(barrel.getInvertedIndex().containsKey("castelo"));
+    }
+
+    @Test
+    void sameVersionIsAcceptedAndOtherVersionRejected() throws Exception {
+        Barrel barrel = barrel("BarrelA", true);
+        PageData full = page("castelo");
+        assertTrue(barrel.storePage(full));
+
+        assertTrue(barrel.storePage(PageData.unchanged(URL, full.getTitle(), full.getContentHash())));
+        assertFalse(barrel.storePage(PageData.unchanged(URL, full.getTitle(), page("farol").getContentHash())));
+
+        // O resumo recusado não altera a versão indexada
+        assertEquals(Map.of(URL, full.getContentHash()), barrel.getContentHashes());
+        assertTrue(barrel.getInvertedIndex().get("castelo").contains(URL));
+        assertFalse(barrel.getInvertedIndex().containsKey("farol"));
+
+        assertTrue(barrel.storePage(page("farol")));
+        assertTrue(barrel.getInvertedIndex().get("farol").contains(URL));
+    }
+
+    @Test
+    void nearDuplicateStubIsRecordedWithoutFullPage() throws Exception {
+        Barrel barrel = barrel("BarrelA", true);
+        PageData original = new PageData(URL, "Original", LONG_WORDS, List.of(COPY), ContentHash.of("Original", "a", List.of()));
+        assertTrue(barrel.storePage(original));
+
+        long hash = ContentHash.of("Cópia", "b", List.of());
+        assertTrue(barrel.storePage(PageData.duplicate(COPY, "Cópia", hash, fingerprint(LONG_WORDS))));
+        assertEquals(Map.of(COPY, URL), barrel.getDuplicates());
+        assertEquals(Long.valueOf(hash), barrel.getContentHashes().get(COPY));
+        assertTrue(barrel.isUrlInBarrel(COPY));
+    }
+
+    @Test
+    void distantStubAsksForFullPage() throws Exception {
+        Barrel barrel = barrel("BarrelA", true);
+        assertTrue(barrel.storePage(new PageData(URL, "Original", LONG_WORDS, List.of(), ContentHash.of("Original", "a", List.of()))));
+
+        long distant = ~fingerprint(LONG_WORDS);
+        assertFalse(barrel.storePage(PageData.duplicate(COPY, "Outra", ContentHash.of("Outra", "c", List.of()), distant)));
+        assertTrue(barrel.getDuplicates().isEmpty());
+        assertNull(barrel.getContentHashes().get(COPY));
+    }
+
+    @Test
+    void inactiveBarrelNeverAsksForFullPage() throws Exception {
+        Barrel barrel = barrel("BarrelA", false);
+        assertTrue(barrel.storePage(PageData.unchanged(URL, "Título", ContentHash.of("Título", "castelo", List.of()))));
+    }
+
+    private Barrel barrel(String name, boolean active) throws Exception {
+        Barrel barrel = new Barrel(name, dir.resolve("none.snapshot"), dir.resolve(name));
+        barrels.add(barrel);
+        if (active) barrel.activateStandalone();
+        return barrel;
+    }
+
+    private static long fingerprint(List<String> words) {
+        Analyzer analyzer = Analyzer.standard();
+        Set<String> terms = new HashSet<>();
+        for (String word : words) {
+            String term = analyzer.term(word);
+            if (term != null) terms.add(term);
+        }
+        return SimHash.of(terms);
+    }
+
+    private static PageData page(String word) {
+        String title = "Página " + word;
+        return new PageData(URL, title, List.of(word), List.of(), ContentHash.of(title, word, List.of()));
+    }
+}
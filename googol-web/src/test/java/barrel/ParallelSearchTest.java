@@ -0,0 +1,76 @@
+package barrel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link ParallelSearch} sobre vistas ({@link PostingView}): o resultado, dividido ou não
+ * em intervalos, tem de coincidir com a união calculada diretamente, sem os docIDs excluídos e
+ * restrita ao filtro.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class ParallelSearchTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void matchesDirectUnionWithExclusionsAndFilter() {
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            int bound = 1 + random.nextInt(5000);
+            BitSet excluded = new BitSet();
+            for (int i = 0; i < bound / 10; i++) excluded.set(random.nextInt(bound));
+
+            List<PostingView> views = new ArrayList<>();
+            TreeSet<Integer> expected = new TreeSet<>();
+            int lists = 1 + random.nextInt(4);
+            for (int l = 0; l < lists; l++) {
+                int[] ids = sortedUnique(random, random.nextInt(2000), bound);
+                // Metade das listas vem do "snapshot" (com docIDs excluídos), a outra da memória
+                boolean mapped = l % 2 == 0;
+                views.add(new PostingView(IntBuffer.wrap(ids), mapped ? excluded : null));
+                for (int id : ids) if (!mapped || !excluded.get(id)) expected.add(id);
+            }
+
+            PostingView filter = null;
+            if (random.nextBoolean()) {
+                int[] allowed = sortedUnique(random, random.nextInt(bound), bound);
+                filter = new PostingView(IntBuffer.wrap(allowed), excluded);
+                TreeSet<Integer> kept = new TreeSet<>();
+                for (int id : allowed) if (!excluded.get(id)) kept.add(id);
+                expected.retainAll(kept);
+            }
+
+            int k = 1 + random.nextInt(50);
+            ParallelSearch search = new ParallelSearch(pool, 1 + random.nextInt(500));
+            ParallelSearch.Result result = search.search(views, filter, id -> ((long) (id % 97) << 32) | id, k);
+
+            assertEquals(expected.size(), result.getTotal());
+            long[] keys = expected.stream().mapToLong(id -> ((long) (id % 97) << 32) | id).sorted().limit(k).toArray();
+            int[] top = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) top[i] = (int) keys[i];
+            assertArrayEquals(top, result.getTopIds());
+        }
+    }
+
+    private static int[] sortedUnique(Random random, int n, int bound) {
+        return random.ints(n, 0, bound).sorted().distinct().toArray();
+    }
+}
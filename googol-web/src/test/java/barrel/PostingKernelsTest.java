@@ -0,0 +1,87 @@
+package barrel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Testes dos kernels de {@link PostingKernel}: o escalar é comparado com uma interseção simples e o
+ * vetorial com o escalar (apenas quando a JVM tem o módulo {@code jdk.incubator.vector}).
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class PostingKernelsTest {
+
+    @Test
+    void scalarKernelMatchesSetIntersection() {
+        Random random = new Random(1);
+        PostingKernel scalar = new ScalarPostingKernel();
+        for (int round = 0; round < 500; round++) {
+            int[] a = sortedUnique(random, random.nextInt(200), 1 + random.nextInt(1000));
+            int[] b = sortedUnique(random, random.nextInt(200), 1 + random.nextInt(1000));
+            assertIntersection(expected(a, b), scalar, a, b);
+        }
+    }
+
+    @Test
+    void vectorKernelMatchesScalarKernel() {
+        PostingKernel vector = PostingKernels.vectorKernel();
+        assumeTrue(vector != null, "JVM sem --add-modules jdk.incubator.vector");
+
+        Random random = new Random(2);
+        PostingKernel scalar = new ScalarPostingKernel();
+        for (int round = 0; round < 2000; round++) {
+            // Tamanhos à volta do número de lanes, para exercitar o fim escalar de cada operação
+            int aLen = random.nextInt(round % 2 == 0 ? 40 : 3000);
+            int bLen = random.nextInt(round % 3 == 0 ? 40 : 3000);
+            int bound = 1 + random.nextInt(4 * Math.max(aLen, bLen) + 1);
+            int[] a = sortedUnique(random, aLen, bound);
+            int[] b = sortedUnique(random, bLen, bound);
+            int[] out = new int[Math.min(a.length, b.length)];
+            int n = scalar.intersect(a, a.length, b, b.length, out);
+            assertIntersection(Arrays.copyOf(out, n), vector, a, b);
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        PostingKernel vector = PostingKernels.vectorKernel();
+        for (PostingKernel kernel : vector == null
+                ? new PostingKernel[]{new ScalarPostingKernel()}
+                : new PostingKernel[]{new ScalarPostingKernel(), vector}) {
+            int[] all = new int[100];
+            for (int i = 0; i < all.length; i++) all[i] = i * 3;
+
+            assertIntersection(new int[0], kernel, new int[0], all);
+            assertIntersection(all, kernel, all, all);
+            assertIntersection(new int[]{0, 297}, kernel, new int[]{0, 1, 297, 298}, all);
+            assertIntersection(new int[0], kernel, new int[]{1, 2, 4, 5}, all);
+            assertIntersection(new int[]{Integer.MAX_VALUE}, kernel,
+                    new int[]{-5, Integer.MAX_VALUE}, new int[]{Integer.MIN_VALUE, 7, Integer.MAX_VALUE});
+        }
+    }
+
+    private static void assertIntersection(int[] expected, PostingKernel kernel, int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = kernel.intersect(a, a.length, b, b.length, out);
+        assertArrayEquals(expected, Arrays.copyOf(out, n), kernel.name());
+        assertEquals(expected.length, kernel.intersectCount(a, a.length, b, b.length), kernel.name());
+        assertEquals(expected.length, kernel.intersectCount(b, b.length, a, a.length), kernel.name());
+    }
+
+    private static int[] expected(int[] a, int[] b) {
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int v : a) set.add(v);
+        return Arrays.stream(b).filter(set::contains).toArray();
+    }
+
+    private static int[] sortedUnique(Random random, int n, int bound) {
+        return random.ints(n, 0, bound).sorted().distinct().toArray();
+    }
+}
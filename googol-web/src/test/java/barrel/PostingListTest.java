@@ -0,0 +1,62 @@
+package barrel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da {@link PostingList}, comparada com um {@link TreeSet} sob inserções e remoções
+ * aleatórias (incluindo remoções diferidas e docIDs removidos e de novo adicionados).
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class PostingListTest {
+
+    @Test
+    void matchesSortedSetUnderRandomUpdates() {
+        Random random = new Random(7);
+        PostingList list = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int step = 0; step < 50_000; step++) {
+            int id = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), list.remove(id));
+            } else {
+                assertEquals(expected.add(id), list.add(id));
+            }
+            assertEquals(expected.size(), list.size());
+            if (step % 97 == 0) {
+                int probe = random.nextInt(2000);
+                assertEquals(expected.contains(probe), list.contains(probe));
+            }
+            if (step % 1009 == 0) {
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+            }
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), list.toArray());
+    }
+
+    @Test
+    void removalsAreDeferredUntilRead() {
+        PostingList list = new PostingList();
+        for (int id = 0; id < 100; id++) list.add(id);
+        long bytes = list.estimatedBytes();
+
+        for (int id = 10; id < 20; id++) assertTrue(list.remove(id));
+        assertEquals(90, list.size());
+        assertFalse(list.contains(15));
+        assertTrue(list.add(15));
+        assertTrue(list.contains(15));
+        assertTrue(list.estimatedBytes() >= bytes);
+
+        assertEquals(91, list.toArray().length);
+        assertEquals(9, list.get(9));
+        assertEquals(15, list.get(10));
+        assertEquals(20, list.get(11));
+    }
+}
@@ -0,0 +1,78 @@
+package barrel;
+
+import common.ContentHash;
+import common.PageData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do operador {@code site:}: o host completo é sempre indexado (mesmo sem ponto, como
+ * "localhost"), os sufixos só quando ainda têm um ponto (nunca um TLD isolado).
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class SiteFilterTest {
+
+    @TempDir
+    Path dir;
+
+    private Barrel barrel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        barrel = new Barrel("BarrelSite", dir.resolve("none.snapshot"), dir.resolve("data"));
+        barrel.activateStandalone();
+        store("http://localhost:8080/docs", "castelo");
+        store("https://www.dei.uc.pt/", "castelo");
+        store("https://uc.pt/", "castelo");
+        store("https://example.com/", "castelo");
+        store("http://10.0.0.1/", "castelo");
+    }
+
+    @AfterEach
+    void unexport() throws Exception {
+        UnicastRemoteObject.unexportObject(barrel, true);
+    }
+
+    @Test
+    void dotlessHostIsIndexed() throws Exception {
+        assertEquals(Set.of("http://localhost:8080/docs"), search("castelo site:localhost"));
+        assertEquals(Set.of("http://localhost:8080/docs"), search("site:LOCALHOST:8080"));
+    }
+
+    @Test
+    void suffixesStopBeforeTheTld() throws Exception {
+        assertEquals(Set.of("https://www.dei.uc.pt/", "https://uc.pt/"), search("castelo site:uc.pt"));
+        assertEquals(Set.of("https://www.dei.uc.pt/"), search("site:dei.uc.pt"));
+        assertEquals(Set.of(), search("castelo site:pt"));
+        assertEquals(Set.of(), search("site:com"));
+    }
+
+    @Test
+    void ipAddressHasNoSuffixes() throws Exception {
+        assertEquals(Set.of("http://10.0.0.1/"), search("site:10.0.0.1"));
+        assertEquals(Set.of(), search("site:0.0.1"));
+    }
+
+    private void store(String url, String word) throws Exception {
+        String title = "Página " + url;
+        barrel.storePage(new PageData(url, title, List.of(word), List.of(), ContentHash.of(title, word, List.of())));
+    }
+
+    private Set<String> search(String query) throws Exception {
+        Set<String> urls = new HashSet<>(barrel.search(List.of(query.split(" "))).keySet());
+        urls.remove("##META_STATS##");
+        return urls;
+    }
+}
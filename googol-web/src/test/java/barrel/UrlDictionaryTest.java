@@ -0,0 +1,94 @@
+package barrel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do {@link UrlDictionary}: os blocos com front coding devolvem os mesmos URLs e docIDs que
+ * um mapa simples, antes e depois das fusões da zona de escrita.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class UrlDictionaryTest {
+
+    private static final String[] HOSTS = {
+            "https://www.dominio.pt/", "https://www.dominio.pt/noticias/", "http://a.com/",
+            "https://pt.wikipedia.org/wiki/", "https://exemplo.pt/ação/", "https://exemplo.pt/"
+    };
+
+    @Test
+    void matchesPlainMapAcrossMerges() {
+        Random random = new Random(7);
+        UrlDictionary dictionary = new UrlDictionary();
+        Map<String, Integer> expected = new HashMap<>();
+        List<String> byId = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            String url = randomUrl(random);
+            Integer known = expected.get(url);
+            int id = dictionary.getOrAdd(url);
+            if (known != null) {
+                assertEquals((int) known, id, "docID estável para " + url);
+            } else {
+                assertEquals(byId.size(), id, "docIDs atribuídos por ordem de chegada");
+                expected.put(url, id);
+                byId.add(url);
+            }
+            if (i % 5_000 == 0) assertSameDictionary(expected, byId, dictionary);
+        }
+        assertSameDictionary(expected, byId, dictionary);
+
+        dictionary.merge();
+        assertSameDictionary(expected, byId, dictionary);
+    }
+
+    @Test
+    void distinguishesPrefixesAndNonAsciiUrls() {
+        UrlDictionary dictionary = new UrlDictionary();
+        String[] urls = {
+                "https://x.pt/a", "https://x.pt/a/", "https://x.pt/a/b", "https://x.pt/", "https://x.pt/á",
+                "https://x.pt/z", "https://x.pt/€", "https://x.pt/aç", "https://x.pt/ab"
+        };
+        for (String url : urls) dictionary.getOrAdd(url);
+        dictionary.merge();
+
+        for (int id = 0; id < urls.length; id++) {
+            assertEquals(urls[id], dictionary.get(id));
+            assertEquals(id, dictionary.lookup(urls[id]));
+        }
+        assertEquals(-1, dictionary.lookup("https://x.pt/a/b/"));
+        assertEquals(-1, dictionary.lookup("https://x.pt"));
+        assertEquals(-1, dictionary.lookup(""));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.get(urls.length));
+    }
+
+    private static String randomUrl(Random random) {
+        String host = HOSTS[random.nextInt(HOSTS.length)];
+        StringBuilder path = new StringBuilder(host);
+        int segments = 1 + random.nextInt(3);
+        for (int s = 0; s < segments; s++) {
+            if (s > 0) path.append('/');
+            path.append(Integer.toString(random.nextInt(400), 36));
+        }
+        return path.toString();
+    }
+
+    private static void assertSameDictionary(Map<String, Integer> expected, List<String> byId, UrlDictionary dictionary) {
+        assertEquals(byId.size(), dictionary.size());
+        for (int id = 0; id < byId.size(); id++) {
+            assertEquals(byId.get(id), dictionary.get(id), "URL do docID " + id);
+        }
+        for (Map.Entry<String, Integer> e : expected.entrySet()) {
+            assertEquals((int) e.getValue(), dictionary.lookup(e.getKey()), "docID de " + e.getKey());
+        }
+        assertEquals(-1, dictionary.lookup("https://inexistente.pt/"));
+    }
+}
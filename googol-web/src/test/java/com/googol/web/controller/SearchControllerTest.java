@@ -0,0 +1,75 @@
+package com.googol.web.controller;
+
+import com.googol.web.service.GoogolService;
+import com.googol.web.service.HackerNewsService;
+import com.googol.web.service.OpenAIService;
+import common.ServiceOverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do {@link SearchController} quando o Gateway recusa pedidos por excesso de carga:
+ * o utilizador recebe 503 com {@code Retry-After} e uma mensagem, e não uma lista vazia.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class SearchControllerTest {
+
+    private GoogolService googolService;
+    private SearchController controller;
+
+    @BeforeEach
+    void setUp() {
+        googolService = mock(GoogolService.class);
+        controller = new SearchController(googolService, mock(OpenAIService.class), mock(HackerNewsService.class));
+    }
+
+    @Test
+    void shedSearchAnswersServiceUnavailable() throws Exception {
+        when(googolService.search(anyString(), anyInt())).thenThrow(new ServiceOverloadedException("ocupado", 1500));
+        ExtendedModelMap model = new ExtendedModelMap();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertEquals("index", controller.index("googol", 1, model, response));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(((String) model.get("message")).contains("1500 ms"));
+        assertNull(model.get("results"));
+    }
+
+    @Test
+    void shedLinksPageAnswersServiceUnavailable() throws Exception {
+        when(googolService.getBacklinks(anyString(), anyLong(), anyInt())).thenThrow(new ServiceOverloadedException("ocupado", 200));
+
+        ResponseEntity<Map<String, Object>> page = controller.incomingLinksPage("https://uc.pt", 0);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, page.getStatusCode());
+        assertEquals("1", page.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(200L, page.getBody().get("retryAfterMillis"));
+    }
+
+    @Test
+    void shedIndexRequestReportsBusy() throws Exception {
+        when(googolService.indexURL(anyString())).thenThrow(new ServiceOverloadedException("ocupado", 300));
+        RedirectAttributesModelMap attrs = new RedirectAttributesModelMap();
+
+        assertEquals("redirect:/", controller.indexUrl("https://uc.pt", attrs));
+
+        assertEquals("error", attrs.getFlashAttributes().get("msgType"));
+        assertTrue(((String) attrs.getFlashAttributes().get("message")).contains("300 ms"));
+    }
+}
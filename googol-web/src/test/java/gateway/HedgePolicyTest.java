@@ -0,0 +1,45 @@
+package gateway;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do orçamento de pedidos duplicados da {@link HedgePolicy}.
+ *
+ * @author Ivan, Rodrigo e Samuel
+ * @version 1.0
+ */
+class HedgePolicyTest {
+
+    @Test
+    void unusedBudgetDoesNotAccumulate() {
+        HedgePolicy policy = new HedgePolicy(95, 0.05, 0);
+        for (int i = 0; i < 10_000; i++) policy.onRequest();
+
+        // Depois de um longo período sem duplicados, só a rajada máxima é permitida
+        assertTrue(policy.tryHedge());
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+    }
+
+    @Test
+    void sustainedRateFollowsBudget() {
+        HedgePolicy policy = new HedgePolicy(95, 0.25, 0);
+        while (policy.tryHedge()) { }
+
+        int hedges = 0;
+        for (int i = 0; i < 1000; i++) {
+            policy.onRequest();
+            if (policy.tryHedge()) hedges++;
+        }
+        assertEquals(250, hedges);
+    }
+
+    @Test
+    void zeroBudgetNeverHedges() {
+        HedgePolicy policy = new HedgePolicy(95, 0, 0);
+        policy.onRequest();
+        assertFalse(policy.tryHedge());
+    }
+}